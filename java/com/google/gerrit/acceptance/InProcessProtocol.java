@@ -245,7 +245,10 @@ class InProcessProtocol extends TestProtocol<Context> {
       UploadPack up = new UploadPack(repo);
       up.setPackConfig(transferConfig.getPackConfig());
       up.setTimeout(transferConfig.getTimeout());
-      up.setAdvertiseRefsHook(new DefaultAdvertiseRefsHook(perm, RefFilterOptions.defaults()));
+      DefaultAdvertiseRefsHook advertiseRefsHook =
+          new DefaultAdvertiseRefsHook(perm, RefFilterOptions.defaults());
+      up.setAdvertiseRefsHook(advertiseRefsHook);
+      up.setProtocolV2Hook(advertiseRefsHook);
       List<PreUploadHook> hooks = Lists.newArrayList(preUploadHooks);
       hooks.add(uploadValidatorsFactory.create(projectState.getProject(), repo, "localhost-test"));
       up.setPreUploadHook(PreUploadHookChain.newChain(hooks));
@@ -53,6 +53,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
 import com.google.gwtorm.server.OrmException;
 import com.google.protobuf.MessageLite;
 import java.io.IOException;
@@ -291,9 +292,13 @@ abstract class AbstractElasticIndex<K, V> implements Index<K, V> {
     return params;
   }
 
-  protected String getSearch(SearchSourceBuilder searchSource, JsonArray sortArray) {
+  protected String getSearch(
+      SearchSourceBuilder searchSource, JsonArray sortArray, @Nullable List<Object> searchAfter) {
     JsonObject search = new JsonParser().parse(searchSource.toString()).getAsJsonObject();
     search.add("sort", sortArray);
+    if (searchAfter != null) {
+      search.add("search_after", toSortValues(searchAfter));
+    }
     return gson.toJson(search);
   }
 
@@ -352,6 +357,27 @@ abstract class AbstractElasticIndex<K, V> implements Index<K, V> {
     return client.get().performRequest(request);
   }
 
+  private static JsonArray toSortValues(List<Object> values) {
+    JsonArray array = new JsonArray();
+    for (Object v : values) {
+      if (v instanceof Number) {
+        array.add((Number) v);
+      } else {
+        array.add(String.valueOf(v));
+      }
+    }
+    return array;
+  }
+
+  private static List<Object> fromSortValues(JsonArray array) {
+    List<Object> values = Lists.newArrayListWithCapacity(array.size());
+    for (JsonElement e : array) {
+      JsonPrimitive p = e.getAsJsonPrimitive();
+      values.add(p.isNumber() ? (Object) p.getAsLong() : p.getAsString());
+    }
+    return values;
+  }
+
   protected class ElasticQuerySource implements DataSource<V> {
     private final QueryOptions opts;
     private final String search;
@@ -368,7 +394,7 @@ abstract class AbstractElasticIndex<K, V> implements Index<K, V> {
               .from(opts.start())
               .size(opts.limit())
               .fields(Lists.newArrayList(opts.fields()));
-      search = getSearch(searchSource, sortArray);
+      search = getSearch(searchSource, sortArray, opts.searchAfter());
     }
 
     @Override
@@ -405,7 +431,14 @@ abstract class AbstractElasticIndex<K, V> implements Index<K, V> {
                 results.add(mapperResult);
               }
             }
-            return new ListResultSet<>(results.build());
+            List<Object> searchAfter = null;
+            if (json.size() > 0) {
+              JsonElement sort = json.get(json.size() - 1).getAsJsonObject().get("sort");
+              if (sort != null && sort.isJsonArray()) {
+                searchAfter = fromSortValues(sort.getAsJsonArray());
+              }
+            }
+            return new ListResultSet<>(results.build(), searchAfter);
           }
         } else {
           logger.atSevere().log(statusLine.getReasonPhrase());
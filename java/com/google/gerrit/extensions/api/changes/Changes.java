@@ -75,6 +75,7 @@ public interface Changes {
     private String query;
     private int limit;
     private int start;
+    private String cursor;
     private boolean isNoLimit;
     private EnumSet<ListChangesOption> options = EnumSet.noneOf(ListChangesOption.class);
 
@@ -100,6 +101,12 @@ public interface Changes {
       return this;
     }
 
+    /** Continue after the change on which {@link ChangeInfo#_cursor} was set. */
+    public QueryRequest withCursor(String cursor) {
+      this.cursor = cursor;
+      return this;
+    }
+
     /** Set an option on the request, appending to existing options. */
     public QueryRequest withOption(ListChangesOption options) {
       this.options.add(options);
@@ -134,6 +141,10 @@ public interface Changes {
       return start;
     }
 
+    public String getCursor() {
+      return cursor;
+    }
+
     public EnumSet<ListChangesOption> getOptions() {
       return options;
     }
@@ -147,6 +158,9 @@ public interface Changes {
       if (start != 0) {
         sb.append(", start=").append(start);
       }
+      if (cursor != null) {
+        sb.append(", cursor=").append(cursor);
+      }
       if (!options.isEmpty()) {
         sb.append("options=").append(options);
       }
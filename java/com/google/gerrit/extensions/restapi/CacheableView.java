@@ -0,0 +1,40 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.extensions.restapi;
+
+import com.google.gerrit.common.Nullable;
+
+/**
+ * A read view whose responses may be cached by the server.
+ *
+ * <p>The view must be an {@link ETagView}, or its resource must implement {@link
+ * RestResource.HasETag}. Its response must only depend on this ETag, the calling user, the request
+ * parameters and the repository of the project returned by {@link #getProject(RestResource)}.
+ * Cached responses are dropped when a ref of this project is updated or when one of its changes is
+ * reindexed.
+ *
+ * @param <R> type of resource the view reads.
+ */
+public interface CacheableView<R extends RestResource> extends RestReadView<R> {
+  /**
+   * Returns the name of the project whose updates invalidate the response.
+   *
+   * @param resource resource to read.
+   * @return name of the project, or {@code null} if the response for the current options of the
+   *     view must not be cached.
+   */
+  @Nullable
+  String getProject(R resource);
+}
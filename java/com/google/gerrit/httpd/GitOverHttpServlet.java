@@ -391,7 +391,10 @@ public class GitOverHttpServlet extends GitServlet {
         up.setPreUploadHook(
             PreUploadHookChain.newChain(
                 Lists.newArrayList(up.getPreUploadHook(), uploadValidators)));
-        up.setAdvertiseRefsHook(new DefaultAdvertiseRefsHook(perm, RefFilterOptions.defaults()));
+        DefaultAdvertiseRefsHook advertiseRefsHook =
+            new DefaultAdvertiseRefsHook(perm, RefFilterOptions.defaults());
+        up.setAdvertiseRefsHook(advertiseRefsHook);
+        up.setProtocolV2Hook(advertiseRefsHook);
         next.doFilter(httpRequest, responseWrapper);
       } finally {
         groupAuditService.dispatch(
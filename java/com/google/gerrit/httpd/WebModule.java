@@ -21,6 +21,7 @@ import com.google.gerrit.httpd.auth.container.HttpAuthModule;
 import com.google.gerrit.httpd.auth.container.HttpsClientSslCertModule;
 import com.google.gerrit.httpd.auth.ldap.LdapAuthModule;
 import com.google.gerrit.httpd.gitweb.GitwebModule;
+import com.google.gerrit.httpd.restapi.RestResponseCache;
 import com.google.gerrit.lifecycle.LifecycleModule;
 import com.google.gerrit.server.RemotePeer;
 import com.google.gerrit.server.config.AuthConfig;
@@ -57,6 +58,7 @@ public class WebModule extends LifecycleModule {
       install(new UrlModule(authConfig));
     }
     install(new GerritRequestModule());
+    install(RestResponseCache.module());
     install(new GitOverHttpServlet.Module(options.enableMasterFeatures()));
 
     if (gitwebCgiConfig.getGitwebCgi() != null) {
@@ -28,10 +28,15 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Strings;
 import com.google.common.cache.Cache;
 import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.proto.Protos;
 import com.google.gerrit.reviewdb.client.Account;
 import com.google.gerrit.server.account.externalids.ExternalId;
+import com.google.gerrit.server.cache.proto.Cache.WebSessionProto;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
 import com.google.gerrit.server.config.ConfigUtil;
 import com.google.gerrit.server.config.GerritServerConfig;
 import com.google.inject.Inject;
@@ -306,5 +311,37 @@ public class WebSessionManager {
         expiresAt = refreshCookieAt + TimeUnit.HOURS.toMillis(2);
       }
     }
+
+    @VisibleForTesting
+    enum Serializer implements CacheSerializer<Val> {
+      INSTANCE;
+
+      @Override
+      public byte[] serialize(Val object) {
+        return Protos.toByteArray(
+            WebSessionProto.newBuilder()
+                .setAccountId(object.accountId.get())
+                .setRefreshCookieAt(object.refreshCookieAt)
+                .setPersistentCookie(object.persistentCookie)
+                .setExternalId(object.externalId != null ? object.externalId.toString() : "")
+                .setSessionId(Strings.nullToEmpty(object.sessionId))
+                .setExpiresAt(object.expiresAt)
+                .setAuth(Strings.nullToEmpty(object.auth))
+                .build());
+      }
+
+      @Override
+      public Val deserialize(byte[] in) {
+        WebSessionProto proto = Protos.parseUnchecked(WebSessionProto.parser(), in);
+        return new Val(
+            new Account.Id(proto.getAccountId()),
+            proto.getRefreshCookieAt(),
+            proto.getPersistentCookie(),
+            !proto.getExternalId().isEmpty() ? ExternalId.Key.parse(proto.getExternalId()) : null,
+            proto.getExpiresAt(),
+            Strings.emptyToNull(proto.getSessionId()),
+            Strings.emptyToNull(proto.getAuth()));
+      }
+    }
   }
 }
@@ -203,6 +203,7 @@ public class RestApiServlet extends HttpServlet {
   public static final String XD_METHOD = "$m";
 
   private static final int HEAP_EST_SIZE = 10 * 8 * 1024; // Presize 10 blocks.
+  private static final int DEFAULT_JSON_RESPONSE_BUFFER_SIZE = 256 * 1024;
   private static final String PLAIN_TEXT = "text/plain";
   private static final Pattern TYPE_SPLIT_PATTERN = Pattern.compile("[ ,;][ ,;]*");
 
@@ -229,6 +230,10 @@ public class RestApiServlet extends HttpServlet {
     final RestApiMetrics metrics;
     final Pattern allowOrigin;
     final RestApiQuotaEnforcer quotaChecker;
+    final RestResponseCache responseCache;
+    final PerThreadCache.Metrics perThreadCacheMetrics;
+    final int jsonResponseBufferSize;
+    private final Config cfg;
 
     @Inject
     Globals(
@@ -239,6 +244,8 @@ public class RestApiServlet extends HttpServlet {
         GroupAuditService auditService,
         RestApiMetrics metrics,
         RestApiQuotaEnforcer quotaChecker,
+        RestResponseCache responseCache,
+        PerThreadCache.Metrics perThreadCacheMetrics,
         @GerritServerConfig Config cfg) {
       this.currentUser = currentUser;
       this.webSession = webSession;
@@ -247,7 +254,28 @@ public class RestApiServlet extends HttpServlet {
       this.auditService = auditService;
       this.metrics = metrics;
       this.quotaChecker = quotaChecker;
+      this.responseCache = responseCache;
+      this.perThreadCacheMetrics = perThreadCacheMetrics;
+      this.cfg = cfg;
       allowOrigin = makeAllowOrigin(cfg);
+      int bufferSize =
+          cfg.getInt("http", null, "jsonResponseBufferSize", DEFAULT_JSON_RESPONSE_BUFFER_SIZE);
+      jsonResponseBufferSize = Math.max(bufferSize, 0);
+    }
+
+    /**
+     * Returns the capacity of the per-request cache of an endpoint.
+     *
+     * @param endpoint name of the endpoint, such as {@code "projects"}, or {@code null} for
+     *     endpoints without a name.
+     */
+    int perThreadCacheMaxEntries(@Nullable String endpoint) {
+      int maxEntries =
+          cfg.getInt("perThreadCache", null, "maxEntries", PerThreadCache.DEFAULT_MAX_ENTRIES);
+      if (endpoint != null) {
+        maxEntries = cfg.getInt("perThreadCache", endpoint, "maxEntries", maxEntries);
+      }
+      return Math.max(maxEntries, 0);
     }
 
     private static Pattern makeAllowOrigin(Config cfg) {
@@ -261,6 +289,7 @@ public class RestApiServlet extends HttpServlet {
 
   private final Globals globals;
   private final Provider<RestCollection<RestResource, RestResource>> members;
+  private final int perThreadCacheMaxEntries;
 
   public RestApiServlet(
       Globals globals, RestCollection<? extends RestResource, ? extends RestResource> members) {
@@ -275,6 +304,21 @@ public class RestApiServlet extends HttpServlet {
         (Provider<RestCollection<RestResource, RestResource>>) requireNonNull((Object) members);
     this.globals = globals;
     this.members = n;
+    this.perThreadCacheMaxEntries = globals.perThreadCacheMaxEntries(endpointName(getClass()));
+  }
+
+  /**
+   * Returns the name of the endpoint served by a servlet class, e.g. {@code "projects"} for {@code
+   * ProjectsRestApiServlet}.
+   */
+  @Nullable
+  private static String endpointName(Class<?> servletClass) {
+    String name = servletClass.getSimpleName();
+    String suffix = RestApiServlet.class.getSimpleName();
+    if (name.length() <= suffix.length() || !name.endsWith(suffix)) {
+      return null;
+    }
+    return name.substring(0, name.length() - suffix.length()).toLowerCase(Locale.US);
   }
 
   @Override
@@ -291,9 +335,11 @@ public class RestApiServlet extends HttpServlet {
     Object inputRequestBody = null;
     RestResource rsrc = TopLevelResource.INSTANCE;
     ViewData viewData = null;
+    RestResponseCache.Key cacheKey = null;
 
     try (TraceContext traceContext = enableTracing(req, res)) {
-      try (PerThreadCache ignored = PerThreadCache.create()) {
+      try (PerThreadCache ignored =
+          PerThreadCache.create(perThreadCacheMaxEntries, globals.perThreadCacheMetrics)) {
         logger.atFinest().log(
             "Received REST request: %s %s (parameters: %s)",
             req.getMethod(), req.getRequestURI(), getParameterNames(req));
@@ -462,7 +508,15 @@ public class RestApiServlet extends HttpServlet {
         }
 
         if (viewData.view instanceof RestReadView<?> && isRead(req)) {
-          result = ((RestReadView<RestResource>) viewData.view).apply(rsrc);
+          cacheKey =
+              globals.responseCache.key(req, qp, globals.currentUser.get(), rsrc, viewData.view);
+          RestResponseCache.Entry cached =
+              cacheKey != null ? globals.responseCache.get(cacheKey) : null;
+          if (cached != null) {
+            result = Response.ok(jsonResult(cached.json)).caching(cached.caching);
+          } else {
+            result = ((RestReadView<RestResource>) viewData.view).apply(rsrc);
+          }
         } else if (viewData.view instanceof RestModifyView<?, ?>) {
           @SuppressWarnings("unchecked")
           RestModifyView<RestResource, Object> m =
@@ -543,11 +597,18 @@ public class RestApiServlet extends HttpServlet {
         logger.atFinest().log("REST call succeeded: %d", status);
 
         if (result != Response.none()) {
+          CacheControl caching =
+              result instanceof Response ? ((Response<?>) result).caching() : CacheControl.NONE;
           result = Response.unwrap(result);
           if (result instanceof BinaryResult) {
             responseBytes = replyBinaryResult(req, res, (BinaryResult) result);
+          } else if (cacheKey != null && status == SC_OK) {
+            byte[] json = formatJson(req, qp.config(), result);
+            globals.responseCache.put(cacheKey, new RestResponseCache.Entry(json, caching));
+            responseBytes = replyBinaryResult(req, res, jsonResult(json));
           } else {
-            responseBytes = replyJson(req, res, false, qp.config(), result);
+            responseBytes =
+                replyJson(req, res, false, qp.config(), result, globals.jsonResponseBufferSize);
           }
         }
       } catch (MalformedJsonException | JsonParseException e) {
@@ -1021,19 +1082,44 @@ public class RestApiServlet extends HttpServlet {
       ListMultimap<String, String> config,
       Object result)
       throws IOException {
-    TemporaryBuffer.Heap buf = heap(HEAP_EST_SIZE, Integer.MAX_VALUE);
-    buf.write(JSON_MAGIC);
-    Writer w = new BufferedWriter(new OutputStreamWriter(buf, UTF_8));
-    Gson gson = newGson(config, req);
-    if (result instanceof JsonElement) {
-      gson.toJson((JsonElement) result, w);
-    } else {
-      gson.toJson(result, w);
+    return replyJson(req, res, allowTracing, config, result, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Sets a JSON reply on the given HTTP servlet response, streaming it if it is large.
+   *
+   * <p>Replies up to {@code bufferSize} bytes are buffered and sent with a {@code Content-Length}.
+   * Larger replies are sent with chunked transfer encoding while they are formatted, and are
+   * compressed on the fly if the client accepts gzip. Replies to {@code HEAD} requests and replies
+   * that may be traced are always buffered.
+   *
+   * @param req the HTTP servlet request
+   * @param res the HTTP servlet response on which the reply should be set
+   * @param allowTracing whether it is allowed to log the reply if tracing is enabled, must not be
+   *     set to {@code true} if the reply may contain sensitive data
+   * @param config config parameters for the JSON formatting
+   * @param result the object that should be formatted as JSON
+   * @param bufferSize maximum number of bytes that are buffered before the reply is streamed
+   * @return the length of the response
+   * @throws IOException
+   */
+  static long replyJson(
+      @Nullable HttpServletRequest req,
+      HttpServletResponse res,
+      boolean allowTracing,
+      ListMultimap<String, String> config,
+      Object result,
+      int bufferSize)
+      throws IOException {
+    if (req == null || "HEAD".equals(req.getMethod()) || allowTracing) {
+      // The whole reply is needed to compute the Content-Length or to log it.
+      bufferSize = Integer.MAX_VALUE;
     }
-    w.write('\n');
-    w.flush();
+    JsonResponseStream out = new JsonResponseStream(req, res, bufferSize);
+    writeJson(out, req, config, result);
 
     if (allowTracing) {
+      TemporaryBuffer.Heap buf = out.buf;
       logger.atFinest().log(
           "JSON response body:\n%s",
           lazy(
@@ -1047,8 +1133,104 @@ public class RestApiServlet extends HttpServlet {
                 }
               }));
     }
-    return replyBinaryResult(
-        req, res, asBinaryResult(buf).setContentType(JSON_TYPE).setCharacterEncoding(UTF_8));
+    return out.finish();
+  }
+
+  private static byte[] formatJson(
+      HttpServletRequest req, ListMultimap<String, String> config, Object result)
+      throws IOException {
+    TemporaryBuffer.Heap buf = heap(HEAP_EST_SIZE, Integer.MAX_VALUE);
+    writeJson(buf, req, config, result);
+    return buf.toByteArray();
+  }
+
+  private static void writeJson(
+      OutputStream out,
+      @Nullable HttpServletRequest req,
+      ListMultimap<String, String> config,
+      Object result)
+      throws IOException {
+    out.write(JSON_MAGIC);
+    Writer w = new BufferedWriter(new OutputStreamWriter(out, UTF_8));
+    Gson gson = newGson(config, req);
+    if (result instanceof JsonElement) {
+      gson.toJson((JsonElement) result, w);
+    } else {
+      gson.toJson(result, w);
+    }
+    w.write('\n');
+    w.flush();
+  }
+
+  private static BinaryResult jsonResult(byte[] json) {
+    return BinaryResult.create(json).setContentType(JSON_TYPE).setCharacterEncoding(UTF_8);
+  }
+
+  /**
+   * Output stream for a JSON reply that is buffered up to a limit and streamed to the servlet
+   * response once the limit is exceeded.
+   */
+  private static class JsonResponseStream extends OutputStream {
+    private final HttpServletRequest req;
+    private final HttpServletResponse res;
+    private final int limit;
+    private TemporaryBuffer.Heap buf = heap(HEAP_EST_SIZE, Integer.MAX_VALUE);
+    private CountingOutputStream counting;
+    private OutputStream out;
+
+    JsonResponseStream(@Nullable HttpServletRequest req, HttpServletResponse res, int limit) {
+      this.req = req;
+      this.res = res;
+      this.limit = limit;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      stream(1).write(b);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      stream(len).write(b, off, len);
+    }
+
+    @Override
+    public void flush() throws IOException {
+      if (out != null) {
+        out.flush();
+      }
+    }
+
+    private OutputStream stream(int len) throws IOException {
+      if (out == null && buf.length() + len > limit) {
+        res.setContentType(JSON_TYPE);
+        res.setCharacterEncoding(UTF_8.name());
+        counting = new CountingOutputStream(res.getOutputStream());
+        if (acceptsGzip(req)) {
+          res.setHeader("Content-Encoding", "gzip");
+          out = new GZIPOutputStream(counting);
+        } else {
+          out = counting;
+        }
+        buf.writeTo(out, null);
+        buf = null;
+      }
+      return out != null ? out : buf;
+    }
+
+    /**
+     * Completes the reply.
+     *
+     * @return the length of the response
+     */
+    long finish() throws IOException {
+      if (out == null) {
+        return replyBinaryResult(
+            req, res, asBinaryResult(buf).setContentType(JSON_TYPE).setCharacterEncoding(UTF_8));
+      }
+      out.close();
+      return counting.getCount();
+    }
   }
 
   private static Gson newGson(
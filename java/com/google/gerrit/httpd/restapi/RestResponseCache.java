@@ -0,0 +1,251 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.httpd.restapi;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.net.HttpHeaders;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.extensions.events.ChangeIndexedListener;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
+import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.extensions.restapi.CacheControl;
+import com.google.gerrit.extensions.restapi.CacheableView;
+import com.google.gerrit.extensions.restapi.ETagView;
+import com.google.gerrit.extensions.restapi.RestResource;
+import com.google.gerrit.extensions.restapi.RestView;
+import com.google.gerrit.httpd.restapi.ParameterParser.QueryParams;
+import com.google.gerrit.metrics.Counter0;
+import com.google.gerrit.metrics.Counter1;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.Description.Units;
+import com.google.gerrit.metrics.Field;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.gerrit.reviewdb.client.Account;
+import com.google.gerrit.reviewdb.client.AccountGroup;
+import com.google.gerrit.reviewdb.client.Project;
+import com.google.gerrit.reviewdb.client.RefNames;
+import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.gerrit.server.config.AllProjectsName;
+import com.google.gerrit.server.config.GerritServerConfig;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.servlet.http.HttpServletRequest;
+import org.eclipse.jgit.lib.Config;
+
+/**
+ * Server-side cache of the JSON responses of {@link CacheableView}s.
+ *
+ * <p>Entries are keyed by the request, the ETag of the resource and the account and groups of the
+ * user, so that a changed resource or a user with different visibility leads to a different
+ * entry. Each project has a generation number that is part of the key and that is incremented
+ * whenever a ref of the project is updated or one of its changes is reindexed, which makes all
+ * earlier entries of the project unreachable. Config updates may affect child projects as well
+ * and make all entries unreachable.
+ *
+ * <p>Like the visible changes cache, this cache relies on the updates seen by this server and is
+ * disabled by default.
+ */
+@Singleton
+public class RestResponseCache implements GitReferenceUpdatedListener, ChangeIndexedListener {
+  static final String CACHE_NAME = "rest_responses";
+
+  public static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(CACHE_NAME, Key.class, Entry.class).maximumWeight(0).weigher(Weigher.class);
+        bind(RestResponseCache.class);
+        DynamicSet.bind(binder(), GitReferenceUpdatedListener.class).to(RestResponseCache.class);
+        DynamicSet.bind(binder(), ChangeIndexedListener.class).to(RestResponseCache.class);
+      }
+    };
+  }
+
+  @AutoValue
+  abstract static class Key {
+    abstract Project.NameKey project();
+
+    /** Generation of the configs of all projects. */
+    abstract long configGeneration();
+
+    abstract long generation();
+
+    abstract String uri();
+
+    @Nullable
+    abstract String accept();
+
+    abstract ImmutableListMultimap<String, String> config();
+
+    abstract ImmutableListMultimap<String, String> params();
+
+    /** Account of the user, or null for users without an account. */
+    @Nullable
+    abstract Account.Id account();
+
+    abstract ImmutableSet<AccountGroup.UUID> groups();
+
+    abstract String eTag();
+  }
+
+  /** Formatted JSON response, including the {@link RestApiServlet#JSON_MAGIC} prefix. */
+  static class Entry {
+    final byte[] json;
+    final CacheControl caching;
+
+    Entry(byte[] json, CacheControl caching) {
+      this.json = json;
+      this.caching = caching;
+    }
+  }
+
+  static class Weigher implements com.google.common.cache.Weigher<Key, Entry> {
+    @Override
+    public int weigh(Key key, Entry value) {
+      // Rough estimate in bytes: the request and user in the key plus the response.
+      return 256 + 64 * key.groups().size() + value.json.length;
+    }
+  }
+
+  private final Cache<Key, Entry> cache;
+  private final boolean enabled;
+  private final AllProjectsName allProjects;
+  private final AtomicLong configGeneration = new AtomicLong();
+  private final ConcurrentMap<Project.NameKey, AtomicLong> generations = new ConcurrentHashMap<>();
+  private final Counter1<String> lookups;
+  private final Counter0 bytesSaved;
+
+  @Inject
+  RestResponseCache(
+      @Named(CACHE_NAME) Cache<Key, Entry> cache,
+      @GerritServerConfig Config cfg,
+      AllProjectsName allProjects,
+      MetricMaker metricMaker) {
+    this.cache = cache;
+    this.enabled = cfg.getLong("cache", CACHE_NAME, "memoryLimit", 0) > 0;
+    this.allProjects = allProjects;
+    this.lookups =
+        metricMaker.newCounter(
+            "http/server/rest_api/response_cache/lookups",
+            new Description("Lookups of cached REST API responses by result: hit or miss")
+                .setRate(),
+            Field.ofString("result"));
+    this.bytesSaved =
+        metricMaker.newCounter(
+            "http/server/rest_api/response_cache/bytes_saved",
+            new Description("Size of the REST API responses served from the response cache")
+                .setRate()
+                .setUnit(Units.BYTES));
+  }
+
+  /**
+   * Returns the cache key of a request, or null if the response must not be cached.
+   *
+   * <p>The key must be computed before the view is applied, so that a response that is computed
+   * concurrently with an update of the project is not returned for later requests.
+   */
+  @Nullable
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  Key key(
+      HttpServletRequest req,
+      QueryParams qp,
+      CurrentUser user,
+      RestResource rsrc,
+      RestView<RestResource> view) {
+    if (!enabled || !"GET".equals(req.getMethod()) || !(view instanceof CacheableView)) {
+      return null;
+    }
+    String project = ((CacheableView<RestResource>) view).getProject(rsrc);
+    if (project == null) {
+      return null;
+    }
+
+    String eTag;
+    if (view instanceof ETagView) {
+      eTag = ((ETagView) view).getETag(rsrc);
+    } else if (rsrc instanceof RestResource.HasETag) {
+      eTag = ((RestResource.HasETag) rsrc).getETag();
+    } else {
+      return null;
+    }
+    if (eTag == null) {
+      return null;
+    }
+
+    Project.NameKey projectName = new Project.NameKey(project);
+    return new AutoValue_RestResponseCache_Key(
+        projectName,
+        configGeneration.get(),
+        generation(projectName).get(),
+        req.getRequestURI(),
+        req.getHeader(HttpHeaders.ACCEPT),
+        qp.config(),
+        qp.params(),
+        user.isIdentifiedUser() ? user.getAccountId() : null,
+        ImmutableSet.copyOf(user.getEffectiveGroups().getKnownGroups()),
+        eTag);
+  }
+
+  @Nullable
+  Entry get(Key key) {
+    Entry entry = cache.getIfPresent(key);
+    if (entry != null) {
+      lookups.increment("hit");
+      bytesSaved.incrementBy(entry.json.length);
+    } else {
+      lookups.increment("miss");
+    }
+    return entry;
+  }
+
+  void put(Key key, Entry entry) {
+    cache.put(key, entry);
+  }
+
+  @Override
+  public void onGitReferenceUpdated(GitReferenceUpdatedListener.Event event) {
+    Project.NameKey project = new Project.NameKey(event.getProjectName());
+    if (project.equals(allProjects) || RefNames.REFS_CONFIG.equals(event.getRefName())) {
+      // Access rights, labels and submit rules are inherited by child projects.
+      configGeneration.incrementAndGet();
+      cache.invalidateAll();
+    }
+    generation(project).incrementAndGet();
+  }
+
+  @Override
+  public void onChangeIndexed(String projectName, int id) {
+    // Responses may contain results of index queries, such as related changes.
+    generation(new Project.NameKey(projectName)).incrementAndGet();
+  }
+
+  @Override
+  public void onChangeDeleted(int id) {
+    // Deleting a change also deletes its refs, which is handled by onGitReferenceUpdated.
+  }
+
+  private AtomicLong generation(Project.NameKey project) {
+    return generations.computeIfAbsent(project, p -> new AtomicLong());
+  }
+}
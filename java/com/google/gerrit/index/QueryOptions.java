@@ -17,17 +17,34 @@ package com.google.gerrit.index;
 import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.primitives.Ints;
+import com.google.gerrit.common.Nullable;
+import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
 
 @AutoValue
 public abstract class QueryOptions {
   public static QueryOptions create(IndexConfig config, int start, int limit, Set<String> fields) {
+    return create(config, start, limit, fields, null);
+  }
+
+  public static QueryOptions create(
+      IndexConfig config,
+      int start,
+      int limit,
+      Set<String> fields,
+      @Nullable List<Object> searchAfter) {
     checkArgument(start >= 0, "start must be nonnegative: %s", start);
     checkArgument(limit > 0, "limit must be positive: %s", limit);
-    return new AutoValue_QueryOptions(config, start, limit, ImmutableSet.copyOf(fields));
+    return new AutoValue_QueryOptions(
+        config,
+        start,
+        limit,
+        ImmutableSet.copyOf(fields),
+        searchAfter != null ? ImmutableList.copyOf(searchAfter) : null);
   }
 
   public QueryOptions convertForBackend() {
@@ -36,7 +53,7 @@ public abstract class QueryOptions {
     int backendLimit = config().maxLimit();
     int limit = Ints.saturatedCast((long) limit() + start());
     limit = Math.min(limit, backendLimit);
-    return create(config(), 0, limit, fields());
+    return create(config(), 0, limit, fields(), searchAfter());
   }
 
   public abstract IndexConfig config();
@@ -47,15 +64,30 @@ public abstract class QueryOptions {
 
   public abstract ImmutableSet<String> fields();
 
+  /**
+   * Values of the sort fields of the result after which to continue, as returned by {@link
+   * com.google.gerrit.index.query.ResultSet#searchAfter()}.
+   *
+   * <p>Results up to and including this position are skipped by the index itself, so the cost of
+   * reading a page does not depend on how many pages came before it. {@link #start()} is applied
+   * to the results following this position.
+   */
+  @Nullable
+  public abstract ImmutableList<Object> searchAfter();
+
   public QueryOptions withLimit(int newLimit) {
-    return create(config(), start(), newLimit, fields());
+    return create(config(), start(), newLimit, fields(), searchAfter());
   }
 
   public QueryOptions withStart(int newStart) {
-    return create(config(), newStart, limit(), fields());
+    return create(config(), newStart, limit(), fields(), searchAfter());
+  }
+
+  public QueryOptions withSearchAfter(@Nullable List<Object> newSearchAfter) {
+    return create(config(), start(), limit(), fields(), newSearchAfter);
   }
 
   public QueryOptions filterFields(Function<QueryOptions, Set<String>> filter) {
-    return create(config(), start(), limit(), filter.apply(this));
+    return create(config(), start(), limit(), filter.apply(this), searchAfter());
   }
 }
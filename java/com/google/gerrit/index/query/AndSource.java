@@ -101,7 +101,8 @@ public class AndSource<T> extends AndPredicate<T>
     T last = null;
     int nextStart = 0;
     boolean skipped = false;
-    for (T data : buffer(source.read())) {
+    ResultSet<T> rs = source.read();
+    for (T data : buffer(rs)) {
       if (!isMatchable() || match(data)) {
         r.add(data);
       } else {
@@ -114,13 +115,17 @@ public class AndSource<T> extends AndPredicate<T>
     if (skipped && last != null && source instanceof Paginated) {
       // If our source is a paginated source and we skipped at
       // least one of its results, we may not have filled the full
-      // limit the caller wants.  Restart the source and continue.
+      // limit the caller wants.  Restart the source and continue,
+      // after the last result read if the source supports it, so the
+      // source doesn't have to read and skip the results again.
       //
       @SuppressWarnings("unchecked")
       Paginated<T> p = (Paginated<T>) source;
+      List<Object> searchAfter = rs.searchAfter();
       while (skipped && r.size() < p.getOptions().limit() + start) {
         skipped = false;
-        ResultSet<T> next = p.restart(nextStart);
+        ResultSet<T> next =
+            searchAfter != null ? p.restartAfter(searchAfter) : p.restart(nextStart);
 
         for (T data : buffer(next)) {
           if (match(data)) {
@@ -130,6 +135,7 @@ public class AndSource<T> extends AndPredicate<T>
           }
           nextStart++;
         }
+        searchAfter = next.searchAfter();
       }
     }
 
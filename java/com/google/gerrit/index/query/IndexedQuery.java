@@ -102,6 +102,18 @@ public class IndexedQuery<I, T> extends Predicate<T> implements DataSource<T>, P
     return read();
   }
 
+  @Override
+  public ResultSet<T> restartAfter(List<Object> searchAfter) throws OrmException {
+    opts = opts.withStart(0).withSearchAfter(searchAfter);
+    try {
+      source = index.getSource(pred, opts);
+    } catch (QueryParseException e) {
+      // As in restart(int), only the position changed, so this is unexpected.
+      throw new OrmException(e);
+    }
+    return read();
+  }
+
   @Override
   public Predicate<T> copy(Collection<? extends Predicate<T>> children) {
     return this;
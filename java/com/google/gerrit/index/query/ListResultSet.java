@@ -15,14 +15,21 @@
 package com.google.gerrit.index.query;
 
 import com.google.common.collect.ImmutableList;
+import com.google.gerrit.common.Nullable;
 import java.util.Iterator;
 import java.util.List;
 
 public class ListResultSet<T> implements ResultSet<T> {
   private ImmutableList<T> items;
+  private final ImmutableList<Object> searchAfter;
 
   public ListResultSet(List<T> r) {
+    this(r, null);
+  }
+
+  public ListResultSet(List<T> r, @Nullable List<Object> searchAfter) {
     items = ImmutableList.copyOf(r);
+    this.searchAfter = searchAfter != null ? ImmutableList.copyOf(searchAfter) : null;
   }
 
   @Override
@@ -44,4 +51,10 @@ public class ListResultSet<T> implements ResultSet<T> {
   public void close() {
     items = null;
   }
+
+  @Override
+  @Nullable
+  public ImmutableList<Object> searchAfter() {
+    return searchAfter;
+  }
 }
@@ -16,9 +16,19 @@ package com.google.gerrit.index.query;
 
 import com.google.gerrit.index.QueryOptions;
 import com.google.gwtorm.server.OrmException;
+import java.util.List;
 
 public interface Paginated<T> {
   QueryOptions getOptions();
 
   ResultSet<T> restart(int start) throws OrmException;
+
+  /**
+   * Restarts the query after the result with the given sort values.
+   *
+   * @param searchAfter sort values returned by {@link ResultSet#searchAfter()} of the previous
+   *     read.
+   * @return results following that result.
+   */
+  ResultSet<T> restartAfter(List<Object> searchAfter) throws OrmException;
 }
@@ -91,6 +91,7 @@ public abstract class QueryProcessor<T> {
   private int userProvidedLimit;
   private boolean isNoLimit;
   private Set<String> requestedFields;
+  private List<Object> searchAfter;
 
   protected QueryProcessor(
       MetricMaker metricMaker,
@@ -161,6 +162,21 @@ public abstract class QueryProcessor<T> {
     return this;
   }
 
+  /**
+   * Continue the query after the result with the given sort values.
+   *
+   * <p>Unlike {@link #setStart(int)}, the index skips the earlier results itself, so the cost of a
+   * query does not grow with the number of results before the requested page.
+   *
+   * @param sortValues sort values of the last result of the previous page, in the format of {@link
+   *     QueryOptions#searchAfter()}; null to start from the first result.
+   * @return this.
+   */
+  public QueryProcessor<T> setSearchAfter(@Nullable List<Object> sortValues) {
+    searchAfter = sortValues;
+    return this;
+  }
+
   public QueryProcessor<T> setRequestedFields(Set<String> fields) {
     requestedFields = fields;
     return this;
@@ -246,7 +262,9 @@ public abstract class QueryProcessor<T> {
         // Always bump limit by 1, even if this results in exceeding the permitted
         // max for this user. The only way to see if there are more entities is to
         // ask for one more result from the query.
-        QueryOptions opts = createOptions(indexConfig, start, limit + 1, getRequestedFields());
+        QueryOptions opts =
+            createOptions(indexConfig, start, limit + 1, getRequestedFields())
+                .withSearchAfter(searchAfter);
         logger.atFine().log("Query options: " + opts);
         Predicate<T> pred = rewriter.rewrite(q, opts);
         if (enforceVisibility) {
@@ -15,6 +15,7 @@
 package com.google.gerrit.index.query;
 
 import com.google.common.collect.ImmutableList;
+import com.google.gerrit.common.Nullable;
 import java.util.Iterator;
 
 /**
@@ -49,4 +50,18 @@ public interface ResultSet<T> extends Iterable<T> {
    * the iterator has finished.
    */
   void close();
+
+  /**
+   * Values of the sort fields of the last result read from the index, to continue after it with
+   * {@link com.google.gerrit.index.QueryOptions#searchAfter()}.
+   *
+   * <p>Only valid once the results were obtained.
+   *
+   * @return sort values, or {@code null} if there were no results or the index does not support
+   *     continuing after a result.
+   */
+  @Nullable
+  default ImmutableList<Object> searchAfter() {
+    return null;
+  }
 }
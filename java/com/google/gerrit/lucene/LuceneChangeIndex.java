@@ -36,6 +36,7 @@ import com.google.common.collect.Sets;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.index.QueryOptions;
 import com.google.gerrit.index.Schema;
 import com.google.gerrit.index.query.FieldBundle;
@@ -68,6 +69,7 @@ import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.google.protobuf.MessageLite;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -77,11 +79,14 @@ import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import org.apache.lucene.document.Document;
 import org.apache.lucene.index.IndexWriter;
 import org.apache.lucene.index.IndexableField;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.FieldDoc;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
@@ -312,9 +317,9 @@ public class LuceneChangeIndex implements ChangeIndex {
       final Set<String> fields = IndexUtils.changeFields(opts);
       return new ChangeDataResults(
           executor.submit(
-              new Callable<List<Document>>() {
+              new Callable<Page>() {
                 @Override
-                public List<Document> call() throws IOException {
+                public Page call() throws IOException {
                   return doRead(fields);
                 }
 
@@ -328,14 +333,14 @@ public class LuceneChangeIndex implements ChangeIndex {
 
     @Override
     public ResultSet<FieldBundle> readRaw() throws OrmException {
-      List<Document> documents;
+      Page page;
       try {
-        documents = doRead(IndexUtils.changeFields(opts));
+        page = doRead(IndexUtils.changeFields(opts));
       } catch (IOException e) {
         throw new OrmException(e);
       }
       ImmutableList<FieldBundle> fieldBundles =
-          documents.stream().map(rawDocumentMapper).collect(toImmutableList());
+          page.docs.stream().map(rawDocumentMapper).collect(toImmutableList());
       return new ResultSet<FieldBundle>() {
         @Override
         public Iterator<FieldBundle> iterator() {
@@ -351,21 +356,26 @@ public class LuceneChangeIndex implements ChangeIndex {
         public void close() {
           // Do nothing.
         }
+
+        @Override
+        public ImmutableList<Object> searchAfter() {
+          return page.searchAfter;
+        }
       };
     }
 
-    private List<Document> doRead(Set<String> fields) throws IOException {
+    private Page doRead(Set<String> fields) throws IOException {
       IndexSearcher[] searchers = new IndexSearcher[indexes.size()];
       try {
         int realLimit = opts.start() + opts.limit();
         if (Integer.MAX_VALUE - opts.limit() < opts.start()) {
           realLimit = Integer.MAX_VALUE;
         }
-        TopFieldDocs[] hits = new TopFieldDocs[indexes.size()];
+        Object[] after = toSortValues(opts.searchAfter());
         for (int i = 0; i < indexes.size(); i++) {
           searchers[i] = indexes.get(i).acquire();
-          hits[i] = searchers[i].search(query, realLimit, sort);
         }
+        TopFieldDocs[] hits = search(searchers, after, realLimit);
         TopDocs docs = TopDocs.merge(sort, realLimit, hits);
 
         List<Document> result = new ArrayList<>(docs.scoreDocs.length);
@@ -373,7 +383,12 @@ public class LuceneChangeIndex implements ChangeIndex {
           ScoreDoc sd = docs.scoreDocs[i];
           result.add(searchers[sd.shardIndex].doc(sd.doc, fields));
         }
-        return result;
+        ImmutableList<Object> searchAfter = null;
+        if (!result.isEmpty()) {
+          FieldDoc last = (FieldDoc) docs.scoreDocs[docs.scoreDocs.length - 1];
+          searchAfter = ImmutableList.copyOf(last.fields);
+        }
+        return new Page(result, searchAfter);
       } finally {
         for (int i = 0; i < indexes.size(); i++) {
           if (searchers[i] != null) {
@@ -386,13 +401,135 @@ public class LuceneChangeIndex implements ChangeIndex {
         }
       }
     }
+
+    /**
+     * Searches all sub-indexes concurrently.
+     *
+     * <p>The first sub-index is searched by the calling thread, the others by the executor. Since
+     * the calling thread may itself be an executor thread, it searches any sub-index for which no
+     * executor thread was free by the time it finished its own search, rather than waiting for one.
+     */
+    private TopFieldDocs[] search(IndexSearcher[] searchers, @Nullable Object[] after, int limit)
+        throws IOException {
+      List<SubIndexSearch> forked = new ArrayList<>(searchers.length - 1);
+      for (int i = 1; i < searchers.length; i++) {
+        forked.add(new SubIndexSearch(searchers[i], after, limit).fork());
+      }
+      TopFieldDocs[] hits = new TopFieldDocs[searchers.length];
+      FieldDoc first = toFieldDoc(after, searchers[0]);
+      hits[0] = searchers[0].searchAfter(first, query, limit, sort, false, false);
+      for (int i = 1; i < searchers.length; i++) {
+        hits[i] = forked.get(i - 1).join();
+      }
+      return hits;
+    }
+
+    /** Search of one sub-index, run by whichever of the executor and the caller starts it first. */
+    private class SubIndexSearch implements Callable<TopFieldDocs> {
+      private final IndexSearcher searcher;
+      private final FieldDoc after;
+      private final int limit;
+      private final AtomicBoolean started = new AtomicBoolean();
+      private Future<TopFieldDocs> future;
+
+      SubIndexSearch(IndexSearcher searcher, @Nullable Object[] after, int limit) {
+        this.searcher = searcher;
+        this.after = toFieldDoc(after, searcher);
+        this.limit = limit;
+      }
+
+      SubIndexSearch fork() {
+        try {
+          future = executor.submit(this);
+        } catch (RejectedExecutionException e) {
+          // Executor is shutting down; search in join() instead.
+        }
+        return this;
+      }
+
+      @Override
+      public TopFieldDocs call() throws IOException {
+        return started.compareAndSet(false, true) ? search() : null;
+      }
+
+      TopFieldDocs join() throws IOException {
+        if (started.compareAndSet(false, true)) {
+          if (future != null) {
+            future.cancel(false);
+          }
+          return search();
+        }
+        try {
+          return future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("interrupted while searching " + searcher);
+        } catch (ExecutionException e) {
+          Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+          Throwables.throwIfUnchecked(e.getCause());
+          throw new IOException(e.getCause());
+        }
+      }
+
+      private TopFieldDocs search() throws IOException {
+        return searcher.searchAfter(after, query, limit, sort, false, false);
+      }
+
+      @Override
+      public String toString() {
+        return predicate.toString();
+      }
+    }
+  }
+
+  /** Converts the sort values of the last result read to the values of the Lucene sort fields. */
+  @Nullable
+  private static Object[] toSortValues(@Nullable List<Object> searchAfter) {
+    if (searchAfter == null) {
+      return null;
+    }
+    Object[] values = new Object[searchAfter.size()];
+    for (int i = 0; i < values.length; i++) {
+      // Both sort fields are of type LONG.
+      values[i] = ((Number) searchAfter.get(i)).longValue();
+    }
+    return values;
+  }
+
+  /**
+   * Returns the position to search after in one sub-index.
+   *
+   * <p>Ties on the last-updated time are broken by the change ID, so the sort values identify a
+   * single change and the document number only decides whether the document of that change itself
+   * is skipped. The last document of the sub-index is used, which skips it wherever it is found.
+   * Lucene rejects document numbers beyond the end of the sub-index.
+   */
+  @Nullable
+  private static FieldDoc toFieldDoc(@Nullable Object[] sortValues, IndexSearcher searcher) {
+    if (sortValues == null) {
+      return null;
+    }
+    int lastDoc = Math.max(searcher.getIndexReader().maxDoc() - 1, 0);
+    return new FieldDoc(lastDoc, Float.NaN, sortValues);
+  }
+
+  /** Documents read by a query, and the sort values of the last one. */
+  private static class Page {
+    final List<Document> docs;
+    @Nullable final ImmutableList<Object> searchAfter;
+
+    Page(List<Document> docs, @Nullable ImmutableList<Object> searchAfter) {
+      this.docs = docs;
+      this.searchAfter = searchAfter;
+    }
   }
 
   private class ChangeDataResults implements ResultSet<ChangeData> {
-    private final Future<List<Document>> future;
+    private final Future<Page> future;
     private final Set<String> fields;
+    private ImmutableList<Object> searchAfter;
 
-    ChangeDataResults(Future<List<Document>> future, Set<String> fields) {
+    ChangeDataResults(Future<Page> future, Set<String> fields) {
       this.future = future;
       this.fields = fields;
     }
@@ -405,13 +542,14 @@ public class LuceneChangeIndex implements ChangeIndex {
     @Override
     public ImmutableList<ChangeData> toList() {
       try {
-        List<Document> docs = future.get();
+        Page page = future.get();
         ImmutableList.Builder<ChangeData> result =
-            ImmutableList.builderWithExpectedSize(docs.size());
+            ImmutableList.builderWithExpectedSize(page.docs.size());
         String idFieldName = LEGACY_ID.getName();
-        for (Document doc : docs) {
+        for (Document doc : page.docs) {
           result.add(toChangeData(fields(doc, fields), fields, idFieldName));
         }
+        searchAfter = page.searchAfter;
         return result.build();
       } catch (InterruptedException e) {
         close();
@@ -426,6 +564,11 @@ public class LuceneChangeIndex implements ChangeIndex {
     public void close() {
       future.cancel(false /* do not interrupt Lucene */);
     }
+
+    @Override
+    public ImmutableList<Object> searchAfter() {
+      return searchAfter;
+    }
   }
 
   private static ListMultimap<String, IndexableField> fields(Document doc, Set<String> fields) {
@@ -458,12 +601,15 @@ public class LuceneChangeIndex implements ChangeIndex {
     }
 
     // Any decoding that is done here must also be done in {@link ElasticChangeIndex}.
+    //
+    // Fields that are expensive to decode, and that many callers don't need, e.g. when results
+    // are only checked for visibility, are decoded on first access.
 
     if (fields.contains(PATCH_SET_FIELD)) {
-      decodePatchSets(doc, cd);
+      cd.setUndecodedField(ChangeField.PATCH_SET, () -> decodePatchSets(doc, cd));
     }
     if (fields.contains(APPROVAL_FIELD)) {
-      decodeApprovals(doc, cd);
+      cd.setUndecodedField(ChangeField.APPROVAL, () -> decodeApprovals(doc, cd));
     }
     if (fields.contains(ADDED_FIELD) && fields.contains(DELETED_FIELD)) {
       decodeChangedLines(doc, cd);
@@ -481,21 +627,32 @@ public class LuceneChangeIndex implements ChangeIndex {
       decodeStar(doc, cd);
     }
     if (fields.contains(REVIEWER_FIELD)) {
-      decodeReviewers(doc, cd);
+      cd.setUndecodedField(ChangeField.REVIEWER, () -> decodeReviewers(doc, cd));
     }
     if (fields.contains(REVIEWER_BY_EMAIL_FIELD)) {
-      decodeReviewersByEmail(doc, cd);
+      cd.setUndecodedField(ChangeField.REVIEWER_BY_EMAIL, () -> decodeReviewersByEmail(doc, cd));
     }
     if (fields.contains(PENDING_REVIEWER_FIELD)) {
-      decodePendingReviewers(doc, cd);
+      cd.setUndecodedField(ChangeField.PENDING_REVIEWER, () -> decodePendingReviewers(doc, cd));
     }
     if (fields.contains(PENDING_REVIEWER_BY_EMAIL_FIELD)) {
-      decodePendingReviewersByEmail(doc, cd);
+      cd.setUndecodedField(
+          ChangeField.PENDING_REVIEWER_BY_EMAIL, () -> decodePendingReviewersByEmail(doc, cd));
+    }
+    if (fields.contains(SUBMIT_RECORD_STRICT_FIELD)) {
+      cd.setUndecodedField(
+          ChangeField.STORED_SUBMIT_RECORD_STRICT,
+          () ->
+              decodeSubmitRecords(
+                  doc, SUBMIT_RECORD_STRICT_FIELD, ChangeField.SUBMIT_RULE_OPTIONS_STRICT, cd));
+    }
+    if (fields.contains(SUBMIT_RECORD_LENIENT_FIELD)) {
+      cd.setUndecodedField(
+          ChangeField.STORED_SUBMIT_RECORD_LENIENT,
+          () ->
+              decodeSubmitRecords(
+                  doc, SUBMIT_RECORD_LENIENT_FIELD, ChangeField.SUBMIT_RULE_OPTIONS_LENIENT, cd));
     }
-    decodeSubmitRecords(
-        doc, SUBMIT_RECORD_STRICT_FIELD, ChangeField.SUBMIT_RULE_OPTIONS_STRICT, cd);
-    decodeSubmitRecords(
-        doc, SUBMIT_RECORD_LENIENT_FIELD, ChangeField.SUBMIT_RULE_OPTIONS_LENIENT, cd);
     if (fields.contains(REF_STATE_FIELD)) {
       decodeRefStates(doc, cd);
     }
@@ -116,6 +116,9 @@ class ChangesImpl implements Changes {
     }
     qc.setLimit(q.getLimit());
     qc.setStart(q.getStart());
+    if (q.getCursor() != null) {
+      qc.setCursor(q.getCursor());
+    }
     qc.setNoLimit(q.getNoLimit());
     for (ListChangesOption option : q.getOptions()) {
       qc.addOption(option);
@@ -66,8 +66,17 @@ public class CacheMetrics {
             new Description("Disk hit ratio for persistent cache").setGauge().setUnit("percent"),
             F_NAME);
 
+    CallbackMetric1<String, Long> perDiskEvict =
+        metrics.newCallbackMetric(
+            "caches/disk_eviction_count",
+            Long.class,
+            new Description("Disk eviction count for persistent cache")
+                .setGauge()
+                .setUnit("evicted entries"),
+            F_NAME);
+
     Set<CallbackMetric<?>> cacheMetrics =
-        ImmutableSet.of(memEnt, memHit, memEvict, perDiskEnt, perDiskHit);
+        ImmutableSet.of(memEnt, memHit, memEvict, perDiskEnt, perDiskHit, perDiskEvict);
 
     metrics.newTrigger(
         cacheMetrics,
@@ -83,6 +92,7 @@ public class CacheMetrics {
               PersistentCache.DiskStats d = ((PersistentCache) c).diskStats();
               perDiskEnt.set(name, d.size());
               perDiskHit.set(name, hitRatio(d));
+              perDiskEvict.set(name, d.evictionCount());
             }
           }
           cacheMetrics.forEach(CallbackMetric::prune);
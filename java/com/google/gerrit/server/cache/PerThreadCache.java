@@ -14,12 +14,21 @@
 
 package com.google.gerrit.server.cache;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Maps;
 import com.google.gerrit.common.Nullable;
+import com.google.gerrit.metrics.Counter1;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.Field;
+import com.google.gerrit.metrics.Histogram1;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.function.Supplier;
 
@@ -44,18 +53,22 @@ import java.util.function.Supplier;
  * case the object is not present in the cache, while {@code CurrentUser} provides a storage where
  * just retrieving stored values is a valid operation.
  *
- * <p>To prevent OOM errors on requests that would cache a lot of objects, this class enforces an
- * internal limit after which no new elements are cached. All {@code get} calls are served by
- * invoking the {@code Supplier} after that.
+ * <p>To prevent OOM errors on requests that would cache a lot of objects, this class holds at most
+ * a configurable number of entries. Once the limit is reached, the least recently used entry is
+ * evicted to make room for a new one.
+ *
+ * <p>If created with {@link Metrics}, hits, misses and evictions per key class, as well as the
+ * number of entries retained at the end of the request, are reported when the cache is closed.
  */
 public class PerThreadCache implements AutoCloseable {
   private static final ThreadLocal<PerThreadCache> CACHE = new ThreadLocal<>();
+
   /**
-   * Cache at maximum 25 values per thread. This value was chosen arbitrarily. Some endpoints (like
-   * ListProjects) break the assumption that the data cached in a request is limited. To prevent
-   * this class from accumulating an unbound number of objects, we enforce this limit.
+   * Default number of values cached per thread. Some endpoints (like ListProjects) break the
+   * assumption that the data cached in a request is limited. To prevent this class from
+   * accumulating an unbound number of objects, we enforce a limit.
    */
-  private static final int PER_THREAD_CACHE_SIZE = 25;
+  public static final int DEFAULT_MAX_ENTRIES = 100;
 
   /**
    * Unique key for key-value mappings stored in PerThreadCache. The key is based on the value's
@@ -102,9 +115,68 @@ public class PerThreadCache implements AutoCloseable {
     }
   }
 
+  @Singleton
+  public static class Metrics {
+    private final Counter1<String> hitCount;
+    private final Counter1<String> missCount;
+    private final Counter1<String> evictionCount;
+    private final Histogram1<String> retainedEntries;
+
+    @Inject
+    Metrics(MetricMaker metricMaker) {
+      Field<String> keyClass = Field.ofString("key_class", "class of the cached values");
+      hitCount =
+          metricMaker.newCounter(
+              "caches/per_thread/hit_count",
+              new Description("Lookups served from the per-request cache")
+                  .setCumulative()
+                  .setUnit("hits"),
+              keyClass);
+      missCount =
+          metricMaker.newCounter(
+              "caches/per_thread/miss_count",
+              new Description("Lookups that had to compute a value for the per-request cache")
+                  .setCumulative()
+                  .setUnit("misses"),
+              keyClass);
+      evictionCount =
+          metricMaker.newCounter(
+              "caches/per_thread/eviction_count",
+              new Description("Entries evicted from the per-request cache because it was full")
+                  .setCumulative()
+                  .setUnit("evicted entries"),
+              keyClass);
+      retainedEntries =
+          metricMaker.newHistogram(
+              "caches/per_thread/retained_entries",
+              new Description("Entries held by the per-request cache at the end of a request")
+                  .setCumulative()
+                  .setUnit("entries"),
+              keyClass);
+    }
+  }
+
+  /** Counters of a single key class, summed up over a request. */
+  private static class KeyClassStats {
+    long hits;
+    long misses;
+    long evictions;
+    long retained;
+  }
+
   public static PerThreadCache create() {
+    return create(DEFAULT_MAX_ENTRIES, null);
+  }
+
+  /**
+   * Creates the cache of the current request.
+   *
+   * @param maxEntries maximum number of values to cache.
+   * @param metrics metrics to report to when the cache is closed, or {@code null}.
+   */
+  public static PerThreadCache create(int maxEntries, @Nullable Metrics metrics) {
     checkState(CACHE.get() == null, "called create() twice on the same request");
-    PerThreadCache cache = new PerThreadCache();
+    PerThreadCache cache = new PerThreadCache(maxEntries, metrics);
     CACHE.set(cache);
     return cache;
   }
@@ -119,9 +191,29 @@ public class PerThreadCache implements AutoCloseable {
     return cache != null ? cache.get(key, loader) : loader.get();
   }
 
-  private final Map<Key<?>, Object> cache = Maps.newHashMapWithExpectedSize(PER_THREAD_CACHE_SIZE);
+  private final int maxEntries;
+  @Nullable private final Metrics metrics;
+  private final Map<Key<?>, Object> cache;
+  private final Map<Class<?>, KeyClassStats> stats = new HashMap<>();
 
-  private PerThreadCache() {}
+  private PerThreadCache(int maxEntries, @Nullable Metrics metrics) {
+    checkArgument(maxEntries >= 0, "maxEntries must not be negative");
+    this.maxEntries = maxEntries;
+    this.metrics = metrics;
+    this.cache =
+        new LinkedHashMap<Key<?>, Object>(16, 0.75f, true) {
+          private static final long serialVersionUID = 1L;
+
+          @Override
+          protected boolean removeEldestEntry(Map.Entry<Key<?>, Object> eldest) {
+            if (size() > PerThreadCache.this.maxEntries) {
+              stats(eldest.getKey()).evictions++;
+              return true;
+            }
+            return false;
+          }
+        };
+  }
 
   /**
    * Returns an instance of {@code T} that was either loaded from the cache or obtained from the
@@ -131,16 +223,36 @@ public class PerThreadCache implements AutoCloseable {
     @SuppressWarnings("unchecked")
     T value = (T) cache.get(key);
     if (value == null) {
+      stats(key).misses++;
       value = loader.get();
-      if (cache.size() < PER_THREAD_CACHE_SIZE) {
+      if (maxEntries > 0) {
         cache.put(key, value);
       }
+    } else {
+      stats(key).hits++;
     }
     return value;
   }
 
+  private KeyClassStats stats(Key<?> key) {
+    return stats.computeIfAbsent(key.clazz, c -> new KeyClassStats());
+  }
+
   @Override
   public void close() {
     CACHE.remove();
+    if (metrics != null) {
+      for (Key<?> key : cache.keySet()) {
+        stats(key).retained++;
+      }
+      for (Map.Entry<Class<?>, KeyClassStats> e : stats.entrySet()) {
+        String keyClass = e.getKey().getSimpleName();
+        KeyClassStats s = e.getValue();
+        metrics.hitCount.incrementBy(keyClass, s.hits);
+        metrics.missCount.incrementBy(keyClass, s.misses);
+        metrics.evictionCount.incrementBy(keyClass, s.evictions);
+        metrics.retainedEntries.record(keyClass, s.retained);
+      }
+    }
   }
 }
@@ -14,6 +14,8 @@
 
 package com.google.gerrit.server.cache;
 
+import com.google.gerrit.common.Nullable;
+
 public interface PersistentCache {
 
   DiskStats diskStats();
@@ -23,12 +25,30 @@ public interface PersistentCache {
     private final long space;
     private final long hitCount;
     private final long missCount;
+    private final long evictionCount;
+    @Nullable private final BloomFilterStats bloomFilter;
 
     public DiskStats(long size, long space, long hitCount, long missCount) {
+      this(size, space, hitCount, missCount, 0);
+    }
+
+    public DiskStats(long size, long space, long hitCount, long missCount, long evictionCount) {
+      this(size, space, hitCount, missCount, evictionCount, null);
+    }
+
+    public DiskStats(
+        long size,
+        long space,
+        long hitCount,
+        long missCount,
+        long evictionCount,
+        @Nullable BloomFilterStats bloomFilter) {
       this.size = size;
       this.space = space;
       this.hitCount = hitCount;
       this.missCount = missCount;
+      this.evictionCount = evictionCount;
+      this.bloomFilter = bloomFilter;
     }
 
     public long size() {
@@ -46,5 +66,36 @@ public interface PersistentCache {
     public long requestCount() {
       return hitCount + missCount;
     }
+
+    /** Number of entries removed from disk to keep the cache within its disk limit. */
+    public long evictionCount() {
+      return evictionCount;
+    }
+
+    /** State of the filter guarding disk lookups, or {@code null} if the cache does not use one. */
+    @Nullable
+    public BloomFilterStats bloomFilter() {
+      return bloomFilter;
+    }
+  }
+
+  class BloomFilterStats {
+    private final long created;
+    private final double expectedFpp;
+
+    public BloomFilterStats(long created, double expectedFpp) {
+      this.created = created;
+      this.expectedFpp = expectedFpp;
+    }
+
+    /** Time the filter was built from the disk contents, in milliseconds since the epoch. */
+    public long created() {
+      return created;
+    }
+
+    /** Probability that a key missing from disk is still reported as possibly present. */
+    public double expectedFpp() {
+      return expectedFpp;
+    }
   }
 }
@@ -49,4 +49,12 @@ public interface PersistentCacheBinding<K, V> extends CacheBinding<K, V> {
   PersistentCacheBinding<K, V> keySerializer(CacheSerializer<K> keySerializer);
 
   PersistentCacheBinding<K, V> valueSerializer(CacheSerializer<V> valueSerializer);
+
+  /**
+   * Allow entries to be shared with other servers through a {@link RemoteCacheStore}.
+   *
+   * <p>Only set this for caches whose keys are derived from immutable inputs, such as commit or
+   * blob IDs, so that a value never has to be invalidated once it was computed.
+   */
+  PersistentCacheBinding<K, V> shareable(boolean shareable);
 }
@@ -24,4 +24,7 @@ public interface PersistentCacheDef<K, V> extends CacheDef<K, V> {
   CacheSerializer<K> keySerializer();
 
   CacheSerializer<V> valueSerializer();
+
+  /** Whether entries may be shared with other servers through a {@link RemoteCacheStore}. */
+  boolean shareable();
 }
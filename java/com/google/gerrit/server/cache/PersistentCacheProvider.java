@@ -32,6 +32,7 @@ class PersistentCacheProvider<K, V> extends CacheProvider<K, V>
     implements Provider<Cache<K, V>>, PersistentCacheBinding<K, V>, PersistentCacheDef<K, V> {
   private int version;
   private long diskLimit;
+  private boolean shareable;
   private CacheSerializer<K> keySerializer;
   private CacheSerializer<V> valueSerializer;
 
@@ -99,6 +100,13 @@ class PersistentCacheProvider<K, V> extends CacheProvider<K, V>
     return this;
   }
 
+  @Override
+  public PersistentCacheBinding<K, V> shareable(boolean shareable) {
+    checkNotFrozen();
+    this.shareable = shareable;
+    return this;
+  }
+
   @Override
   public long diskLimit() {
     return diskLimit;
@@ -119,6 +127,11 @@ class PersistentCacheProvider<K, V> extends CacheProvider<K, V>
     return valueSerializer;
   }
 
+  @Override
+  public boolean shareable() {
+    return shareable;
+  }
+
   @Override
   public Cache<K, V> get() {
     if (persistentCacheFactory == null) {
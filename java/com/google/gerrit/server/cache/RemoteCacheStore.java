@@ -0,0 +1,67 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.cache;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.gerrit.extensions.annotations.ExtensionPoint;
+import com.google.protobuf.ByteString;
+import java.time.Duration;
+
+/**
+ * Key-value store shared by several Gerrit servers, used as a second cache tier behind persistent
+ * caches.
+ *
+ * <p>Only caches declared {@link PersistentCacheBinding#shareable(boolean) shareable} use the
+ * store. Their keys are derived from immutable inputs, such as commit or blob IDs, so entries never
+ * need to be invalidated and a value computed by one server is valid on all others.
+ *
+ * <p>Keys and values are passed in the serialized form of the cache's {@link
+ * PersistentCacheDef#keySerializer() key} and {@link PersistentCacheDef#valueSerializer() value}
+ * serializers. Entries of different caches, or of different versions of the same cache, must be
+ * kept apart.
+ *
+ * <p>Implementations must be thread-safe. Failures should be reported through the returned future
+ * or logged; they are treated as cache misses.
+ */
+@ExtensionPoint
+public interface RemoteCacheStore {
+  /**
+   * Looks up entries of a cache.
+   *
+   * @param cacheName name of the cache.
+   * @param version version of the cache; entries written for other versions must not be returned.
+   * @param keys serialized keys to look up.
+   * @return future of the serialized values that were found, by serialized key. Keys that are not
+   *     present, or whose entries have expired, are omitted.
+   */
+  ListenableFuture<ImmutableMap<ByteString, ByteString>> getAll(
+      String cacheName, int version, ImmutableSet<ByteString> keys);
+
+  /**
+   * Stores an entry of a cache.
+   *
+   * <p>Called from a background thread of the cache, but should still not block on the remote
+   * write.
+   *
+   * @param cacheName name of the cache.
+   * @param version version of the cache.
+   * @param key serialized key.
+   * @param value serialized value.
+   * @param ttl time after which the entry may be discarded.
+   */
+  void put(String cacheName, int version, ByteString key, ByteString value, Duration ttl);
+}
@@ -0,0 +1,90 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.cache.h2;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.gerrit.common.Nullable;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+
+/**
+ * BloomFilter of a persistent cache, as saved to disk when the cache is closed.
+ *
+ * <p>Loading a snapshot saves the full table scan otherwise needed to build the filter when the
+ * cache is opened. The snapshot records the cache version and the number of rows in the table at
+ * the time it was written, so callers can detect snapshots that no longer match the table.
+ */
+class BloomFilterSnapshot<K> {
+  private static final int MAGIC = 0x42465331; // "BFS1"
+
+  /**
+   * Reads a snapshot.
+   *
+   * @return the snapshot, or {@code null} if the file does not exist.
+   * @throws IOException if the file cannot be read or is not a snapshot.
+   */
+  @Nullable
+  static <K> BloomFilterSnapshot<K> read(Path file, Funnel<? super K> funnel) throws IOException {
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC) {
+        throw new IOException("Not a BloomFilter snapshot: " + file);
+      }
+      int version = in.readInt();
+      long created = in.readLong();
+      long rowCount = in.readLong();
+      BloomFilter<K> filter = BloomFilter.readFrom(in, funnel);
+      return new BloomFilterSnapshot<>(filter, version, created, rowCount);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  final BloomFilter<K> filter;
+  final int version;
+  final long created;
+  final long rowCount;
+
+  BloomFilterSnapshot(BloomFilter<K> filter, int version, long created, long rowCount) {
+    this.filter = filter;
+    this.version = version;
+    this.created = created;
+    this.rowCount = rowCount;
+  }
+
+  /** Writes the snapshot, atomically replacing any existing file. */
+  void write(Path file) throws IOException {
+    Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+    try (DataOutputStream out =
+        new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+      out.writeInt(MAGIC);
+      out.writeInt(version);
+      out.writeLong(created);
+      out.writeLong(rowCount);
+      filter.writeTo(out);
+    }
+    Files.move(tmp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+  }
+}
@@ -0,0 +1,78 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.cache.h2;
+
+import com.google.common.cache.Cache;
+import com.google.gerrit.server.cache.PersistentCache.DiskStats;
+import com.google.gerrit.server.cache.h2.H2CacheImpl.ValueHolder;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Disk backend of a {@link H2CacheImpl}.
+ *
+ * <p>Implementations must be thread-safe. Failures are logged and reported to the caller as a
+ * cache miss; they never propagate out of the store.
+ */
+interface DiskStore<K, V> {
+  /** Opens the store and prepares any in-memory structures needed for lookups. */
+  void open();
+
+  /** Flushes and closes the store. */
+  void close();
+
+  /**
+   * Returns whether the store may contain the key.
+   *
+   * <p>A {@code false} result must be accurate, allowing the caller to skip {@link
+   * #getIfPresent(Object)}.
+   */
+  boolean mightContain(K key);
+
+  ValueHolder<V> getIfPresent(K key);
+
+  void put(K key, ValueHolder<V> holder);
+
+  /** Stores all entries, batching the writes where the store supports it. */
+  default void putAll(Map<K, ValueHolder<V>> entries) {
+    entries.forEach(this::put);
+  }
+
+  /** Writes any deferred bookkeeping, such as access times, to disk. */
+  default void flush() {}
+
+  void invalidate(K key);
+
+  void invalidateAll();
+
+  /**
+   * Removes obsolete entries and shrinks the store to its disk limit.
+   *
+   * @param mem in-memory cache in front of this store; entries still present there are retained.
+   */
+  void prune(Cache<K, ?> mem);
+
+  /**
+   * Evicts entries until the store fits its disk limit, spending at most roughly the given time.
+   *
+   * <p>Called frequently; implementations should return quickly if the store is within its limit.
+   *
+   * @param mem in-memory cache in front of this store; entries still present there are retained.
+   * @param budget time after which the step should return, even if the store is still too large.
+   */
+  void pruneStep(Cache<K, ?> mem, Duration budget);
+
+  DiskStats diskStats();
+}
@@ -97,6 +97,11 @@ class H2CacheDefProxy<K, V> implements PersistentCacheDef<K, V> {
     return source.version();
   }
 
+  @Override
+  public boolean shareable() {
+    return source.shareable();
+  }
+
   @Override
   public CacheSerializer<K> keySerializer() {
     return source.keySerializer();
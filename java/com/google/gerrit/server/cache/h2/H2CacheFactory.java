@@ -19,13 +19,23 @@ import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.events.LifecycleListener;
+import com.google.gerrit.extensions.registration.DynamicItem;
 import com.google.gerrit.extensions.registration.DynamicMap;
+import com.google.gerrit.metrics.CallbackMetric1;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.Description.Units;
+import com.google.gerrit.metrics.Field;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.gerrit.metrics.Timer1;
 import com.google.gerrit.server.cache.MemoryCacheFactory;
 import com.google.gerrit.server.cache.PersistentCacheDef;
 import com.google.gerrit.server.cache.PersistentCacheFactory;
+import com.google.gerrit.server.cache.RemoteCacheStore;
 import com.google.gerrit.server.cache.h2.H2CacheImpl.SqlStore;
 import com.google.gerrit.server.cache.h2.H2CacheImpl.ValueHolder;
+import com.google.gerrit.server.config.ConfigUtil;
 import com.google.gerrit.server.config.GerritServerConfig;
 import com.google.gerrit.server.config.SitePaths;
 import com.google.gerrit.server.logging.LoggingContextAwareExecutorService;
@@ -36,6 +46,8 @@ import com.google.inject.Singleton;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +62,21 @@ import org.eclipse.jgit.lib.Config;
 class H2CacheFactory implements PersistentCacheFactory, LifecycleListener {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+  /** Storage format of a persistent cache, selected by {@code cache.<name>.diskBackend}. */
+  enum DiskBackend {
+    /** H2 database, see {@link SqlStore}. */
+    H2,
+
+    /** Append-only memory-mapped segment files, see {@link SegmentStore}. */
+    SEGMENT
+  }
+
+  /** Interval between incremental prune steps of each cache. */
+  private static final Duration PRUNE_STEP_INTERVAL = Duration.ofSeconds(10);
+
+  /** Time a single prune step of a cache may take. */
+  private static final Duration PRUNE_STEP_BUDGET = Duration.ofMillis(100);
+
   private final MemoryCacheFactory memCacheFactory;
   private final Config config;
   private final Path cacheDir;
@@ -59,18 +86,43 @@ class H2CacheFactory implements PersistentCacheFactory, LifecycleListener {
   private final ScheduledExecutorService cleanup;
   private final long h2CacheSize;
   private final boolean h2AutoServer;
+  private final DiskBackend defaultDiskBackend;
+  private final int writeBatchSize;
+  private final int writeQueueCapacity;
+  private final long writeFlushIntervalMs;
+  private final Timer1<String> flushLatency;
+  private final DynamicItem<RemoteCacheStore> remoteStore;
+  private final long defaultRemoteTtlSec;
+  private final Duration remoteTimeout;
 
   @Inject
   H2CacheFactory(
       MemoryCacheFactory memCacheFactory,
       @GerritServerConfig Config cfg,
       SitePaths site,
-      DynamicMap<Cache<?, ?>> cacheMap) {
+      DynamicMap<Cache<?, ?>> cacheMap,
+      MetricMaker metrics,
+      DynamicItem<RemoteCacheStore> remoteStore) {
     this.memCacheFactory = memCacheFactory;
     config = cfg;
     cacheDir = getCacheDir(site, cfg.getString("cache", null, "directory"));
     h2CacheSize = cfg.getLong("cache", null, "h2CacheSize", -1);
     h2AutoServer = cfg.getBoolean("cache", null, "h2AutoServer", false);
+    defaultDiskBackend = cfg.getEnum("cache", null, "diskBackend", DiskBackend.H2);
+    writeBatchSize = Math.max(1, cfg.getInt("cache", null, "diskWriteBatchSize", 64));
+    writeQueueCapacity =
+        Math.max(writeBatchSize, cfg.getInt("cache", null, "diskWriteQueueCapacity", 1024));
+    writeFlushIntervalMs =
+        ConfigUtil.getTimeUnit(
+            cfg, "cache", null, "diskWriteFlushInterval", 1000, TimeUnit.MILLISECONDS);
+    this.remoteStore = remoteStore;
+    defaultRemoteTtlSec =
+        ConfigUtil.getTimeUnit(
+            cfg, "cache", null, "remoteTtl", TimeUnit.DAYS.toSeconds(7), TimeUnit.SECONDS);
+    remoteTimeout =
+        Duration.ofMillis(
+            ConfigUtil.getTimeUnit(
+                cfg, "cache", null, "remoteTimeout", 100, TimeUnit.MILLISECONDS));
     caches = new LinkedList<>();
     this.cacheMap = cacheMap;
 
@@ -91,6 +143,33 @@ class H2CacheFactory implements PersistentCacheFactory, LifecycleListener {
       executor = null;
       cleanup = null;
     }
+
+    Field<String> cacheName = Field.ofString("cache_name");
+    flushLatency =
+        metrics.newTimer(
+            "caches/disk_write_flush_latency",
+            new Description("Latency of writing a batch of entries to a persistent cache")
+                .setCumulative()
+                .setUnit(Units.MILLISECONDS),
+            cacheName);
+    CallbackMetric1<String, Long> queueDepth =
+        metrics.newCallbackMetric(
+            "caches/disk_write_queue_depth",
+            Long.class,
+            new Description("Entries waiting to be written to a persistent cache")
+                .setGauge()
+                .setUnit("entries"),
+            cacheName);
+    metrics.newTrigger(
+        queueDepth,
+        () -> {
+          synchronized (caches) {
+            for (H2CacheImpl<?, ?> cache : caches) {
+              queueDepth.set(cache.name(), (long) cache.writeQueueSize());
+            }
+          }
+          queueDepth.prune();
+        });
   }
 
   private static Path getCacheDir(SitePaths site, String name) {
@@ -123,6 +202,45 @@ class H2CacheFactory implements PersistentCacheFactory, LifecycleListener {
         Future<?> possiblyIgnoredError =
             cleanup.schedule(() -> cache.prune(cleanup), 30, TimeUnit.SECONDS);
       }
+      @SuppressWarnings("unused")
+      Future<?> possiblyIgnoredPrune =
+          cleanup.scheduleWithFixedDelay(
+              this::pruneStepAll,
+              PRUNE_STEP_INTERVAL.toMillis(),
+              PRUNE_STEP_INTERVAL.toMillis(),
+              TimeUnit.MILLISECONDS);
+      if (writeFlushIntervalMs > 0) {
+        @SuppressWarnings("unused")
+        Future<?> possiblyIgnoredFlush =
+            cleanup.scheduleWithFixedDelay(
+                () -> executor.execute(this::flushAll),
+                writeFlushIntervalMs,
+                writeFlushIntervalMs,
+                TimeUnit.MILLISECONDS);
+      }
+    }
+  }
+
+  private void flushAll() {
+    for (H2CacheImpl<?, ?> cache : snapshotCaches()) {
+      cache.flush();
+    }
+  }
+
+  private void pruneStepAll() {
+    // Exceptions must not escape, as they would cancel all further steps.
+    for (H2CacheImpl<?, ?> cache : snapshotCaches()) {
+      try {
+        cache.pruneStep(PRUNE_STEP_BUDGET);
+      } catch (RuntimeException e) {
+        logger.atWarning().withCause(e).log("Cannot prune disk cache %s", cache.name());
+      }
+    }
+  }
+
+  private List<H2CacheImpl<?, ?>> snapshotCaches() {
+    synchronized (caches) {
+      return new ArrayList<>(caches);
     }
   }
 
@@ -164,10 +282,14 @@ class H2CacheFactory implements PersistentCacheFactory, LifecycleListener {
     }
 
     H2CacheDefProxy<K, V> def = new H2CacheDefProxy<>(in);
-    SqlStore<K, V> store = newSqlStore(def, limit);
+    DiskStore<K, V> store = newStore(def, limit);
     H2CacheImpl<K, V> cache =
         new H2CacheImpl<>(
-            executor, store, def.keyType(), (Cache<K, ValueHolder<V>>) memCacheFactory.build(def));
+            store,
+            newWriteBehindQueue(def, store),
+            newRemoteTier(def),
+            def.keyType(),
+            (Cache<K, ValueHolder<V>>) memCacheFactory.build(def));
     synchronized (caches) {
       caches.add(cache);
     }
@@ -184,12 +306,14 @@ class H2CacheFactory implements PersistentCacheFactory, LifecycleListener {
     }
 
     H2CacheDefProxy<K, V> def = new H2CacheDefProxy<>(in);
-    SqlStore<K, V> store = newSqlStore(def, limit);
+    DiskStore<K, V> store = newStore(def, limit);
+    WriteBehindQueue<K, V> writer = newWriteBehindQueue(def, store);
+    RemoteTier<K, V> remote = newRemoteTier(def);
     Cache<K, ValueHolder<V>> mem =
         (Cache<K, ValueHolder<V>>)
             memCacheFactory.build(
-                def, (CacheLoader<K, V>) new H2CacheImpl.Loader<>(executor, store, loader));
-    H2CacheImpl<K, V> cache = new H2CacheImpl<>(executor, store, def.keyType(), mem);
+                def, (CacheLoader<K, V>) new H2CacheImpl.Loader<>(store, writer, remote, loader));
+    H2CacheImpl<K, V> cache = new H2CacheImpl<>(store, writer, remote, def.keyType(), mem);
     synchronized (caches) {
       caches.add(cache);
     }
@@ -208,6 +332,46 @@ class H2CacheFactory implements PersistentCacheFactory, LifecycleListener {
     }
   }
 
+  private <K, V> WriteBehindQueue<K, V> newWriteBehindQueue(
+      PersistentCacheDef<K, V> def, DiskStore<K, V> store) {
+    return new WriteBehindQueue<>(
+        def.name(), executor, store, writeBatchSize, writeQueueCapacity, flushLatency);
+  }
+
+  @Nullable
+  private <K, V> RemoteTier<K, V> newRemoteTier(PersistentCacheDef<K, V> def) {
+    if (!def.shareable() || !config.getBoolean("cache", def.configKey(), "remote", true)) {
+      return null;
+    }
+    long ttlSec =
+        ConfigUtil.getTimeUnit(
+            config, "cache", def.configKey(), "remoteTtl", defaultRemoteTtlSec, TimeUnit.SECONDS);
+    return new RemoteTier<>(
+        def.name(),
+        def.version(),
+        def.keySerializer(),
+        def.valueSerializer(),
+        remoteStore,
+        executor,
+        Duration.ofSeconds(ttlSec),
+        remoteTimeout);
+  }
+
+  private <V, K> DiskStore<K, V> newStore(PersistentCacheDef<K, V> def, long maxSize) {
+    DiskBackend backend =
+        config.getEnum("cache", def.configKey(), "diskBackend", defaultDiskBackend);
+    if (backend == DiskBackend.SEGMENT) {
+      return new SegmentStore<>(
+          cacheDir.resolve(def.name() + ".seg"),
+          def.keySerializer(),
+          def.valueSerializer(),
+          def.version(),
+          maxSize,
+          def.expireAfterWrite());
+    }
+    return newSqlStore(def, maxSize);
+  }
+
   private <V, K> SqlStore<K, V> newSqlStore(PersistentCacheDef<K, V> def, long maxSize) {
     StringBuilder url = new StringBuilder();
     url.append("jdbc:h2:").append(cacheDir.resolve(def.name()).toUri());
@@ -226,6 +390,7 @@ class H2CacheFactory implements PersistentCacheFactory, LifecycleListener {
         def.valueSerializer(),
         def.version(),
         maxSize,
-        def.expireAfterWrite());
+        def.expireAfterWrite(),
+        cacheDir.resolve(def.name() + ".bloom"));
   }
 }
@@ -20,11 +20,14 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.hash.BloomFilter;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.server.cache.PersistentCache;
+import com.google.gerrit.server.cache.PersistentCache.BloomFilterStats;
 import com.google.gerrit.server.cache.serialize.CacheSerializer;
 import com.google.gerrit.server.logging.TraceContext;
 import com.google.gerrit.server.logging.TraceContext.TraceTimer;
@@ -32,6 +35,7 @@ import com.google.gerrit.server.util.time.TimeUtil;
 import com.google.inject.TypeLiteral;
 import java.io.IOException;
 import java.io.InvalidClassException;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -39,13 +43,18 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -61,13 +70,21 @@ import java.util.concurrent.atomic.AtomicLong;
  * such as the PatchListCache.
  *
  * <p>Cache stores and invalidations are performed on a background thread, hiding the latency
- * associated with serializing the key and value pairs and writing them to the database log.
+ * associated with serializing the key and value pairs and writing them to the database log. Stores
+ * are queued in a {@link WriteBehindQueue} and written in batches.
  *
  * <p>A BloomFilter is used around the database to reduce the number of SELECTs issued against the
  * database for new cache items that have not been seen before, a common operation for the
  * PatchListCache. The BloomFilter is sized when the cache starts to be 64,000 entries or double the
  * number of items currently in the database table.
  *
+ * <p>The database is accessed through a {@link DiskStore}. By default this is an H2 {@link
+ * SqlStore}; caches can instead be configured to use an append-only {@link SegmentStore}.
+ *
+ * <p>Shareable caches may have a {@link RemoteTier} behind the database, which is consulted after
+ * a miss on disk and receives newly computed values. Recall lookups through {@link
+ * #getIfPresent(Object)} stay local.
+ *
  * <p>This cache does not export its items as a ConcurrentMap.
  *
  * @see H2CacheFactory
@@ -75,21 +92,33 @@ import java.util.concurrent.atomic.AtomicLong;
 public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements PersistentCache {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+  /** Expected false positive probability above which a BloomFilter snapshot is rebuilt. */
+  private static final double MAX_BLOOM_FILTER_FPP = 0.1;
+
+  /** Number of rows examined per query while sweeping a store for eviction. */
+  private static final int SWEEP_CHUNK_SIZE = 256;
+
+  /** Number of pending access time updates after which readers write them out themselves. */
+  private static final int MAX_PENDING_TOUCHES = 1024;
+
   private static final ImmutableSet<String> OLD_CLASS_NAMES =
       ImmutableSet.of("com.google.gerrit.server.change.ChangeKind");
 
-  private final Executor executor;
-  private final SqlStore<K, V> store;
+  private final DiskStore<K, V> store;
+  private final WriteBehindQueue<K, V> writer;
+  @Nullable private final RemoteTier<K, V> remote;
   private final TypeLiteral<K> keyType;
   private final Cache<K, ValueHolder<V>> mem;
 
   H2CacheImpl(
-      Executor executor,
-      SqlStore<K, V> store,
+      DiskStore<K, V> store,
+      WriteBehindQueue<K, V> writer,
+      @Nullable RemoteTier<K, V> remote,
       TypeLiteral<K> keyType,
       Cache<K, ValueHolder<V>> mem) {
-    this.executor = executor;
     this.store = store;
+    this.writer = writer;
+    this.remote = remote;
     this.keyType = keyType;
     this.mem = mem;
   }
@@ -131,41 +160,89 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
     return mem.get(
             key,
             () -> {
-              if (store.mightContain(key)) {
-                ValueHolder<V> h = store.getIfPresent(key);
-                if (h != null) {
-                  return h;
-                }
+              ValueHolder<V> h = readThrough(store, writer, remote, key);
+              if (h != null) {
+                return h;
               }
 
-              ValueHolder<V> h = new ValueHolder<>(valueLoader.call());
+              h = new ValueHolder<>(valueLoader.call());
               h.created = TimeUtil.nowMs();
-              executor.execute(() -> store.put(key, h));
+              writeThrough(writer, remote, key, h);
               return h;
             })
         .value;
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * <p>Keys that are not in memory are loaded together, so that if the cache has a remote tier,
+   * keys that are not on disk are fetched from it in a single request.
+   */
+  @Override
+  public ImmutableMap<K, V> getAll(Iterable<? extends K> keys) throws ExecutionException {
+    if (mem instanceof LoadingCache) {
+      return ImmutableMap.copyOf(
+          Maps.transformValues(((LoadingCache<K, ValueHolder<V>>) mem).getAll(keys), h -> h.value));
+    }
+    return super.getAll(keys);
+  }
+
   @Override
   public void put(K key, V val) {
     final ValueHolder<V> h = new ValueHolder<>(val);
     h.created = TimeUtil.nowMs();
     mem.put(key, h);
-    executor.execute(() -> store.put(key, h));
+    writeThrough(writer, remote, key, h);
+  }
+
+  /**
+   * Looks up a key on disk, and then in the remote tier.
+   *
+   * <p>Entries found in the remote tier are also written to disk.
+   */
+  @Nullable
+  private static <K, V> ValueHolder<V> readThrough(
+      DiskStore<K, V> store,
+      WriteBehindQueue<K, V> writer,
+      @Nullable RemoteTier<K, V> remote,
+      K key) {
+    if (store.mightContain(key)) {
+      ValueHolder<V> h = store.getIfPresent(key);
+      if (h != null) {
+        return h;
+      }
+    }
+    if (remote != null) {
+      ValueHolder<V> h = remote.getIfPresent(key);
+      if (h != null) {
+        writer.put(key, h);
+        return h;
+      }
+    }
+    return null;
+  }
+
+  private static <K, V> void writeThrough(
+      WriteBehindQueue<K, V> writer, @Nullable RemoteTier<K, V> remote, K key, ValueHolder<V> h) {
+    writer.put(key, h);
+    if (remote != null) {
+      remote.put(key, h);
+    }
   }
 
   @SuppressWarnings("unchecked")
   @Override
   public void invalidate(Object key) {
-    if (keyType.getRawType().isInstance(key) && store.mightContain((K) key)) {
-      executor.execute(() -> store.invalidate((K) key));
+    if (keyType.getRawType().isInstance(key)) {
+      writer.invalidate((K) key);
     }
     mem.invalidate(key);
   }
 
   @Override
   public void invalidateAll() {
-    store.invalidateAll();
+    writer.invalidateAll();
     mem.invalidateAll();
   }
 
@@ -188,16 +265,36 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
     store.open();
   }
 
+  String name() {
+    return writer.name();
+  }
+
+  int writeQueueSize() {
+    return writer.size();
+  }
+
+  void flush() {
+    writer.flush();
+  }
+
   void stop() {
+    writer.flush();
+    Map<K, ValueHolder<V>> dirty = new HashMap<>();
     for (Map.Entry<K, ValueHolder<V>> e : mem.asMap().entrySet()) {
       ValueHolder<V> h = e.getValue();
       if (!h.clean) {
-        store.put(e.getKey(), h);
+        dirty.put(e.getKey(), h);
       }
     }
+    store.putAll(dirty);
+    store.flush();
     store.close();
   }
 
+  void pruneStep(Duration budget) {
+    store.pruneStep(mem, budget);
+  }
+
   void prune(ScheduledExecutorService service) {
     store.prune(mem);
 
@@ -225,35 +322,76 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
   }
 
   static class Loader<K, V> extends CacheLoader<K, ValueHolder<V>> {
-    private final Executor executor;
-    private final SqlStore<K, V> store;
+    private final DiskStore<K, V> store;
+    private final WriteBehindQueue<K, V> writer;
+    @Nullable private final RemoteTier<K, V> remote;
     private final CacheLoader<K, V> loader;
 
-    Loader(Executor executor, SqlStore<K, V> store, CacheLoader<K, V> loader) {
-      this.executor = executor;
+    Loader(
+        DiskStore<K, V> store,
+        WriteBehindQueue<K, V> writer,
+        @Nullable RemoteTier<K, V> remote,
+        CacheLoader<K, V> loader) {
       this.store = store;
+      this.writer = writer;
+      this.remote = remote;
       this.loader = loader;
     }
 
     @Override
     public ValueHolder<V> load(K key) throws Exception {
       try (TraceTimer timer = TraceContext.newTimer("Loading value for %s from cache", key)) {
-        if (store.mightContain(key)) {
-          ValueHolder<V> h = store.getIfPresent(key);
-          if (h != null) {
-            return h;
-          }
+        ValueHolder<V> h = readThrough(store, writer, remote, key);
+        if (h != null) {
+          return h;
         }
 
-        final ValueHolder<V> h = new ValueHolder<>(loader.load(key));
+        h = new ValueHolder<>(loader.load(key));
         h.created = TimeUtil.nowMs();
-        executor.execute(() -> store.put(key, h));
+        writeThrough(writer, remote, key, h);
         return h;
       }
     }
+
+    @Override
+    public Map<K, ValueHolder<V>> loadAll(Iterable<? extends K> keys) throws Exception {
+      try (TraceTimer timer = TraceContext.newTimer("Loading values for %s from cache", keys)) {
+        Map<K, ValueHolder<V>> result = new HashMap<>();
+        List<K> missing = new ArrayList<>();
+        for (K key : keys) {
+          ValueHolder<V> h = readThrough(store, writer, null, key);
+          if (h != null) {
+            result.put(key, h);
+          } else {
+            missing.add(key);
+          }
+        }
+
+        if (remote != null) {
+          remote
+              .getAllPresent(missing)
+              .forEach(
+                  (k, h) -> {
+                    writer.put(k, h);
+                    result.put(k, h);
+                  });
+        }
+
+        for (K key : missing) {
+          if (!result.containsKey(key)) {
+            // The remote tier was already asked for all missing keys.
+            ValueHolder<V> h = new ValueHolder<>(loader.load(key));
+            h.created = TimeUtil.nowMs();
+            writeThrough(writer, remote, key, h);
+            result.put(key, h);
+          }
+        }
+        return result;
+      }
+    }
   }
 
-  static class SqlStore<K, V> {
+  static class SqlStore<K, V> implements DiskStore<K, V> {
     private final String url;
     private final KeyType<K> keyType;
     private final CacheSerializer<V> valueSerializer;
@@ -263,7 +401,17 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
     private final BlockingQueue<SqlHandle> handles;
     private final AtomicLong hitCount = new AtomicLong();
     private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final Set<K> pendingTouches = ConcurrentHashMap.newKeySet();
+    private final Clock clock = new Clock();
+
+    /** Space used by the store, maintained between full scans; negative if not yet computed. */
+    private final AtomicLong estimatedSpace = new AtomicLong(-1);
+
+    @Nullable private final Path bloomFilterFile;
     private volatile BloomFilter<K> bloomFilter;
+    private volatile long bloomFilterCreated;
+    private BloomFilterSnapshot<K> unvalidatedSnapshot;
     private int estimatedSize;
 
     SqlStore(
@@ -273,13 +421,15 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
         CacheSerializer<V> valueSerializer,
         int version,
         long maxSize,
-        @Nullable Duration expireAfterWrite) {
+        @Nullable Duration expireAfterWrite,
+        @Nullable Path bloomFilterFile) {
       this.url = jdbcUrl;
       this.keyType = createKeyType(keyType, keySerializer);
       this.valueSerializer = valueSerializer;
       this.version = version;
       this.maxSize = maxSize;
       this.expireAfterWrite = expireAfterWrite;
+      this.bloomFilterFile = bloomFilterFile;
 
       int cores = Runtime.getRuntime().availableProcessors();
       int keep = Math.min(cores, 16);
@@ -295,29 +445,121 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
       return new ObjectKeyTypeImpl<>(serializer);
     }
 
-    synchronized void open() {
-      if (bloomFilter == null) {
+    @Override
+    public void open() {
+      initBloomFilter();
+      BloomFilterSnapshot<K> snapshot;
+      synchronized (this) {
+        snapshot = unvalidatedSnapshot;
+        unvalidatedSnapshot = null;
+      }
+      // Lookups use the loaded filter while it is validated, and if needed, rebuilt.
+      if (snapshot != null && !isCurrent(snapshot)) {
+        logger.atInfo().log("Rebuilding outdated BloomFilter snapshot for %s", url);
+        BloomFilter<K> b = buildBloomFilter();
+        if (b != null) {
+          bloomFilter = b;
+        }
+      }
+    }
+
+    private synchronized void initBloomFilter() {
+      if (bloomFilter != null) {
+        return;
+      }
+      BloomFilterSnapshot<K> snapshot = readBloomFilterSnapshot();
+      if (snapshot != null) {
+        bloomFilter = snapshot.filter;
+        bloomFilterCreated = snapshot.created;
+        unvalidatedSnapshot = snapshot;
+      } else {
         bloomFilter = buildBloomFilter();
       }
     }
 
-    void close() {
+    @Nullable
+    private BloomFilterSnapshot<K> readBloomFilterSnapshot() {
+      if (bloomFilterFile == null) {
+        return null;
+      }
+      try {
+        BloomFilterSnapshot<K> snapshot =
+            BloomFilterSnapshot.read(bloomFilterFile, keyType.funnel());
+        if (snapshot != null && snapshot.version != version) {
+          return null;
+        }
+        return snapshot;
+      } catch (IOException | RuntimeException e) {
+        logger.atWarning().withCause(e).log("Cannot read BloomFilter snapshot for %s", url);
+        return null;
+      }
+    }
+
+    /**
+     * Checks that a snapshot still describes the table.
+     *
+     * <p>A snapshot that misses keys is harmless, as it only causes values to be recomputed, but
+     * one that is outdated or saturated makes the filter useless.
+     */
+    private boolean isCurrent(BloomFilterSnapshot<K> snapshot) {
+      if (snapshot.filter.expectedFpp() > MAX_BLOOM_FILTER_FPP) {
+        return false;
+      }
+      SqlHandle c = null;
+      try {
+        c = acquire();
+        long rows = countRows(c);
+        estimatedSize = (int) Math.min(rows, Integer.MAX_VALUE);
+        return rows == snapshot.rowCount;
+      } catch (SQLException e) {
+        logger.atWarning().withCause(e).log("Cannot validate BloomFilter snapshot for %s", url);
+        c = close(c);
+        return true;
+      } finally {
+        release(c);
+      }
+    }
+
+    private void writeBloomFilterSnapshot() {
+      BloomFilter<K> b = bloomFilter;
+      if (bloomFilterFile == null || b == null) {
+        return;
+      }
+      SqlHandle c = null;
+      try {
+        c = acquire();
+        new BloomFilterSnapshot<>(b, version, bloomFilterCreated, countRows(c))
+            .write(bloomFilterFile);
+      } catch (IOException | SQLException e) {
+        logger.atWarning().withCause(e).log("Cannot write BloomFilter snapshot for %s", url);
+        c = close(c);
+      } finally {
+        release(c);
+      }
+    }
+
+    private static long countRows(SqlHandle c) throws SQLException {
+      try (Statement s = c.conn.createStatement();
+          ResultSet r = s.executeQuery("SELECT COUNT(*) FROM data")) {
+        return r.next() ? r.getLong(1) : 0;
+      }
+    }
+
+    @Override
+    public void close() {
+      writeBloomFilterSnapshot();
       SqlHandle h;
       while ((h = handles.poll()) != null) {
         h.close();
       }
     }
 
-    boolean mightContain(K key) {
+    @Override
+    public boolean mightContain(K key) {
       BloomFilter<K> b = bloomFilter;
       if (b == null) {
-        synchronized (this) {
-          b = bloomFilter;
-          if (b == null) {
-            b = buildBloomFilter();
-            bloomFilter = b;
-          }
-        }
+        initBloomFilter();
+        b = bloomFilter;
       }
       return b == null || b.mightContain(key);
     }
@@ -336,6 +578,7 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
           }
         }
 
+        long created = TimeUtil.nowMs();
         BloomFilter<K> b = newBloomFilter();
         try (PreparedStatement ps = c.conn.prepareStatement("SELECT k FROM data WHERE version=?")) {
           ps.setInt(1, version);
@@ -362,6 +605,7 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
             throw e;
           }
         }
+        bloomFilterCreated = created;
         return b;
       } catch (IOException | SQLException e) {
         logger.atWarning().log("Cannot build BloomFilter for %s: %s", url, e.getMessage());
@@ -372,7 +616,8 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
       }
     }
 
-    ValueHolder<V> getIfPresent(K key) {
+    @Override
+    public ValueHolder<V> getIfPresent(K key) {
       SqlHandle c = null;
       try {
         c = acquire();
@@ -402,7 +647,7 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
           ValueHolder<V> h = new ValueHolder<>(val);
           h.clean = true;
           hitCount.incrementAndGet();
-          touch(c, key);
+          deferTouch(c, key);
           return h;
         } finally {
           c.get.clearParameters();
@@ -435,28 +680,57 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
       return age.compareTo(expireAfterWrite) > 0;
     }
 
-    private void touch(SqlHandle c, K key) throws IOException, SQLException {
+    /**
+     * Records that the key was accessed.
+     *
+     * <p>Access times only drive the eviction order of {@link #pruneStep}, so they are collected
+     * and written in a single batch by {@link #flush()}, or here once too many are pending.
+     */
+    private void deferTouch(SqlHandle c, K key) throws IOException, SQLException {
+      pendingTouches.add(key);
+      if (pendingTouches.size() >= MAX_PENDING_TOUCHES) {
+        flushTouches(c);
+      }
+    }
+
+    private void flushTouches(SqlHandle c) throws IOException, SQLException {
+      if (pendingTouches.isEmpty()) {
+        return;
+      }
       if (c.touch == null) {
         c.touch = c.conn.prepareStatement("UPDATE data SET accessed=? WHERE k=? AND version=?");
       }
       try {
-        c.touch.setTimestamp(1, TimeUtil.nowTs());
-        keyType.set(c.touch, 2, key);
-        c.touch.setInt(3, version);
-        c.touch.executeUpdate();
+        Timestamp now = TimeUtil.nowTs();
+        for (Iterator<K> it = pendingTouches.iterator(); it.hasNext(); ) {
+          K key = it.next();
+          it.remove();
+          c.touch.setTimestamp(1, now);
+          keyType.set(c.touch, 2, key);
+          c.touch.setInt(3, version);
+          c.touch.addBatch();
+        }
+        c.touch.executeBatch();
       } finally {
+        c.touch.clearBatch();
         c.touch.clearParameters();
       }
     }
 
-    void put(K key, ValueHolder<V> holder) {
-      if (holder.clean) {
-        return;
-      }
+    @Override
+    public void put(K key, ValueHolder<V> holder) {
+      putAll(ImmutableMap.of(key, holder));
+    }
 
+    @Override
+    public void putAll(Map<K, ValueHolder<V>> entries) {
       BloomFilter<K> b = bloomFilter;
       if (b != null) {
-        b.put(key);
+        for (Map.Entry<K, ValueHolder<V>> e : entries.entrySet()) {
+          if (!e.getValue().clean) {
+            b.put(e.getKey());
+          }
+        }
         bloomFilter = b;
       }
 
@@ -468,15 +742,37 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
               c.conn.prepareStatement(
                   "MERGE INTO data (k, v, version, created, accessed) VALUES(?,?,?,?,?)");
         }
+        List<ValueHolder<V>> written = new ArrayList<>(entries.size());
+        long addedSpace = 0;
         try {
-          keyType.set(c.put, 1, key);
-          c.put.setBytes(2, valueSerializer.serialize(holder.value));
-          c.put.setInt(3, version);
-          c.put.setTimestamp(4, new Timestamp(holder.created));
-          c.put.setTimestamp(5, TimeUtil.nowTs());
-          c.put.executeUpdate();
-          holder.clean = true;
+          Timestamp now = TimeUtil.nowTs();
+          for (Map.Entry<K, ValueHolder<V>> e : entries.entrySet()) {
+            ValueHolder<V> holder = e.getValue();
+            if (holder.clean) {
+              continue;
+            }
+            byte[] value = valueSerializer.serialize(holder.value);
+            keyType.set(c.put, 1, e.getKey());
+            c.put.setBytes(2, value);
+            c.put.setInt(3, version);
+            c.put.setTimestamp(4, new Timestamp(holder.created));
+            c.put.setTimestamp(5, now);
+            c.put.addBatch();
+            written.add(holder);
+            addedSpace += value.length;
+          }
+          if (!written.isEmpty()) {
+            c.put.executeBatch();
+            // Approximate until the next full sweep: keys are not counted, and replaced values
+            // are not subtracted.
+            long added = addedSpace;
+            estimatedSpace.updateAndGet(v -> v < 0 ? v : v + added);
+          }
+          for (ValueHolder<V> holder : written) {
+            holder.clean = true;
+          }
         } finally {
+          c.put.clearBatch();
           c.put.clearParameters();
         }
       } catch (IOException | SQLException e) {
@@ -487,7 +783,25 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
       }
     }
 
-    void invalidate(K key) {
+    @Override
+    public void flush() {
+      if (pendingTouches.isEmpty()) {
+        return;
+      }
+      SqlHandle c = null;
+      try {
+        c = acquire();
+        flushTouches(c);
+      } catch (IOException | SQLException e) {
+        logger.atWarning().withCause(e).log("Cannot update access times in cache %s", url);
+        c = close(c);
+      } finally {
+        release(c);
+      }
+    }
+
+    @Override
+    public void invalidate(K key) {
       SqlHandle c = null;
       try {
         c = acquire();
@@ -513,13 +827,17 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
       }
     }
 
-    void invalidateAll() {
+    @Override
+    public void invalidateAll() {
       SqlHandle c = null;
       try {
         c = acquire();
         try (Statement s = c.conn.createStatement()) {
           s.executeUpdate("DELETE FROM data");
         }
+        pendingTouches.clear();
+        estimatedSpace.set(0);
+        bloomFilterCreated = TimeUtil.nowMs();
         bloomFilter = newBloomFilter();
       } catch (SQLException e) {
         logger.atWarning().withCause(e).log("Cannot invalidate cache %s", url);
@@ -529,10 +847,18 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
       }
     }
 
-    void prune(Cache<K, ?> mem) {
+    /**
+     * Deletes entries of other versions and recomputes the space used by the store.
+     *
+     * <p>Eviction of entries to stay within the disk limit is done incrementally by {@link
+     * #pruneStep(Cache, Duration)}.
+     */
+    @Override
+    public void prune(Cache<K, ?> mem) {
       SqlHandle c = null;
       try {
         c = acquire();
+        flushTouches(c);
         try (PreparedStatement ps = c.conn.prepareStatement("DELETE FROM data WHERE version!=?")) {
           ps.setInt(1, version);
           int oldEntries = ps.executeUpdate();
@@ -542,29 +868,40 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
                 oldEntries, version, url);
           }
         }
-        try (Statement s = c.conn.createStatement()) {
-          // Compute size without restricting to version (although obsolete data was just pruned
-          // anyway).
-          long used;
-          try (ResultSet r = s.executeQuery("SELECT SUM(space) FROM data")) {
-            used = r.next() ? r.getLong(1) : 0;
-          }
-          if (used <= maxSize) {
-            return;
-          }
+        computeSpace(c);
+      } catch (SQLException | IOException e) {
+        logger.atWarning().withCause(e).log("Cannot prune cache %s", url);
+        c = close(c);
+      } finally {
+        release(c);
+      }
+      writeBloomFilterSnapshot();
+    }
 
-          try (ResultSet r =
-              s.executeQuery("SELECT k, space, created FROM data ORDER BY accessed")) {
-            while (maxSize < used && r.next()) {
-              K key = keyType.get(r, 1);
-              Timestamp created = r.getTimestamp(3);
-              if (mem.getIfPresent(key) != null && !expired(created)) {
-                touch(c, key);
-              } else {
-                invalidate(c, key);
-                used -= r.getLong(2);
-              }
-            }
+    /**
+     * Evicts entries with a CLOCK approximation of LRU until the store fits its disk limit or the
+     * time budget is used up.
+     *
+     * <p>A hand sweeps the table in row order, a chunk of rows at a time. Rows that were accessed
+     * since the previous sweep started, or that are still held in memory, get a second chance;
+     * others are deleted. If a complete sweep evicts nothing the next one ignores access times.
+     */
+    @Override
+    public void pruneStep(Cache<K, ?> mem, Duration budget) {
+      long deadline = System.nanoTime() + budget.toNanos();
+      SqlHandle c = null;
+      try {
+        c = acquire();
+        if (estimatedSpace.get() < 0) {
+          computeSpace(c);
+        }
+        if (estimatedSpace.get() <= maxSize) {
+          return;
+        }
+        flushTouches(c);
+        synchronized (clock) {
+          while (estimatedSpace.get() > maxSize && System.nanoTime() < deadline) {
+            sweep(c, mem);
           }
         }
       } catch (IOException | SQLException e) {
@@ -575,7 +912,86 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
       }
     }
 
-    DiskStats diskStats() {
+    private void sweep(SqlHandle c, Cache<K, ?> mem) throws IOException, SQLException {
+      if (c.sweep == null) {
+        c.sweep =
+            c.conn.prepareStatement(
+                "SELECT _ROWID_, k, space, created, accessed, version FROM data"
+                    + " WHERE _ROWID_>? ORDER BY _ROWID_ LIMIT ?");
+      }
+      if (c.evict == null) {
+        c.evict = c.conn.prepareStatement("DELETE FROM data WHERE _ROWID_=?");
+      }
+
+      List<SweptRow> rows = new ArrayList<>(SWEEP_CHUNK_SIZE);
+      try {
+        c.sweep.setLong(1, clock.hand);
+        c.sweep.setInt(2, SWEEP_CHUNK_SIZE);
+        try (ResultSet r = c.sweep.executeQuery()) {
+          while (r.next()) {
+            boolean retain = r.getInt(6) == version && !evictable(r, mem);
+            rows.add(new SweptRow(r.getLong(1), r.getLong(3), retain));
+          }
+        }
+      } finally {
+        c.sweep.clearParameters();
+      }
+
+      try {
+        for (SweptRow row : rows) {
+          if (estimatedSpace.get() <= maxSize) {
+            return;
+          }
+          clock.hand = row.rowId;
+          if (row.retain) {
+            clock.space += row.space;
+            continue;
+          }
+          c.evict.setLong(1, row.rowId);
+          c.evict.executeUpdate();
+          estimatedSpace.addAndGet(-row.space);
+          evictionCount.incrementAndGet();
+          clock.evictions++;
+        }
+      } finally {
+        c.evict.clearParameters();
+      }
+
+      if (rows.size() < SWEEP_CHUNK_SIZE) {
+        // The hand reached the end of the table and has seen every remaining row.
+        estimatedSpace.set(clock.space);
+        clock.wrap();
+      }
+    }
+
+    private boolean evictable(ResultSet r, Cache<K, ?> mem) throws SQLException {
+      K key;
+      try {
+        key = keyType.get(r, 2);
+      } catch (IOException | RuntimeException e) {
+        // Entries that can no longer be read are useless.
+        return true;
+      }
+      if (expired(r.getTimestamp(4))) {
+        return true;
+      }
+      if (mem.getIfPresent(key) != null) {
+        return false;
+      }
+      return clock.ignoreAccessTimes || r.getTimestamp(5).before(clock.referenced);
+    }
+
+    private void computeSpace(SqlHandle c) throws SQLException {
+      try (Statement s = c.conn.createStatement();
+          // Compute size without restricting to version (although obsolete data was just pruned
+          // anyway).
+          ResultSet r = s.executeQuery("SELECT SUM(space) FROM data")) {
+        estimatedSpace.set(r.next() ? r.getLong(1) : 0);
+      }
+    }
+
+    @Override
+    public DiskStats diskStats() {
       long size = 0;
       long space = 0;
       SqlHandle c = null;
@@ -595,7 +1011,14 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
       } finally {
         release(c);
       }
-      return new DiskStats(size, space, hitCount.get(), missCount.get());
+      BloomFilter<K> b = bloomFilter;
+      return new DiskStats(
+          size,
+          space,
+          hitCount.get(),
+          missCount.get(),
+          evictionCount.get(),
+          b != null ? new BloomFilterStats(bloomFilterCreated, b.expectedFpp()) : null);
     }
 
     private SqlHandle acquire() throws SQLException {
@@ -622,6 +1045,46 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
     }
   }
 
+  /** Position and bookkeeping of the eviction hand sweeping a {@link SqlStore}. */
+  private static class Clock {
+    /** Row ID of the last row examined. */
+    long hand;
+
+    /** Rows accessed before this time lose their second chance. */
+    Timestamp referenced = TimeUtil.nowTs();
+
+    Timestamp sweepStarted = TimeUtil.nowTs();
+
+    /** Space of the rows retained by the current sweep. */
+    long space;
+
+    /** Rows evicted by the current sweep. */
+    long evictions;
+
+    boolean ignoreAccessTimes;
+
+    void wrap() {
+      ignoreAccessTimes = evictions == 0;
+      referenced = sweepStarted;
+      sweepStarted = TimeUtil.nowTs();
+      hand = 0;
+      space = 0;
+      evictions = 0;
+    }
+  }
+
+  private static class SweptRow {
+    final long rowId;
+    final long space;
+    final boolean retain;
+
+    SweptRow(long rowId, long space, boolean retain) {
+      this.rowId = rowId;
+      this.space = space;
+      this.retain = retain;
+    }
+  }
+
   static class SqlHandle {
     private final String url;
     Connection conn;
@@ -629,6 +1092,8 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
     PreparedStatement put;
     PreparedStatement touch;
     PreparedStatement invalidate;
+    PreparedStatement sweep;
+    PreparedStatement evict;
 
     SqlHandle(String url, KeyType<?> type) throws SQLException {
       this.url = url;
@@ -656,6 +1121,8 @@ public class H2CacheImpl<K, V> extends AbstractLoadingCache<K, V> implements Per
       put = closeStatement(put);
       touch = closeStatement(touch);
       invalidate = closeStatement(invalidate);
+      sweep = closeStatement(sweep);
+      evict = closeStatement(evict);
 
       if (conn != null) {
         try {
@@ -14,10 +14,12 @@
 
 package com.google.gerrit.server.cache.h2;
 
+import com.google.gerrit.extensions.registration.DynamicItem;
 import com.google.gerrit.lifecycle.LifecycleModule;
 import com.google.gerrit.server.ModuleImpl;
 import com.google.gerrit.server.cache.CacheModule;
 import com.google.gerrit.server.cache.PersistentCacheFactory;
+import com.google.gerrit.server.cache.RemoteCacheStore;
 
 @ModuleImpl(name = CacheModule.PERSISTENT_MODULE)
 public class H2CacheModule extends LifecycleModule {
@@ -25,5 +27,6 @@ public class H2CacheModule extends LifecycleModule {
   protected void configure() {
     bind(PersistentCacheFactory.class).to(H2CacheFactory.class);
     listener().to(H2CacheFactory.class);
+    DynamicItem.itemOf(binder(), RemoteCacheStore.class);
   }
 }
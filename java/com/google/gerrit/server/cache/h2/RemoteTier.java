@@ -0,0 +1,150 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.cache.h2;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.extensions.registration.DynamicItem;
+import com.google.gerrit.server.cache.RemoteCacheStore;
+import com.google.gerrit.server.cache.h2.H2CacheImpl.ValueHolder;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
+import com.google.gerrit.server.util.time.TimeUtil;
+import com.google.protobuf.ByteString;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Second tier of a persistent cache, backed by the {@link RemoteCacheStore} bound by a plugin.
+ *
+ * <p>Lookups wait at most {@code timeout} for the remote store and are treated as misses if it does
+ * not answer in time. Writes are handed to the store from the cache's background executor.
+ *
+ * <p>If no store is bound, lookups miss and writes are dropped.
+ */
+class RemoteTier<K, V> {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private final String cacheName;
+  private final int version;
+  private final CacheSerializer<K> keySerializer;
+  private final CacheSerializer<V> valueSerializer;
+  private final DynamicItem<RemoteCacheStore> store;
+  private final Executor executor;
+  private final Duration ttl;
+  private final Duration timeout;
+
+  RemoteTier(
+      String cacheName,
+      int version,
+      CacheSerializer<K> keySerializer,
+      CacheSerializer<V> valueSerializer,
+      DynamicItem<RemoteCacheStore> store,
+      Executor executor,
+      Duration ttl,
+      Duration timeout) {
+    this.cacheName = cacheName;
+    this.version = version;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.store = store;
+    this.executor = executor;
+    this.ttl = ttl;
+    this.timeout = timeout;
+  }
+
+  @Nullable
+  ValueHolder<V> getIfPresent(K key) {
+    return getAllPresent(ImmutableList.of(key)).get(key);
+  }
+
+  /** Looks up all keys in a single request to the remote store. */
+  Map<K, ValueHolder<V>> getAllPresent(Collection<? extends K> keys) {
+    RemoteCacheStore s = store.get();
+    if (s == null || keys.isEmpty()) {
+      return ImmutableMap.of();
+    }
+
+    Map<ByteString, K> byBytes = new HashMap<>();
+    for (K key : keys) {
+      byBytes.put(ByteString.copyFrom(keySerializer.serialize(key)), key);
+    }
+    ImmutableMap<ByteString, ByteString> found;
+    ListenableFuture<ImmutableMap<ByteString, ByteString>> future = null;
+    try {
+      future = s.getAll(cacheName, version, ImmutableSet.copyOf(byBytes.keySet()));
+      found = future.get(timeout.toMillis(), MILLISECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      logger.atFine().log(
+          "Timeout reading %d keys of %s from remote cache", keys.size(), cacheName);
+      return ImmutableMap.of();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return ImmutableMap.of();
+    } catch (ExecutionException | RuntimeException e) {
+      logger.atWarning().withCause(e).log("Cannot read %s from remote cache", cacheName);
+      return ImmutableMap.of();
+    }
+
+    Map<K, ValueHolder<V>> result = new HashMap<>();
+    long now = TimeUtil.nowMs();
+    for (Map.Entry<ByteString, ByteString> e : found.entrySet()) {
+      K key = byBytes.get(e.getKey());
+      if (key == null) {
+        continue;
+      }
+      try {
+        ValueHolder<V> h =
+            new ValueHolder<>(valueSerializer.deserialize(e.getValue().toByteArray()));
+        h.created = now;
+        result.put(key, h);
+      } catch (RuntimeException err) {
+        logger.atWarning().withCause(err).log("Cannot deserialize %s entry for %s", cacheName, key);
+      }
+    }
+    return result;
+  }
+
+  void put(K key, ValueHolder<V> holder) {
+    RemoteCacheStore s = store.get();
+    if (s == null) {
+      return;
+    }
+    executor.execute(
+        () -> {
+          try {
+            s.put(
+                cacheName,
+                version,
+                ByteString.copyFrom(keySerializer.serialize(key)),
+                ByteString.copyFrom(valueSerializer.serialize(holder.value)),
+                ttl);
+          } catch (RuntimeException e) {
+            logger.atWarning().withCause(e).log("Cannot write %s to remote cache", cacheName);
+          }
+        });
+  }
+}
@@ -0,0 +1,622 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.cache.h2;
+
+import static java.util.Comparator.comparingLong;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.collect.Sets;
+import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.server.cache.PersistentCache.DiskStats;
+import com.google.gerrit.server.cache.h2.H2CacheImpl.ValueHolder;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
+import com.google.gerrit.server.util.time.TimeUtil;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only {@link DiskStore} backed by memory-mapped segment files.
+ *
+ * <p>Every put or invalidation appends a record to the active segment file. An in-memory index
+ * maps each live key to the location of its newest record, so lookups never touch the disk for
+ * keys that are not stored, and a hit costs a single read. Access times are tracked only in the
+ * index, avoiding the write per read that the H2 store needs to maintain its LRU order.
+ *
+ * <p>Segments that are no longer appended to are memory-mapped read-only. When the disk space used
+ * by superseded records exceeds the space used by live ones, {@link #prune(Cache)} rewrites the
+ * live records into a new segment and deletes the old files.
+ *
+ * <p>Each record is laid out as:
+ *
+ * <ul>
+ *   <li>{@code int} length of the body
+ *   <li>body: {@code byte} type, {@code int} version, {@code long} creation time, {@code int} key
+ *       length, key bytes, value bytes
+ *   <li>{@code int} CRC32 of the body
+ * </ul>
+ *
+ * <p>Records that are truncated or fail their checksum end the scan of a segment when the index is
+ * rebuilt on startup.
+ */
+class SegmentStore<K, V> implements DiskStore<K, V> {
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  static final long DEFAULT_SEGMENT_SIZE = 64 << 20;
+
+  private static final String SEGMENT_PREFIX = "segment-";
+  private static final String SEGMENT_SUFFIX = ".dat";
+
+  private static final byte TYPE_PUT = 1;
+  private static final byte TYPE_DELETE = 2;
+
+  /** Type, version, creation time and key length. */
+  private static final int BODY_HEADER_SIZE = 1 + 4 + 8 + 4;
+
+  private final Path dir;
+  private final CacheSerializer<K> keySerializer;
+  private final CacheSerializer<V> valueSerializer;
+  private final int version;
+  private final long maxSize;
+  private final long segmentSize;
+  @Nullable private final Duration expireAfterWrite;
+  private final Map<K, Location> index = new ConcurrentHashMap<>();
+  private final AtomicLong liveBytes = new AtomicLong();
+  private final AtomicLong hitCount = new AtomicLong();
+  private final AtomicLong missCount = new AtomicLong();
+  private final AtomicLong evictionCount = new AtomicLong();
+
+  // Guarded by this.
+  private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+  private Segment active;
+  private long totalBytes;
+
+  private volatile boolean opened;
+
+  SegmentStore(
+      Path dir,
+      CacheSerializer<K> keySerializer,
+      CacheSerializer<V> valueSerializer,
+      int version,
+      long maxSize,
+      @Nullable Duration expireAfterWrite) {
+    this(
+        dir,
+        keySerializer,
+        valueSerializer,
+        version,
+        maxSize,
+        expireAfterWrite,
+        DEFAULT_SEGMENT_SIZE);
+  }
+
+  @VisibleForTesting
+  SegmentStore(
+      Path dir,
+      CacheSerializer<K> keySerializer,
+      CacheSerializer<V> valueSerializer,
+      int version,
+      long maxSize,
+      @Nullable Duration expireAfterWrite,
+      long segmentSize) {
+    this.dir = dir;
+    this.keySerializer = keySerializer;
+    this.valueSerializer = valueSerializer;
+    this.version = version;
+    this.maxSize = maxSize;
+    this.expireAfterWrite = expireAfterWrite;
+    this.segmentSize = segmentSize;
+  }
+
+  @Override
+  public synchronized void open() {
+    if (opened) {
+      return;
+    }
+    try {
+      Files.createDirectories(dir);
+      try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+        for (Path p : files) {
+          Integer id = segmentId(p);
+          if (id != null) {
+            segments.put(id, Segment.openSealed(id, p));
+          }
+        }
+      }
+      for (Segment s : new ArrayList<>(segments.values())) {
+        if (s.size == 0) {
+          segments.remove(s.id);
+          s.delete();
+          continue;
+        }
+        totalBytes += s.size;
+        load(s);
+      }
+    } catch (IOException e) {
+      logger.atWarning().withCause(e).log("Cannot open cache %s", dir);
+    }
+    opened = true;
+  }
+
+  private void load(Segment s) {
+    ByteBuffer buf = s.map.duplicate();
+    int skipped = 0;
+    while (buf.remaining() >= 4) {
+      int offset = buf.position();
+      int bodyLen = buf.getInt();
+      if (bodyLen < BODY_HEADER_SIZE || buf.remaining() < bodyLen + 4) {
+        logger.atWarning().log("Truncated record at %d in %s", offset, s.path);
+        break;
+      }
+      byte[] body = new byte[bodyLen];
+      buf.get(body);
+      if (buf.getInt() != crc(body)) {
+        logger.atWarning().log("Corrupt record at %d in %s", offset, s.path);
+        break;
+      }
+
+      ByteBuffer b = ByteBuffer.wrap(body);
+      byte type = b.get();
+      int recordVersion = b.getInt();
+      long created = b.getLong();
+      byte[] keyBytes = new byte[b.getInt()];
+      b.get(keyBytes);
+
+      K key;
+      try {
+        key = keySerializer.deserialize(keyBytes);
+      } catch (RuntimeException e) {
+        skipped++;
+        continue;
+      }
+
+      Location old;
+      if (type == TYPE_PUT && recordVersion == version) {
+        old = index.put(key, new Location(s, offset, 4 + bodyLen + 4, created));
+        liveBytes.addAndGet(4 + bodyLen + 4);
+      } else {
+        // Deletions and records of other versions supersede any earlier record for the key.
+        old = index.remove(key);
+      }
+      if (old != null) {
+        liveBytes.addAndGet(-old.length);
+      }
+    }
+    if (skipped > 0) {
+      logger.atWarning().log("Skipped %d unreadable keys in %s", skipped, s.path);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    for (Segment s : segments.values()) {
+      s.close();
+    }
+  }
+
+  @Override
+  public boolean mightContain(K key) {
+    ensureOpen();
+    return index.containsKey(key);
+  }
+
+  @Override
+  public ValueHolder<V> getIfPresent(K key) {
+    ensureOpen();
+    Location loc = index.get(key);
+    if (loc == null) {
+      missCount.incrementAndGet();
+      return null;
+    }
+    if (expired(loc.created)) {
+      remove(key, loc);
+      missCount.incrementAndGet();
+      return null;
+    }
+
+    try {
+      ValueHolder<V> h = new ValueHolder<>(valueSerializer.deserialize(readValue(loc)));
+      h.created = loc.created;
+      h.clean = true;
+      loc.accessed = TimeUtil.nowMs();
+      hitCount.incrementAndGet();
+      return h;
+    } catch (IOException | RuntimeException e) {
+      logger.atWarning().withCause(e).log("Cannot read cache %s for %s", dir, key);
+      remove(key, loc);
+      missCount.incrementAndGet();
+      return null;
+    }
+  }
+
+  @Override
+  public void put(K key, ValueHolder<V> holder) {
+    if (holder.clean) {
+      return;
+    }
+    ensureOpen();
+
+    byte[] record;
+    try {
+      record = newRecord(TYPE_PUT, keySerializer.serialize(key), holder.created, holder.value);
+    } catch (RuntimeException e) {
+      logger.atWarning().withCause(e).log("Cannot put into cache %s", dir);
+      return;
+    }
+
+    synchronized (this) {
+      try {
+        Location loc = append(record, holder.created);
+        Location old = index.put(key, loc);
+        liveBytes.addAndGet(loc.length);
+        if (old != null) {
+          liveBytes.addAndGet(-old.length);
+        }
+        holder.clean = true;
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Cannot put into cache %s", dir);
+      }
+    }
+  }
+
+  @Override
+  public void invalidate(K key) {
+    ensureOpen();
+    Location loc = index.get(key);
+    if (loc != null) {
+      remove(key, loc);
+    }
+  }
+
+  private synchronized boolean remove(K key, Location loc) {
+    if (!index.remove(key, loc)) {
+      return false;
+    }
+    liveBytes.addAndGet(-loc.length);
+    try {
+      long now = TimeUtil.nowMs();
+      append(newRecord(TYPE_DELETE, keySerializer.serialize(key), now, null), now);
+    } catch (IOException | RuntimeException e) {
+      logger.atWarning().withCause(e).log("Cannot invalidate cache %s", dir);
+    }
+    return true;
+  }
+
+  @Override
+  public synchronized void invalidateAll() {
+    ensureOpen();
+    index.clear();
+    liveBytes.set(0);
+    for (Segment s : segments.values()) {
+      s.delete();
+    }
+    segments.clear();
+    active = null;
+    totalBytes = 0;
+  }
+
+  @Override
+  public void prune(Cache<K, ?> mem) {
+    ensureOpen();
+    long used = liveBytes.get();
+    if (used > maxSize) {
+      List<Candidate<K>> candidates = new ArrayList<>(index.size());
+      for (Map.Entry<K, Location> e : index.entrySet()) {
+        candidates.add(new Candidate<>(e.getKey(), e.getValue()));
+      }
+      candidates.sort(comparingLong(c -> c.accessed));
+
+      long now = TimeUtil.nowMs();
+      for (Candidate<K> c : candidates) {
+        if (used <= maxSize) {
+          break;
+        }
+        if (mem.getIfPresent(c.key) != null && !expired(c.loc.created)) {
+          c.loc.accessed = now;
+        } else if (remove(c.key, c.loc)) {
+          used -= c.loc.length;
+          evictionCount.incrementAndGet();
+        }
+      }
+    }
+    compact();
+  }
+
+  /** Eviction only needs the in-memory index, so a step prunes the store completely. */
+  @Override
+  public void pruneStep(Cache<K, ?> mem, Duration budget) {
+    ensureOpen();
+    if (liveBytes.get() > maxSize) {
+      prune(mem);
+    }
+  }
+
+  /**
+   * Rewrites live records of all sealed segments into new segments once the garbage in the store
+   * outweighs the live data.
+   */
+  private void compact() {
+    Set<Segment> old = Sets.newIdentityHashSet();
+    synchronized (this) {
+      if (totalBytes <= segmentSize || totalBytes <= 2 * liveBytes.get()) {
+        return;
+      }
+      seal();
+      old.addAll(segments.values());
+    }
+
+    int moved = 0;
+    for (Map.Entry<K, Location> entry : index.entrySet()) {
+      K key = entry.getKey();
+      Location loc = entry.getValue();
+      if (!old.contains(loc.segment)) {
+        continue;
+      }
+      try {
+        byte[] record = loc.segment.read(loc.offset, loc.length);
+        synchronized (this) {
+          if (index.get(key) == loc) {
+            Location copy = append(record, loc.created);
+            copy.accessed = loc.accessed;
+            index.put(key, copy);
+            moved++;
+          }
+        }
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Cannot compact cache %s", dir);
+        return;
+      }
+    }
+
+    synchronized (this) {
+      for (Segment s : old) {
+        segments.remove(s.id);
+        totalBytes -= s.size;
+        s.delete();
+      }
+    }
+    logger.atInfo().log(
+        "Compacted %d segments into %d entries in cache %s", old.size(), moved, dir);
+  }
+
+  @Override
+  public DiskStats diskStats() {
+    ensureOpen();
+    return new DiskStats(
+        index.size(), liveBytes.get(), hitCount.get(), missCount.get(), evictionCount.get());
+  }
+
+  private void ensureOpen() {
+    if (!opened) {
+      open();
+    }
+  }
+
+  private boolean expired(long created) {
+    if (expireAfterWrite == null) {
+      return false;
+    }
+    return TimeUtil.nowMs() - created > expireAfterWrite.toMillis();
+  }
+
+  private byte[] newRecord(byte type, byte[] key, long created, @Nullable V value) {
+    byte[] val = value != null ? valueSerializer.serialize(value) : new byte[0];
+    int bodyLen = BODY_HEADER_SIZE + key.length + val.length;
+    ByteBuffer buf = ByteBuffer.allocate(4 + bodyLen + 4);
+    buf.putInt(bodyLen).put(type).putInt(version).putLong(created).putInt(key.length);
+    buf.put(key).put(val);
+    CRC32 crc = new CRC32();
+    crc.update(buf.array(), 4, bodyLen);
+    buf.putInt((int) crc.getValue());
+    return buf.array();
+  }
+
+  private static int crc(byte[] body) {
+    CRC32 crc = new CRC32();
+    crc.update(body);
+    return (int) crc.getValue();
+  }
+
+  private byte[] readValue(Location loc) throws IOException {
+    ByteBuffer b = ByteBuffer.wrap(loc.segment.read(loc.offset, loc.length));
+    int bodyLen = b.getInt();
+    byte[] body = new byte[bodyLen];
+    b.get(body);
+    if (b.getInt() != crc(body)) {
+      throw new IOException(
+          String.format("Corrupt record at %d in %s", loc.offset, loc.segment.path));
+    }
+    int keyLen = ByteBuffer.wrap(body, BODY_HEADER_SIZE - 4, 4).getInt();
+    int valueStart = BODY_HEADER_SIZE + keyLen;
+    byte[] val = new byte[bodyLen - valueStart];
+    System.arraycopy(body, valueStart, val, 0, val.length);
+    return val;
+  }
+
+  private synchronized Location append(byte[] record, long created) throws IOException {
+    if (active == null || (active.size > 0 && active.size + record.length > segmentSize)) {
+      seal();
+      int id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+      active =
+          Segment.create(
+              id, dir.resolve(String.format("%s%08d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX)));
+      segments.put(id, active);
+    }
+    long offset = active.size;
+    active.write(record);
+    totalBytes += record.length;
+    return new Location(active, offset, record.length, created);
+  }
+
+  private synchronized void seal() {
+    if (active != null) {
+      try {
+        active.seal();
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Cannot seal segment %s", active.path);
+      }
+      active = null;
+    }
+  }
+
+  @Nullable
+  private static Integer segmentId(Path p) {
+    String n = p.getFileName().toString();
+    if (!n.startsWith(SEGMENT_PREFIX) || !n.endsWith(SEGMENT_SUFFIX)) {
+      return null;
+    }
+    try {
+      return Integer.parseInt(
+          n.substring(SEGMENT_PREFIX.length(), n.length() - SEGMENT_SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static class Location {
+    final Segment segment;
+    final long offset;
+    final int length;
+    final long created;
+    volatile long accessed;
+
+    Location(Segment segment, long offset, int length, long created) {
+      this.segment = segment;
+      this.offset = offset;
+      this.length = length;
+      this.created = created;
+      this.accessed = created;
+    }
+  }
+
+  private static class Candidate<K> {
+    final K key;
+    final Location loc;
+    final long accessed;
+
+    Candidate(K key, Location loc) {
+      this.key = key;
+      this.loc = loc;
+      this.accessed = loc.accessed;
+    }
+  }
+
+  /**
+   * Single segment file.
+   *
+   * <p>Appends are serialized by the owning store. Reads may happen concurrently from any thread;
+   * once a segment is sealed they are served from a read-only mapping of the file.
+   */
+  private static class Segment {
+    static Segment create(int id, Path path) throws IOException {
+      FileChannel ch =
+          FileChannel.open(
+              path,
+              StandardOpenOption.CREATE_NEW,
+              StandardOpenOption.READ,
+              StandardOpenOption.WRITE);
+      return new Segment(id, path, ch, 0);
+    }
+
+    static Segment openSealed(int id, Path path) throws IOException {
+      FileChannel ch = FileChannel.open(path, StandardOpenOption.READ);
+      Segment s = new Segment(id, path, ch, ch.size());
+      s.map = ch.map(FileChannel.MapMode.READ_ONLY, 0, s.size);
+      return s;
+    }
+
+    final int id;
+    final Path path;
+    final FileChannel channel;
+    volatile long size;
+    volatile MappedByteBuffer map;
+
+    private Segment(int id, Path path, FileChannel channel, long size) {
+      this.id = id;
+      this.path = path;
+      this.channel = channel;
+      this.size = size;
+    }
+
+    void write(byte[] record) throws IOException {
+      ByteBuffer buf = ByteBuffer.wrap(record);
+      long pos = size;
+      while (buf.hasRemaining()) {
+        pos += channel.write(buf, pos);
+      }
+      size = pos;
+    }
+
+    void seal() throws IOException {
+      channel.force(false);
+      map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    byte[] read(long offset, int length) throws IOException {
+      byte[] out = new byte[length];
+      MappedByteBuffer m = map;
+      if (m != null) {
+        ByteBuffer b = m.duplicate();
+        b.position((int) offset);
+        b.get(out);
+        return out;
+      }
+      ByteBuffer b = ByteBuffer.wrap(out);
+      while (b.hasRemaining()) {
+        if (channel.read(b, offset + b.position()) < 0) {
+          throw new EOFException(String.format("Short read at %d in %s", offset, path));
+        }
+      }
+      return out;
+    }
+
+    void close() {
+      try {
+        if (map == null) {
+          channel.force(false);
+        }
+        channel.close();
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Cannot close segment %s", path);
+      }
+    }
+
+    void delete() {
+      close();
+      try {
+        Files.deleteIfExists(path);
+      } catch (IOException e) {
+        logger.atWarning().withCause(e).log("Cannot delete segment %s", path);
+      }
+    }
+  }
+}
@@ -0,0 +1,141 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.cache.h2;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.metrics.Timer1;
+import com.google.gerrit.server.cache.h2.H2CacheImpl.ValueHolder;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded write-behind queue in front of a {@link DiskStore}.
+ *
+ * <p>Puts are buffered and coalesced by key, then handed to {@link DiskStore#putAll} in batches.
+ * A flush is scheduled on the store executor once {@code batchSize} entries are pending, and the
+ * owning factory flushes all queues periodically so that small trickles of puts reach the disk
+ * as well.
+ *
+ * <p>When {@code capacity} entries are pending the thread adding the next entry flushes the queue
+ * itself, throttling producers to the speed of the disk instead of growing the queue without
+ * bound.
+ */
+class WriteBehindQueue<K, V> {
+  private final String name;
+  private final Executor executor;
+  private final DiskStore<K, V> store;
+  private final int batchSize;
+  private final int capacity;
+  private final Timer1<String> flushLatency;
+
+  /** Held while writing to the store, so that flushes and invalidations are applied in order. */
+  private final Object flushLock = new Object();
+
+  // Guarded by this.
+  private final Map<K, ValueHolder<V>> pending = new LinkedHashMap<>();
+  private boolean flushScheduled;
+
+  WriteBehindQueue(
+      String name,
+      Executor executor,
+      DiskStore<K, V> store,
+      int batchSize,
+      int capacity,
+      Timer1<String> flushLatency) {
+    checkArgument(batchSize > 0, "batchSize must be positive");
+    checkArgument(capacity >= batchSize, "capacity must not be less than batchSize");
+    this.name = name;
+    this.executor = executor;
+    this.store = store;
+    this.batchSize = batchSize;
+    this.capacity = capacity;
+    this.flushLatency = flushLatency;
+  }
+
+  void put(K key, ValueHolder<V> holder) {
+    boolean flushNow = false;
+    boolean schedule = false;
+    synchronized (this) {
+      pending.put(key, holder);
+      if (pending.size() >= capacity) {
+        flushNow = true;
+      } else if (pending.size() >= batchSize && !flushScheduled) {
+        flushScheduled = true;
+        schedule = true;
+      }
+    }
+    if (flushNow) {
+      flush();
+    } else if (schedule) {
+      executor.execute(this::flush);
+    }
+  }
+
+  void invalidate(K key) {
+    synchronized (this) {
+      pending.remove(key);
+    }
+    // Checked under the flush lock, as the key may be part of a batch that is being written.
+    executor.execute(
+        () -> {
+          synchronized (flushLock) {
+            if (store.mightContain(key)) {
+              store.invalidate(key);
+            }
+          }
+        });
+  }
+
+  void invalidateAll() {
+    synchronized (flushLock) {
+      synchronized (this) {
+        pending.clear();
+      }
+      store.invalidateAll();
+    }
+  }
+
+  /** Writes all pending entries and deferred store bookkeeping to disk. */
+  void flush() {
+    synchronized (flushLock) {
+      ImmutableMap<K, ValueHolder<V>> batch;
+      synchronized (this) {
+        flushScheduled = false;
+        batch = ImmutableMap.copyOf(pending);
+        pending.clear();
+      }
+      long start = System.nanoTime();
+      if (!batch.isEmpty()) {
+        store.putAll(batch);
+      }
+      store.flush();
+      if (!batch.isEmpty()) {
+        flushLatency.record(name, System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+
+  String name() {
+    return name;
+  }
+
+  synchronized int size() {
+    return pending.size();
+  }
+}
@@ -0,0 +1,101 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.cache.testing;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.gerrit.server.cache.RemoteCacheStore;
+import com.google.protobuf.ByteString;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/** In-process {@link RemoteCacheStore}, standing in for a shared remote store in tests. */
+public class InMemoryRemoteCacheStore implements RemoteCacheStore {
+  @AutoValue
+  abstract static class Key {
+    abstract String cacheName();
+
+    abstract int version();
+
+    abstract ByteString key();
+  }
+
+  private static class Entry {
+    final ByteString value;
+    final long expiresAt;
+
+    Entry(ByteString value, long expiresAt) {
+      this.value = value;
+      this.expiresAt = expiresAt;
+    }
+  }
+
+  private final Ticker ticker;
+  private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final AtomicInteger requestCount = new AtomicInteger();
+
+  public InMemoryRemoteCacheStore() {
+    this(Ticker.systemTicker());
+  }
+
+  /** @param ticker source of time used to expire entries. */
+  public InMemoryRemoteCacheStore(Ticker ticker) {
+    this.ticker = ticker;
+  }
+
+  @Override
+  public ListenableFuture<ImmutableMap<ByteString, ByteString>> getAll(
+      String cacheName, int version, ImmutableSet<ByteString> keys) {
+    requestCount.incrementAndGet();
+    long now = ticker.read();
+    ImmutableMap.Builder<ByteString, ByteString> result = ImmutableMap.builder();
+    for (ByteString key : keys) {
+      Key k = new AutoValue_InMemoryRemoteCacheStore_Key(cacheName, version, key);
+      Entry e = entries.get(k);
+      if (e == null) {
+        continue;
+      }
+      if (e.expiresAt - now <= 0) {
+        entries.remove(k, e);
+        continue;
+      }
+      result.put(key, e.value);
+    }
+    return Futures.immediateFuture(result.build());
+  }
+
+  @Override
+  public void put(String cacheName, int version, ByteString key, ByteString value, Duration ttl) {
+    entries.put(
+        new AutoValue_InMemoryRemoteCacheStore_Key(cacheName, version, key),
+        new Entry(value, ticker.read() + ttl.toNanos()));
+  }
+
+  /** Number of {@link #getAll} calls so far. */
+  public int requestCount() {
+    return requestCount.get();
+  }
+
+  /** Number of stored entries, including expired entries that were not looked up again. */
+  public int size() {
+    return entries.size();
+  }
+}
@@ -39,11 +39,15 @@ import com.google.common.base.MoreObjects;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.gerrit.common.data.SubmitRecord;
 import com.google.gerrit.common.data.SubmitRecord.Status;
 import com.google.gerrit.common.data.SubmitRequirement;
@@ -66,8 +70,10 @@ import com.google.gerrit.index.query.QueryResult;
 import com.google.gerrit.mail.Address;
 import com.google.gerrit.metrics.Description;
 import com.google.gerrit.metrics.Description.Units;
+import com.google.gerrit.metrics.Field;
 import com.google.gerrit.metrics.MetricMaker;
 import com.google.gerrit.metrics.Timer0;
+import com.google.gerrit.metrics.Timer1;
 import com.google.gerrit.reviewdb.client.Account;
 import com.google.gerrit.reviewdb.client.Change;
 import com.google.gerrit.reviewdb.client.ChangeMessage;
@@ -83,6 +89,8 @@ import com.google.gerrit.server.ReviewerStatusUpdate;
 import com.google.gerrit.server.StarredChangesUtil;
 import com.google.gerrit.server.account.AccountInfoComparator;
 import com.google.gerrit.server.account.AccountLoader;
+import com.google.gerrit.server.cache.PerThreadCache;
+import com.google.gerrit.server.config.ChangeFormatExecutor;
 import com.google.gerrit.server.config.GerritServerConfig;
 import com.google.gerrit.server.config.TrackingFooters;
 import com.google.gerrit.server.index.change.ChangeField;
@@ -97,6 +105,8 @@ import com.google.gerrit.server.project.SubmitRuleOptions;
 import com.google.gerrit.server.query.change.ChangeData;
 import com.google.gerrit.server.query.change.ChangeData.ChangedLines;
 import com.google.gerrit.server.query.change.PluginDefinedAttributesFactory;
+import com.google.gerrit.server.util.RequestContext;
+import com.google.gerrit.server.util.ThreadLocalRequestContext;
 import com.google.gwtorm.server.OrmException;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
@@ -179,6 +189,7 @@ public class ChangeJson {
     private final Timer0 toChangeInfoLatency;
     private final Timer0 toChangeInfosLatency;
     private final Timer0 formatQueryResultsLatency;
+    private final Timer1<ListChangesOption> optionLatency;
 
     @Inject
     Metrics(MetricMaker metricMaker) {
@@ -200,6 +211,15 @@ public class ChangeJson {
               new Description("Latency for formatQueryResults invocations in ChangeJson")
                   .setCumulative()
                   .setUnit(Units.MILLISECONDS));
+      optionLatency =
+          metricMaker.newTimer(
+              "http/server/rest_api/change_json/option_latency",
+              new Description(
+                      "Latency for populating the fields of a single change requested by an option"
+                          + " in ChangeJson")
+                  .setCumulative()
+                  .setUnit(Units.MILLISECONDS),
+              Field.ofEnum(ListChangesOption.class, "option"));
     }
   }
 
@@ -220,6 +240,9 @@ public class ChangeJson {
   private final Optional<PluginDefinedAttributesFactory> pluginDefinedAttributesFactory;
   private final boolean excludeMergeableInChangeInfo;
   private final boolean lazyLoad;
+  private final ThreadLocalRequestContext requestContext;
+  private final ListeningExecutorService formatExecutor;
+  private final boolean formatConcurrently;
 
   private AccountLoader accountLoader;
   private FixInput fix;
@@ -240,6 +263,8 @@ public class ChangeJson {
       Metrics metrics,
       RevisionJson.Factory revisionJsonFactory,
       @GerritServerConfig Config cfg,
+      ThreadLocalRequestContext requestContext,
+      @ChangeFormatExecutor ListeningExecutorService formatExecutor,
       @Assisted Iterable<ListChangesOption> options,
       @Assisted Optional<PluginDefinedAttributesFactory> pluginDefinedAttributesFactory) {
     this.userProvider = user;
@@ -260,6 +285,9 @@ public class ChangeJson {
         cfg.getBoolean("change", "api", "excludeMergeableInChangeInfo", false);
     this.lazyLoad = containsAnyOf(this.options, REQUIRE_LAZY_LOAD);
     this.pluginDefinedAttributesFactory = pluginDefinedAttributesFactory;
+    this.requestContext = requestContext;
+    this.formatExecutor = formatExecutor;
+    this.formatConcurrently = cfg.getInt("change", null, "formatThreads", 1) > 1;
 
     logger.atFine().log("options = %s", options);
   }
@@ -296,6 +324,7 @@ public class ChangeJson {
       accountLoader = accountLoaderFactory.create(has(DETAILED_ACCOUNTS));
       List<List<ChangeInfo>> res = new ArrayList<>(in.size());
       Map<Change.Id, ChangeInfo> cache = Maps.newHashMapWithExpectedSize(in.size());
+      preloadNotes(in);
       for (QueryResult<ChangeData> r : in) {
         List<ChangeInfo> infos = toChangeInfos(r.entities(), cache);
         infos.forEach(c -> cache.put(new Change.Id(c._number), c));
@@ -391,8 +420,25 @@ public class ChangeJson {
     }
   }
 
+  /**
+   * Loads the notes of all query results in bulk, so that formatting them one by one does not read
+   * them change by change.
+   */
+  private void preloadNotes(List<QueryResult<ChangeData>> in) {
+    if (!lazyLoad) {
+      return;
+    }
+    try {
+      ChangeData.ensureNotesLoaded(Iterables.concat(Lists.transform(in, QueryResult::entities)));
+    } catch (OrmException | RuntimeException e) {
+      // Changes are loaded again one by one, and those that fail are omitted from the results.
+      logger.atWarning().withCause(e).log("Cannot load change notes in bulk");
+    }
+  }
+
   private void ensureLoaded(Iterable<ChangeData> all) throws OrmException {
     if (lazyLoad) {
+      ChangeData.ensureNotesLoaded(all);
       ChangeData.ensureChangeLoaded(all);
       if (has(ALL_REVISIONS)) {
         ChangeData.ensureAllPatchSetsLoaded(all);
@@ -417,24 +463,65 @@ public class ChangeJson {
   private List<ChangeInfo> toChangeInfos(
       List<ChangeData> changes, Map<Change.Id, ChangeInfo> cache) {
     try (Timer0.Context ignored = metrics.toChangeInfosLatency.start()) {
-      List<ChangeInfo> changeInfos = new ArrayList<>(changes.size());
+      List<ChangeData> toFormat = new ArrayList<>(changes.size());
       for (ChangeData cd : changes) {
-        ChangeInfo i = cache.get(cd.getId());
-        if (i != null) {
-          continue;
-        }
-        try {
-          ensureLoaded(Collections.singleton(cd));
-          changeInfos.add(format(cd, Optional.empty(), false, ChangeInfo::new));
-        } catch (OrmException | RuntimeException e) {
-          logger.atWarning().withCause(e).log(
-              "Omitting corrupt change %s from results", cd.getId());
+        if (!cache.containsKey(cd.getId())) {
+          toFormat.add(cd);
         }
       }
+      if (formatConcurrently && toFormat.size() > 1) {
+        return toChangeInfosConcurrently(toFormat);
+      }
+      List<ChangeInfo> changeInfos = new ArrayList<>(toFormat.size());
+      for (ChangeData cd : toFormat) {
+        formatQueryResult(cd).ifPresent(changeInfos::add);
+      }
       return changeInfos;
     }
   }
 
+  /**
+   * Formats changes on the format executor, and returns them in the order of the input.
+   *
+   * <p>Each change is formatted for the user of the calling thread. The user is looked up before
+   * forking, as the request context of the caller may depend on state that is only in scope on the
+   * calling thread, e.g. the web session of an HTTP request. Values in the {@link PerThreadCache}
+   * are not thread-safe, so a change that is formatted by another thread uses a cache of its own.
+   */
+  private List<ChangeInfo> toChangeInfosConcurrently(List<ChangeData> changes) {
+    CurrentUser user = userProvider.get();
+    RequestContext context = () -> user;
+    List<ListenableFuture<Optional<ChangeInfo>>> futures = new ArrayList<>(changes.size());
+    for (ChangeData cd : changes) {
+      futures.add(formatExecutor.submit(() -> formatQueryResult(context, cd)));
+    }
+    List<ChangeInfo> changeInfos = new ArrayList<>(changes.size());
+    for (ListenableFuture<Optional<ChangeInfo>> f : futures) {
+      Futures.getUnchecked(f).ifPresent(changeInfos::add);
+    }
+    return changeInfos;
+  }
+
+  private Optional<ChangeInfo> formatQueryResult(RequestContext context, ChangeData cd) {
+    RequestContext old = requestContext.setContext(context);
+    try (PerThreadCache ignored = PerThreadCache.get() == null ? PerThreadCache.create() : null) {
+      return formatQueryResult(cd);
+    } finally {
+      requestContext.setContext(old);
+    }
+  }
+
+  /** Formats a query result, or returns empty if the change is corrupt and must be omitted. */
+  private Optional<ChangeInfo> formatQueryResult(ChangeData cd) {
+    try {
+      ensureLoaded(Collections.singleton(cd));
+      return Optional.of(format(cd, Optional.empty(), false, ChangeInfo::new));
+    } catch (OrmException | RuntimeException e) {
+      logger.atWarning().withCause(e).log("Omitting corrupt change %s from results", cd.getId());
+      return Optional.empty();
+    }
+  }
+
   private <I extends ChangeInfo> I checkOnly(ChangeData cd, Supplier<I> changeInfoSupplier) {
     ChangeNotes notes;
     try {
@@ -519,7 +606,9 @@ public class ChangeJson {
         out.mergeable = cd.isMergeable();
       }
       if (has(SUBMITTABLE)) {
-        out.submittable = submittable(cd);
+        try (Timer1.Context ignored = metrics.optionLatency.start(SUBMITTABLE)) {
+          out.submittable = submittable(cd);
+        }
       }
     }
     Optional<ChangedLines> changedLines = cd.changedLines();
@@ -548,26 +637,36 @@ public class ChangeJson {
     }
 
     if (in.isNew() && has(REVIEWED) && user.isIdentifiedUser()) {
-      out.reviewed = cd.isReviewedBy(user.getAccountId()) ? true : null;
+      try (Timer1.Context ignored = metrics.optionLatency.start(REVIEWED)) {
+        out.reviewed = cd.isReviewedBy(user.getAccountId()) ? true : null;
+      }
     }
 
-    out.labels = labelsJson.labelsFor(accountLoader, cd, has(LABELS), has(DETAILED_LABELS));
+    if (has(LABELS) || has(DETAILED_LABELS)) {
+      try (Timer1.Context ignored =
+          metrics.optionLatency.start(has(DETAILED_LABELS) ? DETAILED_LABELS : LABELS)) {
+        out.labels = labelsJson.labelsFor(accountLoader, cd, has(LABELS), has(DETAILED_LABELS));
+      }
+    }
     out.requirements = requirementsFor(cd);
 
     if (out.labels != null && has(DETAILED_LABELS)) {
-      // If limited to specific patch sets but not the current patch set, don't
-      // list permitted labels, since users can't vote on those patch sets.
-      if (user.isIdentifiedUser()
-          && (!limitToPsId.isPresent() || limitToPsId.get().equals(in.currentPatchSetId()))) {
-        out.permittedLabels =
-            !cd.change().isAbandoned()
-                ? labelsJson.permittedLabels(user.getAccountId(), cd)
-                : ImmutableMap.of();
-      }
+      try (Timer1.Context ignored = metrics.optionLatency.start(DETAILED_LABELS)) {
+        // If limited to specific patch sets but not the current patch set, don't
+        // list permitted labels, since users can't vote on those patch sets.
+        if (user.isIdentifiedUser()
+            && (!limitToPsId.isPresent() || limitToPsId.get().equals(in.currentPatchSetId()))) {
+          out.permittedLabels =
+              !cd.change().isAbandoned()
+                  ? labelsJson.permittedLabels(user.getAccountId(), cd)
+                  : ImmutableMap.of();
+        }
 
-      out.reviewers = reviewerMap(cd.reviewers(), cd.reviewersByEmail(), false);
-      out.pendingReviewers = reviewerMap(cd.pendingReviewers(), cd.pendingReviewersByEmail(), true);
-      out.removableReviewers = removableReviewers(cd, out);
+        out.reviewers = reviewerMap(cd.reviewers(), cd.reviewersByEmail(), false);
+        out.pendingReviewers =
+            reviewerMap(cd.pendingReviewers(), cd.pendingReviewersByEmail(), true);
+        out.removableReviewers = removableReviewers(cd, out);
+      }
     }
 
     setSubmitter(cd, out);
@@ -577,7 +676,9 @@ public class ChangeJson {
     out.revertOf = cd.change().getRevertOf() != null ? cd.change().getRevertOf().get() : null;
 
     if (has(REVIEWER_UPDATES)) {
-      out.reviewerUpdates = reviewerUpdates(cd);
+      try (Timer1.Context ignored = metrics.optionLatency.start(REVIEWER_UPDATES)) {
+        out.reviewerUpdates = reviewerUpdates(cd);
+      }
     }
 
     boolean needMessages = has(MESSAGES);
@@ -590,14 +691,19 @@ public class ChangeJson {
     }
 
     if (needMessages) {
-      out.messages = messages(cd);
+      try (Timer1.Context ignored = metrics.optionLatency.start(MESSAGES)) {
+        out.messages = messages(cd);
+      }
     }
     finish(out);
 
     // This block must come after the ChangeInfo is mostly populated, since
     // it will be passed to ActionVisitors as-is.
     if (needRevisions) {
-      out.revisions = revisionJson.getRevisions(accountLoader, cd, src, limitToPsId, out);
+      try (Timer1.Context ignored =
+          metrics.optionLatency.start(has(ALL_REVISIONS) ? ALL_REVISIONS : CURRENT_REVISION)) {
+        out.revisions = revisionJson.getRevisions(accountLoader, cd, src, limitToPsId, out);
+      }
       if (out.revisions != null) {
         for (Map.Entry<String, RevisionInfo> entry : out.revisions.entrySet()) {
           if (entry.getValue().isCurrent) {
@@ -609,16 +715,21 @@ public class ChangeJson {
     }
 
     if (has(CURRENT_ACTIONS) || has(CHANGE_ACTIONS)) {
-      actionJson.addChangeActions(out, cd.notes());
+      try (Timer1.Context ignored =
+          metrics.optionLatency.start(has(CHANGE_ACTIONS) ? CHANGE_ACTIONS : CURRENT_ACTIONS)) {
+        actionJson.addChangeActions(out, cd.notes());
+      }
     }
 
     if (has(TRACKING_IDS)) {
-      ListMultimap<String, String> set = trackingFooters.extract(cd.commitFooters());
-      out.trackingIds =
-          set.entries()
-              .stream()
-              .map(e -> new TrackingIdInfo(e.getKey(), e.getValue()))
-              .collect(toList());
+      try (Timer1.Context ignored = metrics.optionLatency.start(TRACKING_IDS)) {
+        ListMultimap<String, String> set = trackingFooters.extract(cd.commitFooters());
+        out.trackingIds =
+            set.entries()
+                .stream()
+                .map(e -> new TrackingIdInfo(e.getKey(), e.getValue()))
+                .collect(toList());
+      }
     }
 
     return out;
@@ -74,7 +74,8 @@ public class ChangeKindCacheImpl implements ChangeKindCache {
             .weigher(ChangeKindWeigher.class)
             .version(1)
             .keySerializer(new Key.Serializer())
-            .valueSerializer(new EnumCacheSerializer<>(ChangeKind.class));
+            .valueSerializer(new EnumCacheSerializer<>(ChangeKind.class))
+            .shareable(true);
       }
     };
   }
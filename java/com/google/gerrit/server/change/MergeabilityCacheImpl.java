@@ -63,7 +63,8 @@ public class MergeabilityCacheImpl implements MergeabilityCache {
             .weigher(MergeabilityWeigher.class)
             .version(1)
             .keySerializer(EntryKey.Serializer.INSTANCE)
-            .valueSerializer(BooleanCacheSerializer.INSTANCE);
+            .valueSerializer(BooleanCacheSerializer.INSTANCE)
+            .shareable(true);
         bind(MergeabilityCache.class).to(MergeabilityCacheImpl.class);
       }
     };
@@ -97,4 +97,57 @@ public class SysExecutorModule extends AbstractModule {
                         .build(),
                     new ThreadPoolExecutor.CallerRunsPolicy()))));
   }
+
+  @Provides
+  @Singleton
+  @CommitValidationExecutor
+  public ListeningExecutorService createCommitValidationExecutor(
+      @GerritServerConfig Config config) {
+    return newBoundedListeningExecutor(
+        "CommitValidation", config.getInt("receive", null, "commitValidationThreads", 1));
+  }
+
+  @Provides
+  @Singleton
+  @SubmitExecutor
+  public ListeningExecutorService createSubmitExecutor(@GerritServerConfig Config config) {
+    return newBoundedListeningExecutor("Submit", config.getInt("change", null, "submitThreads", 1));
+  }
+
+  @Provides
+  @Singleton
+  @ChangeFormatExecutor
+  public ListeningExecutorService createChangeFormatExecutor(@GerritServerConfig Config config) {
+    return newBoundedListeningExecutor(
+        "ChangeFormat", config.getInt("change", null, "formatThreads", 1));
+  }
+
+  /**
+   * Creates an executor that runs the tasks of a single request on up to {@code poolSize} threads.
+   *
+   * <p>All threads are core threads, so that each task gets its own thread while fewer than {@code
+   * poolSize} tasks are running. Idle threads still time out. If the queue is full, the submitting
+   * thread runs the task itself.
+   *
+   * @param name prefix of the thread names.
+   * @param poolSize maximum number of threads; if at most 1, tasks run on the submitting thread.
+   * @return the executor.
+   */
+  public static ListeningExecutorService newBoundedListeningExecutor(String name, int poolSize) {
+    if (poolSize <= 1) {
+      return MoreExecutors.newDirectExecutorService();
+    }
+    ThreadPoolExecutor executor =
+        new ThreadPoolExecutor(
+            poolSize,
+            poolSize,
+            10,
+            TimeUnit.MINUTES,
+            new ArrayBlockingQueue<>(poolSize),
+            new ThreadFactoryBuilder().setNameFormat(name + "-%d").setDaemon(true).build(),
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return MoreExecutors.listeningDecorator(
+        new LoggingContextAwareExecutorService(MoreExecutors.getExitingExecutorService(executor)));
+  }
 }
@@ -18,22 +18,31 @@ import com.google.common.collect.ImmutableList;
 import com.google.gerrit.server.permissions.PermissionBackend;
 import com.google.gerrit.server.permissions.PermissionBackendException;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.RefDatabase;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.AbstractAdvertiseRefsHook;
+import org.eclipse.jgit.transport.LsRefsV2Request;
+import org.eclipse.jgit.transport.ProtocolV2Hook;
 import org.eclipse.jgit.transport.ServiceMayNotContinueException;
 
 /**
  * Wrapper around {@link com.google.gerrit.server.permissions.PermissionBackend.ForProject} that
  * implements {@link org.eclipse.jgit.transport.AdvertiseRefsHook}.
+ *
+ * <p>When installed as {@link ProtocolV2Hook} as well, the ref prefixes that a protocol v2 client
+ * sends with {@code ls-refs} replace the prefixes of the filter options, so that only the refs the
+ * client asked for are read and filtered.
  */
-public class DefaultAdvertiseRefsHook extends AbstractAdvertiseRefsHook {
+public class DefaultAdvertiseRefsHook extends AbstractAdvertiseRefsHook implements ProtocolV2Hook {
   private final PermissionBackend.ForProject perm;
-  private final PermissionBackend.RefFilterOptions opts;
+  private PermissionBackend.RefFilterOptions opts;
 
   public DefaultAdvertiseRefsHook(
       PermissionBackend.ForProject perm, PermissionBackend.RefFilterOptions opts) {
@@ -41,18 +50,55 @@ public class DefaultAdvertiseRefsHook extends AbstractAdvertiseRefsHook {
     this.opts = opts;
   }
 
+  @Override
+  public void onLsRefs(LsRefsV2Request req) {
+    if (!req.getRefPrefixes().isEmpty()) {
+      opts = opts.toBuilder().setPrefixes(req.getRefPrefixes()).build();
+    }
+  }
+
   @Override
   protected Map<String, Ref> getAdvertisedRefs(Repository repo, RevWalk revWalk)
       throws ServiceMayNotContinueException {
     try {
-      List<String> prefixes =
-          !opts.prefixes().isEmpty() ? opts.prefixes() : ImmutableList.of(RefDatabase.ALL);
-      return perm.filter(
-          repo.getRefDatabase().getRefsByPrefix(prefixes.toArray(new String[0])), repo, opts);
+      return perm.filter(getRefsByPrefix(repo.getRefDatabase(), opts.prefixes()), repo, opts);
     } catch (IOException | PermissionBackendException e) {
       ServiceMayNotContinueException ex = new ServiceMayNotContinueException();
       ex.initCause(e);
       throw ex;
     }
   }
+
+  /**
+   * Reads the refs matching any of the given prefixes.
+   *
+   * <p>Prefixes without a slash, other than prefixes of {@code refs/}, can only match refs outside
+   * of {@code refs/}, which in a server repository is just {@code HEAD}. Clients send such prefixes
+   * for short names, e.g. {@code master} when fetching {@code master}. They are resolved with a
+   * single lookup, as {@link RefDatabase#getRefsByPrefix(String...)} would scan all refs for them.
+   */
+  private static Map<String, Ref> getRefsByPrefix(RefDatabase refDb, List<String> prefixes)
+      throws IOException {
+    if (prefixes.isEmpty()) {
+      prefixes = ImmutableList.of(RefDatabase.ALL);
+    }
+    Map<String, Ref> refs = new HashMap<>();
+    List<String> scanPrefixes = new ArrayList<>(prefixes.size());
+    for (String prefix : prefixes) {
+      if (prefix.contains("/") || Constants.R_REFS.startsWith(prefix)) {
+        scanPrefixes.add(prefix);
+      } else if (Constants.HEAD.startsWith(prefix)) {
+        Ref head = refDb.exactRef(Constants.HEAD);
+        if (head != null) {
+          refs.put(head.getName(), head);
+        }
+      }
+    }
+    if (!scanPrefixes.isEmpty()) {
+      for (Ref ref : refDb.getRefsByPrefix(scanPrefixes.toArray(new String[0]))) {
+        refs.put(ref.getName(), ref);
+      }
+    }
+    return refs;
+  }
 }
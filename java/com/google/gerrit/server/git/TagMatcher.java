@@ -28,6 +28,7 @@ public class TagMatcher {
   final BitSet mask = new BitSet();
   final List<Ref> newRefs = new ArrayList<>();
   final List<LostRef> lostRefs = new ArrayList<>();
+  final List<Ref> rewoundRefs = new ArrayList<>();
   final TagSetHolder holder;
   final TagCache cache;
   final Repository db;
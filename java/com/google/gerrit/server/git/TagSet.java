@@ -18,6 +18,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
 import com.google.common.collect.Maps;
 import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.reviewdb.client.PatchSet;
 import com.google.gerrit.reviewdb.client.Project;
 import com.google.gerrit.reviewdb.client.RefNames;
@@ -27,12 +28,19 @@ import com.google.gerrit.server.cache.proto.Cache.TagSetHolderProto.TagSetProto.
 import com.google.gerrit.server.cache.serialize.ObjectIdConverter;
 import com.google.protobuf.ByteString;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicReference;
 import org.eclipse.jgit.errors.IncorrectObjectTypeException;
 import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.BitmapIndex;
+import org.eclipse.jgit.lib.BitmapIndex.Bitmap;
+import org.eclipse.jgit.lib.BitmapIndex.BitmapBuilder;
 import org.eclipse.jgit.lib.Constants;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.ObjectIdOwnerMap;
@@ -138,7 +146,14 @@ class TagSet {
             continue;
           }
 
-          // The branch rewound. Walk the list of commits removed from
+          // The branch rewound. With a bitmap index, the tags it reaches are cheap to compute
+          // from scratch when updating the set, which also finds tags it reaches now.
+          if (rw.getObjectReader().getBitmapIndex() != null) {
+            m.rewoundRefs.add(currentRef);
+            continue;
+          }
+
+          // Without a bitmap index, walk the list of commits removed from
           // the reference. If any matches to a tag, this has to be removed.
           boolean err = false;
           rw.reset();
@@ -176,6 +191,9 @@ class TagSet {
     if (old != null && m != null && refresh(old, m)) {
       return;
     }
+    if (old != null && update(git, old, m)) {
+      return;
+    }
 
     try (TagWalk rw = new TagWalk(git)) {
       rw.setRetainBody(false);
@@ -257,6 +275,9 @@ class TagSet {
   }
 
   private boolean refresh(TagSet old, TagMatcher m) {
+    if (!m.rewoundRefs.isEmpty()) {
+      return false;
+    }
     if (m.newRefs.isEmpty()) {
       // No new references is a simple update. Copy from the old set.
       copy(old, m);
@@ -307,7 +328,127 @@ class TagSet {
     return true;
   }
 
-  private void copy(TagSet old, TagMatcher m) {
+  /**
+   * Updates the set from {@code old} using the bitmap index of the repository, instead of walking
+   * the complete history.
+   *
+   * <p>The tags reachable from new and rewound references are computed from the objects reachable
+   * from their tips. If {@code m} is null, tags that are not in {@code old} are added and checked
+   * against the objects reachable from each reference.
+   *
+   * @return false if the repository has no bitmap index or an error occurred, in which case the
+   *     set is left empty.
+   */
+  private boolean update(Repository git, TagSet old, @Nullable TagMatcher m) {
+    try (RevWalk rw = new RevWalk(git)) {
+      rw.setRetainBody(false);
+      BitmapIndex bitmaps = rw.getObjectReader().getBitmapIndex();
+      if (bitmaps == null) {
+        return false;
+      }
+      copy(old, m);
+
+      if (m != null) {
+        for (Ref ref : m.rewoundRefs) {
+          CachedRef cur = refs.get(ref.getName());
+          // Replace rather than update the reference, as it is shared with the old set.
+          refs.put(ref.getName(), new CachedRef(ref, cur.flag));
+          setFlag(cur.flag, reachable(rw, bitmaps, ref.getObjectId()));
+        }
+        for (Ref ref : m.newRefs) {
+          if (ref.getObjectId() == null || refs.containsKey(ref.getName())) {
+            continue;
+          }
+          int flag = refs.size();
+          refs.put(ref.getName(), new CachedRef(ref, flag));
+          setFlag(flag, reachable(rw, bitmaps, ref.getObjectId()));
+        }
+      } else {
+        List<Tag> newTags = addNewTags(git);
+        if (!newTags.isEmpty()) {
+          for (CachedRef ref : refs.values()) {
+            BitmapBuilder reachable = reachable(rw, bitmaps, ref.get());
+            for (Tag tag : newTags) {
+              if (reachable.contains(tag)) {
+                tag.refFlags.set(ref.flag);
+              }
+            }
+          }
+        }
+      }
+      return true;
+    } catch (IOException e) {
+      logger.atWarning().withCause(e).log("Error updating tags of %s", projectName);
+      refs.clear();
+      tags.clear();
+      return false;
+    }
+  }
+
+  /** Sets {@code flag} on exactly the tags that are in {@code reachable}. */
+  private void setFlag(int flag, BitmapBuilder reachable) {
+    for (Tag tag : tags) {
+      if (reachable.contains(tag)) {
+        tag.refFlags.set(flag);
+      } else {
+        tag.refFlags.clear(flag);
+      }
+    }
+  }
+
+  /** Adds the tags of the repository that are not in the set yet, reachable from no reference. */
+  private List<Tag> addNewTags(Repository git) throws IOException {
+    List<Tag> newTags = new ArrayList<>();
+    for (Ref ref : git.getRefDatabase().getRefsByPrefix(Constants.R_TAGS)) {
+      if (skip(ref)) {
+        continue;
+      }
+      Ref peeled = git.getRefDatabase().peel(ref);
+      ObjectId id = peeled.getPeeledObjectId();
+      if (id == null) {
+        id = peeled.getObjectId();
+      }
+      if (!tags.contains(id)) {
+        Tag tag = new Tag(id, new BitSet());
+        tags.add(tag);
+        newTags.add(tag);
+      }
+    }
+    return newTags;
+  }
+
+  /**
+   * Returns the objects reachable from a commit.
+   *
+   * <p>Commits are walked only until they reach a commit that has a bitmap, so this reads just the
+   * few commits a tip is ahead of the last repack. Note that the result also contains the trees
+   * and blobs of the commits, so that a tag of a reachable tree counts as reachable too.
+   */
+  private static BitmapBuilder reachable(RevWalk rw, BitmapIndex bitmaps, ObjectId tip)
+      throws IOException {
+    BitmapBuilder reachable = bitmaps.newBitmapBuilder();
+    Deque<RevCommit> pending = new ArrayDeque<>();
+    pending.push(rw.parseCommit(tip));
+    while (!pending.isEmpty()) {
+      RevCommit c = pending.pop();
+      if (reachable.contains(c)) {
+        continue;
+      }
+      Bitmap bitmap = bitmaps.getBitmap(c);
+      if (bitmap != null) {
+        reachable.or(bitmap);
+        continue;
+      }
+      reachable.addObject(c, Constants.OBJ_COMMIT);
+      rw.parseHeaders(c);
+      for (RevCommit p : c.getParents()) {
+        pending.push(p);
+      }
+    }
+    return reachable;
+  }
+
+  private void copy(TagSet old, @Nullable TagMatcher m) {
     refs.putAll(old.refs);
 
     for (Tag srcTag : old.tags) {
@@ -316,6 +457,9 @@ class TagSet {
       tags.add(new Tag(srcTag, mine));
     }
 
+    if (m == null) {
+      return;
+    }
     for (TagMatcher.LostRef lost : m.lostRefs) {
       Tag mine = tags.get(lost.tag);
       if (mine != null) {
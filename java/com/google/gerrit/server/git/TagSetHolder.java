@@ -57,7 +57,7 @@ public class TagSetHolder {
 
     TagMatcher m = new TagMatcher(this, cache, db, include, tags, false);
     tags.prepare(m);
-    if (!m.newRefs.isEmpty() || !m.lostRefs.isEmpty()) {
+    if (!m.newRefs.isEmpty() || !m.lostRefs.isEmpty() || !m.rewoundRefs.isEmpty()) {
       tags = rebuild(cache, db, tags, m);
 
       m = new TagMatcher(this, cache, db, include, tags, true);
@@ -71,6 +71,7 @@ public class TagSetHolder {
     m.mask.clear();
     m.newRefs.clear();
     m.lostRefs.clear();
+    m.rewoundRefs.clear();
     m.tags.prepare(m);
   }
 
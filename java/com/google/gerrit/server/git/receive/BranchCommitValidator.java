@@ -16,14 +16,20 @@ package com.google.gerrit.server.git.receive;
 
 import static org.eclipse.jgit.transport.ReceiveCommand.Result.REJECTED_OTHER_REASON;
 
+import com.google.common.base.Throwables;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.reviewdb.client.Branch;
 import com.google.gerrit.reviewdb.client.Change;
 import com.google.gerrit.reviewdb.client.Project;
 import com.google.gerrit.reviewdb.client.RevId;
 import com.google.gerrit.server.IdentifiedUser;
+import com.google.gerrit.server.config.CommitValidationExecutor;
+import com.google.gerrit.server.config.GerritServerConfig;
 import com.google.gerrit.server.events.CommitReceivedEvent;
+import com.google.gerrit.server.git.BanCommit;
 import com.google.gerrit.server.git.validators.CommitValidationException;
 import com.google.gerrit.server.git.validators.CommitValidationMessage;
 import com.google.gerrit.server.git.validators.CommitValidators;
@@ -31,13 +37,22 @@ import com.google.gerrit.server.git.validators.ValidationMessage;
 import com.google.gerrit.server.permissions.PermissionBackend;
 import com.google.gerrit.server.project.ProjectState;
 import com.google.gerrit.server.ssh.SshInfo;
+import com.google.gerrit.server.util.RequestScopePropagator;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.eclipse.jgit.lib.Config;
 import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.notes.NoteMap;
 import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.ReceiveCommand;
 
 /** Validates single commits for a branch. */
@@ -50,6 +65,10 @@ public class BranchCommitValidator {
   private final Project project;
   private final Branch.NameKey branch;
   private final SshInfo sshInfo;
+  private final PermissionBackend permissionBackend;
+  private final ListeningExecutorService executor;
+  private final RequestScopePropagator scopePropagator;
+  private final int threads;
 
   interface Factory {
     BranchCommitValidator create(
@@ -61,6 +80,9 @@ public class BranchCommitValidator {
       CommitValidators.Factory commitValidatorsFactory,
       PermissionBackend permissionBackend,
       SshInfo sshInfo,
+      @GerritServerConfig Config cfg,
+      @CommitValidationExecutor ListeningExecutorService executor,
+      RequestScopePropagator scopePropagator,
       @Assisted ProjectState projectState,
       @Assisted Branch.NameKey branch,
       @Assisted IdentifiedUser user) {
@@ -68,6 +90,10 @@ public class BranchCommitValidator {
     this.user = user;
     this.branch = branch;
     this.commitValidatorsFactory = commitValidatorsFactory;
+    this.permissionBackend = permissionBackend;
+    this.executor = executor;
+    this.scopePropagator = scopePropagator;
+    this.threads = cfg.getInt("receive", null, "commitValidationThreads", 1);
     project = projectState.getProject();
     permissions = permissionBackend.user(user).project(project.getNameKey());
   }
@@ -90,6 +116,119 @@ public class BranchCommitValidator {
       NoteMap rejectCommits,
       @Nullable Change change)
       throws IOException {
+    return apply(
+        validate(objectReader, permissions, cmd, commit, isMerged, rejectCommits, change),
+        cmd,
+        messages);
+  }
+
+  /**
+   * Validates the new commits of a push to a branch, in order, until the first commit that does
+   * not validate, in which case the command is rejected.
+   *
+   * <p>If {@code receive.commitValidationThreads} is larger than 1, the commits are validated
+   * concurrently, each thread using its own object reader. Messages and the rejection are still
+   * reported as if the commits were validated one after the other.
+   *
+   * @param repo the repository the commits were pushed to.
+   * @param objectReader the object reader to use for validating on the calling thread.
+   * @param cmd the ReceiveCommand executing the push.
+   * @param commits the commits being validated, in the order in which they should be reported.
+   * @param rejectCommits the banned commits, for validating on the calling thread.
+   */
+  public boolean validCommits(
+      Repository repo,
+      ObjectReader objectReader,
+      ReceiveCommand cmd,
+      List<RevCommit> commits,
+      List<ValidationMessage> messages,
+      NoteMap rejectCommits)
+      throws IOException {
+    int shards = Math.min(threads, commits.size());
+    if (shards <= 1) {
+      for (RevCommit commit : commits) {
+        if (!validCommit(objectReader, cmd, commit, false, messages, rejectCommits, null)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    List<SettableFuture<Result>> results = new ArrayList<>(commits.size());
+    for (int i = 0; i < commits.size(); i++) {
+      results.add(SettableFuture.create());
+    }
+    // Index of the first commit known to be invalid; commits after it need not be validated.
+    AtomicInteger last = new AtomicInteger(Integer.MAX_VALUE);
+    // Compute the groups before forking, so that all threads see the same groups.
+    user.getEffectiveGroups();
+    try {
+      for (int shard = 1; shard < shards; shard++) {
+        int first = shard;
+        // Failures are reported through the results of the shard's commits.
+        @SuppressWarnings("unused")
+        Future<?> possiblyIgnoredError =
+            executor.submit(
+                scopePropagator.wrap(
+                    () -> {
+                      validateShard(repo, cmd, commits, first, shards, results, last);
+                      return null;
+                    }));
+      }
+      validateShard(repo, cmd, commits, 0, shards, results, last);
+
+      for (int i = 0; i < commits.size(); i++) {
+        if (!apply(get(results.get(i)), cmd, messages)) {
+          return false;
+        }
+      }
+      return true;
+    } finally {
+      last.set(-1);
+    }
+  }
+
+  /** Validates every {@code step}-th commit, starting at {@code first}. */
+  private void validateShard(
+      Repository repo,
+      ReceiveCommand cmd,
+      List<RevCommit> commits,
+      int first,
+      int step,
+      List<SettableFuture<Result>> results,
+      AtomicInteger last) {
+    try (ObjectReader objectReader = repo.newObjectReader();
+        RevWalk rw = new RevWalk(objectReader)) {
+      // Neither the note map nor the permissions may be shared between threads.
+      NoteMap rejectCommits = BanCommit.loadRejectCommitsMap(repo, rw);
+      PermissionBackend.ForProject shardPermissions =
+          permissionBackend.user(user).project(project.getNameKey());
+      for (int i = first; i < commits.size() && i <= last.get(); i += step) {
+        RevCommit commit = rw.parseCommit(commits.get(i));
+        Result result =
+            validate(objectReader, shardPermissions, cmd, commit, false, rejectCommits, null);
+        if (result.rejection != null) {
+          last.accumulateAndGet(i, Math::min);
+        }
+        results.get(i).set(result);
+      }
+    } catch (IOException | RuntimeException e) {
+      for (int i = first; i < commits.size(); i += step) {
+        results.get(i).setException(e);
+      }
+    }
+  }
+
+  private Result validate(
+      ObjectReader objectReader,
+      PermissionBackend.ForProject permissions,
+      ReceiveCommand cmd,
+      RevCommit commit,
+      boolean isMerged,
+      NoteMap rejectCommits,
+      @Nullable Change change)
+      throws IOException {
+    List<ValidationMessage> messages = new ArrayList<>();
     try (CommitReceivedEvent receiveEvent =
         new CommitReceivedEvent(cmd, project, branch.get(), objectReader, commit, user)) {
       CommitValidators validators;
@@ -120,13 +259,46 @@ public class BranchCommitValidator {
         messages.add(
             new CommitValidationMessage(messageForCommit(commit, m.getMessage()), m.getType()));
       }
-      cmd.setResult(REJECTED_OTHER_REASON, messageForCommit(commit, e.getMessage()));
+      return new Result(messages, messageForCommit(commit, e.getMessage()));
+    }
+    return new Result(messages, null);
+  }
+
+  private static boolean apply(
+      Result result, ReceiveCommand cmd, List<ValidationMessage> messages) {
+    messages.addAll(result.messages);
+    if (result.rejection != null) {
+      cmd.setResult(REJECTED_OTHER_REASON, result.rejection);
       return false;
     }
     return true;
   }
 
+  private static Result get(Future<Result> result) throws IOException {
+    try {
+      return result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while validating commits");
+    } catch (ExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IOException(e.getCause());
+    }
+  }
+
   private String messageForCommit(RevCommit c, String msg) {
     return String.format("commit %s: %s", c.abbreviate(RevId.ABBREV_LEN).name(), msg);
   }
+
+  /** Outcome of validating a single commit, before it is applied to the command. */
+  private static class Result {
+    final List<ValidationMessage> messages;
+    @Nullable final String rejection;
+
+    Result(List<ValidationMessage> messages, @Nullable String rejection) {
+      this.messages = messages;
+      this.rejection = rejection;
+    }
+  }
 }
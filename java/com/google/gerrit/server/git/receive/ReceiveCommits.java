@@ -48,6 +48,7 @@ import com.google.common.base.Throwables;
 import com.google.common.collect.BiMap;
 import com.google.common.collect.HashBiMap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Iterables;
@@ -661,6 +662,7 @@ class ReceiveCommits {
     }
 
     Set<Branch.NameKey> branches = new HashSet<>();
+    List<ReceiveCommand> autoClose = new ArrayList<>();
     for (ReceiveCommand c : cmds) {
       // Most post-update steps should happen in UpdateOneRefOp#postUpdate. The only steps that
       // should happen in this loop are things that can't happen within one BatchUpdate because
@@ -673,9 +675,7 @@ class ReceiveCommits {
           case CREATE:
           case UPDATE:
           case UPDATE_NONFASTFORWARD:
-            Task closeProgress = progress.beginSubTask("closed", UNKNOWN);
-            autoCloseChanges(c, closeProgress);
-            closeProgress.end();
+            autoClose.add(c);
             branches.add(new Branch.NameKey(project.getNameKey(), c.getRefName()));
             break;
 
@@ -685,6 +685,12 @@ class ReceiveCommits {
       }
     }
 
+    if (!autoClose.isEmpty()) {
+      Task closeProgress = progress.beginSubTask("closed", UNKNOWN);
+      autoCloseChanges(autoClose, closeProgress);
+      closeProgress.end();
+    }
+
     // Update superproject gitlinks if required.
     if (!branches.isEmpty()) {
       try (MergeOpRepoManager orm = ormProvider.get()) {
@@ -3109,23 +3115,32 @@ class ReceiveCommits {
       markHeadsAsUninteresting(walk, cmd.getRefName());
       int limit = receiveConfig.maxBatchCommits;
       int n = 0;
+      boolean tooManyCommits = false;
+      List<RevCommit> commits = new ArrayList<>();
       for (RevCommit c; (c = walk.next()) != null; ) {
         if (++n > limit) {
-          logger.atFine().log("Number of new commits exceeds limit of %d", limit);
-          reject(
-              cmd,
-              String.format(
-                  "more than %d commits, and %s not set", limit, PUSH_OPTION_SKIP_VALIDATION));
-          return;
+          tooManyCommits = true;
+          break;
         }
         if (existing.keySet().contains(c)) {
           continue;
         }
+        commits.add(c);
+      }
 
-        if (!validator.validCommit(
-            walk.getObjectReader(), cmd, c, false, messages, rejectCommits, null)) {
-          break;
-        }
+      // Commits before the limit are validated first, so that a push with an invalid commit is
+      // rejected for that commit, no matter how many commits follow it.
+      if (!validator.validCommits(
+          repo, walk.getObjectReader(), cmd, commits, messages, rejectCommits)) {
+        return;
+      }
+      if (tooManyCommits) {
+        logger.atFine().log("Number of new commits exceeds limit of %d", limit);
+        reject(
+            cmd,
+            String.format(
+                "more than %d commits, and %s not set", limit, PUSH_OPTION_SKIP_VALIDATION));
+        return;
       }
       logger.atFine().log("Validated %d new commits", n);
     } catch (IOException err) {
@@ -3134,16 +3149,21 @@ class ReceiveCommits {
     }
   }
 
-  private void autoCloseChanges(ReceiveCommand cmd, Task progress) {
+  /**
+   * Closes the changes whose commits became reachable from branches by the given commands.
+   *
+   * <p>The changes of all commands are closed by a single {@link BatchUpdate}, which updates their
+   * meta refs in one transaction. The branch updates themselves have already been executed, so
+   * that a failure to close changes doesn't fail the push.
+   */
+  private void autoCloseChanges(List<ReceiveCommand> cmds, Task progress) {
     logger.atFine().log("Starting auto-closing of changes");
-    String refName = cmd.getRefName();
     Set<Change.Id> ids = new HashSet<>();
 
-    // TODO(dborowitz): Combine this BatchUpdate with the main one in
-    // handleRegularCommands
     try {
       retryHelper.execute(
           updateFactory -> {
+            ids.clear();
             try (BatchUpdate bu =
                     updateFactory.create(projectState.getNameKey(), user, TimeUtil.nowTs());
                 ObjectInserter ins = repo.newObjectInserter();
@@ -3152,76 +3172,9 @@ class ReceiveCommits {
               bu.setRepository(repo, rw, ins);
               // TODO(dborowitz): Teach BatchUpdate to ignore missing changes.
 
-              RevCommit newTip = rw.parseCommit(cmd.getNewId());
-              Branch.NameKey branch = new Branch.NameKey(project.getNameKey(), refName);
-
-              rw.reset();
-              rw.markStart(newTip);
-              if (!ObjectId.zeroId().equals(cmd.getOldId())) {
-                rw.markUninteresting(rw.parseCommit(cmd.getOldId()));
-              }
-
-              ListMultimap<ObjectId, Ref> byCommit = changeRefsById();
-              Map<Change.Key, ChangeNotes> byKey = null;
-              List<ReplaceRequest> replaceAndClose = new ArrayList<>();
-
-              int existingPatchSets = 0;
-              int newPatchSets = 0;
-              COMMIT:
-              for (RevCommit c; (c = rw.next()) != null; ) {
-                rw.parseBody(c);
-
-                for (Ref ref : byCommit.get(c.copy())) {
-                  PatchSet.Id psId = PatchSet.Id.fromRef(ref.getName());
-                  Optional<ChangeNotes> notes = getChangeNotes(psId.getParentKey());
-                  if (notes.isPresent() && notes.get().getChange().getDest().equals(branch)) {
-                    existingPatchSets++;
-                    bu.addOp(notes.get().getChangeId(), setPrivateOpFactory.create(false, null));
-                    bu.addOp(
-                        psId.getParentKey(),
-                        mergedByPushOpFactory.create(requestScopePropagator, psId, refName));
-                    continue COMMIT;
-                  }
-                }
-
-                for (String changeId : c.getFooterLines(CHANGE_ID)) {
-                  if (byKey == null) {
-                    byKey = executeIndexQuery(() -> openChangesByKeyByBranch(branch));
-                  }
-
-                  ChangeNotes onto = byKey.get(new Change.Key(changeId.trim()));
-                  if (onto != null) {
-                    newPatchSets++;
-                    // Hold onto this until we're done with the walk, as the call to
-                    // req.validate below calls isMergedInto which resets the walk.
-                    ReplaceRequest req = new ReplaceRequest(onto.getChangeId(), c, cmd, false);
-                    req.notes = onto;
-                    replaceAndClose.add(req);
-                    continue COMMIT;
-                  }
-                }
-              }
-
-              for (ReplaceRequest req : replaceAndClose) {
-                Change.Id id = req.notes.getChangeId();
-                if (!req.validateNewPatchSetForAutoClose()) {
-                  logger.atFine().log("Not closing %s because validation failed", id);
-                  continue;
-                }
-                req.addOps(bu, null);
-                bu.addOp(id, setPrivateOpFactory.create(false, null));
-                bu.addOp(
-                    id,
-                    mergedByPushOpFactory
-                        .create(requestScopePropagator, req.psId, refName)
-                        .setPatchSetProvider(req.replaceOp::getPatchSet));
-                bu.addOp(id, new ChangeProgressOp(progress));
-                ids.add(id);
+              for (ReceiveCommand cmd : cmds) {
+                addAutoCloseOps(bu, rw, cmd, progress, ids);
               }
-
-              logger.atFine().log(
-                  "Auto-closing %s changes with existing patch sets and %s with new patch sets",
-                  existingPatchSets, newPatchSets);
               bu.execute();
             } catch (IOException | OrmException | PermissionBackendException e) {
               logger.atSevere().withCause(e).log("Failed to auto-close changes");
@@ -3247,12 +3200,102 @@ class ReceiveCommits {
     }
   }
 
-  private Optional<ChangeNotes> getChangeNotes(Change.Id changeId) throws OrmException {
-    try {
-      return Optional.of(notesFactory.createChecked(project.getNameKey(), changeId));
-    } catch (NoSuchChangeException e) {
-      return Optional.empty();
+  /**
+   * Adds the ops to close the changes whose commits became reachable from a branch.
+   *
+   * <p>The new commits are walked first to collect the candidate changes, whose notes are then
+   * loaded in bulk, rather than once per commit.
+   */
+  private void addAutoCloseOps(
+      BatchUpdate bu, RevWalk rw, ReceiveCommand cmd, Task progress, Set<Change.Id> ids)
+      throws IOException, OrmException, PermissionBackendException {
+    String refName = cmd.getRefName();
+    Branch.NameKey branch = new Branch.NameKey(project.getNameKey(), refName);
+
+    rw.reset();
+    rw.markStart(rw.parseCommit(cmd.getNewId()));
+    if (!ObjectId.zeroId().equals(cmd.getOldId())) {
+      rw.markUninteresting(rw.parseCommit(cmd.getOldId()));
+    }
+
+    ListMultimap<ObjectId, Ref> byCommit = changeRefsById();
+    List<RevCommit> commits = new ArrayList<>();
+    Set<Change.Id> candidates = new HashSet<>();
+    boolean hasChangeIds = false;
+    for (RevCommit c; (c = rw.next()) != null; ) {
+      rw.parseBody(c);
+      commits.add(c);
+      for (Ref ref : byCommit.get(c.copy())) {
+        candidates.add(PatchSet.Id.fromRef(ref.getName()).getParentKey());
+      }
+      hasChangeIds |= !c.getFooterLines(CHANGE_ID).isEmpty();
+    }
+    Map<Change.Id, ChangeNotes> notesById = loadChangeNotes(candidates);
+    Map<Change.Key, Change.Id> byKey =
+        hasChangeIds ? executeIndexQuery(() -> openChangeIdsByKey(branch)) : ImmutableMap.of();
+
+    Map<RevCommit, Change.Id> newPatchSets = new LinkedHashMap<>();
+    int existingPatchSets = 0;
+    COMMIT:
+    for (RevCommit c : commits) {
+      for (Ref ref : byCommit.get(c.copy())) {
+        PatchSet.Id psId = PatchSet.Id.fromRef(ref.getName());
+        ChangeNotes notes = notesById.get(psId.getParentKey());
+        if (notes != null && notes.getChange().getDest().equals(branch)) {
+          existingPatchSets++;
+          bu.addOp(notes.getChangeId(), setPrivateOpFactory.create(false, null));
+          bu.addOp(
+              psId.getParentKey(),
+              mergedByPushOpFactory.create(requestScopePropagator, psId, refName));
+          continue COMMIT;
+        }
+      }
+
+      for (String changeId : c.getFooterLines(CHANGE_ID)) {
+        Change.Id onto = byKey.get(new Change.Key(changeId.trim()));
+        if (onto != null) {
+          newPatchSets.put(c, onto);
+          continue COMMIT;
+        }
+      }
     }
+
+    notesById = loadChangeNotes(newPatchSets.values());
+    for (Map.Entry<RevCommit, Change.Id> e : newPatchSets.entrySet()) {
+      Change.Id id = e.getValue();
+      ChangeNotes notes = notesById.get(id);
+      if (notes == null) {
+        // Ignore deleted change
+        continue;
+      }
+      ReplaceRequest req = new ReplaceRequest(id, e.getKey(), cmd, false);
+      req.notes = notes;
+      if (!req.validateNewPatchSetForAutoClose()) {
+        logger.atFine().log("Not closing %s because validation failed", id);
+        continue;
+      }
+      req.addOps(bu, null);
+      bu.addOp(id, setPrivateOpFactory.create(false, null));
+      bu.addOp(
+          id,
+          mergedByPushOpFactory
+              .create(requestScopePropagator, req.psId, refName)
+              .setPatchSetProvider(req.replaceOp::getPatchSet));
+      bu.addOp(id, new ChangeProgressOp(progress));
+      ids.add(id);
+    }
+
+    logger.atFine().log(
+        "Auto-closing %s changes with existing patch sets and %s with new patch sets on %s",
+        existingPatchSets, newPatchSets.size(), refName);
+  }
+
+  private ImmutableMap<Change.Id, ChangeNotes> loadChangeNotes(Collection<Change.Id> changeIds)
+      throws OrmException {
+    return notesFactory.createAll(
+        ImmutableSetMultimap.<Project.NameKey, Change.Id>builder()
+            .putAll(project.getNameKey(), changeIds)
+            .build());
   }
 
   private <T> T executeIndexQuery(Action<T> action) throws OrmException {
@@ -3265,15 +3308,10 @@ class ReceiveCommits {
     }
   }
 
-  private Map<Change.Key, ChangeNotes> openChangesByKeyByBranch(Branch.NameKey branch)
-      throws OrmException {
-    Map<Change.Key, ChangeNotes> r = new HashMap<>();
+  private Map<Change.Key, Change.Id> openChangeIdsByKey(Branch.NameKey branch) throws OrmException {
+    Map<Change.Key, Change.Id> r = new HashMap<>();
     for (ChangeData cd : queryProvider.get().byBranchOpen(branch)) {
-      try {
-        r.put(cd.change().getKey(), cd.notes());
-      } catch (NoSuchChangeException e) {
-        // Ignore deleted change
-      }
+      r.put(cd.change().getKey(), cd.getId());
     }
     return r;
   }
@@ -29,7 +29,13 @@ import com.google.gerrit.common.FooterConstants;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.api.config.ConsistencyCheckInfo.ConsistencyProblemInfo;
 import com.google.gerrit.extensions.registration.DynamicItem;
+import com.google.gerrit.extensions.registration.PluginName;
 import com.google.gerrit.extensions.restapi.AuthException;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.Description.Units;
+import com.google.gerrit.metrics.Field;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.gerrit.metrics.Timer1;
 import com.google.gerrit.reviewdb.client.Account;
 import com.google.gerrit.reviewdb.client.BooleanProjectConfig;
 import com.google.gerrit.reviewdb.client.Branch;
@@ -50,6 +56,7 @@ import com.google.gerrit.server.permissions.PermissionBackend;
 import com.google.gerrit.server.permissions.PermissionBackendException;
 import com.google.gerrit.server.permissions.RefPermission;
 import com.google.gerrit.server.plugincontext.PluginSetContext;
+import com.google.gerrit.server.plugincontext.PluginSetEntryContext;
 import com.google.gerrit.server.project.ProjectCache;
 import com.google.gerrit.server.project.ProjectConfig;
 import com.google.gerrit.server.project.ProjectState;
@@ -83,6 +90,8 @@ import org.eclipse.jgit.util.SystemReader;
 public class CommitValidators {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+  private static final String LAMBDA_CLASS_SUFFIX = "$$Lambda";
+
   public static final Pattern NEW_PATCHSET_PATTERN =
       Pattern.compile("^" + REFS_CHANGES + "(?:[0-9][0-9]/)?([1-9][0-9]*)(?:/[1-9][0-9]*)?$");
 
@@ -99,6 +108,7 @@ public class CommitValidators {
     private final String installCommitMsgHookCommand;
     private final ProjectCache projectCache;
     private final ProjectConfig.Factory projectConfigFactory;
+    private final Timer1<String> latency;
 
     @Inject
     Factory(
@@ -112,7 +122,8 @@ public class CommitValidators {
         ExternalIdsConsistencyChecker externalIdsConsistencyChecker,
         AccountValidator accountValidator,
         ProjectCache projectCache,
-        ProjectConfig.Factory projectConfigFactory) {
+        ProjectConfig.Factory projectConfigFactory,
+        MetricMaker metricMaker) {
       this.gerritIdent = gerritIdent;
       this.urlFormatter = urlFormatter;
       this.pluginValidators = pluginValidators;
@@ -125,6 +136,14 @@ public class CommitValidators {
           cfg != null ? cfg.getString("gerrit", null, "installCommitMsgHookCommand") : null;
       this.projectCache = projectCache;
       this.projectConfigFactory = projectConfigFactory;
+      this.latency =
+          metricMaker.newTimer(
+              "receivecommits/commit_validation/latency",
+              new Description("Latency for validating a single commit by validator")
+                  .setCumulative()
+                  .setUnit(Units.MILLISECONDS),
+              Field.ofString(
+                  "validator", "class name of the validator, prefixed by the plugin name"));
     }
 
     public CommitValidators forReceiveCommits(
@@ -139,6 +158,7 @@ public class CommitValidators {
       PermissionBackend.ForRef perm = forProject.ref(branch.get());
       ProjectState projectState = projectCache.checkedGet(branch.getParentKey());
       return new CommitValidators(
+          latency,
           ImmutableList.of(
               new UploadMergesPermissionValidator(perm),
               new ProjectStateValidationListener(projectState),
@@ -155,7 +175,7 @@ public class CommitValidators {
                   change),
               new ConfigValidator(projectConfigFactory, branch, user, rw, allUsers, allProjects),
               new BannedCommitsValidator(rejectCommits),
-              new PluginCommitValidationListener(pluginValidators),
+              new PluginCommitValidationListener(pluginValidators, latency),
               new ExternalIdUpdateListener(allUsers, externalIdsConsistencyChecker),
               new AccountCommitValidator(repoManager, allUsers, accountValidator),
               new GroupCommitValidator(allUsers)));
@@ -172,6 +192,7 @@ public class CommitValidators {
       PermissionBackend.ForRef perm = forProject.ref(branch.get());
       ProjectState projectState = projectCache.checkedGet(branch.getParentKey());
       return new CommitValidators(
+          latency,
           ImmutableList.of(
               new UploadMergesPermissionValidator(perm),
               new ProjectStateValidationListener(projectState),
@@ -186,7 +207,7 @@ public class CommitValidators {
                   sshInfo,
                   change),
               new ConfigValidator(projectConfigFactory, branch, user, rw, allUsers, allProjects),
-              new PluginCommitValidationListener(pluginValidators),
+              new PluginCommitValidationListener(pluginValidators, latency),
               new ExternalIdUpdateListener(allUsers, externalIdsConsistencyChecker),
               new AccountCommitValidator(repoManager, allUsers, accountValidator),
               new GroupCommitValidator(allUsers)));
@@ -210,6 +231,7 @@ public class CommitValidators {
       //    formats, so we play it safe and exclude them.
       PermissionBackend.ForRef perm = forProject.ref(branch.get());
       return new CommitValidators(
+          latency,
           ImmutableList.of(
               new UploadMergesPermissionValidator(perm),
               new ProjectStateValidationListener(projectCache.checkedGet(branch.getParentKey())),
@@ -218,9 +240,11 @@ public class CommitValidators {
     }
   }
 
+  private final Timer1<String> latency;
   private final List<CommitValidationListener> validators;
 
-  CommitValidators(List<CommitValidationListener> validators) {
+  CommitValidators(Timer1<String> latency, List<CommitValidationListener> validators) {
+    this.latency = latency;
     this.validators = validators;
   }
 
@@ -229,7 +253,15 @@ public class CommitValidators {
     List<CommitValidationMessage> messages = new ArrayList<>();
     try {
       for (CommitValidationListener commitValidator : validators) {
-        messages.addAll(commitValidator.onCommitReceived(receiveEvent));
+        if (commitValidator instanceof PluginCommitValidationListener) {
+          // Times each plugin validator on its own.
+          messages.addAll(commitValidator.onCommitReceived(receiveEvent));
+          continue;
+        }
+        try (Timer1.Context ignored =
+            latency.start(validatorName(PluginName.GERRIT, commitValidator))) {
+          messages.addAll(commitValidator.onCommitReceived(receiveEvent));
+        }
       }
     } catch (CommitValidationException e) {
       logger.atFine().withCause(e).log(
@@ -241,6 +273,26 @@ public class CommitValidators {
     return messages;
   }
 
+  /**
+   * Returns the name of a validator in the latency metric.
+   *
+   * <p>Like other per-plugin metrics, validators of plugins are prefixed with the plugin name. The
+   * full class name is used, as anonymous classes and lambdas have no simple name.
+   */
+  @VisibleForTesting
+  static String validatorName(String pluginName, CommitValidationListener validator) {
+    String name = validator.getClass().getName();
+    // Lambdas get a generated suffix that differs between JVM runs.
+    int lambda = name.indexOf(LAMBDA_CLASS_SUFFIX);
+    if (lambda >= 0) {
+      name = name.substring(0, lambda + LAMBDA_CLASS_SUFFIX.length());
+    }
+    if (PluginName.GERRIT.equals(pluginName)) {
+      return name;
+    }
+    return String.format("plugin/%s/%s", pluginName, name);
+  }
+
   public static class ChangeIdValidator implements CommitValidationListener {
     private static final String CHANGE_ID_PREFIX = FooterConstants.CHANGE_ID.getName() + ":";
     private static final String MISSING_CHANGE_ID_MSG = "missing Change-Id in message footer";
@@ -481,10 +533,18 @@ public class CommitValidators {
   /** Execute commit validation plug-ins */
   public static class PluginCommitValidationListener implements CommitValidationListener {
     private final PluginSetContext<CommitValidationListener> commitValidationListeners;
+    @Nullable private final Timer1<String> latency;
 
     public PluginCommitValidationListener(
         final PluginSetContext<CommitValidationListener> commitValidationListeners) {
+      this(commitValidationListeners, null);
+    }
+
+    PluginCommitValidationListener(
+        PluginSetContext<CommitValidationListener> commitValidationListeners,
+        @Nullable Timer1<String> latency) {
       this.commitValidationListeners = commitValidationListeners;
+      this.latency = latency;
     }
 
     @Override
@@ -492,8 +552,16 @@ public class CommitValidators {
         throws CommitValidationException {
       List<CommitValidationMessage> messages = new ArrayList<>();
       try {
-        commitValidationListeners.runEach(
-            l -> l.onCommitReceived(receiveEvent), CommitValidationException.class);
+        for (PluginSetEntryContext<CommitValidationListener> c : commitValidationListeners) {
+          c.run(
+              l -> {
+                try (Timer1.Context ignored =
+                    latency != null ? latency.start(validatorName(c.getPluginName(), l)) : null) {
+                  l.onCommitReceived(receiveEvent);
+                }
+              },
+              CommitValidationException.class);
+        }
       } catch (CommitValidationException e) {
         messages.addAll(e.getMessages());
         throw new CommitValidationException(e.getMessage(), messages);
@@ -22,13 +22,18 @@ import static com.google.gerrit.server.git.QueueProvider.QueueType.BATCH;
 
 import com.google.common.base.Stopwatch;
 import com.google.common.collect.ComparisonChain;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Ordering;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.gerrit.index.SiteIndexer;
 import com.google.gerrit.reviewdb.client.Change;
 import com.google.gerrit.reviewdb.client.Project;
 import com.google.gerrit.reviewdb.client.RefNames;
+import com.google.gerrit.server.config.GerritServerConfig;
 import com.google.gerrit.server.git.GitRepositoryManager;
 import com.google.gerrit.server.git.MultiProgressMonitor;
 import com.google.gerrit.server.git.MultiProgressMonitor.Task;
@@ -49,6 +54,7 @@ import java.util.concurrent.ExecutionException;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.jgit.errors.RepositoryNotFoundException;
+import org.eclipse.jgit.lib.Config;
 import org.eclipse.jgit.lib.ProgressMonitor;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.lib.TextProgressMonitor;
@@ -56,12 +62,31 @@ import org.eclipse.jgit.lib.TextProgressMonitor;
 public class AllChangesIndexer extends SiteIndexer<Change.Id, ChangeData, ChangeIndex> {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+  private static final int DEFAULT_SLICE_SIZE = 1000;
+  private static final int SCAN_BATCH_SIZE = 100;
+
+  /** Order in which the changes of a project are scanned. */
+  public enum ScanOrder {
+    /** Order in which changes are found in the repository; slices are cut by change number. */
+    DEFAULT,
+
+    /**
+     * Order of the current patch set commits in the project's pack files, so that reading commits,
+     * trees and blobs, e.g. to compute the diff summary, moves forward through the packs.
+     */
+    PACK_OFFSET
+  }
+
   private final ChangeData.Factory changeDataFactory;
   private final GitRepositoryManager repoManager;
   private final ListeningExecutorService executor;
   private final ChangeIndexer.Factory indexerFactory;
   private final ChangeNotes.Factory notesFactory;
   private final ProjectCache projectCache;
+  private final int sliceSize;
+  private final ScanOrder scanOrder;
+  private PackOffsets.Stats changeNumberLocality;
+  private PackOffsets.Stats packOffsetLocality;
 
   @Inject
   AllChangesIndexer(
@@ -70,13 +95,16 @@ public class AllChangesIndexer extends SiteIndexer<Change.Id, ChangeData, Change
       @IndexExecutor(BATCH) ListeningExecutorService executor,
       ChangeIndexer.Factory indexerFactory,
       ChangeNotes.Factory notesFactory,
-      ProjectCache projectCache) {
+      ProjectCache projectCache,
+      @GerritServerConfig Config cfg) {
     this.changeDataFactory = changeDataFactory;
     this.repoManager = repoManager;
     this.executor = executor;
     this.indexerFactory = indexerFactory;
     this.notesFactory = notesFactory;
     this.projectCache = projectCache;
+    this.sliceSize = cfg.getInt("index", null, "batchSliceSize", DEFAULT_SLICE_SIZE);
+    this.scanOrder = cfg.getEnum("index", null, "batchScanOrder", ScanOrder.DEFAULT);
   }
 
   private static class ProjectHolder implements Comparable<ProjectHolder> {
@@ -146,15 +174,24 @@ public class AllChangesIndexer extends SiteIndexer<Change.Id, ChangeData, Change
     checkState(totalWork >= 0);
     Task doneTask = mpm.beginSubTask(null, totalWork);
     Task failedTask = mpm.beginSubTask("failed", MultiProgressMonitor.UNKNOWN);
+    Task sliceTask = mpm.beginSubTask("slices", MultiProgressMonitor.UNKNOWN);
+    changeNumberLocality = new PackOffsets.Stats();
+    packOffsetLocality = new PackOffsets.Stats();
 
     List<ListenableFuture<?>> futures = new ArrayList<>();
     AtomicBoolean ok = new AtomicBoolean(true);
 
     for (ProjectHolder project : projects) {
-      ListenableFuture<?> future =
-          executor.submit(
-              reindexProject(
-                  indexerFactory.create(executor, index), project.name, doneTask, failedTask));
+      ChangeIndexer indexer = indexerFactory.create(executor, index);
+      ListenableFuture<?> future;
+      if (sliceSize > 0 && project.size > sliceSize) {
+        future =
+            Futures.submitAsync(
+                () -> reindexSlices(indexer, project.name, doneTask, failedTask, sliceTask),
+                executor);
+      } else {
+        future = executor.submit(reindexProject(indexer, project.name, doneTask, failedTask));
+      }
       addErrorListener(future, "project " + project.name, projTask, ok);
       futures.add(future);
     }
@@ -185,17 +222,147 @@ public class AllChangesIndexer extends SiteIndexer<Change.Id, ChangeData, Change
           nFailed, nTotal, Math.round(pctFailed));
       ok.set(false);
     }
+    if (scanOrder == ScanOrder.PACK_OFFSET) {
+      logLocality();
+    }
     return new Result(sw, ok.get(), nDone, nFailed);
   }
 
+  private void logLocality() {
+    String msg =
+        String.format(
+            "Scanned %d patch set commits in pack offset order: %d MiB seek distance, %d pack"
+                + " switches (change number order: %d MiB, %d pack switches)",
+            packOffsetLocality.commits(),
+            packOffsetLocality.seekBytes() >> 20,
+            packOffsetLocality.packSwitches(),
+            changeNumberLocality.seekBytes() >> 20,
+            changeNumberLocality.packSwitches());
+    logger.atInfo().log(msg);
+    verboseWriter.println(msg);
+  }
+
+  /**
+   * Returns the IDs of the changes of a project with a meta ref, in the order they should be
+   * scanned.
+   *
+   * <p>In {@link ScanOrder#PACK_OFFSET} mode, also records the locality of the pack reads in this
+   * order and, for comparison, in change number order.
+   */
+  private List<Change.Id> scanOrder(Repository repo) throws IOException {
+    List<Change.Id> byNumber =
+        Ordering.natural()
+            .onResultOf(Change.Id::get)
+            .sortedCopy(notesFactory.scanChangeIdsWithMetaRef(repo));
+    if (scanOrder != ScanOrder.PACK_OFFSET) {
+      return byNumber;
+    }
+    PackOffsets offsets = PackOffsets.load(repo);
+    if (offsets == null) {
+      return byNumber;
+    }
+    List<Change.Id> byOffset = offsets.sort(byNumber);
+    offsets.record(byNumber, changeNumberLocality);
+    offsets.record(byOffset, packOffsetLocality);
+    return byOffset;
+  }
+
   public Callable<Void> reindexProject(
       ChangeIndexer indexer, Project.NameKey project, Task done, Task failed) {
     return new ProjectIndexer(indexer, project, done, failed);
   }
 
+  /**
+   * Splits the changes of a project into slices of {@code sliceSize} changes, and submits one
+   * indexing task per slice.
+   *
+   * <p>All slices share the repository opened here, which is closed once every slice is done.
+   * Slices are cut from the change IDs in {@link #scanOrder(Repository) scan order}, so each slice
+   * covers a contiguous range of changes, or of pack data.
+   *
+   * @return future that completes once all slices are done.
+   */
+  private ListenableFuture<List<Void>> reindexSlices(
+      ChangeIndexer indexer,
+      Project.NameKey project,
+      Task done,
+      Task failed,
+      ProgressMonitor slicesDone)
+      throws IOException {
+    Repository repo;
+    try {
+      repo = repoManager.openRepository(project);
+    } catch (RepositoryNotFoundException rnfe) {
+      logger.atSevere().log(rnfe.getMessage());
+      return Futures.immediateFuture(ImmutableList.of());
+    }
+
+    List<List<Change.Id>> slices;
+    try {
+      slices = Lists.partition(scanOrder(repo), sliceSize);
+    } catch (IOException | RuntimeException e) {
+      repo.close();
+      throw e;
+    }
+
+    List<ListenableFuture<Void>> futures = new ArrayList<>(slices.size());
+    for (int i = 0; i < slices.size(); i++) {
+      ListenableFuture<Void> future =
+          executor.submit(
+              new SliceIndexer(
+                  indexer, project, repo, slices.get(i), i + 1, slices.size(), done, failed));
+      future.addListener(() -> slicesDone.update(1), directExecutor());
+      futures.add(future);
+    }
+    return Futures.whenAllComplete(futures)
+        .callAsync(
+            () -> {
+              repo.close();
+              return Futures.allAsList(futures);
+            },
+            directExecutor());
+  }
+
+  /** Indexes a slice of the changes of a project, in an already opened repository. */
+  private class SliceIndexer extends ProjectIndexer {
+    private final Repository repo;
+    private final List<Change.Id> changeIds;
+    private final int slice;
+    private final int sliceCount;
+
+    private SliceIndexer(
+        ChangeIndexer indexer,
+        Project.NameKey project,
+        Repository repo,
+        List<Change.Id> changeIds,
+        int slice,
+        int sliceCount,
+        ProgressMonitor done,
+        ProgressMonitor failed) {
+      super(indexer, project, done, failed);
+      this.repo = repo;
+      this.changeIds = changeIds;
+      this.slice = slice;
+      this.sliceCount = sliceCount;
+    }
+
+    @Override
+    public Void call() throws Exception {
+      notesFactory.scan(repo, project, changeIds).forEach(r -> index(r));
+      verboseWriter.println(
+          String.format("Reindexed slice %d/%d of project %s", slice, sliceCount, project.get()));
+      return null;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("Index slice %d/%d of project %s", slice, sliceCount, project.get());
+    }
+  }
+
   private class ProjectIndexer implements Callable<Void> {
     private final ChangeIndexer indexer;
-    private final Project.NameKey project;
+    protected final Project.NameKey project;
     private final ProgressMonitor done;
     private final ProgressMonitor failed;
 
@@ -213,19 +380,25 @@ public class AllChangesIndexer extends SiteIndexer<Change.Id, ChangeData, Change
     @Override
     public Void call() throws Exception {
       try (Repository repo = repoManager.openRepository(project)) {
-        // Order of scanning changes is undefined. This is ok if we assume that packfile locality is
-        // not important for indexing, since sites should have a fully populated DiffSummary cache.
-        // It does mean that reindexing after invalidating the DiffSummary cache will be expensive,
-        // but the goal is to invalidate that cache as infrequently as we possibly can. And besides,
-        // we don't have concrete proof that improving packfile locality would help.
-        notesFactory.scan(repo, project).forEach(r -> index(r));
+        if (scanOrder == ScanOrder.PACK_OFFSET) {
+          // Changes are indexed, and their DiffSummary computed, in the order in which their
+          // commits are stored, which matters when reindexing with a cold DiffSummary cache.
+          for (List<Change.Id> batch : Lists.partition(scanOrder(repo), SCAN_BATCH_SIZE)) {
+            notesFactory.scan(repo, project, batch).forEach(r -> index(r));
+          }
+        } else {
+          // Order of scanning changes is undefined. This is ok as long as sites have a fully
+          // populated DiffSummary cache; otherwise index.batchScanOrder = PACK_OFFSET avoids
+          // random reads across the packs.
+          notesFactory.scan(repo, project).forEach(r -> index(r));
+        }
       } catch (RepositoryNotFoundException rnfe) {
         logger.atSevere().log(rnfe.getMessage());
       }
       return null;
     }
 
-    private void index(ChangeNotesResult r) {
+    protected void index(ChangeNotesResult r) {
       if (r.error().isPresent()) {
         fail("Failed to read change " + r.id() + " for indexing", true, r.error().get());
         return;
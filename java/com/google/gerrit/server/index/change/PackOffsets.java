@@ -0,0 +1,164 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.index.change;
+
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.naturalOrder;
+import static java.util.Comparator.nullsLast;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.reviewdb.client.Change;
+import com.google.gerrit.reviewdb.client.PatchSet;
+import com.google.gerrit.reviewdb.client.RefNames;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.PackFile;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+
+/**
+ * Positions of the current patch set commits of a project's changes in its pack files.
+ *
+ * <p>Indexing a change reads its patch set commits and the trees and blobs they reference, e.g. to
+ * compute the diff summary. Scanning changes in the order their commits are stored turns these into
+ * mostly forward reads through the packs, rather than random reads across them.
+ */
+class PackOffsets {
+  /** Position of a commit: the pack it's stored in, in search order, and its offset there. */
+  private static class Position implements Comparable<Position> {
+    final int pack;
+    final long offset;
+
+    Position(int pack, long offset) {
+      this.pack = pack;
+      this.offset = offset;
+    }
+
+    @Override
+    public int compareTo(Position other) {
+      int cmp = Integer.compare(pack, other.pack);
+      return cmp != 0 ? cmp : Long.compare(offset, other.offset);
+    }
+  }
+
+  /** Locality of the commit reads of a scan, summed up over all scanned projects. */
+  static class Stats {
+    private final AtomicLong commits = new AtomicLong();
+    private final AtomicLong packSwitches = new AtomicLong();
+    private final AtomicLong seekBytes = new AtomicLong();
+
+    /** Number of scanned patch set commits that were found in a pack. */
+    long commits() {
+      return commits.get();
+    }
+
+    /** Number of times consecutive commits were found in different packs. */
+    long packSwitches() {
+      return packSwitches.get();
+    }
+
+    /** Sum of the distances between consecutive commits found in the same pack, in bytes. */
+    long seekBytes() {
+      return seekBytes.get();
+    }
+  }
+
+  /**
+   * Looks up the position of the current patch set commit of every change in a repository.
+   *
+   * @return positions, or {@code null} if the repository is not stored in pack files on disk.
+   */
+  @Nullable
+  static PackOffsets load(Repository repo) throws IOException {
+    if (!(repo instanceof FileRepository)) {
+      return null;
+    }
+    List<PackFile> packs = new ArrayList<>(((FileRepository) repo).getObjectDatabase().getPacks());
+
+    Map<Change.Id, PatchSet.Id> currentPatchSets = new HashMap<>();
+    Map<Change.Id, ObjectId> commits = new HashMap<>();
+    for (Ref ref : repo.getRefDatabase().getRefsByPrefix(RefNames.REFS_CHANGES)) {
+      PatchSet.Id psId = PatchSet.Id.fromRef(ref.getName());
+      if (psId == null || ref.getObjectId() == null) {
+        continue;
+      }
+      PatchSet.Id current = currentPatchSets.get(psId.getParentKey());
+      if (current == null || current.get() < psId.get()) {
+        currentPatchSets.put(psId.getParentKey(), psId);
+        commits.put(psId.getParentKey(), ref.getObjectId());
+      }
+    }
+
+    ImmutableMap.Builder<Change.Id, Position> positions = ImmutableMap.builder();
+    for (Map.Entry<Change.Id, ObjectId> e : commits.entrySet()) {
+      for (int i = 0; i < packs.size(); i++) {
+        long offset = packs.get(i).getIndex().findOffset(e.getValue());
+        if (offset >= 0) {
+          positions.put(e.getKey(), new Position(i, offset));
+          break;
+        }
+      }
+    }
+    return new PackOffsets(positions.build());
+  }
+
+  private final ImmutableMap<Change.Id, Position> positions;
+
+  private PackOffsets(ImmutableMap<Change.Id, Position> positions) {
+    this.positions = positions;
+  }
+
+  /**
+   * Sorts changes by the position of their current patch set commit.
+   *
+   * <p>Changes whose commit is not in a pack, e.g. because it is a loose object, come last, in the
+   * order they were given.
+   */
+  List<Change.Id> sort(Collection<Change.Id> changeIds) {
+    Comparator<Change.Id> byPosition = comparing(positions::get, nullsLast(naturalOrder()));
+    List<Change.Id> sorted = new ArrayList<>(changeIds);
+    sorted.sort(byPosition);
+    return sorted;
+  }
+
+  /** Adds the locality of scanning changes in the given order to {@code stats}. */
+  void record(List<Change.Id> order, Stats stats) {
+    Position previous = null;
+    for (Change.Id changeId : order) {
+      Position p = positions.get(changeId);
+      if (p == null) {
+        continue;
+      }
+      stats.commits.incrementAndGet();
+      if (previous != null) {
+        if (previous.pack != p.pack) {
+          stats.packSwitches.incrementAndGet();
+        } else {
+          stats.seekBytes.addAndGet(Math.abs(p.offset - previous.offset));
+        }
+      }
+      previous = p;
+    }
+  }
+}
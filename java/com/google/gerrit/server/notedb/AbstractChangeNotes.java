@@ -176,6 +176,15 @@ public abstract class AbstractChangeNotes<T> {
     return new LoadHandle(repo, id);
   }
 
+  /**
+   * Marks this object as loaded from {@code revision}, for subclasses that were loaded in bulk
+   * rather than through {@link #load()}.
+   */
+  protected void setLoaded(ObjectId revision) {
+    this.revision = revision;
+    loaded = true;
+  }
+
   public T reload() throws OrmException {
     loaded = false;
     return load();
@@ -22,8 +22,10 @@ import static java.util.Objects.requireNonNull;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.ImmutableSortedSet;
@@ -31,11 +33,13 @@ import com.google.common.collect.ListMultimap;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.Ordering;
+import com.google.common.collect.SetMultimap;
 import com.google.common.collect.Sets;
 import com.google.common.collect.Sets.SetView;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.common.data.SubmitRecord;
+import com.google.gerrit.metrics.Timer1;
 import com.google.gerrit.reviewdb.client.Account;
 import com.google.gerrit.reviewdb.client.Branch;
 import com.google.gerrit.reviewdb.client.Change;
@@ -47,10 +51,12 @@ import com.google.gerrit.reviewdb.client.Project;
 import com.google.gerrit.reviewdb.client.RefNames;
 import com.google.gerrit.reviewdb.client.RevId;
 import com.google.gerrit.reviewdb.client.RobotComment;
+import com.google.gerrit.server.FanOutExecutor;
 import com.google.gerrit.server.ReviewerByEmailSet;
 import com.google.gerrit.server.ReviewerSet;
 import com.google.gerrit.server.ReviewerStatusUpdate;
 import com.google.gerrit.server.git.RefCache;
+import com.google.gerrit.server.notedb.ChangeNotesCommit.ChangeNotesRevWalk;
 import com.google.gerrit.server.project.NoSuchChangeException;
 import com.google.gerrit.server.project.ProjectCache;
 import com.google.gerrit.server.query.change.ChangeData;
@@ -62,10 +68,16 @@ import com.google.inject.Singleton;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.eclipse.jgit.errors.ConfigInvalidException;
@@ -93,14 +105,19 @@ public class ChangeNotes extends AbstractChangeNotes<ChangeNotes> {
     private final Args args;
     private final Provider<InternalChangeQuery> queryProvider;
     private final ProjectCache projectCache;
+    private final ExecutorService executor;
 
     @VisibleForTesting
     @Inject
     public Factory(
-        Args args, Provider<InternalChangeQuery> queryProvider, ProjectCache projectCache) {
+        Args args,
+        Provider<InternalChangeQuery> queryProvider,
+        ProjectCache projectCache,
+        @FanOutExecutor ExecutorService executor) {
       this.args = args;
       this.queryProvider = queryProvider;
       this.projectCache = projectCache;
+      this.executor = executor;
     }
 
     public ChangeNotes createChecked(Change c) throws OrmException {
@@ -168,6 +185,84 @@ public class ChangeNotes extends AbstractChangeNotes<ChangeNotes> {
       return notes;
     }
 
+    /**
+     * Loads the notes of several changes.
+     *
+     * <p>Changes are grouped by project. The repository of each project is opened once, the meta
+     * refs of its changes are read in a single lookup, and notes missing from the cache are parsed
+     * with a single walk. Projects are loaded in parallel.
+     *
+     * @param changeIds IDs of the changes to load, by project.
+     * @return notes by change ID. Changes that don't exist are omitted.
+     * @throws OrmException if the notes of a project can't be read.
+     */
+    public ImmutableMap<Change.Id, ChangeNotes> createAll(
+        SetMultimap<Project.NameKey, Change.Id> changeIds) throws OrmException {
+      if (args.failOnLoadForTest.get()) {
+        throw new OrmException("Reading from NoteDb is disabled");
+      }
+      if (changeIds.keySet().size() <= 1) {
+        ImmutableMap.Builder<Change.Id, ChangeNotes> result = ImmutableMap.builder();
+        for (Project.NameKey project : changeIds.keySet()) {
+          result.putAll(createAll(project, changeIds.get(project)));
+        }
+        return result.build();
+      }
+
+      List<Callable<ImmutableMap<Change.Id, ChangeNotes>>> tasks = new ArrayList<>();
+      for (Project.NameKey project : changeIds.keySet()) {
+        tasks.add(() -> createAll(project, changeIds.get(project)));
+      }
+      List<Future<ImmutableMap<Change.Id, ChangeNotes>>> futures;
+      try {
+        futures = executor.invokeAll(tasks);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new OrmException("Interrupted while loading change notes", e);
+      }
+      ImmutableMap.Builder<Change.Id, ChangeNotes> result = ImmutableMap.builder();
+      for (Future<ImmutableMap<Change.Id, ChangeNotes>> f : futures) {
+        try {
+          result.putAll(f.get());
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new OrmException("Interrupted while loading change notes", e);
+        } catch (ExecutionException e) {
+          Throwables.throwIfInstanceOf(e.getCause(), OrmException.class);
+          throw new OrmException(e.getCause());
+        }
+      }
+      return result.build();
+    }
+
+    private ImmutableMap<Change.Id, ChangeNotes> createAll(
+        Project.NameKey project, Collection<Change.Id> changeIds) throws OrmException {
+      Map<String, Change.Id> byRef = new HashMap<>();
+      for (Change.Id changeId : changeIds) {
+        byRef.put(changeMetaRef(changeId), changeId);
+      }
+      try (Timer1.Context timer = args.metrics.readLatency.start(NoteDbTable.CHANGES);
+          Repository repo = args.repoManager.openRepository(project);
+          ChangeNotesRevWalk rw = ChangeNotesCommit.newRevWalk(repo)) {
+        Map<Change.Id, ObjectId> metaIds = new HashMap<>();
+        String[] refNames = byRef.keySet().toArray(new String[0]);
+        for (Ref ref : repo.getRefDatabase().exactRef(refNames).values()) {
+          metaIds.put(byRef.get(ref.getName()), ref.getObjectId());
+        }
+
+        ImmutableMap.Builder<Change.Id, ChangeNotes> result = ImmutableMap.builder();
+        for (Map.Entry<Change.Id, ChangeNotesCache.Value> e :
+            args.cache.get().getAll(project, metaIds, () -> rw).entrySet()) {
+          ChangeNotes notes = new ChangeNotes(args, newChange(project, e.getKey()), true, null);
+          notes.loadFrom(metaIds.get(e.getKey()), e.getValue());
+          result.put(e.getKey(), notes);
+        }
+        return result.build();
+      } catch (IOException e) {
+        throw new OrmException(e);
+      }
+    }
+
     public List<ChangeNotes> create(
         Project.NameKey project, Collection<Change.Id> changeIds, Predicate<ChangeNotes> predicate)
         throws OrmException {
@@ -210,6 +305,59 @@ public class ChangeNotes extends AbstractChangeNotes<ChangeNotes> {
       return sr.all().stream().map(id -> scanOneChange(project, sr, id)).filter(Objects::nonNull);
     }
 
+    /**
+     * Returns the IDs of the changes that {@link #scan(Repository, Project.NameKey)} would load.
+     *
+     * <p>Together with {@link #scan(Repository, Project.NameKey, Collection)}, this allows callers
+     * to split the changes of a large project into slices that are scanned independently.
+     */
+    public ImmutableSet<Change.Id> scanChangeIdsWithMetaRef(Repository repo) throws IOException {
+      return scanChangeIds(repo).fromMetaRefs();
+    }
+
+    /**
+     * Loads some of the changes of a project.
+     *
+     * <p>The meta refs of all changes are read in a single lookup, and notes missing from the cache
+     * are parsed with a single walk. Changes without a meta ref are skipped.
+     *
+     * @param repo open repository of the project.
+     * @param project name of the project.
+     * @param changeIds changes to load, as returned by {@link #scanChangeIdsWithMetaRef}.
+     * @return results in the order of {@code changeIds}.
+     */
+    public ImmutableList<ChangeNotesResult> scan(
+        Repository repo, Project.NameKey project, Collection<Change.Id> changeIds)
+        throws IOException {
+      Map<Change.Id, String> refNames = new LinkedHashMap<>();
+      for (Change.Id changeId : changeIds) {
+        refNames.put(changeId, changeMetaRef(changeId));
+      }
+      Map<String, Ref> refs =
+          repo.getRefDatabase().exactRef(refNames.values().toArray(new String[0]));
+
+      ImmutableList.Builder<ChangeNotesResult> results = ImmutableList.builder();
+      try (ChangeNotesRevWalk rw = ChangeNotesCommit.newRevWalk(repo)) {
+        for (Map.Entry<Change.Id, String> e : refNames.entrySet()) {
+          Ref ref = refs.get(e.getValue());
+          if (ref == null) {
+            continue;
+          }
+          Change.Id changeId = e.getKey();
+          ChangeNotes n = new ChangeNotes(args, newChange(project, changeId), true, null);
+          try {
+            n.loadFrom(
+                ref.getObjectId(),
+                args.cache.get().get(project, changeId, ref.getObjectId(), () -> rw));
+            results.add(ChangeNotesResult.notes(n));
+          } catch (IOException err) {
+            results.add(ChangeNotesResult.error(changeId, new OrmException(err)));
+          }
+        }
+      }
+      return results.build();
+    }
+
     private ChangeNotesResult scanOneChange(Project.NameKey project, ScanResult sr, Change.Id id) {
       if (!sr.fromMetaRefs().contains(id)) {
         // Stray patch set refs can happen due to normal error conditions, e.g. failed
@@ -507,8 +655,15 @@ public class ChangeNotes extends AbstractChangeNotes<ChangeNotes> {
       return;
     }
 
-    ChangeNotesCache.Value v =
-        args.cache.get().get(getProjectName(), getChangeId(), rev, handle::walk);
+    loadState(args.cache.get().get(getProjectName(), getChangeId(), rev, handle::walk));
+  }
+
+  private void loadFrom(ObjectId rev, ChangeNotesCache.Value v) {
+    setLoaded(rev);
+    loadState(v);
+  }
+
+  private void loadState(ChangeNotesCache.Value v) {
     state = v.state();
     state.copyColumnsTo(change);
     revisionNoteMap = v.revisionNoteMap();
@@ -17,6 +17,7 @@ package com.google.gerrit.server.notedb;
 import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Table;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.common.Nullable;
@@ -37,6 +38,7 @@ import com.google.inject.Module;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -380,8 +382,39 @@ public class ChangeNotesCache {
       ObjectId metaId,
       Supplier<ChangeNotesRevWalk> walkSupplier)
       throws IOException {
+    return get(Key.create(project, changeId, metaId), walkSupplier);
+  }
+
+  /**
+   * Returns the states of several changes of a project.
+   *
+   * <p>All keys are first looked up in a single cache operation; the states that are missing are
+   * then parsed one after another, sharing the walk returned by {@code walkSupplier}.
+   *
+   * @param metaIds IDs of the meta refs of the changes, by change.
+   * @return values by change, in the iteration order of {@code metaIds}.
+   */
+  ImmutableMap<Change.Id, Value> getAll(
+      Project.NameKey project,
+      Map<Change.Id, ObjectId> metaIds,
+      Supplier<ChangeNotesRevWalk> walkSupplier)
+      throws IOException {
+    List<Key> keys = new ArrayList<>(metaIds.size());
+    metaIds.forEach((changeId, metaId) -> keys.add(Key.create(project, changeId, metaId)));
+    ImmutableMap<Key, ChangeNotesState> present = cache.getAllPresent(keys);
+
+    ImmutableMap.Builder<Change.Id, Value> result = ImmutableMap.builder();
+    for (Key key : keys) {
+      ChangeNotesState s = present.get(key);
+      result.put(
+          key.changeId(),
+          s != null ? new AutoValue_ChangeNotesCache_Value(s, null) : get(key, walkSupplier));
+    }
+    return result.build();
+  }
+
+  private Value get(Key key, Supplier<ChangeNotesRevWalk> walkSupplier) throws IOException {
     try {
-      Key key = Key.create(project, changeId, metaId);
       Loader loader = new Loader(key, walkSupplier);
       ChangeNotesState s = cache.get(key, loader);
       return new AutoValue_ChangeNotesCache_Value(s, loader.revisionNoteMap);
@@ -389,7 +422,7 @@ public class ChangeNotesCache {
       throw new IOException(
           String.format(
               "Error loading %s in %s at %s",
-              RefNames.changeMetaRef(changeId), project, metaId.name()),
+              RefNames.changeMetaRef(key.changeId()), key.project(), key.id().name()),
           e);
     }
   }
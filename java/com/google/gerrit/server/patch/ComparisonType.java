@@ -18,6 +18,7 @@ import static com.google.gerrit.server.ioutil.BasicSerialization.readVarInt32;
 import static com.google.gerrit.server.ioutil.BasicSerialization.writeVarInt32;
 import static java.util.Objects.requireNonNull;
 
+import com.google.gerrit.server.cache.proto.Cache.PatchListProto.ComparisonTypeProto;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -68,6 +69,18 @@ public class ComparisonType {
     writeVarInt32(out, autoMerge ? 1 : 0);
   }
 
+  ComparisonTypeProto toProto() {
+    return ComparisonTypeProto.newBuilder()
+        .setParentNum(parentNum != null ? parentNum : 0)
+        .setAutoMerge(autoMerge)
+        .build();
+  }
+
+  static ComparisonType fromProto(ComparisonTypeProto proto) {
+    Integer parentNum = proto.getParentNum() > 0 ? proto.getParentNum() : null;
+    return new ComparisonType(parentNum, proto.getAutoMerge());
+  }
+
   static ComparisonType readFrom(InputStream in) throws IOException {
     int p = readVarInt32(in);
     Integer parentNum = p > 0 ? p : null;
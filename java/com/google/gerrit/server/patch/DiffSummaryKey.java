@@ -19,7 +19,9 @@ import static org.eclipse.jgit.lib.ObjectIdSerializer.readWithoutMarker;
 import static org.eclipse.jgit.lib.ObjectIdSerializer.write;
 import static org.eclipse.jgit.lib.ObjectIdSerializer.writeWithoutMarker;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.gerrit.extensions.client.DiffPreferencesInfo.Whitespace;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -111,4 +113,20 @@ public class DiffSummaryKey implements Serializable {
       throw new IOException("Invalid whitespace type code: " + t);
     }
   }
+
+  /** Shares the serialized form of {@link PatchListKey}, which has the same fields. */
+  @VisibleForTesting
+  enum Serializer implements CacheSerializer<DiffSummaryKey> {
+    INSTANCE;
+
+    @Override
+    public byte[] serialize(DiffSummaryKey object) {
+      return PatchListKey.Serializer.INSTANCE.serialize(object.toPatchListKey());
+    }
+
+    @Override
+    public DiffSummaryKey deserialize(byte[] in) {
+      return fromPatchListKey(PatchListKey.Serializer.INSTANCE.deserialize(in));
+    }
+  }
 }
@@ -0,0 +1,61 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.patch;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+import com.google.gerrit.reviewdb.converter.ProtoConverter;
+import com.google.gerrit.server.cache.proto.Cache.EditProto;
+import com.google.protobuf.Parser;
+import java.util.List;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.ReplaceEdit;
+
+/** Converts {@link Edit}s, including the internal edits of a {@link ReplaceEdit}, to protos. */
+enum EditProtoConverter implements ProtoConverter<EditProto, Edit> {
+  INSTANCE;
+
+  @Override
+  public EditProto toProto(Edit edit) {
+    EditProto.Builder b =
+        EditProto.newBuilder()
+            .setBeginA(edit.getBeginA())
+            .setEndA(edit.getEndA())
+            .setBeginB(edit.getBeginB())
+            .setEndB(edit.getEndB());
+    if (edit instanceof ReplaceEdit) {
+      for (Edit internal : ((ReplaceEdit) edit).getInternalEdits()) {
+        b.addInternalEdit(toProto(internal));
+      }
+    }
+    return b.build();
+  }
+
+  @Override
+  public Edit fromProto(EditProto proto) {
+    if (proto.getInternalEditCount() > 0) {
+      List<Edit> internal =
+          proto.getInternalEditList().stream().map(this::fromProto).collect(toImmutableList());
+      return new ReplaceEdit(
+          proto.getBeginA(), proto.getEndA(), proto.getBeginB(), proto.getEndB(), internal);
+    }
+    return new Edit(proto.getBeginA(), proto.getEndA(), proto.getBeginB(), proto.getEndB());
+  }
+
+  @Override
+  public Parser<EditProto> getParser() {
+    return EditProto.parser();
+  }
+}
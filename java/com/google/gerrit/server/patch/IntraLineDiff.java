@@ -20,8 +20,12 @@ import static com.google.gerrit.server.ioutil.BasicSerialization.writeEnum;
 import static com.google.gerrit.server.ioutil.BasicSerialization.writeVarInt32;
 import static java.util.stream.Collectors.toList;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
+import com.google.gerrit.proto.Protos;
 import com.google.gerrit.reviewdb.client.CodedEnum;
+import com.google.gerrit.server.cache.proto.Cache.IntraLineDiffProto;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -151,4 +155,30 @@ public class IntraLineDiff implements Serializable {
   private static List<Edit> asList(Edit[] l) {
     return Collections.unmodifiableList(Arrays.asList(l));
   }
+
+  @VisibleForTesting
+  enum Serializer implements CacheSerializer<IntraLineDiff> {
+    INSTANCE;
+
+    @Override
+    public byte[] serialize(IntraLineDiff object) {
+      IntraLineDiffProto.Builder b =
+          IntraLineDiffProto.newBuilder().setStatus(object.status.name());
+      object.edits.forEach(e -> b.addEdit(EditProtoConverter.INSTANCE.toProto(e)));
+      return Protos.toByteArray(b.build());
+    }
+
+    @Override
+    public IntraLineDiff deserialize(byte[] in) {
+      IntraLineDiffProto proto = Protos.parseUnchecked(IntraLineDiffProto.parser(), in);
+      Status status = Status.valueOf(proto.getStatus());
+      if (status != Status.EDIT_LIST) {
+        return new IntraLineDiff(status);
+      }
+      return new IntraLineDiff(
+          proto.getEditList().stream()
+              .map(EditProtoConverter.INSTANCE::fromProto)
+              .collect(toList()));
+    }
+  }
 }
@@ -15,7 +15,12 @@
 package com.google.gerrit.server.patch;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.gerrit.extensions.client.DiffPreferencesInfo.Whitespace;
+import com.google.gerrit.proto.Protos;
+import com.google.gerrit.server.cache.proto.Cache.IntraLineDiffKeyProto;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
+import com.google.gerrit.server.cache.serialize.ObjectIdConverter;
 import java.io.Serializable;
 import org.eclipse.jgit.lib.ObjectId;
 
@@ -32,4 +37,30 @@ public abstract class IntraLineDiffKey implements Serializable {
   public abstract ObjectId getBlobB();
 
   public abstract Whitespace getWhitespace();
+
+  @VisibleForTesting
+  enum Serializer implements CacheSerializer<IntraLineDiffKey> {
+    INSTANCE;
+
+    @Override
+    public byte[] serialize(IntraLineDiffKey object) {
+      ObjectIdConverter idConverter = ObjectIdConverter.create();
+      return Protos.toByteArray(
+          IntraLineDiffKeyProto.newBuilder()
+              .setBlobA(idConverter.toByteString(object.getBlobA()))
+              .setBlobB(idConverter.toByteString(object.getBlobB()))
+              .setWhitespace(object.getWhitespace().name())
+              .build());
+    }
+
+    @Override
+    public IntraLineDiffKey deserialize(byte[] in) {
+      IntraLineDiffKeyProto proto = Protos.parseUnchecked(IntraLineDiffKeyProto.parser(), in);
+      ObjectIdConverter idConverter = ObjectIdConverter.create();
+      return create(
+          idConverter.fromByteString(proto.getBlobA()),
+          idConverter.fromByteString(proto.getBlobB()),
+          Whitespace.valueOf(proto.getWhitespace()));
+    }
+  }
 }
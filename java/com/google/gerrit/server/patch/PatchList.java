@@ -25,8 +25,13 @@ import static org.eclipse.jgit.lib.ObjectIdSerializer.writeWithoutMarker;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.gerrit.common.Nullable;
+import com.google.gerrit.proto.Protos;
 import com.google.gerrit.reviewdb.client.Patch;
 import com.google.gerrit.reviewdb.client.PatchSet;
+import com.google.gerrit.server.cache.proto.Cache.PatchListProto;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
+import com.google.gerrit.server.cache.serialize.ObjectIdConverter;
+import com.google.gerrit.server.patch.PatchListCacheImpl.LargeObjectTombstone;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -199,4 +204,45 @@ public class PatchList implements Serializable {
       patches = all;
     }
   }
+
+  @VisibleForTesting
+  enum Serializer implements CacheSerializer<PatchList> {
+    INSTANCE;
+
+    @Override
+    public byte[] serialize(PatchList object) {
+      PatchListProto.Builder b = PatchListProto.newBuilder();
+      if (object instanceof LargeObjectTombstone) {
+        return Protos.toByteArray(b.setLargeObjectTombstone(true).build());
+      }
+      ObjectIdConverter idConverter = ObjectIdConverter.create();
+      if (object.oldId != null) {
+        b.setOldId(idConverter.toByteString(object.oldId));
+      }
+      b.setNewId(idConverter.toByteString(object.newId))
+          .setIsMerge(object.isMerge)
+          .setComparisonType(object.comparisonType.toProto());
+      for (PatchListEntry e : object.patches) {
+        b.addEntry(e.toProto());
+      }
+      return Protos.toByteArray(b.build());
+    }
+
+    @Override
+    public PatchList deserialize(byte[] in) {
+      PatchListProto proto = Protos.parseUnchecked(PatchListProto.parser(), in);
+      if (proto.getLargeObjectTombstone()) {
+        return new LargeObjectTombstone();
+      }
+      ObjectIdConverter idConverter = ObjectIdConverter.create();
+      return new PatchList(
+          !proto.getOldId().isEmpty() ? idConverter.fromByteString(proto.getOldId()) : null,
+          idConverter.fromByteString(proto.getNewId()),
+          proto.getIsMerge(),
+          ComparisonType.fromProto(proto.getComparisonType()),
+          proto.getEntryList().stream()
+              .map(PatchListEntry::fromProto)
+              .toArray(PatchListEntry[]::new));
+    }
+  }
 }
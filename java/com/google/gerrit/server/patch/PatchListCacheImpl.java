@@ -47,18 +47,30 @@ public class PatchListCacheImpl implements PatchListCache {
         factory(PatchListLoader.Factory.class);
         persist(FILE_NAME, PatchListKey.class, PatchList.class)
             .maximumWeight(10 << 20)
-            .weigher(PatchListWeigher.class);
+            .weigher(PatchListWeigher.class)
+            .version(1)
+            .keySerializer(PatchListKey.Serializer.INSTANCE)
+            .valueSerializer(PatchList.Serializer.INSTANCE)
+            .shareable(true);
 
         factory(IntraLineLoader.Factory.class);
         persist(INTRA_NAME, IntraLineDiffKey.class, IntraLineDiff.class)
             .maximumWeight(10 << 20)
-            .weigher(IntraLineWeigher.class);
+            .weigher(IntraLineWeigher.class)
+            .version(1)
+            .keySerializer(IntraLineDiffKey.Serializer.INSTANCE)
+            .valueSerializer(IntraLineDiff.Serializer.INSTANCE)
+            .shareable(true);
 
         factory(DiffSummaryLoader.Factory.class);
         persist(DIFF_SUMMARY, DiffSummaryKey.class, DiffSummary.class)
             .maximumWeight(10 << 20)
             .weigher(DiffSummaryWeigher.class)
-            .diskLimit(1 << 30);
+            .diskLimit(1 << 30)
+            .version(1)
+            .keySerializer(DiffSummaryKey.Serializer.INSTANCE)
+            .valueSerializer(DiffSummary.Serializer.INSTANCE)
+            .shareable(true);
 
         bind(PatchListCacheImpl.class);
         bind(PatchListCache.class).to(PatchListCacheImpl.class);
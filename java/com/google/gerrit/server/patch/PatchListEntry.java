@@ -28,12 +28,15 @@ import static com.google.gerrit.server.ioutil.BasicSerialization.writeString;
 import static com.google.gerrit.server.ioutil.BasicSerialization.writeVarInt32;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.gerrit.reviewdb.client.Patch;
 import com.google.gerrit.reviewdb.client.Patch.ChangeType;
 import com.google.gerrit.reviewdb.client.Patch.PatchType;
 import com.google.gerrit.reviewdb.client.PatchSet;
+import com.google.gerrit.server.cache.proto.Cache.PatchListProto.PatchListEntryProto;
+import com.google.protobuf.ByteString;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -316,6 +319,42 @@ public class PatchListEntry {
     return edits;
   }
 
+  PatchListEntryProto toProto() {
+    EditProtoConverter editConverter = EditProtoConverter.INSTANCE;
+    PatchListEntryProto.Builder b =
+        PatchListEntryProto.newBuilder()
+            .setChangeType(changeType.name())
+            .setPatchType(patchType.name())
+            .setOldName(Strings.nullToEmpty(oldName))
+            .setNewName(Strings.nullToEmpty(newName))
+            .setHeader(ByteString.copyFrom(header))
+            .setInsertions(insertions)
+            .setDeletions(deletions)
+            .setSize(size)
+            .setSizeDelta(sizeDelta);
+    edits.forEach(e -> b.addEdit(editConverter.toProto(e)));
+    editsDueToRebase.forEach(e -> b.addEditDueToRebase(editConverter.toProto(e)));
+    return b.build();
+  }
+
+  static PatchListEntry fromProto(PatchListEntryProto proto) {
+    EditProtoConverter editConverter = EditProtoConverter.INSTANCE;
+    return new PatchListEntry(
+        ChangeType.valueOf(proto.getChangeType()),
+        PatchType.valueOf(proto.getPatchType()),
+        Strings.emptyToNull(proto.getOldName()),
+        Strings.emptyToNull(proto.getNewName()),
+        proto.getHeader().toByteArray(),
+        proto.getEditList().stream().map(editConverter::fromProto).collect(toImmutableList()),
+        proto.getEditDueToRebaseList().stream()
+            .map(editConverter::fromProto)
+            .collect(toImmutableSet()),
+        proto.getInsertions(),
+        proto.getDeletions(),
+        proto.getSize(),
+        proto.getSizeDelta());
+  }
+
   private static byte[] compact(FileHeader h) {
     final int end = end(h);
     if (h.getStartOffset() == 0 && end == h.getBuffer().length) {
@@ -20,9 +20,14 @@ import static org.eclipse.jgit.lib.ObjectIdSerializer.readWithoutMarker;
 import static org.eclipse.jgit.lib.ObjectIdSerializer.write;
 import static org.eclipse.jgit.lib.ObjectIdSerializer.writeWithoutMarker;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableBiMap;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.client.DiffPreferencesInfo.Whitespace;
+import com.google.gerrit.proto.Protos;
+import com.google.gerrit.server.cache.proto.Cache.PatchListKeyProto;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
+import com.google.gerrit.server.cache.serialize.ObjectIdConverter;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
@@ -178,4 +183,36 @@ public class PatchListKey implements Serializable {
       throw new IOException("Invalid whitespace type code: " + t);
     }
   }
+
+  @VisibleForTesting
+  enum Serializer implements CacheSerializer<PatchListKey> {
+    INSTANCE;
+
+    @Override
+    public byte[] serialize(PatchListKey object) {
+      ObjectIdConverter idConverter = ObjectIdConverter.create();
+      PatchListKeyProto.Builder b =
+          PatchListKeyProto.newBuilder()
+              .setNewId(idConverter.toByteString(object.newId))
+              .setWhitespace(object.whitespace.name());
+      if (object.oldId != null) {
+        b.setOldId(idConverter.toByteString(object.oldId));
+      }
+      if (object.parentNum != null) {
+        b.setParentNum(object.parentNum);
+      }
+      return Protos.toByteArray(b.build());
+    }
+
+    @Override
+    public PatchListKey deserialize(byte[] in) {
+      PatchListKeyProto proto = Protos.parseUnchecked(PatchListKeyProto.parser(), in);
+      ObjectIdConverter idConverter = ObjectIdConverter.create();
+      return new PatchListKey(
+          !proto.getOldId().isEmpty() ? idConverter.fromByteString(proto.getOldId()) : null,
+          proto.getParentNum() > 0 ? Integer.valueOf(proto.getParentNum()) : null,
+          idConverter.fromByteString(proto.getNewId()),
+          Whitespace.valueOf(proto.getWhitespace()));
+    }
+  }
 }
@@ -22,6 +22,7 @@ public class DefaultPermissionBackendModule extends AbstractModule {
   @Override
   protected void configure() {
     install(new LegacyControlsModule());
+    install(VisibleChangesCache.module());
   }
 
   /** Binds legacy ProjectControl, RefControl, ChangeControl. */
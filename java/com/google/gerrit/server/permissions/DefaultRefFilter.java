@@ -52,6 +52,7 @@ import com.google.gerrit.server.group.InternalGroup;
 import com.google.gerrit.server.notedb.ChangeNotes;
 import com.google.gerrit.server.notedb.ChangeNotes.Factory.ChangeNotesResult;
 import com.google.gerrit.server.permissions.PermissionBackend.RefFilterOptions;
+import com.google.gerrit.server.project.NoSuchChangeException;
 import com.google.gerrit.server.project.ProjectState;
 import com.google.gerrit.server.query.change.ChangeData;
 import com.google.gwtorm.server.OrmException;
@@ -88,8 +89,9 @@ class DefaultRefFilter {
   private final Counter0 fullFilterCount;
   private final Counter0 skipFilterCount;
   private final boolean skipFullRefEvaluationIfAllRefsAreVisible;
+  private final VisibleChangesCache visibleChangesCache;
 
-  private Map<Change.Id, Branch.NameKey> visibleChanges;
+  private VisibleChangesCache.VisibleChanges visibleChanges;
 
   @Inject
   DefaultRefFilter(
@@ -100,6 +102,7 @@ class DefaultRefFilter {
       PermissionBackend permissionBackend,
       @GerritServerConfig Config config,
       MetricMaker metricMaker,
+      VisibleChangesCache visibleChangesCache,
       @Assisted ProjectControl projectControl) {
     this.tagCache = tagCache;
     this.changeNotesFactory = changeNotesFactory;
@@ -109,6 +112,7 @@ class DefaultRefFilter {
     this.skipFullRefEvaluationIfAllRefsAreVisible =
         config.getBoolean("auth", "skipFullRefEvaluationIfAllRefsAreVisible", true);
     this.projectControl = projectControl;
+    this.visibleChangesCache = visibleChangesCache;
 
     this.user = projectControl.getUser();
     this.projectState = projectControl.getProjectState();
@@ -339,13 +343,24 @@ class DefaultRefFilter {
 
   private boolean visible(Repository repo, Change.Id changeId) throws PermissionBackendException {
     if (visibleChanges == null) {
-      if (changeCache == null) {
-        visibleChanges = visibleChangesByScan(repo);
-      } else {
-        visibleChanges = visibleChangesBySearch();
-      }
+      visibleChanges =
+          visibleChangesCache.get(
+              VisibleChangesCache.Key.create(projectState, user),
+              new VisibleChangesCache.Loader() {
+                @Override
+                public Map<Change.Id, Branch.NameKey> loadAll() throws PermissionBackendException {
+                  return changeCache == null
+                      ? visibleChangesByScan(repo)
+                      : visibleChangesBySearch();
+                }
+
+                @Override
+                public Branch.NameKey load(Change.Id id) throws PermissionBackendException {
+                  return visibleChange(id);
+                }
+              });
     }
-    return visibleChanges.containsKey(changeId);
+    return visibleChanges.contains(changeId);
   }
 
   private boolean visibleEdit(Repository repo, String name) throws PermissionBackendException {
@@ -363,11 +378,12 @@ class DefaultRefFilter {
         && visible(repo, id)) {
       return true;
     }
-    if (visibleChanges.containsKey(id)) {
+    Branch.NameKey branch = visibleChanges.branch(id);
+    if (branch != null) {
       try {
         // Default to READ_PRIVATE_CHANGES as there is no special permission for reading edits.
         permissionBackendForProject
-            .ref(visibleChanges.get(id).get())
+            .ref(branch.get())
             .check(RefPermission.READ_PRIVATE_CHANGES);
         return true;
       } catch (AuthException e) {
@@ -424,6 +440,31 @@ class DefaultRefFilter {
     return result;
   }
 
+  /** Returns the destination branch of a single change if it is visible, or null otherwise. */
+  @Nullable
+  private Branch.NameKey visibleChange(Change.Id id) throws PermissionBackendException {
+    if (!projectState.statePermitsRead()) {
+      return null;
+    }
+    ChangeNotes notes;
+    try {
+      notes = changeNotesFactory.create(projectState.getNameKey(), id);
+    } catch (NoSuchChangeException e) {
+      // Change was deleted.
+      return null;
+    } catch (OrmException e) {
+      logger.atWarning().withCause(e).log(
+          "Failed to load change %s in %s", id, projectState.getName());
+      return null;
+    }
+    try {
+      permissionBackendForProject.change(notes).check(ChangePermission.READ);
+      return notes.getChange().getDest();
+    } catch (AuthException e) {
+      return null;
+    }
+  }
+
   @Nullable
   private ChangeNotes toNotes(ChangeNotesResult r) throws PermissionBackendException {
     if (r.error().isPresent()) {
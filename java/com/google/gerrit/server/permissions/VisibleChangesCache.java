@@ -0,0 +1,316 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.permissions;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.common.Nullable;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
+import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.metrics.Counter1;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.Description.Units;
+import com.google.gerrit.metrics.Field;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.gerrit.metrics.Timer0;
+import com.google.gerrit.reviewdb.client.Account;
+import com.google.gerrit.reviewdb.client.AccountGroup;
+import com.google.gerrit.reviewdb.client.Branch;
+import com.google.gerrit.reviewdb.client.Change;
+import com.google.gerrit.reviewdb.client.Project;
+import com.google.gerrit.reviewdb.client.RefNames;
+import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.gerrit.server.project.ProjectState;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.eclipse.jgit.lib.ObjectId;
+
+/**
+ * Cache of the changes of a project that a user can see, used to filter change refs.
+ *
+ * <p>Entries are keyed by the project, the revisions of the project configs that hold its access
+ * rights, and the user's account and groups, so that changes of access rights or group membership
+ * lead to a different entry. Updates of change meta refs are recorded per project, and an entry
+ * that was computed before such updates is brought up to date by checking only the updated changes
+ * again.
+ */
+@Singleton
+class VisibleChangesCache implements GitReferenceUpdatedListener {
+  static final String CACHE_NAME = "visible_changes";
+
+  /** Number of change updates per project that are remembered to update entries incrementally. */
+  @VisibleForTesting static final int MAX_LOGGED_UPDATES = 1024;
+
+  static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        cache(CACHE_NAME, Key.class, VisibleChanges.class).maximumWeight(0).weigher(Weigher.class);
+        bind(VisibleChangesCache.class);
+        DynamicSet.bind(binder(), GitReferenceUpdatedListener.class).to(VisibleChangesCache.class);
+      }
+    };
+  }
+
+  @AutoValue
+  abstract static class Key {
+    static Key create(ProjectState projectState, CurrentUser user) {
+      ImmutableList.Builder<ObjectId> revisions = ImmutableList.builder();
+      for (ProjectState p : projectState.tree()) {
+        ObjectId revision = p.getConfig().getRevision();
+        revisions.add(revision != null ? revision.copy() : ObjectId.zeroId());
+      }
+      return new AutoValue_VisibleChangesCache_Key(
+          projectState.getNameKey(),
+          revisions.build(),
+          user.isIdentifiedUser() ? user.getAccountId() : null,
+          ImmutableSet.copyOf(user.getEffectiveGroups().getKnownGroups()));
+    }
+
+    abstract Project.NameKey project();
+
+    /** Revisions of the configs of the project and all its parents. */
+    abstract ImmutableList<ObjectId> configRevisions();
+
+    /**
+     * Account of the user, or null for anonymous users.
+     *
+     * <p>Owners and reviewers of private changes can see them regardless of their groups.
+     */
+    @Nullable
+    abstract Account.Id account();
+
+    abstract ImmutableSet<AccountGroup.UUID> groups();
+  }
+
+  /** Computes the visibility of changes on a cache miss. */
+  interface Loader {
+    /** Returns all visible changes of the project with their destination branch. */
+    Map<Change.Id, Branch.NameKey> loadAll() throws PermissionBackendException;
+
+    /** Returns the destination branch of a change if it is visible, or null otherwise. */
+    @Nullable
+    Branch.NameKey load(Change.Id changeId) throws PermissionBackendException;
+  }
+
+  /**
+   * Visible changes of a project.
+   *
+   * <p>Change numbers are assigned server-wide, so the numbers of a project's changes are sparse.
+   * They are kept as a sorted array, together with the index of each change's destination branch,
+   * which takes 8 bytes per change rather than a map entry per change.
+   */
+  static class VisibleChanges {
+    static VisibleChanges create(long sequence, Map<Change.Id, Branch.NameKey> visible) {
+      int[] ids = visible.keySet().stream().mapToInt(Change.Id::get).sorted().toArray();
+      int[] branchIndexes = new int[ids.length];
+      Map<Branch.NameKey, Integer> indexes = new HashMap<>();
+      ImmutableList.Builder<Branch.NameKey> branches = ImmutableList.builder();
+      for (int i = 0; i < ids.length; i++) {
+        Branch.NameKey branch = visible.get(new Change.Id(ids[i]));
+        Integer index = indexes.get(branch);
+        if (index == null) {
+          index = indexes.size();
+          indexes.put(branch, index);
+          branches.add(branch);
+        }
+        branchIndexes[i] = index;
+      }
+      return new VisibleChanges(sequence, ids, branchIndexes, branches.build());
+    }
+
+    private final long sequence;
+    private final int[] ids;
+    private final int[] branchIndexes;
+    private final ImmutableList<Branch.NameKey> branches;
+
+    private VisibleChanges(
+        long sequence, int[] ids, int[] branchIndexes, ImmutableList<Branch.NameKey> branches) {
+      this.sequence = sequence;
+      this.ids = ids;
+      this.branchIndexes = branchIndexes;
+      this.branches = branches;
+    }
+
+    boolean contains(Change.Id changeId) {
+      return Arrays.binarySearch(ids, changeId.get()) >= 0;
+    }
+
+    /** Returns the destination branch of a visible change, or null if the change is not visible. */
+    @Nullable
+    Branch.NameKey branch(Change.Id changeId) {
+      int i = Arrays.binarySearch(ids, changeId.get());
+      return i >= 0 ? branches.get(branchIndexes[i]) : null;
+    }
+
+    int size() {
+      return ids.length;
+    }
+
+    private Map<Change.Id, Branch.NameKey> toMap() {
+      Map<Change.Id, Branch.NameKey> visible = new HashMap<>();
+      for (int i = 0; i < ids.length; i++) {
+        visible.put(new Change.Id(ids[i]), branches.get(branchIndexes[i]));
+      }
+      return visible;
+    }
+  }
+
+  static class Weigher implements com.google.common.cache.Weigher<Key, VisibleChanges> {
+    @Override
+    public int weigh(Key key, VisibleChanges value) {
+      // Rough estimate in bytes: two ints per change, plus the key and the branch names.
+      return 64
+          + 56 * key.configRevisions().size()
+          + 64 * key.groups().size()
+          + 8 * value.size()
+          + 64 * value.branches.size();
+    }
+  }
+
+  /** Recent updates of change meta refs in a project. */
+  private static class UpdateLog {
+    private final ArrayDeque<Change.Id> updated = new ArrayDeque<>();
+    private long sequence;
+
+    synchronized long sequence() {
+      return sequence;
+    }
+
+    synchronized void add(Change.Id changeId) {
+      if (updated.size() == MAX_LOGGED_UPDATES) {
+        updated.removeFirst();
+      }
+      updated.addLast(changeId);
+      sequence++;
+    }
+
+    /**
+     * Returns the changes that were updated after the given sequence number, or null if not all of
+     * these updates are remembered anymore.
+     */
+    @Nullable
+    synchronized Set<Change.Id> since(long since) {
+      long count = sequence - since;
+      if (count > updated.size()) {
+        return null;
+      }
+      Set<Change.Id> changeIds = new HashSet<>();
+      Iterator<Change.Id> it = updated.descendingIterator();
+      for (long i = 0; i < count; i++) {
+        changeIds.add(it.next());
+      }
+      return changeIds;
+    }
+  }
+
+  private final Cache<Key, VisibleChanges> cache;
+  private final ConcurrentMap<Project.NameKey, UpdateLog> updateLogs = new ConcurrentHashMap<>();
+  private final Counter1<String> lookups;
+  private final Timer0 latency;
+
+  @Inject
+  VisibleChangesCache(
+      @Named(CACHE_NAME) Cache<Key, VisibleChanges> cache, MetricMaker metricMaker) {
+    this.cache = cache;
+    this.lookups =
+        metricMaker.newCounter(
+            "permissions/ref_filter/visible_changes_lookups",
+            new Description(
+                    "Lookups of visible changes for ref filtering by result: hit, update (only"
+                        + " changes updated since the entry was computed were checked) or miss")
+                .setRate(),
+            Field.ofString("result"));
+    this.latency =
+        metricMaker.newTimer(
+            "permissions/ref_filter/visible_changes_latency",
+            new Description("Latency for computing the visible changes of a project")
+                .setCumulative()
+                .setUnit(Units.MILLISECONDS));
+  }
+
+  /**
+   * Returns the visible changes of a project.
+   *
+   * @param key project and user to return the visible changes for.
+   * @param loader loader that checks the visibility of changes for the user in {@code key}.
+   */
+  VisibleChanges get(Key key, Loader loader) throws PermissionBackendException {
+    try (Timer0.Context ignored = latency.start()) {
+      // Read the sequence number before checking any change, so that updates that happen while
+      // checking are checked again on the next lookup.
+      long sequence = updateLog(key.project()).sequence();
+      VisibleChanges cached = cache.getIfPresent(key);
+      if (cached != null && cached.sequence == sequence) {
+        lookups.increment("hit");
+        return cached;
+      }
+
+      VisibleChanges result = null;
+      if (cached != null) {
+        Set<Change.Id> updated = updateLog(key.project()).since(cached.sequence);
+        if (updated != null) {
+          Map<Change.Id, Branch.NameKey> visible = cached.toMap();
+          for (Change.Id changeId : updated) {
+            Branch.NameKey branch = loader.load(changeId);
+            if (branch != null) {
+              visible.put(changeId, branch);
+            } else {
+              visible.remove(changeId);
+            }
+          }
+          result = VisibleChanges.create(sequence, visible);
+          lookups.increment("update");
+        }
+      }
+      if (result == null) {
+        result = VisibleChanges.create(sequence, loader.loadAll());
+        lookups.increment("miss");
+      }
+      cache.put(key, result);
+      return result;
+    }
+  }
+
+  @Override
+  public void onGitReferenceUpdated(GitReferenceUpdatedListener.Event event) {
+    String refName = event.getRefName();
+    if (refName.startsWith(RefNames.REFS_CHANGES) && refName.endsWith(RefNames.META_SUFFIX)) {
+      Change.Id changeId = Change.Id.fromRef(refName);
+      if (changeId != null) {
+        updateLog(new Project.NameKey(event.getProjectName())).add(changeId);
+      }
+    }
+  }
+
+  private UpdateLog updateLog(Project.NameKey project) {
+    return updateLogs.computeIfAbsent(project, p -> new UpdateLog());
+  }
+}
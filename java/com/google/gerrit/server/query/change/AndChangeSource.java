@@ -14,6 +14,7 @@
 
 package com.google.gerrit.server.query.change;
 
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.index.query.AndSource;
 import com.google.gerrit.index.query.IsVisibleToPredicate;
 import com.google.gerrit.index.query.Predicate;
@@ -23,9 +24,11 @@ import java.util.Collection;
 import java.util.List;
 
 public class AndChangeSource extends AndSource<ChangeData> implements ChangeDataSource {
+  @Nullable private final IsVisibleToPredicate<ChangeData> isVisibleToPredicate;
 
   public AndChangeSource(Collection<Predicate<ChangeData>> that) {
     super(that);
+    this.isVisibleToPredicate = null;
   }
 
   public AndChangeSource(
@@ -33,6 +36,7 @@ public class AndChangeSource extends AndSource<ChangeData> implements ChangeData
       IsVisibleToPredicate<ChangeData> isVisibleToPredicate,
       int start) {
     super(that, isVisibleToPredicate, start);
+    this.isVisibleToPredicate = isVisibleToPredicate;
   }
 
   @Override
@@ -46,11 +50,17 @@ public class AndChangeSource extends AndSource<ChangeData> implements ChangeData
   protected List<ChangeData> transformBuffer(List<ChangeData> buffer) throws OrmRuntimeException {
     if (!hasChange()) {
       try {
+        ChangeData.ensureNotesLoaded(buffer);
         ChangeData.ensureChangeLoaded(buffer);
       } catch (OrmException e) {
         throw new OrmRuntimeException(e);
       }
     }
+    try {
+      ConflictsPredicate.checkAll(this, isVisibleToPredicate, buffer);
+    } catch (OrmException e) {
+      throw new OrmRuntimeException(e);
+    }
     return super.transformBuffer(buffer);
   }
 
@@ -29,6 +29,8 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.MultimapBuilder;
+import com.google.common.collect.SetMultimap;
 import com.google.common.primitives.Ints;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.common.data.LabelTypes;
@@ -37,6 +39,7 @@ import com.google.gerrit.common.data.SubmitTypeRecord;
 import com.google.gerrit.extensions.client.DiffPreferencesInfo.Whitespace;
 import com.google.gerrit.extensions.restapi.BadRequestException;
 import com.google.gerrit.extensions.restapi.ResourceConflictException;
+import com.google.gerrit.index.FieldDef;
 import com.google.gerrit.reviewdb.client.Account;
 import com.google.gerrit.reviewdb.client.Change;
 import com.google.gerrit.reviewdb.client.ChangeMessage;
@@ -62,6 +65,7 @@ import com.google.gerrit.server.config.AllUsersName;
 import com.google.gerrit.server.config.TrackingFooters;
 import com.google.gerrit.server.git.GitRepositoryManager;
 import com.google.gerrit.server.git.MergeUtil;
+import com.google.gerrit.server.index.change.ChangeField;
 import com.google.gerrit.server.notedb.ChangeNotes;
 import com.google.gerrit.server.patch.DiffSummary;
 import com.google.gerrit.server.patch.DiffSummaryKey;
@@ -124,6 +128,37 @@ public class ChangeData {
     }
   }
 
+  /**
+   * Loads the notes of all changes that don't have them yet.
+   *
+   * <p>Notes are loaded in bulk, see {@link ChangeNotes.Factory#createAll(SetMultimap)}. Changes
+   * whose notes can't be found are left alone; they fail as usual when their notes are requested.
+   */
+  public static void ensureNotesLoaded(Iterable<ChangeData> changes) throws OrmException {
+    SetMultimap<Project.NameKey, Change.Id> missing =
+        MultimapBuilder.hashKeys().linkedHashSetValues().build();
+    ChangeNotes.Factory notesFactory = null;
+    for (ChangeData cd : changes) {
+      if (cd.notes == null && cd.lazyLoad) {
+        missing.put(cd.project(), cd.getId());
+        notesFactory = cd.notesFactory;
+      }
+    }
+    if (notesFactory == null || missing.size() <= 1) {
+      return;
+    }
+
+    ImmutableMap<Change.Id, ChangeNotes> notes = notesFactory.createAll(missing);
+    for (ChangeData cd : changes) {
+      if (cd.notes == null && cd.lazyLoad) {
+        cd.notes = notes.get(cd.getId());
+        if (cd.notes != null && cd.change == null) {
+          cd.change = cd.notes.getChange();
+        }
+      }
+    }
+  }
+
   public static void ensureAllPatchSetsLoaded(Iterable<ChangeData> changes) throws OrmException {
     ChangeData first = Iterables.getFirst(changes, null);
     if (first == null) {
@@ -302,6 +337,9 @@ public class ChangeData {
   private ImmutableList<byte[]> refStates;
   private ImmutableList<byte[]> refStatePatterns;
 
+  // Decoders of values read from the index that were not needed yet, see setUndecodedField.
+  private Map<FieldDef<ChangeData, ?>, Runnable> undecodedFields;
+
   @Inject
   private ChangeData(
       @Nullable StarredChangesUtil starredChangesUtil,
@@ -358,6 +396,38 @@ public class ChangeData {
     return this;
   }
 
+  /**
+   * Defers decoding a value read from the index until it is first accessed.
+   *
+   * <p>Index implementations use this for values that are expensive to decode and not needed by
+   * every caller, such as the protos of all patch sets. The decoder must populate the value with
+   * its setter. Setting the value explicitly discards a pending decoder.
+   *
+   * @param field index field the value was read from.
+   * @param decoder populates the value from the stored field.
+   */
+  public void setUndecodedField(FieldDef<ChangeData, ?> field, Runnable decoder) {
+    if (undecodedFields == null) {
+      undecodedFields = new HashMap<>();
+    }
+    undecodedFields.put(field, decoder);
+  }
+
+  private void decode(FieldDef<ChangeData, ?> field) {
+    if (undecodedFields != null) {
+      Runnable decoder = undecodedFields.remove(field);
+      if (decoder != null) {
+        decoder.run();
+      }
+    }
+  }
+
+  private void discardUndecoded(FieldDef<ChangeData, ?> field) {
+    if (undecodedFields != null) {
+      undecodedFields.remove(field);
+    }
+  }
+
   public AllUsersName getAllUsersNameForIndexing() {
     return allUsersName;
   }
@@ -512,6 +582,7 @@ public class ChangeData {
   }
 
   public List<PatchSetApproval> currentApprovals() throws OrmException {
+    decode(ChangeField.APPROVAL);
     if (currentApprovals == null) {
       if (!lazyLoad) {
         return Collections.emptyList();
@@ -537,6 +608,7 @@ public class ChangeData {
   }
 
   public void setCurrentApprovals(List<PatchSetApproval> approvals) {
+    discardUndecoded(ChangeField.APPROVAL);
     currentApprovals = approvals;
   }
 
@@ -605,6 +677,7 @@ public class ChangeData {
    * @throws OrmException an error occurred reading the database.
    */
   public Collection<PatchSet> patchSets() throws OrmException {
+    decode(ChangeField.PATCH_SET);
     if (patchSets == null) {
       patchSets = psUtil.byChange(notes());
     }
@@ -612,6 +685,7 @@ public class ChangeData {
   }
 
   public void setPatchSets(Collection<PatchSet> patchSets) {
+    discardUndecoded(ChangeField.PATCH_SET);
     this.currentPatchSet = null;
     this.patchSets = patchSets;
   }
@@ -656,6 +730,7 @@ public class ChangeData {
   }
 
   public ReviewerSet reviewers() throws OrmException {
+    decode(ChangeField.REVIEWER);
     if (reviewers == null) {
       if (!lazyLoad) {
         return ReviewerSet.empty();
@@ -666,14 +741,17 @@ public class ChangeData {
   }
 
   public void setReviewers(ReviewerSet reviewers) {
+    discardUndecoded(ChangeField.REVIEWER);
     this.reviewers = reviewers;
   }
 
   public ReviewerSet getReviewers() {
+    decode(ChangeField.REVIEWER);
     return reviewers;
   }
 
   public ReviewerByEmailSet reviewersByEmail() throws OrmException {
+    decode(ChangeField.REVIEWER_BY_EMAIL);
     if (reviewersByEmail == null) {
       if (!lazyLoad) {
         return ReviewerByEmailSet.empty();
@@ -684,22 +762,27 @@ public class ChangeData {
   }
 
   public void setReviewersByEmail(ReviewerByEmailSet reviewersByEmail) {
+    discardUndecoded(ChangeField.REVIEWER_BY_EMAIL);
     this.reviewersByEmail = reviewersByEmail;
   }
 
   public ReviewerByEmailSet getReviewersByEmail() {
+    decode(ChangeField.REVIEWER_BY_EMAIL);
     return reviewersByEmail;
   }
 
   public void setPendingReviewers(ReviewerSet pendingReviewers) {
+    discardUndecoded(ChangeField.PENDING_REVIEWER);
     this.pendingReviewers = pendingReviewers;
   }
 
   public ReviewerSet getPendingReviewers() {
+    decode(ChangeField.PENDING_REVIEWER);
     return this.pendingReviewers;
   }
 
   public ReviewerSet pendingReviewers() throws OrmException {
+    decode(ChangeField.PENDING_REVIEWER);
     if (pendingReviewers == null) {
       if (!lazyLoad) {
         return ReviewerSet.empty();
@@ -710,14 +793,17 @@ public class ChangeData {
   }
 
   public void setPendingReviewersByEmail(ReviewerByEmailSet pendingReviewersByEmail) {
+    discardUndecoded(ChangeField.PENDING_REVIEWER_BY_EMAIL);
     this.pendingReviewersByEmail = pendingReviewersByEmail;
   }
 
   public ReviewerByEmailSet getPendingReviewersByEmail() {
+    decode(ChangeField.PENDING_REVIEWER_BY_EMAIL);
     return pendingReviewersByEmail;
   }
 
   public ReviewerByEmailSet pendingReviewersByEmail() throws OrmException {
+    decode(ChangeField.PENDING_REVIEWER_BY_EMAIL);
     if (pendingReviewersByEmail == null) {
       if (!lazyLoad) {
         return ReviewerByEmailSet.empty();
@@ -847,6 +933,7 @@ public class ChangeData {
   }
 
   public List<SubmitRecord> submitRecords(SubmitRuleOptions options) {
+    decodeSubmitRecords();
     List<SubmitRecord> records = submitRecords.get(options);
     if (records == null) {
       if (!lazyLoad) {
@@ -860,10 +947,18 @@ public class ChangeData {
 
   @Nullable
   public List<SubmitRecord> getSubmitRecords(SubmitRuleOptions options) {
+    decodeSubmitRecords();
     return submitRecords.get(options);
   }
 
+  private void decodeSubmitRecords() {
+    decode(ChangeField.STORED_SUBMIT_RECORD_STRICT);
+    decode(ChangeField.STORED_SUBMIT_RECORD_LENIENT);
+  }
+
   public void setSubmitRecords(SubmitRuleOptions options, List<SubmitRecord> records) {
+    // Decode first, so the stored records can't replace these later.
+    decodeSubmitRecords();
     submitRecords.put(options, records);
   }
 
@@ -51,6 +51,7 @@ import com.google.gerrit.reviewdb.client.RefNames;
 import com.google.gerrit.server.AnonymousUser;
 import com.google.gerrit.server.CommentsUtil;
 import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.FanOutExecutor;
 import com.google.gerrit.server.IdentifiedUser;
 import com.google.gerrit.server.StarredChangesUtil;
 import com.google.gerrit.server.account.AccountCache;
@@ -91,6 +92,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
 import java.util.regex.Pattern;
 import org.eclipse.jgit.errors.ConfigInvalidException;
@@ -221,6 +223,7 @@ public class ChangeQueryBuilder extends QueryBuilder<ChangeData> {
     final SubmitDryRun submitDryRun;
     final GroupMembers groupMembers;
     final Provider<AnonymousUser> anonymousUserProvider;
+    final ExecutorService fanOutExecutor;
 
     private final Provider<CurrentUser> self;
 
@@ -252,7 +255,8 @@ public class ChangeQueryBuilder extends QueryBuilder<ChangeData> {
         StarredChangesUtil starredChangesUtil,
         AccountCache accountCache,
         GroupMembers groupMembers,
-        Provider<AnonymousUser> anonymousUserProvider) {
+        Provider<AnonymousUser> anonymousUserProvider,
+        @FanOutExecutor ExecutorService fanOutExecutor) {
       this(
           queryProvider,
           rewriter,
@@ -279,7 +283,8 @@ public class ChangeQueryBuilder extends QueryBuilder<ChangeData> {
           starredChangesUtil,
           accountCache,
           groupMembers,
-          anonymousUserProvider);
+          anonymousUserProvider,
+          fanOutExecutor);
     }
 
     private Arguments(
@@ -308,7 +313,8 @@ public class ChangeQueryBuilder extends QueryBuilder<ChangeData> {
         StarredChangesUtil starredChangesUtil,
         AccountCache accountCache,
         GroupMembers groupMembers,
-        Provider<AnonymousUser> anonymousUserProvider) {
+        Provider<AnonymousUser> anonymousUserProvider,
+        ExecutorService fanOutExecutor) {
       this.queryProvider = queryProvider;
       this.rewriter = rewriter;
       this.opFactories = opFactories;
@@ -335,6 +341,7 @@ public class ChangeQueryBuilder extends QueryBuilder<ChangeData> {
       this.hasOperands = hasOperands;
       this.groupMembers = groupMembers;
       this.anonymousUserProvider = anonymousUserProvider;
+      this.fanOutExecutor = fanOutExecutor;
     }
 
     Arguments asUser(CurrentUser otherUser) {
@@ -364,7 +371,8 @@ public class ChangeQueryBuilder extends QueryBuilder<ChangeData> {
           starredChangesUtil,
           accountCache,
           groupMembers,
-          anonymousUserProvider);
+          anonymousUserProvider,
+          fanOutExecutor);
     }
 
     Arguments asUser(Account.Id otherId) {
@@ -0,0 +1,65 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.query.change;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.BaseEncoding;
+import com.google.gerrit.index.query.QueryParseException;
+import com.google.gwtorm.server.OrmException;
+import java.util.List;
+
+/**
+ * Opaque position in the results of a change query, used to continue the query after a change.
+ *
+ * <p>Change indexes sort results by last update time and change number, both descending. A cursor
+ * encodes these sort values of a change, so that the index can continue right after it with {@link
+ * com.google.gerrit.index.QueryOptions#searchAfter()}, instead of reading and skipping all earlier
+ * results as with a start offset.
+ */
+public class ChangeQueryCursor {
+  private static final BaseEncoding ENCODING = BaseEncoding.base64Url().omitPadding();
+  private static final String SEPARATOR = ":";
+
+  /** Returns the cursor to continue a query after the given change. */
+  public static String create(ChangeData cd) throws OrmException {
+    String sortValues = cd.change().getLastUpdatedOn().getTime() + SEPARATOR + cd.getId().get();
+    return ENCODING.encode(sortValues.getBytes(UTF_8));
+  }
+
+  /**
+   * Parses a cursor.
+   *
+   * @return sort values to pass to {@link
+   *     com.google.gerrit.index.query.QueryProcessor#setSearchAfter(List)}.
+   * @throws QueryParseException if the cursor was not created by {@link #create(ChangeData)}.
+   */
+  public static ImmutableList<Object> parse(String cursor) throws QueryParseException {
+    try {
+      List<String> parts =
+          Splitter.on(SEPARATOR).splitToList(new String(ENCODING.decode(cursor), UTF_8));
+      if (parts.size() == 2) {
+        return ImmutableList.<Object>of(Long.parseLong(parts.get(0)), Long.parseLong(parts.get(1)));
+      }
+    } catch (IllegalArgumentException e) {
+      // Not valid base64 or not a number; report below.
+    }
+    throw new QueryParseException("invalid cursor: " + cursor);
+  }
+
+  private ChangeQueryCursor() {}
+}
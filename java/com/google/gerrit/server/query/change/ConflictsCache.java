@@ -15,11 +15,14 @@
 package com.google.gerrit.server.query.change;
 
 import com.google.gerrit.common.Nullable;
+import java.util.Map;
 
 public interface ConflictsCache {
 
   void put(ConflictKey key, boolean value);
 
+  void putAll(Map<ConflictKey, Boolean> values);
+
   @Nullable
   Boolean getIfPresent(ConflictKey key);
 }
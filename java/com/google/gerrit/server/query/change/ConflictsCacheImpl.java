@@ -21,6 +21,7 @@ import com.google.inject.Inject;
 import com.google.inject.Module;
 import com.google.inject.Singleton;
 import com.google.inject.name.Named;
+import java.util.Map;
 
 @Singleton
 public class ConflictsCacheImpl implements ConflictsCache {
@@ -52,6 +53,11 @@ public class ConflictsCacheImpl implements ConflictsCache {
     conflictsCache.put(key, value);
   }
 
+  @Override
+  public void putAll(Map<ConflictKey, Boolean> values) {
+    conflictsCache.putAll(values);
+  }
+
   @Override
   public Boolean getIfPresent(ConflictKey key) {
     return conflictsCache.getIfPresent(key);
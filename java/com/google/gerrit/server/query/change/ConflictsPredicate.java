@@ -18,8 +18,13 @@ import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.flogger.LazyArgs.lazy;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
+import com.google.common.base.Throwables;
 import com.google.common.flogger.FluentLogger;
+import com.google.gerrit.common.Nullable;
 import com.google.gerrit.common.data.SubmitTypeRecord;
+import com.google.gerrit.extensions.client.SubmitType;
+import com.google.gerrit.index.query.AndPredicate;
+import com.google.gerrit.index.query.DataSource;
 import com.google.gerrit.index.query.PostFilterPredicate;
 import com.google.gerrit.index.query.Predicate;
 import com.google.gerrit.index.query.QueryParseException;
@@ -38,9 +43,17 @@ import com.google.gerrit.server.submit.SubmitDryRun;
 import com.google.gwtorm.server.OrmException;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
@@ -95,7 +108,74 @@ public class ConflictsPredicate {
     return Predicate.and(and);
   }
 
+  /**
+   * Checks the changes of a batch of query results for conflicts before they are matched one by
+   * one.
+   *
+   * <p>{@code conflicts:} predicates within {@code p} attempt the dry-run merges of these changes
+   * concurrently and store the results in the conflicts cache, where matching the changes then
+   * finds them. Changes that are not visible, or that are rejected by another predicate of {@code
+   * p} that is cheaper to match than a dry-run merge, are not checked.
+   *
+   * @param p predicate that is about to be matched against {@code changes}.
+   * @param isVisibleTo predicate that returned changes must match, or null.
+   * @param changes changes to check.
+   * @throws OrmException if a change cannot be matched against one of the cheaper predicates.
+   */
+  static void checkAll(
+      Predicate<ChangeData> p,
+      @Nullable Predicate<ChangeData> isVisibleTo,
+      List<ChangeData> changes)
+      throws OrmException {
+    List<CheckConflict> checks = new ArrayList<>();
+    List<Predicate<ChangeData>> cheaper = new ArrayList<>();
+    if (isVisibleTo != null) {
+      cheaper.add(isVisibleTo);
+    }
+    collect(p, checks, cheaper);
+    if (checks.isEmpty()) {
+      return;
+    }
+
+    List<ChangeData> candidates = new ArrayList<>(changes.size());
+    for (ChangeData cd : changes) {
+      if (matchesAll(cheaper, cd)) {
+        candidates.add(cd);
+      }
+    }
+    for (CheckConflict check : checks) {
+      check.checkAll(candidates);
+    }
+  }
+
+  private static void collect(
+      Predicate<ChangeData> p, List<CheckConflict> checks, List<Predicate<ChangeData>> cheaper) {
+    for (Predicate<ChangeData> c : p.getChildren()) {
+      if (c instanceof CheckConflict) {
+        checks.add((CheckConflict) c);
+      } else if (c instanceof DataSource) {
+        // The changes were read from this source, so they match it.
+      } else if (c instanceof AndPredicate) {
+        collect(c, checks, cheaper);
+      } else if (c.isMatchable() && c.estimateCost() < CheckConflict.COST) {
+        cheaper.add(c);
+      }
+    }
+  }
+
+  private static boolean matchesAll(List<Predicate<ChangeData>> predicates, ChangeData cd)
+      throws OrmException {
+    for (Predicate<ChangeData> p : predicates) {
+      if (!p.asMatchable().match(cd)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   private static final class CheckConflict extends PostFilterPredicate<ChangeData> {
+    private static final int COST = 5;
+
     private final Arguments args;
     private final Branch.NameKey dest;
     private final ChangeDataCache changeDataCache;
@@ -146,15 +226,7 @@ public class ConflictsPredicate {
         try (Repository repo = args.repoManager.openRepository(otherChange.getProject());
             CodeReviewRevWalk rw = CodeReviewCommit.newRevWalk(repo)) {
           boolean conflicts =
-              !args.submitDryRun.run(
-                  null,
-                  str.type,
-                  repo,
-                  rw,
-                  otherChange.getDest(),
-                  changeDataCache.getTestAgainst(),
-                  other,
-                  getAlreadyAccepted(repo, rw));
+              conflicts(repo, rw, str.type, other, changeDataCache.getAlreadyAccepted(repo));
           args.conflictsCache.put(conflictsKey, conflicts);
           return conflicts;
         }
@@ -173,14 +245,89 @@ public class ConflictsPredicate {
 
     @Override
     public int getCost() {
-      return 5;
+      return COST;
     }
 
-    private Set<RevCommit> getAlreadyAccepted(Repository repo, RevWalk rw)
+    /**
+     * Attempts the dry-run merges of all changes that are not in the conflicts cache yet, and
+     * stores their results in the cache.
+     *
+     * <p>The merges share the repository, but each one has its own revision walk, as revision walks
+     * and object readers cannot be used concurrently. Changes that fail to be checked here are left
+     * for {@link #match(ChangeData)}, which reports the failure.
+     */
+    void checkAll(List<ChangeData> changes) {
+      Map<ConflictKey, DryRun> dryRuns = new LinkedHashMap<>();
+      try {
+        boolean useContentMerge =
+            changeDataCache.getProjectState().is(BooleanProjectConfig.USE_CONTENT_MERGE);
+        for (ChangeData object : changes) {
+          Change otherChange = object.change();
+          if (otherChange == null || !otherChange.getDest().equals(dest)) {
+            continue;
+          }
+          SubmitTypeRecord str = object.submitTypeRecord();
+          if (!str.isOk()) {
+            continue;
+          }
+          ObjectId other = ObjectId.fromString(object.currentPatchSet().getRevision().get());
+          ConflictKey key =
+              ConflictKey.create(
+                  changeDataCache.getTestAgainst(), other, str.type, useContentMerge);
+          if (args.conflictsCache.getIfPresent(key) == null) {
+            dryRuns.putIfAbsent(key, new DryRun(str.type, other));
+          }
+        }
+      } catch (NoSuchProjectException | OrmException e) {
+        // Reported by match().
+        return;
+      }
+      if (dryRuns.size() < 2) {
+        // Nothing to gain over checking in match().
+        return;
+      }
+
+      Map<ConflictKey, Boolean> results = new HashMap<>();
+      try (Repository repo = args.repoManager.openRepository(dest.getParentKey())) {
+        Set<ObjectId> alreadyAccepted = changeDataCache.getAlreadyAccepted(repo);
+        for (DryRun dryRun : dryRuns.values()) {
+          dryRun.fork(repo, alreadyAccepted);
+        }
+        for (Map.Entry<ConflictKey, DryRun> e : dryRuns.entrySet()) {
+          Boolean conflicts = e.getValue().join();
+          if (conflicts != null) {
+            results.put(e.getKey(), conflicts);
+          }
+        }
+      } catch (IOException e) {
+        // Reported by match().
+      }
+      args.conflictsCache.putAll(results);
+    }
+
+    private boolean conflicts(
+        Repository repo,
+        CodeReviewRevWalk rw,
+        SubmitType submitType,
+        ObjectId other,
+        Set<ObjectId> alreadyAccepted)
+        throws IntegrationException, NoSuchProjectException, OrmException, IOException {
+      return !args.submitDryRun.run(
+          null,
+          submitType,
+          repo,
+          rw,
+          dest,
+          changeDataCache.getTestAgainst(),
+          other,
+          getAlreadyAccepted(rw, alreadyAccepted));
+    }
+
+    private Set<RevCommit> getAlreadyAccepted(RevWalk rw, Set<ObjectId> alreadyAccepted)
         throws IntegrationException {
       try {
         Set<RevCommit> accepted = new HashSet<>();
-        SubmitDryRun.addCommits(changeDataCache.getAlreadyAccepted(repo), rw, accepted);
+        SubmitDryRun.addCommits(alreadyAccepted, rw, accepted);
         ObjectId tip = changeDataCache.getTestAgainst();
         if (tip != null) {
           accepted.add(rw.parseCommit(tip));
@@ -190,6 +337,71 @@ public class ConflictsPredicate {
         throw new IntegrationException("Failed to determine already accepted commits.", e);
       }
     }
+
+    /**
+     * Dry-run merge of one change, which is either run by the fan-out executor or, if no thread
+     * picked it up yet, by the thread that joins it.
+     */
+    private class DryRun implements Callable<Boolean> {
+      private final SubmitType submitType;
+      private final ObjectId other;
+      private final AtomicBoolean started = new AtomicBoolean();
+      private Repository repo;
+      private Set<ObjectId> alreadyAccepted;
+      private Future<Boolean> future;
+
+      DryRun(SubmitType submitType, ObjectId other) {
+        this.submitType = submitType;
+        this.other = other;
+      }
+
+      void fork(Repository repo, Set<ObjectId> alreadyAccepted) {
+        this.repo = repo;
+        this.alreadyAccepted = alreadyAccepted;
+        try {
+          future = args.fanOutExecutor.submit(this);
+        } catch (RejectedExecutionException e) {
+          // Executor is shutting down; run in join() instead.
+        }
+      }
+
+      @Override
+      public Boolean call() {
+        if (started.compareAndSet(false, true)) {
+          return run();
+        }
+        return null;
+      }
+
+      /** Returns whether the change conflicts, or null if that could not be determined. */
+      @Nullable
+      Boolean join() {
+        if (started.compareAndSet(false, true)) {
+          if (future != null) {
+            future.cancel(false);
+          }
+          return run();
+        }
+        try {
+          return future.get();
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          return null;
+        } catch (ExecutionException e) {
+          Throwables.throwIfUnchecked(e.getCause());
+          return null;
+        }
+      }
+
+      @Nullable
+      private Boolean run() {
+        try (CodeReviewRevWalk rw = CodeReviewCommit.newRevWalk(repo)) {
+          return conflicts(repo, rw, submitType, other, alreadyAccepted);
+        } catch (IntegrationException | NoSuchProjectException | OrmException | IOException e) {
+          return null;
+        }
+      }
+    }
   }
 
   private static class ChangeDataCache {
@@ -17,6 +17,7 @@ package com.google.gerrit.server.query.change;
 import static com.google.common.base.Preconditions.checkState;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.collect.Iterables;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.common.data.LabelTypes;
 import com.google.gerrit.index.query.QueryParseException;
@@ -92,6 +93,7 @@ public class OutputStreamQuery {
   private boolean includeDependencies;
   private boolean includeSubmitRecords;
   private boolean includeAllReviewers;
+  private String cursor;
 
   private OutputStream outputStream = DisabledOutputStream.INSTANCE;
   private PrintWriter out;
@@ -124,6 +126,10 @@ public class OutputStreamQuery {
     queryProcessor.setStart(n);
   }
 
+  public void setCursor(String cursor) {
+    this.cursor = cursor;
+  }
+
   public void setIncludePatchSets(boolean on) {
     includePatchSets = on;
   }
@@ -202,6 +208,9 @@ public class OutputStreamQuery {
         final QueryStatsAttribute stats = new QueryStatsAttribute();
         stats.runTimeMilliseconds = TimeUtil.nowMs();
 
+        if (cursor != null) {
+          queryProcessor.setSearchAfter(ChangeQueryCursor.parse(cursor));
+        }
         Map<Project.NameKey, Repository> repos = new HashMap<>();
         Map<Project.NameKey, RevWalk> revWalks = new HashMap<>();
         QueryResult<ChangeData> results = queryProcessor.query(queryBuilder.parse(queryString));
@@ -215,6 +224,9 @@ public class OutputStreamQuery {
 
         stats.rowCount = results.entities().size();
         stats.moreChanges = results.more();
+        if (results.more() && !results.entities().isEmpty()) {
+          stats.cursor = ChangeQueryCursor.create(Iterables.getLast(results.entities()));
+        }
         stats.runTimeMilliseconds = TimeUtil.nowMs() - stats.runTimeMilliseconds;
         show(stats);
       } catch (OrmException err) {
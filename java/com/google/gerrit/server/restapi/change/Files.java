@@ -24,6 +24,7 @@ import com.google.gerrit.extensions.registration.DynamicMap;
 import com.google.gerrit.extensions.restapi.AuthException;
 import com.google.gerrit.extensions.restapi.BadRequestException;
 import com.google.gerrit.extensions.restapi.CacheControl;
+import com.google.gerrit.extensions.restapi.CacheableView;
 import com.google.gerrit.extensions.restapi.ChildCollection;
 import com.google.gerrit.extensions.restapi.ETagView;
 import com.google.gerrit.extensions.restapi.IdString;
@@ -98,7 +99,8 @@ public class Files implements ChildCollection<RevisionResource, FileResource> {
     return new FileResource(rev, id.get());
   }
 
-  public static final class ListFiles implements ETagView<RevisionResource> {
+  public static final class ListFiles
+      implements ETagView<RevisionResource>, CacheableView<RevisionResource> {
     private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
     @Option(name = "--base", metaVar = "revision-id")
@@ -348,5 +350,14 @@ public class Files implements ChildCollection<RevisionResource, FileResource> {
       h.putLong(PatchListKey.serialVersionUID);
       return h.hash().toString();
     }
+
+    @Override
+    public String getProject(RevisionResource resource) {
+      // Reviewed flags are not stored in the repository, and edits are not covered by the ETag.
+      if (reviewed || resource.getEdit().isPresent() || !resource.isCacheable()) {
+        return null;
+      }
+      return resource.getProject().get();
+    }
   }
 }
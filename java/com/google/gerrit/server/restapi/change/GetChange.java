@@ -16,8 +16,8 @@ package com.google.gerrit.server.restapi.change;
 
 import com.google.gerrit.extensions.client.ListChangesOption;
 import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.gerrit.extensions.restapi.CacheableView;
 import com.google.gerrit.extensions.restapi.Response;
-import com.google.gerrit.extensions.restapi.RestReadView;
 import com.google.gerrit.server.change.ChangeJson;
 import com.google.gerrit.server.change.ChangeResource;
 import com.google.gerrit.server.change.RevisionResource;
@@ -26,7 +26,7 @@ import com.google.inject.Inject;
 import java.util.EnumSet;
 import org.kohsuke.args4j.Option;
 
-public class GetChange implements RestReadView<ChangeResource> {
+public class GetChange implements CacheableView<ChangeResource> {
   private final ChangeJson.Factory json;
   private final EnumSet<ListChangesOption> options = EnumSet.noneOf(ListChangesOption.class);
 
@@ -50,6 +50,11 @@ public class GetChange implements RestReadView<ChangeResource> {
     return Response.withMustRevalidate(json.create(options).format(rsrc));
   }
 
+  @Override
+  public String getProject(ChangeResource rsrc) {
+    return rsrc.getProject().get();
+  }
+
   Response<ChangeInfo> apply(RevisionResource rsrc) throws OrmException {
     return Response.withMustRevalidate(json.create(options).format(rsrc));
   }
@@ -16,14 +16,14 @@ package com.google.gerrit.server.restapi.change;
 
 import com.google.gerrit.extensions.client.ListChangesOption;
 import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.gerrit.extensions.restapi.CacheableView;
 import com.google.gerrit.extensions.restapi.Response;
-import com.google.gerrit.extensions.restapi.RestReadView;
 import com.google.gerrit.server.change.ChangeResource;
 import com.google.gwtorm.server.OrmException;
 import com.google.inject.Inject;
 import org.kohsuke.args4j.Option;
 
-public class GetDetail implements RestReadView<ChangeResource> {
+public class GetDetail implements CacheableView<ChangeResource> {
   private final GetChange delegate;
 
   @Option(name = "-o", usage = "Output options")
@@ -50,4 +50,9 @@ public class GetDetail implements RestReadView<ChangeResource> {
   public Response<ChangeInfo> apply(ChangeResource rsrc) throws OrmException {
     return delegate.apply(rsrc);
   }
+
+  @Override
+  public String getProject(ChangeResource rsrc) {
+    return delegate.getProject(rsrc);
+  }
 }
@@ -22,7 +22,7 @@ import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.api.changes.RelatedChangeAndCommitInfo;
 import com.google.gerrit.extensions.api.changes.RelatedChangesInfo;
 import com.google.gerrit.extensions.common.CommitInfo;
-import com.google.gerrit.extensions.restapi.RestReadView;
+import com.google.gerrit.extensions.restapi.CacheableView;
 import com.google.gerrit.index.IndexConfig;
 import com.google.gerrit.reviewdb.client.Change;
 import com.google.gerrit.reviewdb.client.PatchSet;
@@ -49,7 +49,7 @@ import org.eclipse.jgit.errors.RepositoryNotFoundException;
 import org.eclipse.jgit.revwalk.RevCommit;
 
 @Singleton
-public class GetRelated implements RestReadView<RevisionResource> {
+public class GetRelated implements CacheableView<RevisionResource> {
   private final Provider<InternalChangeQuery> queryProvider;
   private final PatchSetUtil psUtil;
   private final RelatedChangesSorter sorter;
@@ -76,6 +76,11 @@ public class GetRelated implements RestReadView<RevisionResource> {
     return relatedChangesInfo;
   }
 
+  @Override
+  public String getProject(RevisionResource rsrc) {
+    return rsrc.getProject().get();
+  }
+
   private List<RelatedChangeAndCommitInfo> getRelated(RevisionResource rsrc)
       throws OrmException, IOException, PermissionBackendException {
     Set<String> groups = getAllGroups(rsrc.getNotes(), psUtil);
@@ -16,7 +16,7 @@ package com.google.gerrit.server.restapi.change;
 
 import com.google.gerrit.extensions.common.CommentInfo;
 import com.google.gerrit.extensions.restapi.AuthException;
-import com.google.gerrit.extensions.restapi.RestReadView;
+import com.google.gerrit.extensions.restapi.CacheableView;
 import com.google.gerrit.server.CommentsUtil;
 import com.google.gerrit.server.change.ChangeResource;
 import com.google.gerrit.server.permissions.PermissionBackendException;
@@ -29,7 +29,7 @@ import java.util.List;
 import java.util.Map;
 
 @Singleton
-public class ListChangeComments implements RestReadView<ChangeResource> {
+public class ListChangeComments implements CacheableView<ChangeResource> {
   private final ChangeData.Factory changeDataFactory;
   private final Provider<CommentJson> commentJson;
   private final CommentsUtil commentsUtil;
@@ -55,4 +55,9 @@ public class ListChangeComments implements RestReadView<ChangeResource> {
         .newCommentFormatter()
         .format(commentsUtil.publishedByChange(cd.notes()));
   }
+
+  @Override
+  public String getProject(ChangeResource rsrc) {
+    return rsrc.getProject().get();
+  }
 }
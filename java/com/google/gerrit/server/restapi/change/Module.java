@@ -202,5 +202,6 @@ public class Module extends RestApiModule {
     factory(SetHashtagsOp.Factory.class);
     factory(SetPrivateOp.Factory.class);
     factory(WorkInProgressOp.Factory.class);
+    install(RelatedCommitsCache.module());
   }
 }
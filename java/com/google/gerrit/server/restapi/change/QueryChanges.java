@@ -30,6 +30,7 @@ import com.google.gerrit.server.change.ChangeJson;
 import com.google.gerrit.server.permissions.PermissionBackendException;
 import com.google.gerrit.server.query.change.ChangeData;
 import com.google.gerrit.server.query.change.ChangeQueryBuilder;
+import com.google.gerrit.server.query.change.ChangeQueryCursor;
 import com.google.gerrit.server.query.change.ChangeQueryProcessor;
 import com.google.gwtorm.server.OrmException;
 import com.google.inject.Inject;
@@ -46,6 +47,7 @@ public class QueryChanges implements RestReadView<TopLevelResource>, DynamicOpti
   private final ChangeQueryBuilder qb;
   private final ChangeQueryProcessor imp;
   private EnumSet<ListChangesOption> options;
+  private String cursor;
 
   @Option(
       name = "--query",
@@ -87,6 +89,14 @@ public class QueryChanges implements RestReadView<TopLevelResource>, DynamicOpti
     imp.setNoLimit(on);
   }
 
+  @Option(
+      name = "--cursor",
+      metaVar = "CURSOR",
+      usage = "Continue after the change the cursor was returned for")
+  public void setCursor(String cursor) {
+    this.cursor = cursor;
+  }
+
   @Override
   public void setDynamicBean(String plugin, DynamicOptions.DynamicBean dynamicBean) {
     imp.setDynamicBean(plugin, dynamicBean);
@@ -141,12 +151,20 @@ public class QueryChanges implements RestReadView<TopLevelResource>, DynamicOpti
     }
 
     int cnt = queries.size();
+    if (cursor != null) {
+      if (cnt > 1) {
+        throw new QueryParseException("cursor cannot be used with multiple queries");
+      }
+      imp.setSearchAfter(ChangeQueryCursor.parse(cursor));
+    }
     List<QueryResult<ChangeData>> results = imp.query(qb.parse(queries));
     List<List<ChangeInfo>> res = json.create(options, this.imp).format(results);
     for (int n = 0; n < cnt; n++) {
       List<ChangeInfo> info = res.get(n);
       if (results.get(n).more() && !info.isEmpty()) {
-        Iterables.getLast(info)._moreChanges = true;
+        ChangeInfo last = Iterables.getLast(info);
+        last._moreChanges = true;
+        last._cursor = ChangeQueryCursor.create(Iterables.getLast(results.get(n).entities()));
       }
     }
     return res;
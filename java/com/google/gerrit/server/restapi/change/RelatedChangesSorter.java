@@ -28,7 +28,6 @@ import com.google.gerrit.extensions.restapi.AuthException;
 import com.google.gerrit.reviewdb.client.Change;
 import com.google.gerrit.reviewdb.client.PatchSet;
 import com.google.gerrit.reviewdb.client.Project;
-import com.google.gerrit.server.git.GitRepositoryManager;
 import com.google.gerrit.server.permissions.ChangePermission;
 import com.google.gerrit.server.permissions.PermissionBackend;
 import com.google.gerrit.server.permissions.PermissionBackendException;
@@ -51,22 +50,20 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import org.eclipse.jgit.lib.ObjectId;
-import org.eclipse.jgit.lib.Repository;
 import org.eclipse.jgit.revwalk.RevCommit;
-import org.eclipse.jgit.revwalk.RevWalk;
 
 @Singleton
 class RelatedChangesSorter {
-  private final GitRepositoryManager repoManager;
+  private final RelatedCommitsCache relatedCommitsCache;
   private final PermissionBackend permissionBackend;
   private final ProjectCache projectCache;
 
   @Inject
   RelatedChangesSorter(
-      GitRepositoryManager repoManager,
+      RelatedCommitsCache relatedCommitsCache,
       PermissionBackend permissionBackend,
       ProjectCache projectCache) {
-    this.repoManager = repoManager;
+    this.relatedCommitsCache = relatedCommitsCache;
     this.permissionBackend = permissionBackend;
     this.projectCache = projectCache;
   }
@@ -116,23 +113,26 @@ class RelatedChangesSorter {
   private Map<String, PatchSetData> collectById(List<ChangeData> in)
       throws OrmException, IOException {
     Project.NameKey project = in.get(0).change().getProject();
-    Map<String, PatchSetData> result = Maps.newHashMapWithExpectedSize(in.size() * 3);
-    try (Repository repo = repoManager.openRepository(project);
-        RevWalk rw = new RevWalk(repo)) {
-      rw.setRetainBody(true);
-      for (ChangeData cd : in) {
-        checkArgument(
-            cd.change().getProject().equals(project),
-            "Expected change %s in project %s, found %s",
-            cd.getId(),
-            project,
-            cd.change().getProject());
-        for (PatchSet ps : cd.patchSets()) {
-          String id = ps.getRevision().get();
-          RevCommit c = rw.parseCommit(ObjectId.fromString(id));
-          PatchSetData psd = PatchSetData.create(cd, ps, c);
-          result.put(id, psd);
-        }
+    List<ObjectId> ids = new ArrayList<>(in.size() * 3);
+    for (ChangeData cd : in) {
+      checkArgument(
+          cd.change().getProject().equals(project),
+          "Expected change %s in project %s, found %s",
+          cd.getId(),
+          project,
+          cd.change().getProject());
+      for (PatchSet ps : cd.patchSets()) {
+        ids.add(ObjectId.fromString(ps.getRevision().get()));
+      }
+    }
+    Map<ObjectId, RevCommit> commits = relatedCommitsCache.getAll(project, ids);
+
+    Map<String, PatchSetData> result = Maps.newHashMapWithExpectedSize(ids.size());
+    for (ChangeData cd : in) {
+      for (PatchSet ps : cd.patchSets()) {
+        String id = ps.getRevision().get();
+        RevCommit c = requireNonNull(commits.get(ObjectId.fromString(id)));
+        result.put(id, PatchSetData.create(cd, ps, c));
       }
     }
     return result;
@@ -0,0 +1,157 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.restapi.change;
+
+import static java.util.Objects.requireNonNull;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.gerrit.reviewdb.client.Project;
+import com.google.gerrit.server.cache.CacheModule;
+import com.google.gerrit.server.cache.serialize.CacheSerializer;
+import com.google.gerrit.server.cache.serialize.ObjectIdCacheSerializer;
+import com.google.gerrit.server.git.GitRepositoryManager;
+import com.google.inject.Inject;
+import com.google.inject.Module;
+import com.google.inject.Singleton;
+import com.google.inject.name.Named;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectReader;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+/**
+ * Cache of the patch set commits of related changes.
+ *
+ * <p>Sorting related changes needs the parents of every patch set of every change in the same
+ * groups, and the related changes view shows their author and subject. Commits are immutable, so
+ * their raw content is persisted by commit ID and never becomes stale. Uploading a new patch set
+ * only adds the entry for its own commit, and all other commits of a stack are read from the cache
+ * without opening the repository.
+ */
+@Singleton
+class RelatedCommitsCache {
+  static final String CACHE_NAME = "related_commits";
+
+  static Module module() {
+    return new CacheModule() {
+      @Override
+      protected void configure() {
+        persist(CACHE_NAME, ObjectId.class, byte[].class)
+            .version(1)
+            .maximumWeight(10 << 20)
+            .weigher(RawWeigher.class)
+            .keySerializer(ObjectIdCacheSerializer.INSTANCE)
+            .valueSerializer(RawSerializer.INSTANCE)
+            .shareable(true);
+        bind(RelatedCommitsCache.class);
+      }
+    };
+  }
+
+  static class RawWeigher implements Weigher<ObjectId, byte[]> {
+    @Override
+    public int weigh(ObjectId key, byte[] value) {
+      // Rough estimate in bytes: about 50 bytes for the ID plus the raw commit.
+      return 50 + value.length;
+    }
+  }
+
+  private enum RawSerializer implements CacheSerializer<byte[]> {
+    INSTANCE;
+
+    @Override
+    public byte[] serialize(byte[] object) {
+      return requireNonNull(object);
+    }
+
+    @Override
+    public byte[] deserialize(byte[] in) {
+      return requireNonNull(in);
+    }
+  }
+
+  private final Cache<ObjectId, byte[]> cache;
+  private final GitRepositoryManager repoManager;
+
+  @Inject
+  RelatedCommitsCache(
+      @Named(CACHE_NAME) Cache<ObjectId, byte[]> cache, GitRepositoryManager repoManager) {
+    this.cache = cache;
+    this.repoManager = repoManager;
+  }
+
+  /**
+   * Returns the commits with the given IDs.
+   *
+   * <p>The bodies of the returned commits are parsed, but their parents are not.
+   *
+   * @param project project that contains the commits.
+   * @param ids IDs of the commits.
+   * @return commits by ID.
+   * @throws IOException if a commit is not in the cache and cannot be read from the repository.
+   */
+  Map<ObjectId, RevCommit> getAll(Project.NameKey project, Collection<ObjectId> ids)
+      throws IOException {
+    Map<ObjectId, RevCommit> result = new HashMap<>();
+    try (Loader loader = new Loader(project);
+        RevWalk rw = new RevWalk((ObjectReader) null)) {
+      for (ObjectId id : ids) {
+        byte[] raw = cache.get(id.copy(), () -> loader.load(id));
+        result.put(id, RevCommit.parse(rw, raw));
+      }
+    } catch (ExecutionException | UncheckedExecutionException e) {
+      Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+      throw new IOException(e.getCause());
+    }
+    return result;
+  }
+
+  /** Reads commits that are missing in the cache, opening the repository at most once. */
+  private class Loader implements AutoCloseable {
+    private final Project.NameKey project;
+    private Repository repo;
+    private ObjectReader reader;
+
+    Loader(Project.NameKey project) {
+      this.project = project;
+    }
+
+    byte[] load(ObjectId id) throws IOException {
+      if (reader == null) {
+        repo = repoManager.openRepository(project);
+        reader = repo.newObjectReader();
+      }
+      return reader.open(id, Constants.OBJ_COMMIT).getCachedBytes();
+    }
+
+    @Override
+    public void close() {
+      if (reader != null) {
+        reader.close();
+        repo.close();
+      }
+    }
+  }
+}
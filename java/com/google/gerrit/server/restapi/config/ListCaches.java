@@ -32,6 +32,7 @@ import com.google.gerrit.extensions.restapi.RestReadView;
 import com.google.gerrit.server.cache.PersistentCache;
 import com.google.gerrit.server.config.ConfigResource;
 import com.google.inject.Inject;
+import java.sql.Timestamp;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.stream.Stream;
@@ -97,6 +98,7 @@ public class ListCaches implements RestReadView<ConfigResource> {
     public EntriesInfo entries;
     public String averageGet;
     public HitRatioInfo hitRatio;
+    public BloomFilterInfo bloomFilter;
 
     public CacheInfo(Cache<?, ?> cache) {
       this(null, cache);
@@ -121,6 +123,9 @@ public class ListCaches implements RestReadView<ConfigResource> {
         entries.setDisk(diskStats.size());
         entries.setSpace(diskStats.space());
         hitRatio.setDisk(diskStats.hitCount(), diskStats.requestCount());
+        if (diskStats.bloomFilter() != null) {
+          bloomFilter = new BloomFilterInfo(diskStats.bloomFilter());
+        }
       } else {
         type = CacheType.MEM;
       }
@@ -199,4 +204,14 @@ public class ListCaches implements RestReadView<ConfigResource> {
       return (int) ((100 * value) / total);
     }
   }
+
+  public static class BloomFilterInfo {
+    public Timestamp created;
+    public String expectedFpp;
+
+    public BloomFilterInfo(PersistentCache.BloomFilterStats stats) {
+      created = new Timestamp(stats.created());
+      expectedFpp = String.format("%.2f%%", 100 * stats.expectedFpp());
+    }
+  }
 }
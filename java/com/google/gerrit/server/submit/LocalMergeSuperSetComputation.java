@@ -15,8 +15,12 @@
 package com.google.gerrit.server.submit;
 
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
 import com.google.auto.value.AutoValue;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.Weigher;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
 import com.google.common.collect.ImmutableSet;
@@ -29,6 +33,8 @@ import com.google.gerrit.extensions.restapi.AuthException;
 import com.google.gerrit.reviewdb.client.Branch;
 import com.google.gerrit.reviewdb.client.Project;
 import com.google.gerrit.server.CurrentUser;
+import com.google.gerrit.server.FanOutExecutor;
+import com.google.gerrit.server.cache.CacheModule;
 import com.google.gerrit.server.permissions.ChangePermission;
 import com.google.gerrit.server.permissions.PermissionBackend;
 import com.google.gerrit.server.permissions.PermissionBackendException;
@@ -40,36 +46,53 @@ import com.google.gerrit.server.query.change.ChangeIsVisibleToPredicate;
 import com.google.gerrit.server.query.change.InternalChangeQuery;
 import com.google.gerrit.server.submit.MergeOpRepoManager.OpenRepo;
 import com.google.gwtorm.server.OrmException;
-import com.google.inject.AbstractModule;
 import com.google.inject.Inject;
 import com.google.inject.Provider;
+import com.google.inject.name.Named;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.eclipse.jgit.revwalk.RevSort;
 
 /**
- * Default implementation of MergeSuperSet that does the computation of the merge super set
- * sequentially on the local Gerrit instance.
+ * Default implementation of MergeSuperSet that does the computation of the merge super set on the
+ * local Gerrit instance.
+ *
+ * <p>The histories of the target branches of different projects are walked concurrently. Walk
+ * results only depend on the commits being walked, so they are cached across requests, and
+ * submitting a change, previewing its submission and rendering its submit button share them.
  */
 public class LocalMergeSuperSetComputation implements MergeSuperSetComputation {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
-  public static class Module extends AbstractModule {
+  static final String CACHE_NAME = "merge_super_set_walks";
+
+  public static class Module extends CacheModule {
     @Override
     protected void configure() {
       DynamicItem.bind(binder(), MergeSuperSetComputation.class)
           .to(LocalMergeSuperSetComputation.class);
+      cache(CACHE_NAME, WalkKey.class, WalkResult.class)
+          .maximumWeight(10 << 20)
+          .weigher(WalkWeigher.class);
     }
   }
 
@@ -85,25 +108,151 @@ public class LocalMergeSuperSetComputation implements MergeSuperSetComputation {
     abstract ImmutableSet<String> hashes();
   }
 
+  /** Commits from which the history of a branch is walked. */
+  @AutoValue
+  abstract static class WalkKey {
+    private static WalkKey create(
+        Project.NameKey project,
+        Optional<RevCommit> head,
+        Collection<RevCommit> visibleCommits,
+        Collection<RevCommit> nonVisibleCommits) {
+      return new AutoValue_LocalMergeSuperSetComputation_WalkKey(
+          project,
+          head.isPresent() ? head.get().copy() : ObjectId.zeroId(),
+          visibleCommits.stream().map(RevCommit::copy).collect(toImmutableSet()),
+          nonVisibleCommits.stream().map(RevCommit::copy).collect(toImmutableSet()));
+    }
+
+    abstract Project.NameKey project();
+
+    /** Tip of the target branch, or zero if the branch doesn't exist yet. */
+    abstract ObjectId head();
+
+    abstract ImmutableSet<ObjectId> visibleCommits();
+
+    abstract ImmutableSet<ObjectId> nonVisibleCommits();
+  }
+
+  /** Commits reachable from the visible and non-visible changes but not from the branch tip. */
+  @AutoValue
+  abstract static class WalkResult {
+    private static WalkResult create(Set<String> visibleHashes, Set<String> nonVisibleHashes) {
+      return new AutoValue_LocalMergeSuperSetComputation_WalkResult(
+          ImmutableSet.copyOf(visibleHashes), ImmutableSet.copyOf(nonVisibleHashes));
+    }
+
+    abstract ImmutableSet<String> visibleHashes();
+
+    abstract ImmutableSet<String> nonVisibleHashes();
+  }
+
+  static class WalkWeigher implements Weigher<WalkKey, WalkResult> {
+    @Override
+    public int weigh(WalkKey key, WalkResult value) {
+      // Rough estimate in bytes: an object ID takes about 50 bytes and a hash string about 100.
+      return 50 * (1 + key.visibleCommits().size() + key.nonVisibleCommits().size())
+          + 100 * (value.visibleHashes().size() + value.nonVisibleHashes().size());
+    }
+  }
+
+  /** Walk of the branches of one project that are not in the cache yet. */
+  private class ProjectWalk implements Callable<Void> {
+    private final OpenRepo or;
+    private final Map<Branch.NameKey, BranchWalk> branchWalks = new LinkedHashMap<>();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private Future<Void> future;
+
+    ProjectWalk(OpenRepo or) {
+      this.or = or;
+    }
+
+    void fork() {
+      try {
+        future = executor.submit(this);
+      } catch (RejectedExecutionException e) {
+        // Executor is shutting down; walk in join() instead.
+      }
+    }
+
+    @Override
+    public Void call() throws IOException {
+      if (started.compareAndSet(false, true)) {
+        walk();
+      }
+      return null;
+    }
+
+    void join() throws IOException {
+      if (started.compareAndSet(false, true)) {
+        if (future != null) {
+          future.cancel(false);
+        }
+        walk();
+        return;
+      }
+      try {
+        future.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("interrupted while walking " + or.getProjectName());
+      } catch (ExecutionException e) {
+        Throwables.throwIfInstanceOf(e.getCause(), IOException.class);
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new IOException(e.getCause());
+      }
+    }
+
+    private void walk() throws IOException {
+      for (BranchWalk w : branchWalks.values()) {
+        Set<String> visibleHashes =
+            walkChangesByHashes(w.visibleCommits, Collections.emptySet(), or, w.head);
+        Set<String> nonVisibleHashes =
+            walkChangesByHashes(w.nonVisibleCommits, visibleHashes, or, w.head);
+        w.result = WalkResult.create(visibleHashes, nonVisibleHashes);
+        walkCache.put(w.key, w.result);
+      }
+    }
+  }
+
+  private static class BranchWalk {
+    final OpenRepo or;
+    final Optional<RevCommit> head;
+    final List<RevCommit> visibleCommits = new ArrayList<>();
+    final List<RevCommit> nonVisibleCommits = new ArrayList<>();
+    WalkKey key;
+    WalkResult result;
+
+    BranchWalk(OpenRepo or, Optional<RevCommit> head) {
+      this.or = or;
+      this.head = head;
+    }
+  }
+
   private final PermissionBackend permissionBackend;
   private final Provider<InternalChangeQuery> queryProvider;
   private final Map<QueryKey, ImmutableList<ChangeData>> queryCache;
   private final Map<Branch.NameKey, Optional<RevCommit>> heads;
   private final ProjectCache projectCache;
   private final ChangeIsVisibleToPredicate changeIsVisibleToPredicate;
+  private final Cache<WalkKey, WalkResult> walkCache;
+  private final ExecutorService executor;
 
   @Inject
   LocalMergeSuperSetComputation(
       PermissionBackend permissionBackend,
       Provider<InternalChangeQuery> queryProvider,
       ProjectCache projectCache,
-      ChangeIsVisibleToPredicate changeIsVisibleToPredicate) {
+      ChangeIsVisibleToPredicate changeIsVisibleToPredicate,
+      @Named(CACHE_NAME) Cache<WalkKey, WalkResult> walkCache,
+      @FanOutExecutor ExecutorService executor) {
     this.projectCache = projectCache;
     this.permissionBackend = permissionBackend;
     this.queryProvider = queryProvider;
     this.queryCache = new HashMap<>();
     this.heads = new HashMap<>();
     this.changeIsVisibleToPredicate = changeIsVisibleToPredicate;
+    this.walkCache = walkCache;
+    this.executor = executor;
   }
 
   @Override
@@ -117,10 +266,11 @@ public class LocalMergeSuperSetComputation implements MergeSuperSetComputation {
     // reachable from changes already in the merge super set.
     ImmutableListMultimap<Branch.NameKey, ChangeData> bc =
         byBranch(Iterables.concat(changeSet.changes(), changeSet.nonVisibleChanges()));
+    Map<Branch.NameKey, BranchWalk> branchWalks = new LinkedHashMap<>();
+    Map<Project.NameKey, ProjectWalk> projectWalks = new LinkedHashMap<>();
     for (Branch.NameKey b : bc.keySet()) {
       OpenRepo or = getRepo(orm, b.getParentKey());
-      List<RevCommit> visibleCommits = new ArrayList<>();
-      List<RevCommit> nonVisibleCommits = new ArrayList<>();
+      BranchWalk w = new BranchWalk(or, head(or, b));
       for (ChangeData cd : bc.get(b)) {
         boolean visible = isVisible(changeSet, cd, user);
 
@@ -142,17 +292,38 @@ public class LocalMergeSuperSetComputation implements MergeSuperSetComputation {
         // SubmitStrategyOp to correct the situation later, assuming it gets
         // returned by byCommitsOnBranchNotMerged below.
         if (visible) {
-          visibleCommits.add(commit);
+          w.visibleCommits.add(commit);
         } else {
-          nonVisibleCommits.add(commit);
+          w.nonVisibleCommits.add(commit);
         }
       }
 
-      Set<String> visibleHashes =
-          walkChangesByHashes(visibleCommits, Collections.emptySet(), or, b);
-      Set<String> nonVisibleHashes = walkChangesByHashes(nonVisibleCommits, visibleHashes, or, b);
+      w.key = WalkKey.create(b.getParentKey(), w.head, w.visibleCommits, w.nonVisibleCommits);
+      w.result = walkCache.getIfPresent(w.key);
+      if (w.result == null) {
+        projectWalks
+            .computeIfAbsent(b.getParentKey(), p -> new ProjectWalk(or))
+            .branchWalks
+            .put(b, w);
+      }
+      branchWalks.put(b, w);
+    }
+
+    // Walk the branches of different projects concurrently, since each project has its own
+    // RevWalk. The first project is walked by this thread.
+    List<ProjectWalk> walks = new ArrayList<>(projectWalks.values());
+    for (int i = 1; i < walks.size(); i++) {
+      walks.get(i).fork();
+    }
+    for (ProjectWalk walk : walks) {
+      walk.join();
+    }
 
-      ChangeSet partialSet = byCommitsOnBranchNotMerged(or, b, visibleHashes, nonVisibleHashes);
+    for (Map.Entry<Branch.NameKey, BranchWalk> e : branchWalks.entrySet()) {
+      BranchWalk w = e.getValue();
+      ChangeSet partialSet =
+          byCommitsOnBranchNotMerged(
+              w.or, e.getKey(), w.result.visibleHashes(), w.result.nonVisibleHashes());
       Iterables.addAll(visibleChanges, partialSet.changes());
       Iterables.addAll(nonVisibleChanges, partialSet.nonVisibleChanges());
     }
@@ -245,11 +416,16 @@ public class LocalMergeSuperSetComputation implements MergeSuperSetComputation {
   }
 
   private Set<String> walkChangesByHashes(
-      Collection<RevCommit> sourceCommits, Set<String> ignoreHashes, OpenRepo or, Branch.NameKey b)
+      Collection<RevCommit> sourceCommits,
+      Set<String> ignoreHashes,
+      OpenRepo or,
+      Optional<RevCommit> head)
       throws IOException {
     Set<String> destHashes = new HashSet<>();
     or.rw.reset();
-    markHeadUninteresting(or, b);
+    if (head.isPresent()) {
+      or.rw.markUninteresting(head.get());
+    }
     for (RevCommit c : sourceCommits) {
       String name = c.name();
       if (ignoreHashes.contains(name)) {
@@ -269,16 +445,14 @@ public class LocalMergeSuperSetComputation implements MergeSuperSetComputation {
     return destHashes;
   }
 
-  private void markHeadUninteresting(OpenRepo or, Branch.NameKey b) throws IOException {
+  private Optional<RevCommit> head(OpenRepo or, Branch.NameKey b) throws IOException {
     Optional<RevCommit> head = heads.get(b);
     if (head == null) {
       Ref ref = or.repo.getRefDatabase().exactRef(b.get());
       head = ref != null ? Optional.of(or.rw.parseCommit(ref.getObjectId())) : Optional.empty();
       heads.put(b, head);
     }
-    if (head.isPresent()) {
-      or.rw.markUninteresting(head.get());
-    }
+    return head;
   }
 
   private void logErrorAndThrow(String msg) throws OrmException {
@@ -32,6 +32,8 @@ import com.google.common.collect.ListMultimap;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.SetMultimap;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.common.data.SubmitRecord;
 import com.google.gerrit.common.data.SubmitRequirement;
@@ -57,6 +59,7 @@ import com.google.gerrit.server.ChangeUtil;
 import com.google.gerrit.server.IdentifiedUser;
 import com.google.gerrit.server.InternalUser;
 import com.google.gerrit.server.change.NotifyResolver;
+import com.google.gerrit.server.config.SubmitExecutor;
 import com.google.gerrit.server.git.CodeReviewCommit;
 import com.google.gerrit.server.git.MergeTip;
 import com.google.gerrit.server.git.validators.MergeValidationException;
@@ -117,6 +120,12 @@ public class MergeOp implements AutoCloseable {
   private static final SubmitRuleOptions SUBMIT_RULE_OPTIONS_ALLOW_CLOSED =
       SUBMIT_RULE_OPTIONS.toBuilder().allowClosed(true).build();
 
+  /**
+   * Status of the commits being submitted.
+   *
+   * <p>Thread-safe, since submit strategies of different projects may integrate their commits
+   * concurrently.
+   */
   public static class CommitStatus {
     private final ImmutableMap<Change.Id, ChangeData> changes;
     private final ImmutableSetMultimap<Branch.NameKey, Change.Id> byBranch;
@@ -146,30 +155,30 @@ public class MergeOp implements AutoCloseable {
       return byBranch.get(branch);
     }
 
-    public CodeReviewCommit get(Change.Id changeId) {
+    public synchronized CodeReviewCommit get(Change.Id changeId) {
       return commits.get(changeId);
     }
 
-    public void put(CodeReviewCommit c) {
+    public synchronized void put(CodeReviewCommit c) {
       commits.put(c.change().getId(), c);
     }
 
-    public void problem(Change.Id id, String problem) {
+    public synchronized void problem(Change.Id id, String problem) {
       problems.put(id, problem);
     }
 
-    public void logProblem(Change.Id id, Throwable t) {
+    public synchronized void logProblem(Change.Id id, Throwable t) {
       String msg = "Error reading change";
       logger.atSevere().withCause(t).log("%s %s", msg, id);
       problems.put(id, msg);
     }
 
-    public void logProblem(Change.Id id, String msg) {
+    public synchronized void logProblem(Change.Id id, String msg) {
       logger.atSevere().log("%s %s", msg, id);
       problems.put(id, msg);
     }
 
-    public boolean isOk() {
+    public synchronized boolean isOk() {
       return problems.isEmpty();
     }
 
@@ -188,7 +197,7 @@ public class MergeOp implements AutoCloseable {
           "getSubmitRecord only valid after submit rules are evalutated");
     }
 
-    public void maybeFailVerbose() throws ResourceConflictException {
+    public synchronized void maybeFailVerbose() throws ResourceConflictException {
       if (isOk()) {
         return;
       }
@@ -205,7 +214,7 @@ public class MergeOp implements AutoCloseable {
       throw new ResourceConflictException(msg + Joiner.on('\n').join(ps));
     }
 
-    public void maybeFail(String msgPrefix) throws ResourceConflictException {
+    public synchronized void maybeFail(String msgPrefix) throws ResourceConflictException {
       if (isOk()) {
         return;
       }
@@ -232,6 +241,7 @@ public class MergeOp implements AutoCloseable {
   private final NotifyResolver notifyResolver;
   private final RetryHelper retryHelper;
   private final ChangeData.Factory changeDataFactory;
+  private final ListeningExecutorService submitExecutor;
 
   private Timestamp ts;
   private RequestId submissionId;
@@ -259,7 +269,8 @@ public class MergeOp implements AutoCloseable {
       NotifyResolver notifyResolver,
       TopicMetrics topicMetrics,
       RetryHelper retryHelper,
-      ChangeData.Factory changeDataFactory) {
+      ChangeData.Factory changeDataFactory,
+      @SubmitExecutor ListeningExecutorService submitExecutor) {
     this.cmUtil = cmUtil;
     this.batchUpdateFactory = batchUpdateFactory;
     this.internalUserFactory = internalUserFactory;
@@ -273,6 +284,7 @@ public class MergeOp implements AutoCloseable {
     this.retryHelper = retryHelper;
     this.topicMetrics = topicMetrics;
     this.changeDataFactory = changeDataFactory;
+    this.submitExecutor = submitExecutor;
   }
 
   @Override
@@ -601,10 +613,17 @@ public class MergeOp implements AutoCloseable {
       SubmoduleOp submoduleOp = subOpFactory.create(branches, orm);
       List<SubmitStrategy> strategies = getSubmitStrategies(toSubmit, submoduleOp, dryrun);
       this.allProjects = submoduleOp.getProjectsInOrder();
+      // The new tips of different projects can only be computed concurrently if no superproject
+      // needs to be updated with the new tip of one of its submodules.
+      ListeningExecutorService repoExecutor =
+          submoduleOp.hasSubscriptions()
+              ? MoreExecutors.newDirectExecutorService()
+              : submitExecutor;
       BatchUpdate.execute(
           orm.batchUpdates(allProjects),
           new SubmitStrategyListener(submitInput, strategies, commitStatus),
-          dryrun);
+          dryrun,
+          repoExecutor);
     } catch (NoSuchProjectException e) {
       throw new ResourceNotFoundException(e.getMessage());
     } catch (IOException | SubmoduleException e) {
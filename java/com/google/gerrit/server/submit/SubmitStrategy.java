@@ -20,6 +20,11 @@ import com.google.common.collect.Sets;
 import com.google.gerrit.extensions.api.changes.SubmitInput;
 import com.google.gerrit.extensions.client.SubmitType;
 import com.google.gerrit.extensions.config.FactoryModule;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.Description.Units;
+import com.google.gerrit.metrics.Field;
+import com.google.gerrit.metrics.MetricMaker;
+import com.google.gerrit.metrics.Timer1;
 import com.google.gerrit.reviewdb.client.Branch;
 import com.google.gerrit.reviewdb.client.Change;
 import com.google.gerrit.server.ApprovalsUtil;
@@ -51,6 +56,7 @@ import com.google.gerrit.server.update.BatchUpdate;
 import com.google.inject.Inject;
 import com.google.inject.Module;
 import com.google.inject.Provider;
+import com.google.inject.Singleton;
 import com.google.inject.assistedinject.Assisted;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -78,6 +84,24 @@ public abstract class SubmitStrategy {
     };
   }
 
+  @Singleton
+  static class Metrics {
+    final Timer1<SubmitType> integrateLatency;
+
+    @Inject
+    Metrics(MetricMaker metricMaker) {
+      integrateLatency =
+          metricMaker.newTimer(
+              "submit/integrate_latency",
+              new Description(
+                      "Latency for integrating a single change into its destination branch, by"
+                          + " submit type")
+                  .setCumulative()
+                  .setUnit(Units.MILLISECONDS),
+              Field.ofEnum(SubmitType.class, "submit_type"));
+    }
+  }
+
   static class Arguments {
     interface Factory {
       Arguments create(
@@ -113,6 +137,7 @@ public abstract class SubmitStrategy {
     final Provider<InternalChangeQuery> queryProvider;
     final ProjectConfig.Factory projectConfigFactory;
     final SetPrivateOp.Factory setPrivateOpFactory;
+    final Metrics metrics;
 
     final Branch.NameKey destBranch;
     final CodeReviewRevWalk rw;
@@ -152,6 +177,7 @@ public abstract class SubmitStrategy {
         Provider<InternalChangeQuery> queryProvider,
         ProjectConfig.Factory projectConfigFactory,
         SetPrivateOp.Factory setPrivateOpFactory,
+        Metrics metrics,
         @Assisted Branch.NameKey destBranch,
         @Assisted CommitStatus commitStatus,
         @Assisted CodeReviewRevWalk rw,
@@ -180,6 +206,7 @@ public abstract class SubmitStrategy {
       this.tagCache = tagCache;
       this.queryProvider = queryProvider;
       this.setPrivateOpFactory = setPrivateOpFactory;
+      this.metrics = metrics;
 
       this.serverIdent = serverIdent;
       this.destBranch = destBranch;
@@ -23,6 +23,7 @@ import static java.util.Objects.requireNonNull;
 import com.google.common.base.Function;
 import com.google.common.flogger.FluentLogger;
 import com.google.gerrit.common.data.SubmitRecord;
+import com.google.gerrit.metrics.Timer1;
 import com.google.gerrit.reviewdb.client.Account;
 import com.google.gerrit.reviewdb.client.Branch;
 import com.google.gerrit.reviewdb.client.Change;
@@ -112,7 +113,9 @@ abstract class SubmitStrategyOp implements BatchUpdateOp {
     CodeReviewCommit tipBefore = args.mergeTip.getCurrentTip();
     alreadyMergedCommit = getAlreadyMergedCommit(ctx);
     if (alreadyMergedCommit == null) {
-      updateRepoImpl(ctx);
+      try (Timer1.Context ignored = args.metrics.integrateLatency.start(args.submitType)) {
+        updateRepoImpl(ctx);
+      }
     } else {
       logger.atFine().log("Already merged as %s", alreadyMergedCommit.name());
     }
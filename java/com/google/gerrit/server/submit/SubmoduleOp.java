@@ -57,6 +57,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.jgit.dircache.DirCache;
 import org.eclipse.jgit.dircache.DirCacheBuilder;
@@ -180,7 +181,7 @@ public class SubmoduleOp {
     this.updatedBranches = ImmutableSet.copyOf(updatedBranches);
     this.targets = MultimapBuilder.hashKeys().hashSetValues().build();
     this.affectedBranches = new HashSet<>();
-    this.branchTips = new HashMap<>();
+    this.branchTips = new ConcurrentHashMap<>();
     this.branchGitModules = new HashMap<>();
     this.branchesByProject = MultimapBuilder.hashKeys().hashSetValues().build();
     this.sortedBranches = calculateSubscriptionMaps();
@@ -723,6 +724,10 @@ public class SubmoduleOp {
     return ImmutableSet.copyOf(branches);
   }
 
+  boolean hasSubscriptions() {
+    return !targets.isEmpty();
+  }
+
   boolean hasSubscription(Branch.NameKey branch) {
     return targets.containsKey(branch);
   }
@@ -29,6 +29,10 @@ import com.google.common.collect.ListMultimap;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.Multiset;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gerrit.common.Nullable;
 import com.google.gerrit.extensions.api.changes.NotifyHandling;
 import com.google.gerrit.extensions.config.FactoryModule;
@@ -68,6 +72,8 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.TimeZone;
 import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import org.eclipse.jgit.lib.BatchRefUpdate;
 import org.eclipse.jgit.lib.ObjectInserter;
 import org.eclipse.jgit.lib.PersonIdent;
@@ -117,6 +123,29 @@ public class BatchUpdate implements AutoCloseable {
   public static void execute(
       Collection<BatchUpdate> updates, BatchUpdateListener listener, boolean dryrun)
       throws UpdateException, RestApiException {
+    execute(updates, listener, dryrun, MoreExecutors.newDirectExecutorService());
+  }
+
+  /**
+   * Executes updates of several projects.
+   *
+   * <p>The repository updates of the different projects are executed on {@code repoExecutor}, which
+   * allows independent projects to prepare their new commits concurrently. Their ref updates and
+   * change updates are still only executed after all repository updates succeeded, so that a
+   * failure in any project leaves all projects untouched. Ops whose repository updates depend on
+   * the repository updates of another project must be executed with a direct executor.
+   *
+   * @param updates updates to execute, each for a different project.
+   * @param listener listener notified after each phase.
+   * @param dryrun whether to skip storing the updates and running the post-update steps.
+   * @param repoExecutor executor for the repository updates of the projects.
+   */
+  public static void execute(
+      Collection<BatchUpdate> updates,
+      BatchUpdateListener listener,
+      boolean dryrun,
+      ListeningExecutorService repoExecutor)
+      throws UpdateException, RestApiException {
     requireNonNull(listener);
     if (updates.isEmpty()) {
       return;
@@ -130,9 +159,7 @@ public class BatchUpdate implements AutoCloseable {
           new ArrayList<>();
       List<ChangesHandle> handles = new ArrayList<>(updates.size());
       try {
-        for (BatchUpdate u : updates) {
-          u.executeUpdateRepo();
-        }
+        executeUpdateRepos(updates, repoExecutor);
         listener.afterUpdateRepos();
         for (BatchUpdate u : updates) {
           handles.add(u.executeChangeOps(dryrun));
@@ -170,6 +197,54 @@ public class BatchUpdate implements AutoCloseable {
     }
   }
 
+  private static void executeUpdateRepos(
+      Collection<BatchUpdate> updates, ListeningExecutorService repoExecutor)
+      throws UpdateException, RestApiException {
+    if (updates.size() == 1) {
+      updates.iterator().next().executeUpdateRepo();
+      return;
+    }
+
+    // Updates that were not started yet are skipped after a failure, as they would be thrown away
+    // anyway. With a direct executor this stops at the first failure, like a plain loop.
+    AtomicBoolean failed = new AtomicBoolean();
+    List<ListenableFuture<?>> futures = new ArrayList<>(updates.size());
+    for (BatchUpdate u : updates) {
+      futures.add(
+          repoExecutor.submit(
+              () -> {
+                if (failed.get()) {
+                  return null;
+                }
+                try {
+                  u.executeUpdateRepo();
+                } catch (Exception e) {
+                  failed.set(true);
+                  throw e;
+                }
+                return null;
+              }));
+    }
+
+    // Wait for all updates, also after a failure, so that none of them is still using its
+    // repository when the caller closes it.
+    try {
+      Futures.successfulAsList(futures).get();
+    } catch (InterruptedException | ExecutionException e) {
+      throw new UpdateException(e);
+    }
+    for (ListenableFuture<?> f : futures) {
+      try {
+        Futures.getDone(f);
+      } catch (ExecutionException e) {
+        Throwables.throwIfInstanceOf(e.getCause(), UpdateException.class);
+        Throwables.throwIfInstanceOf(e.getCause(), RestApiException.class);
+        Throwables.throwIfUnchecked(e.getCause());
+        throw new UpdateException(e.getCause());
+      }
+    }
+  }
+
   private static void checkDifferentProject(Collection<BatchUpdate> updates) {
     Multiset<Project.NameKey> projectCounts =
         updates.stream().map(u -> u.project).collect(toImmutableMultiset());
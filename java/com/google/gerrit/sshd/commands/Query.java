@@ -96,6 +96,14 @@ public class Query extends SshCommand implements DynamicOptions.BeanReceiver {
     processor.setNoLimit(on);
   }
 
+  @Option(
+      name = "--cursor",
+      metaVar = "CURSOR",
+      usage = "Continue after the change the cursor was returned for")
+  void setCursor(String cursor) {
+    processor.setCursor(cursor);
+  }
+
   @Argument(
       index = 0,
       required = true,
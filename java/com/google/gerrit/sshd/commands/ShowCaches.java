@@ -35,6 +35,7 @@ import com.google.gerrit.server.restapi.config.GetSummary.SummaryInfo;
 import com.google.gerrit.server.restapi.config.GetSummary.TaskSummaryInfo;
 import com.google.gerrit.server.restapi.config.GetSummary.ThreadSummaryInfo;
 import com.google.gerrit.server.restapi.config.ListCaches;
+import com.google.gerrit.server.restapi.config.ListCaches.BloomFilterInfo;
 import com.google.gerrit.server.restapi.config.ListCaches.CacheInfo;
 import com.google.gerrit.server.restapi.config.ListCaches.CacheType;
 import com.google.gerrit.server.util.time.TimeUtil;
@@ -47,6 +48,7 @@ import java.text.SimpleDateFormat;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import org.apache.sshd.common.io.IoAcceptor;
 import org.apache.sshd.common.io.IoSession;
 import org.apache.sshd.common.io.mina.MinaSession;
@@ -60,6 +62,8 @@ import org.kohsuke.args4j.Option;
     description = "Display current cache statistics",
     runsAt = MASTER_OR_SLAVE)
 final class ShowCaches extends SshCommand {
+  private static final int BLOOM_FILTER_WIDTH = 14;
+
   private static volatile long serverStarted;
 
   static class StartupListener implements LifecycleListener {
@@ -81,6 +85,9 @@ final class ShowCaches extends SshCommand {
   @Option(name = "--show-threads", usage = "show detailed thread counts")
   private boolean showThreads;
 
+  @Option(name = "--show-bloom-filters", usage = "show age and accuracy of disk cache filters")
+  private boolean showBloomFilters;
+
   @Inject private SshDaemon daemon;
   @Inject private ListCaches listCaches;
   @Inject private GetSummary getSummary;
@@ -111,7 +118,7 @@ final class ShowCaches extends SshCommand {
 
   @Override
   protected void run() throws UnloggedFailure {
-    nw = columns - 50;
+    nw = columns - 50 - (showBloomFilters ? BLOOM_FILTER_WIDTH : 0);
     Date now = new Date();
     stdout.format(
         "%-25s %-20s      now  %16s\n",
@@ -123,7 +130,7 @@ final class ShowCaches extends SshCommand {
 
     stdout.print(
         String.format( //
-            "%1s %-" + nw + "s|%-21s|  %-5s |%-9s|\n" //
+            "%1s %-" + nw + "s|%-21s|  %-5s |%-9s|%s\n" //
             ,
             "" //
             ,
@@ -134,10 +141,12 @@ final class ShowCaches extends SshCommand {
             "AvgGet" //
             ,
             "Hit Ratio" //
+            ,
+            showBloomFilters ? String.format("%-13s|", "Bloom Filter") : "" //
             ));
     stdout.print(
         String.format( //
-            "%1s %-" + nw + "s|%6s %6s %7s|  %-5s  |%-4s %-4s|\n" //
+            "%1s %-" + nw + "s|%6s %6s %7s|  %-5s  |%-4s %-4s|%s\n" //
             ,
             "" //
             ,
@@ -154,12 +163,15 @@ final class ShowCaches extends SshCommand {
             "Mem" //
             ,
             "Disk" //
+            ,
+            showBloomFilters ? String.format("%6s %6s|", "Age", "FPP") : "" //
             ));
     stdout.print("--");
     for (int i = 0; i < nw; i++) {
       stdout.print('-');
     }
-    stdout.print("+---------------------+---------+---------+\n");
+    stdout.print("+---------------------+---------+---------+");
+    stdout.print(showBloomFilters ? "-------------+\n" : "\n");
 
     Collection<CacheInfo> caches = getCaches();
     printMemoryCoreCaches(caches);
@@ -228,7 +240,7 @@ final class ShowCaches extends SshCommand {
   private void printCache(CacheInfo cache) {
     stdout.print(
         String.format(
-            "%1s %-" + nw + "s|%6s %6s %7s| %7s |%4s %4s|\n",
+            "%1s %-" + nw + "s|%6s %6s %7s| %7s |%4s %4s|%s\n",
             CacheType.DISK.equals(cache.type) ? "D" : "",
             cache.name,
             nullToEmpty(cache.entries.mem),
@@ -236,7 +248,28 @@ final class ShowCaches extends SshCommand {
             Strings.nullToEmpty(cache.entries.space),
             Strings.nullToEmpty(cache.averageGet),
             formatAsPercent(cache.hitRatio.mem),
-            formatAsPercent(cache.hitRatio.disk)));
+            formatAsPercent(cache.hitRatio.disk),
+            showBloomFilters ? formatBloomFilter(cache.bloomFilter) : ""));
+  }
+
+  private static String formatBloomFilter(BloomFilterInfo info) {
+    if (info == null) {
+      return String.format("%13s|", "");
+    }
+    return String.format(
+        "%6s %6s|", age(TimeUtil.nowMs() - info.created.getTime()), info.expectedFpp);
+  }
+
+  private static String age(long ageMillis) {
+    long min = TimeUnit.MILLISECONDS.toMinutes(ageMillis);
+    if (min < 60) {
+      return min + "m";
+    }
+    long hr = TimeUnit.MINUTES.toHours(min);
+    if (hr < 48) {
+      return hr + "h";
+    }
+    return TimeUnit.HOURS.toDays(hr) + "d";
   }
 
   private static String nullToEmpty(Long l) {
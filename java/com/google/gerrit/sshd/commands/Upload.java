@@ -61,7 +61,10 @@ final class Upload extends AbstractGitCommand {
     }
 
     final UploadPack up = new UploadPack(repo);
-    up.setAdvertiseRefsHook(new DefaultAdvertiseRefsHook(perm, RefFilterOptions.defaults()));
+    DefaultAdvertiseRefsHook advertiseRefsHook =
+        new DefaultAdvertiseRefsHook(perm, RefFilterOptions.defaults());
+    up.setAdvertiseRefsHook(advertiseRefsHook);
+    up.setProtocolV2Hook(advertiseRefsHook);
     up.setPackConfig(config.getPackConfig());
     up.setTimeout(config.getTimeout());
     up.setPostUploadHook(PostUploadHookChain.newChain(Lists.newArrayList(postUploadHooks)));
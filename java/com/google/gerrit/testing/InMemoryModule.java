@@ -45,7 +45,9 @@ import com.google.gerrit.server.config.AnonymousCowardName;
 import com.google.gerrit.server.config.AnonymousCowardNameProvider;
 import com.google.gerrit.server.config.CanonicalWebUrlModule;
 import com.google.gerrit.server.config.CanonicalWebUrlProvider;
+import com.google.gerrit.server.config.ChangeFormatExecutor;
 import com.google.gerrit.server.config.ChangeUpdateExecutor;
+import com.google.gerrit.server.config.CommitValidationExecutor;
 import com.google.gerrit.server.config.DefaultUrlFormatter;
 import com.google.gerrit.server.config.GerritGlobalModule;
 import com.google.gerrit.server.config.GerritInstanceNameModule;
@@ -56,6 +58,8 @@ import com.google.gerrit.server.config.GerritServerId;
 import com.google.gerrit.server.config.GerritServerIdProvider;
 import com.google.gerrit.server.config.SendEmailExecutor;
 import com.google.gerrit.server.config.SitePath;
+import com.google.gerrit.server.config.SubmitExecutor;
+import com.google.gerrit.server.config.SysExecutorModule;
 import com.google.gerrit.server.config.TrackingFooters;
 import com.google.gerrit.server.config.TrackingFootersProvider;
 import com.google.gerrit.server.git.GarbageCollection;
@@ -296,6 +300,30 @@ public class InMemoryModule extends FactoryModule {
     return queues.createQueue(2, "FanOut");
   }
 
+  @Provides
+  @Singleton
+  @CommitValidationExecutor
+  public ListeningExecutorService createCommitValidationExecutor() {
+    return SysExecutorModule.newBoundedListeningExecutor(
+        "CommitValidation", cfg.getInt("receive", null, "commitValidationThreads", 1));
+  }
+
+  @Provides
+  @Singleton
+  @SubmitExecutor
+  public ListeningExecutorService createSubmitExecutor() {
+    return SysExecutorModule.newBoundedListeningExecutor(
+        "Submit", cfg.getInt("change", null, "submitThreads", 1));
+  }
+
+  @Provides
+  @Singleton
+  @ChangeFormatExecutor
+  public ListeningExecutorService createChangeFormatExecutor() {
+    return SysExecutorModule.newBoundedListeningExecutor(
+        "ChangeFormat", cfg.getInt("change", null, "formatThreads", 1));
+  }
+
   private Module luceneIndexModule() {
     return indexModule("com.google.gerrit.lucene.LuceneIndexModule");
   }
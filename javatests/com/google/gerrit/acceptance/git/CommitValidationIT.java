@@ -0,0 +1,125 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.acceptance.git;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.acceptance.GitUtil.assertPushOk;
+import static com.google.gerrit.acceptance.GitUtil.assertPushRejected;
+import static com.google.gerrit.acceptance.GitUtil.pushHead;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.acceptance.AbstractDaemonTest;
+import com.google.gerrit.acceptance.GerritConfig;
+import com.google.gerrit.acceptance.NoHttpd;
+import com.google.gerrit.extensions.registration.DynamicSet;
+import com.google.gerrit.extensions.registration.RegistrationHandle;
+import com.google.gerrit.reviewdb.client.RevId;
+import com.google.gerrit.server.events.CommitReceivedEvent;
+import com.google.gerrit.server.git.validators.CommitValidationException;
+import com.google.gerrit.server.git.validators.CommitValidationListener;
+import com.google.gerrit.server.git.validators.CommitValidationMessage;
+import com.google.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+@NoHttpd
+public class CommitValidationIT extends AbstractDaemonTest {
+  @Inject private DynamicSet<CommitValidationListener> commitValidationListeners;
+
+  private RejectingCommitValidationListener listener;
+  private RegistrationHandle registrationHandle;
+
+  @Before
+  public void setUp() {
+    listener = new RejectingCommitValidationListener();
+    registrationHandle = commitValidationListeners.add("gerrit", listener);
+  }
+
+  @After
+  public void cleanUp() {
+    registrationHandle.remove();
+  }
+
+  @Test
+  @GerritConfig(name = "receive.commitValidationThreads", value = "4")
+  public void validateCommitsConcurrently() throws Exception {
+    List<RevCommit> commits = createCommits(10);
+
+    assertPushOk(pushHead(testRepo, "refs/heads/master"), "refs/heads/master");
+
+    assertThat(listener.validated).containsExactlyElementsIn(commits);
+    assertThat(listener.threads.stream().anyMatch(t -> t.startsWith("CommitValidation-")))
+        .isTrue();
+  }
+
+  @Test
+  @GerritConfig(name = "receive.commitValidationThreads", value = "4")
+  public void concurrentValidationReportsNewestInvalidCommit() throws Exception {
+    List<RevCommit> commits = createCommits(10);
+    listener.invalid.add(commits.get(3));
+    listener.invalid.add(commits.get(6));
+
+    // New commits are validated starting from the tip, like without concurrent validation.
+    assertPushRejected(
+        pushHead(testRepo, "refs/heads/master"),
+        "refs/heads/master",
+        "commit " + commits.get(6).abbreviate(RevId.ABBREV_LEN).name() + ": invalid commit");
+  }
+
+  @Test
+  public void validateCommitsSequentially() throws Exception {
+    List<RevCommit> commits = createCommits(3);
+    listener.invalid.add(commits.get(1));
+
+    assertPushRejected(
+        pushHead(testRepo, "refs/heads/master"),
+        "refs/heads/master",
+        "commit " + commits.get(1).abbreviate(RevId.ABBREV_LEN).name() + ": invalid commit");
+    assertThat(listener.validated).containsExactly(commits.get(2), commits.get(1));
+  }
+
+  private List<RevCommit> createCommits(int n) throws Exception {
+    List<RevCommit> commits = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      commits.add(
+          testRepo.branch("HEAD").commit().message("commit " + i).add("file" + i, "" + i).create());
+    }
+    return commits;
+  }
+
+  private static class RejectingCommitValidationListener implements CommitValidationListener {
+    final Set<ObjectId> invalid = ConcurrentHashMap.newKeySet();
+    final Set<ObjectId> validated = ConcurrentHashMap.newKeySet();
+    final Set<String> threads = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public List<CommitValidationMessage> onCommitReceived(CommitReceivedEvent receiveEvent)
+        throws CommitValidationException {
+      validated.add(receiveEvent.commit.copy());
+      threads.add(Thread.currentThread().getName());
+      if (invalid.contains(receiveEvent.commit)) {
+        throw new CommitValidationException("invalid commit");
+      }
+      return ImmutableList.of();
+    }
+  }
+}
@@ -46,6 +46,7 @@ import com.google.gerrit.reviewdb.client.PatchSet;
 import com.google.gerrit.reviewdb.client.Project;
 import com.google.gerrit.reviewdb.client.RefNames;
 import com.google.gerrit.server.config.AllUsersName;
+import com.google.gerrit.server.git.DefaultAdvertiseRefsHook;
 import com.google.gerrit.server.git.receive.ReceiveCommitsAdvertiseRefsHook;
 import com.google.gerrit.server.notedb.ChangeNoteUtil;
 import com.google.gerrit.server.notedb.Sequences;
@@ -55,6 +56,8 @@ import com.google.gerrit.server.project.testing.Util;
 import com.google.gerrit.server.query.change.ChangeData;
 import com.google.gerrit.testing.ConfigSuite;
 import com.google.inject.Inject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -71,6 +74,10 @@ import org.eclipse.jgit.lib.PersonIdent;
 import org.eclipse.jgit.lib.Ref;
 import org.eclipse.jgit.lib.RefUpdate;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.transport.PacketLineIn;
+import org.eclipse.jgit.transport.PacketLineOut;
+import org.eclipse.jgit.transport.TransferConfig;
+import org.eclipse.jgit.transport.UploadPack;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -257,6 +264,53 @@ public class RefAdvertisementIT extends AbstractDaemonTest {
         "refs/tags/master-tag");
   }
 
+  @Test
+  public void lsRefsV2ReturnsOnlyRefsMatchingPrefixes() throws Exception {
+    allow("refs/heads/*", Permission.READ, REGISTERED_USERS);
+
+    assertThat(lsRefsV2(user, "refs/heads/"))
+        .containsExactly("refs/heads/branch", "refs/heads/master");
+    assertThat(lsRefsV2(user, "refs/tags/branch")).containsExactly("refs/tags/branch-tag");
+    assertThat(lsRefsV2(user, "refs/heads/", "refs/tags/"))
+        .containsExactly(
+            "refs/heads/branch",
+            "refs/heads/master",
+            "refs/tags/branch-tag",
+            "refs/tags/master-tag");
+  }
+
+  @Test
+  public void lsRefsV2ResolvesShortNamesAndHead() throws Exception {
+    allow("refs/heads/*", Permission.READ, REGISTERED_USERS);
+
+    // Prefixes sent by "git fetch origin master" and "git ls-remote origin HEAD".
+    assertThat(
+            lsRefsV2(
+                user,
+                "master",
+                "refs/master",
+                "refs/tags/master",
+                "refs/heads/master",
+                "refs/remotes/master",
+                "refs/remotes/master/HEAD"))
+        .containsExactly("refs/heads/master", "refs/tags/master-tag");
+    assertThat(lsRefsV2(user, "HEAD")).containsExactly("HEAD");
+    assertThat(lsRefsV2(user, "HEAD", "refs/heads/branch"))
+        .containsExactly("HEAD", "refs/heads/branch");
+  }
+
+  @Test
+  public void lsRefsV2DoesNotReturnHiddenRefsMatchingPrefixes() throws Exception {
+    allow("refs/heads/master", Permission.READ, REGISTERED_USERS);
+    deny("refs/heads/branch", Permission.READ, REGISTERED_USERS);
+
+    assertThat(lsRefsV2(user, "refs/heads/branch")).isEmpty();
+    assertThat(lsRefsV2(user, "branch", "refs/heads/branch")).isEmpty();
+    assertThat(lsRefsV2(user, "refs/heads/")).containsExactly("refs/heads/master");
+    assertThat(lsRefsV2(user, RefNames.REFS_CONFIG)).isEmpty();
+    assertThat(lsRefsV2(user, psRef4, metaRef4)).isEmpty();
+  }
+
   @Test
   public void uploadPackSubsetOfBranchesVisibleWithEdit() throws Exception {
     allow("refs/heads/master", Permission.READ, REGISTERED_USERS);
@@ -716,6 +770,47 @@ public class RefAdvertisementIT extends AbstractDaemonTest {
     }
   }
 
+  /**
+   * Lists the refs of the project with protocol v2 {@code ls-refs}.
+   *
+   * @param u user whose visible refs are listed.
+   * @param prefixes ref prefixes sent by the client.
+   * @return names of the advertised refs.
+   */
+  private List<String> lsRefsV2(TestAccount u, String... prefixes) throws Exception {
+    ByteArrayOutputStream in = new ByteArrayOutputStream();
+    PacketLineOut pckOut = new PacketLineOut(in);
+    pckOut.writeString("command=ls-refs\n");
+    pckOut.writeDelim();
+    for (String prefix : prefixes) {
+      pckOut.writeString("ref-prefix " + prefix + "\n");
+    }
+    pckOut.end();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (Repository repo = repoManager.openRepository(project)) {
+      Config cfg = new Config();
+      cfg.setInt("protocol", null, "version", 2);
+      DefaultAdvertiseRefsHook hook =
+          new DefaultAdvertiseRefsHook(newFilter(project, u), RefFilterOptions.defaults());
+      UploadPack up = new UploadPack(repo);
+      up.setTransferConfig(new TransferConfig(cfg));
+      up.setExtraParameters(ImmutableList.of("version=2"));
+      up.setAdvertiseRefsHook(hook);
+      up.setProtocolV2Hook(hook);
+      up.upload(new ByteArrayInputStream(in.toByteArray()), out, null);
+    }
+
+    PacketLineIn pckIn = new PacketLineIn(new ByteArrayInputStream(out.toByteArray()));
+    // Skip the capability advertisement, which ends with a flush-pkt, like the refs do.
+    while (!pckIn.readString().isEmpty()) {}
+    List<String> refs = new ArrayList<>();
+    for (String line = pckIn.readString(); !line.isEmpty(); line = pckIn.readString()) {
+      refs.add(line.split(" ")[1]);
+    }
+    return refs;
+  }
+
   private List<String> getRefs(Git git) throws Exception {
     return getRefs(git, Predicates.alwaysTrue());
   }
@@ -315,6 +315,35 @@ public class SubmitOnPushIT extends AbstractDaemonTest {
     assertThat(cd1.patchSet(psId1_2).getRevision().get()).isEqualTo(c1_2.name());
   }
 
+  @Test
+  public void mergeOnPushToMultipleBranches() throws Exception {
+    String master = "refs/heads/master";
+    String other = "refs/heads/other";
+    grant(project, master, Permission.PUSH);
+    grant(project, other, Permission.CREATE);
+    grant(project, other, Permission.PUSH);
+    RevCommit masterRev = getRemoteHead();
+    pushCommitTo(masterRev, other);
+
+    PushOneCommit.Result r1 = push("refs/for/master", "Change 1", "a.txt", "content");
+    r1.assertOkStatus();
+    testRepo.reset(masterRev);
+    PushOneCommit.Result r2 = push("refs/for/other", "Change 2", "b.txt", "content");
+    r2.assertOkStatus();
+
+    git()
+        .push()
+        .setRefSpecs(
+            new RefSpec(r1.getCommit().name() + ":" + master),
+            new RefSpec(r2.getCommit().name() + ":" + other))
+        .call();
+
+    assertThat(r1.getChange().change().isMerged()).isTrue();
+    assertSubmitApproval(r1.getPatchSetId());
+    assertThat(r2.getChange().change().isMerged()).isTrue();
+    assertSubmitApproval(r2.getPatchSetId());
+  }
+
   private PatchSetApproval getSubmitter(PatchSet.Id patchSetId) throws Exception {
     ChangeNotes notes = notesFactory.createChecked(project, patchSetId.getParentKey()).load();
     return approvalsUtil.getSubmitter(notes, patchSetId);
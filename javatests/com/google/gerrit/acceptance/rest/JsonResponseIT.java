@@ -0,0 +1,59 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.acceptance.rest;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.net.HttpHeaders;
+import com.google.gerrit.acceptance.AbstractDaemonTest;
+import com.google.gerrit.acceptance.GerritConfig;
+import com.google.gerrit.acceptance.RestResponse;
+import com.google.gerrit.extensions.common.ProjectInfo;
+import com.google.gson.reflect.TypeToken;
+import java.util.Map;
+import org.junit.Test;
+
+public class JsonResponseIT extends AbstractDaemonTest {
+  @Test
+  public void smallResponseIsBuffered() throws Exception {
+    RestResponse r = adminRestSession.get("/projects/?d");
+    r.assertOK();
+    assertThat(r.getHeader(HttpHeaders.TRANSFER_ENCODING)).isNull();
+    assertThat(listProjects(r)).containsKey(project.get());
+  }
+
+  @Test
+  @GerritConfig(name = "http.jsonResponseBufferSize", value = "0")
+  public void largeResponseIsStreamed() throws Exception {
+    RestResponse r = adminRestSession.get("/projects/?d");
+    r.assertOK();
+    assertThat(r.getHeader(HttpHeaders.TRANSFER_ENCODING)).isEqualTo("chunked");
+    assertThat(listProjects(r)).containsKey(project.get());
+  }
+
+  @Test
+  @GerritConfig(name = "http.jsonResponseBufferSize", value = "0")
+  public void headResponseIsBuffered() throws Exception {
+    RestResponse r = adminRestSession.head("/projects/?d");
+    r.assertOK();
+    assertThat(r.getHeader(HttpHeaders.TRANSFER_ENCODING)).isNull();
+    assertThat(r.getHeader(HttpHeaders.CONTENT_LENGTH)).isNotNull();
+  }
+
+  private static Map<String, ProjectInfo> listProjects(RestResponse r) throws Exception {
+    return newGson()
+        .fromJson(r.getReader(), new TypeToken<Map<String, ProjectInfo>>() {}.getType());
+  }
+}
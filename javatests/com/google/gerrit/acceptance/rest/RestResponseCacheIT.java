@@ -0,0 +1,114 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.acceptance.rest;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.cache.Cache;
+import com.google.gerrit.acceptance.AbstractDaemonTest;
+import com.google.gerrit.acceptance.GerritConfig;
+import com.google.gerrit.acceptance.PushOneCommit;
+import com.google.gerrit.acceptance.RestResponse;
+import com.google.gerrit.extensions.api.changes.RelatedChangesInfo;
+import com.google.gerrit.extensions.api.changes.ReviewInput;
+import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.gerrit.extensions.registration.DynamicMap;
+import com.google.inject.Inject;
+import org.junit.Test;
+
+public class RestResponseCacheIT extends AbstractDaemonTest {
+  @Inject private DynamicMap<Cache<?, ?>> caches;
+
+  @Test
+  @GerritConfig(name = "cache.rest_responses.memoryLimit", value = "1m")
+  public void updatedChangeIsNotServedFromCache() throws Exception {
+    PushOneCommit.Result r = createChange();
+    String url = "/changes/" + r.getChangeId() + "/detail";
+
+    ChangeInfo info = getDetail(url);
+    long hits = hitCount();
+    assertThat(getDetail(url).messages).hasSize(info.messages.size());
+    assertThat(hitCount()).isEqualTo(hits + 1);
+
+    gApi.changes().id(r.getChangeId()).current().review(ReviewInput.recommend());
+
+    assertThat(getDetail(url).messages).hasSize(info.messages.size() + 1);
+    assertThat(hitCount()).isEqualTo(hits + 1);
+  }
+
+  @Test
+  @GerritConfig(name = "cache.rest_responses.memoryLimit", value = "1m")
+  public void starredChangeIsNotServedFromCache() throws Exception {
+    PushOneCommit.Result r = createChange();
+    String url = "/changes/" + r.getChangeId() + "/detail";
+
+    assertThat(getDetail(url).starred).isNull();
+    long hits = hitCount();
+    assertThat(getDetail(url).starred).isNull();
+    assertThat(hitCount()).isEqualTo(hits + 1);
+
+    // Stars are stored in All-Users, but change the ETag of the change for the user.
+    gApi.accounts().self().starChange(r.getChangeId());
+
+    assertThat(getDetail(url).starred).isTrue();
+    assertThat(hitCount()).isEqualTo(hits + 1);
+  }
+
+  @Test
+  @GerritConfig(name = "cache.rest_responses.memoryLimit", value = "1m")
+  public void updateOfProjectDropsCachedResponses() throws Exception {
+    PushOneCommit.Result r = createChange();
+    createChange();
+    String url = "/changes/" + r.getChangeId() + "/revisions/current/related";
+
+    assertThat(getRelated(url).changes).hasSize(2);
+    long hits = hitCount();
+    assertThat(getRelated(url).changes).hasSize(2);
+    assertThat(hitCount()).isEqualTo(hits + 1);
+
+    // The new change does not modify the first change, but is related to it.
+    createChange();
+
+    assertThat(getRelated(url).changes).hasSize(3);
+    assertThat(hitCount()).isEqualTo(hits + 1);
+  }
+
+  @Test
+  public void responsesAreNotCachedByDefault() throws Exception {
+    PushOneCommit.Result r = createChange();
+    String url = "/changes/" + r.getChangeId() + "/detail";
+
+    getDetail(url);
+    getDetail(url);
+    assertThat(hitCount()).isEqualTo(0);
+    assertThat(caches.get("gerrit", "rest_responses").size()).isEqualTo(0);
+  }
+
+  private long hitCount() {
+    return caches.get("gerrit", "rest_responses").stats().hitCount();
+  }
+
+  private ChangeInfo getDetail(String url) throws Exception {
+    RestResponse r = adminRestSession.get(url);
+    r.assertOK();
+    return newGson().fromJson(r.getReader(), ChangeInfo.class);
+  }
+
+  private RelatedChangesInfo getRelated(String url) throws Exception {
+    RestResponse r = adminRestSession.get(url);
+    r.assertOK();
+    return newGson().fromJson(r.getReader(), RelatedChangesInfo.class);
+  }
+}
@@ -0,0 +1,149 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.acceptance.rest.change;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.cache.Cache;
+import com.google.gerrit.acceptance.AbstractDaemonTest;
+import com.google.gerrit.acceptance.NoHttpd;
+import com.google.gerrit.acceptance.PushOneCommit;
+import com.google.gerrit.acceptance.TestAccount;
+import com.google.gerrit.acceptance.testsuite.project.ProjectOperations;
+import com.google.gerrit.common.data.Permission;
+import com.google.gerrit.extensions.registration.DynamicMap;
+import com.google.gerrit.reviewdb.client.AccountGroup;
+import com.google.gerrit.reviewdb.client.Branch;
+import com.google.gerrit.reviewdb.client.Change;
+import com.google.gerrit.reviewdb.client.Project;
+import com.google.gerrit.server.submit.ChangeSet;
+import com.google.gerrit.server.submit.MergeSuperSet;
+import com.google.gerrit.testing.ConfigSuite;
+import com.google.inject.Inject;
+import com.google.inject.Provider;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.lib.Config;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.Before;
+import org.junit.Test;
+
+@NoHttpd
+public class MergeSuperSetIT extends AbstractDaemonTest {
+  @Inject private DynamicMap<Cache<?, ?>> caches;
+  @Inject private Provider<MergeSuperSet> mergeSuperSet;
+  @Inject private ProjectOperations projectOperations;
+
+  private PushOneCommit.Result change1a;
+  private PushOneCommit.Result change1b;
+  private PushOneCommit.Result change1Stable;
+  private PushOneCommit.Result change2;
+  private PushOneCommit.Result change2Unrelated;
+
+  @ConfigSuite.Default
+  public static Config submitWholeTopicEnabled() {
+    return submitWholeTopicEnabledConfig();
+  }
+
+  /** Walks all projects on the calling thread, one after the other. */
+  @ConfigSuite.Config
+  public static Config sequentialWalks() {
+    Config cfg = submitWholeTopicEnabledConfig();
+    cfg.setInt("execution", null, "fanOutThreadPoolSize", 0);
+    return cfg;
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    // The topic spans the master and stable branches of p1 and the master branch of p2.
+    Project.NameKey p1 = projectOperations.newProject().create();
+    Project.NameKey p2 = projectOperations.newProject().create();
+    createBranch(new Branch.NameKey(p1, "stable"));
+
+    TestRepository<?> repo1 = cloneProject(p1);
+    TestRepository<?> repo2 = cloneProject(p2);
+    RevCommit initialHead1 = getRemoteHead(p1, "master");
+    RevCommit initialHead2 = getRemoteHead(p2, "master");
+
+    change1a = createChange(repo1, "master", "ancestor without topic", "a.txt", "1", "ancestor");
+    change1b = createChange(repo1, "master", "change on master", "a.txt", "2", "topic");
+    repo1.reset(initialHead1);
+    change1Stable = createChange(repo1, "stable", "change on stable", "b.txt", "1", "topic");
+    change2 = createChange(repo2, "master", "change in p2", "a.txt", "1", "topic");
+    repo2.reset(initialHead2);
+    change2Unrelated = createChange(repo2, "master", "unrelated change", "c.txt", "1", "unrelated");
+
+    // The change in p2 is not visible to user.
+    String group = gApi.groups().create(name("no-p2")).get().id;
+    gApi.groups().id(group).addMembers(user.username);
+    block(p2, "refs/*", Permission.READ, new AccountGroup.UUID(group));
+
+    walks().invalidateAll();
+  }
+
+  @Test
+  public void superSetSpansProjectsAndBranches() throws Exception {
+    ChangeSet cs = completeChangeSet(admin);
+    assertThat(cs.ids())
+        .containsExactly(id(change1a), id(change1b), id(change1Stable), id(change2));
+    assertThat(cs.nonVisibleIds()).isEmpty();
+    assertThat(cs.ids()).doesNotContain(id(change2Unrelated));
+  }
+
+  @Test
+  public void superSetFromCachedWalksEqualsComputedSuperSet() throws Exception {
+    ChangeSet computed = completeChangeSet(admin);
+
+    long hits = walks().stats().hitCount();
+    ChangeSet cached = completeChangeSet(admin);
+    assertThat(walks().stats().hitCount()).isGreaterThan(hits);
+
+    assertThat(cached.ids()).isEqualTo(computed.ids());
+    assertThat(cached.nonVisibleIds()).isEqualTo(computed.nonVisibleIds());
+  }
+
+  @Test
+  public void cachedWalksDoNotLeakToUsersWithDifferentVisibility() throws Exception {
+    // Walks for admin, who can see all changes, are cached first.
+    completeChangeSet(admin);
+
+    ChangeSet forUser = completeChangeSet(user);
+    assertThat(forUser.ids()).containsExactly(id(change1a), id(change1b), id(change1Stable));
+    assertThat(forUser.nonVisibleIds()).containsExactly(id(change2));
+
+    // The same result without any cached walks.
+    walks().invalidateAll();
+    ChangeSet uncached = completeChangeSet(user);
+    assertThat(uncached.ids()).isEqualTo(forUser.ids());
+    assertThat(uncached.nonVisibleIds()).isEqualTo(forUser.nonVisibleIds());
+
+    // And the walks for user don't hide changes from admin.
+    ChangeSet forAdmin = completeChangeSet(admin);
+    assertThat(forAdmin.ids())
+        .containsExactly(id(change1a), id(change1b), id(change1Stable), id(change2));
+    assertThat(forAdmin.nonVisibleIds()).isEmpty();
+  }
+
+  private ChangeSet completeChangeSet(TestAccount account) throws Exception {
+    return mergeSuperSet.get().completeChangeSet(change1b.getChange().change(), user(account));
+  }
+
+  private Cache<?, ?> walks() {
+    return caches.get("gerrit", "merge_super_set_walks");
+  }
+
+  private static Change.Id id(PushOneCommit.Result r) {
+    return r.getChange().getId();
+  }
+}
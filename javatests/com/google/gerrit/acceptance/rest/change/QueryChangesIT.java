@@ -0,0 +1,82 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.acceptance.rest.change;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.util.stream.Collectors.toList;
+
+import com.google.gerrit.acceptance.AbstractDaemonTest;
+import com.google.gerrit.acceptance.GerritConfig;
+import com.google.gerrit.acceptance.RestResponse;
+import com.google.gerrit.acceptance.RestSession;
+import com.google.gerrit.extensions.common.ChangeInfo;
+import com.google.gson.reflect.TypeToken;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+public class QueryChangesIT extends AbstractDaemonTest {
+  @Test
+  @GerritConfig(name = "change.formatThreads", value = "4")
+  public void queryResultsFormattedConcurrently() throws Exception {
+    List<String> expected = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      expected.add(0, createChange().getChangeId());
+    }
+
+    List<ChangeInfo> changes =
+        query(adminRestSession, "q=status:open&o=CURRENT_REVISION&o=MESSAGES");
+    assertThat(changes.stream().map(c -> c.changeId).collect(toList()))
+        .containsExactlyElementsIn(expected)
+        .inOrder();
+    for (ChangeInfo c : changes) {
+      assertThat(c.revisions).containsKey(c.currentRevision);
+      assertThat(c.messages).isNotEmpty();
+    }
+  }
+
+  @Test
+  @GerritConfig(name = "change.formatThreads", value = "4")
+  public void queryResultsFormattedConcurrentlyForCallingUser() throws Exception {
+    List<String> starred = new ArrayList<>();
+    for (int i = 0; i < 10; i++) {
+      String changeId = createChange().getChangeId();
+      if (i % 2 == 0) {
+        gApi.accounts().self().starChange(changeId);
+        starred.add(changeId);
+      }
+    }
+
+    List<ChangeInfo> forAdmin = query(adminRestSession, "q=status:open");
+    assertThat(forAdmin).hasSize(10);
+    assertThat(
+            forAdmin
+                .stream()
+                .filter(c -> Boolean.TRUE.equals(c.starred))
+                .map(c -> c.changeId)
+                .collect(toList()))
+        .containsExactlyElementsIn(starred);
+
+    List<ChangeInfo> forUser = query(userRestSession, "q=status:open");
+    assertThat(forUser).hasSize(10);
+    assertThat(forUser.stream().anyMatch(c -> Boolean.TRUE.equals(c.starred))).isFalse();
+  }
+
+  private static List<ChangeInfo> query(RestSession session, String params) throws Exception {
+    RestResponse r = session.get("/changes/?" + params);
+    r.assertOK();
+    return newGson().fromJson(r.getReader(), new TypeToken<List<ChangeInfo>>() {}.getType());
+  }
+}
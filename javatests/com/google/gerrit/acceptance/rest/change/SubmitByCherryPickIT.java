@@ -19,6 +19,7 @@ import static com.google.gerrit.extensions.client.ListChangesOption.CURRENT_REVI
 import static com.google.gerrit.extensions.client.ListChangesOption.MESSAGES;
 
 import com.google.common.collect.Iterables;
+import com.google.gerrit.acceptance.GerritConfig;
 import com.google.gerrit.acceptance.PushOneCommit;
 import com.google.gerrit.acceptance.TestProjectInput;
 import com.google.gerrit.common.FooterConstants;
@@ -34,6 +35,8 @@ import com.google.gerrit.server.git.ChangeMessageModifier;
 import com.google.gerrit.server.submit.CommitMergeStatus;
 import com.google.inject.Inject;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.revwalk.RevCommit;
 import org.junit.Test;
@@ -105,6 +108,26 @@ public class SubmitByCherryPickIT extends AbstractSubmit {
     assertThat(c.getFooterLines(FooterConstants.REVIEWED_ON)).hasSize(1);
   }
 
+  @Test
+  @GerritConfig(name = "change.submitThreads", value = "2")
+  public void submitWholeTopicMultipleProjectsConcurrently() throws Exception {
+    // Commit messages are created while computing the new tip of each project.
+    Set<String> threads = ConcurrentHashMap.newKeySet();
+    RegistrationHandle handle =
+        changeMessageModifiers.add(
+            "gerrit",
+            (newCommitMessage, original, mergeTip, destination) -> {
+              threads.add(Thread.currentThread().getName());
+              return newCommitMessage;
+            });
+    try {
+      submitWholeTopicMultipleProjects();
+    } finally {
+      handle.remove();
+    }
+    assertThat(threads.stream().anyMatch(t -> t.startsWith("Submit-"))).isTrue();
+  }
+
   @Test
   @TestProjectInput(useContentMerge = InheritableBoolean.TRUE)
   public void submitWithContentMerge() throws Exception {
@@ -20,6 +20,8 @@ import static com.google.gerrit.acceptance.GitUtil.pushHead;
 import static com.google.gerrit.extensions.common.testing.EditInfoSubject.assertThat;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.gerrit.acceptance.AbstractDaemonTest;
@@ -52,6 +54,7 @@ import com.google.gerrit.testing.ConfigSuite;
 import com.google.gerrit.testing.TestTimeUtil;
 import com.google.gwtorm.server.OrmException;
 import com.google.inject.Inject;
+import com.google.inject.name.Named;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -80,6 +83,10 @@ public class GetRelatedIT extends AbstractDaemonTest {
   @Inject private GroupOperations groupOperations;
   @Inject private RequestScopeOperations requestScopeOperations;
 
+  @Inject
+  @Named("related_commits")
+  private Cache<ObjectId, byte[]> relatedCommits;
+
   private String systemTimeZone;
 
   @Before
@@ -117,6 +124,33 @@ public class GetRelatedIT extends AbstractDaemonTest {
     }
   }
 
+  @Test
+  public void getRelatedReadsCommitsFromCache() throws Exception {
+    // 1,1---2,1
+    RevCommit c1_1 = commitBuilder().add("a.txt", "1").message("subject: 1").create();
+    RevCommit c2_1 = commitBuilder().add("b.txt", "2").message("subject: 2").create();
+    pushHead(testRepo, "refs/for/master", false);
+    PatchSet.Id ps2_1 = getPatchSetId(c2_1);
+
+    // The second lookup reads the commits from the cache instead of the repository.
+    for (int i = 0; i < 2; i++) {
+      CacheStats before = relatedCommits.stats();
+      List<RelatedChangeAndCommitInfo> related =
+          gApi.changes().id(ps2_1.getParentKey().get()).revision(ps2_1.get()).related().changes;
+      assertThat(related).hasSize(2);
+      CommitInfo commit = related.get(0).commit;
+      assertThat(commit.commit).isEqualTo(c2_1.name());
+      assertThat(commit.subject).isEqualTo("subject: 2");
+      assertThat(commit.author.name).isEqualTo(parseBody(c2_1).getAuthorIdent().getName());
+      assertThat(commit.parents).hasSize(1);
+      assertThat(commit.parents.get(0).commit).isEqualTo(c1_1.name());
+
+      CacheStats stats = relatedCommits.stats().minus(before);
+      assertThat(stats.missCount()).isEqualTo(i == 0 ? 2 : 0);
+      assertThat(stats.hitCount()).isEqualTo(i == 0 ? 0 : 2);
+    }
+  }
+
   @Test
   public void getRelatedLinearSeparatePushes() throws Exception {
     // 1,1---2,1
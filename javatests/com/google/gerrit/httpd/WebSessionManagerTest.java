@@ -0,0 +1,56 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.httpd;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.gerrit.httpd.WebSessionManager.Val;
+import com.google.gerrit.reviewdb.client.Account;
+import com.google.gerrit.server.account.externalids.ExternalId;
+import com.google.gerrit.testing.GerritBaseTests;
+import org.junit.Test;
+
+public class WebSessionManagerTest extends GerritBaseTests {
+  @Test
+  public void valSerializer() {
+    Val val =
+        new Val(
+            new Account.Id(1000),
+            1234567L,
+            true,
+            ExternalId.Key.create(ExternalId.SCHEME_USERNAME, "jdoe"),
+            7654321L,
+            "session",
+            "auth");
+    Val copy = Val.Serializer.INSTANCE.deserialize(Val.Serializer.INSTANCE.serialize(val));
+    assertThat(copy.getAccountId()).isEqualTo(val.getAccountId());
+    assertThat(copy.isPersistentCookie()).isTrue();
+    assertThat(copy.getExternalId()).isEqualTo(val.getExternalId());
+    assertThat(copy.getExpiresAt()).isEqualTo(7654321L);
+    assertThat(copy.getSessionId()).isEqualTo("session");
+    assertThat(copy.getAuth()).isEqualTo("auth");
+  }
+
+  @Test
+  public void valSerializerWithoutOptionalFields() {
+    Val val = new Val(new Account.Id(1000), 1234567L, false, null, 7654321L, null, null);
+    Val copy = Val.Serializer.INSTANCE.deserialize(Val.Serializer.INSTANCE.serialize(val));
+    assertThat(copy.getAccountId()).isEqualTo(val.getAccountId());
+    assertThat(copy.isPersistentCookie()).isFalse();
+    assertThat(copy.getExternalId()).isNull();
+    assertThat(copy.getSessionId()).isNull();
+    assertThat(copy.getAuth()).isNull();
+  }
+}
@@ -83,17 +83,49 @@ public class PerThreadCacheTest extends GerritBaseTests {
 
   @Test
   public void enforceMaxSize() {
-    try (PerThreadCache cache = PerThreadCache.create()) {
+    try (PerThreadCache cache = PerThreadCache.create(25, null)) {
       // Fill the cache
       for (int i = 0; i < 50; i++) {
         PerThreadCache.Key<String> key = PerThreadCache.Key.create(String.class, i);
         cache.get(key, () -> "cached value");
       }
-      // Assert that the value was not persisted
-      PerThreadCache.Key<String> key = PerThreadCache.Key.create(String.class, 1000);
-      cache.get(key, () -> "new value");
+      // Assert that the oldest values were evicted
+      PerThreadCache.Key<String> key = PerThreadCache.Key.create(String.class, 0);
       String value = cache.get(key, () -> "directly served");
       assertThat(value).isEqualTo("directly served");
+
+      // Assert that new values are still cached
+      key = PerThreadCache.Key.create(String.class, 1000);
+      cache.get(key, () -> "new value");
+      value = cache.get(key, () -> "directly served");
+      assertThat(value).isEqualTo("new value");
+    }
+  }
+
+  @Test
+  public void evictLeastRecentlyUsed() {
+    try (PerThreadCache cache = PerThreadCache.create(2, null)) {
+      PerThreadCache.Key<String> key1 = PerThreadCache.Key.create(String.class, 1);
+      PerThreadCache.Key<String> key2 = PerThreadCache.Key.create(String.class, 2);
+      PerThreadCache.Key<String> key3 = PerThreadCache.Key.create(String.class, 3);
+      cache.get(key1, () -> "value1");
+      cache.get(key2, () -> "value2");
+      // Use key1, so that key2 becomes the least recently used entry.
+      cache.get(key1, () -> "other value1");
+      cache.get(key3, () -> "value3");
+
+      assertThat(cache.get(key1, () -> "other value1")).isEqualTo("value1");
+      assertThat(cache.get(key3, () -> "other value3")).isEqualTo("value3");
+      assertThat(cache.get(key2, () -> "other value2")).isEqualTo("other value2");
+    }
+  }
+
+  @Test
+  public void zeroMaxEntriesDisablesCaching() {
+    try (PerThreadCache cache = PerThreadCache.create(0, null)) {
+      PerThreadCache.Key<String> key = PerThreadCache.Key.create(String.class);
+      cache.get(key, () -> "value1");
+      assertThat(cache.get(key, () -> "value2")).isEqualTo("value2");
     }
   }
 }
@@ -16,38 +16,103 @@ package com.google.gerrit.server.cache.h2;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import com.google.common.base.Ticker;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.BloomFilter;
 import com.google.common.util.concurrent.MoreExecutors;
+import com.google.gerrit.extensions.registration.DynamicItem;
+import com.google.gerrit.metrics.Description;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.google.gerrit.metrics.Field;
+import com.google.gerrit.metrics.Timer1;
+import com.google.gerrit.server.cache.RemoteCacheStore;
 import com.google.gerrit.server.cache.h2.H2CacheImpl.SqlStore;
 import com.google.gerrit.server.cache.h2.H2CacheImpl.ValueHolder;
 import com.google.gerrit.server.cache.serialize.StringCacheSerializer;
+import com.google.gerrit.server.cache.testing.InMemoryRemoteCacheStore;
 import com.google.inject.TypeLiteral;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Locale;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 public class H2CacheTest {
   private static final TypeLiteral<String> KEY_TYPE = new TypeLiteral<String>() {};
   private static final int DEFAULT_VERSION = 1234;
   private static int dbCnt;
 
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   private static int nextDbId() {
     return ++dbCnt;
   }
 
   private static H2CacheImpl<String, String> newH2CacheImpl(
       int id, Cache<String, ValueHolder<String>> mem, int version) {
-    SqlStore<String, String> store =
-        new SqlStore<>(
-            "jdbc:h2:mem:Test_" + id,
-            KEY_TYPE,
-            StringCacheSerializer.INSTANCE,
-            StringCacheSerializer.INSTANCE,
-            version,
-            1 << 20,
-            null);
-    return new H2CacheImpl<>(MoreExecutors.directExecutor(), store, KEY_TYPE, mem);
+    return newH2CacheImpl(id, mem, version, 1);
+  }
+
+  private static H2CacheImpl<String, String> newH2CacheImpl(
+      int id, Cache<String, ValueHolder<String>> mem, int version, int writeBatchSize) {
+    SqlStore<String, String> store = newMemSqlStore(id, version);
+    return new H2CacheImpl<>(store, newWriter(store, writeBatchSize), null, KEY_TYPE, mem);
+  }
+
+  private static H2CacheImpl<String, String> newH2CacheImpl(
+      int id, Cache<String, ValueHolder<String>> mem, RemoteTier<String, String> remote) {
+    SqlStore<String, String> store = newMemSqlStore(id, DEFAULT_VERSION);
+    return new H2CacheImpl<>(store, newWriter(store, 1), remote, KEY_TYPE, mem);
+  }
+
+  private static SqlStore<String, String> newMemSqlStore(int id, int version) {
+    return new SqlStore<>(
+        "jdbc:h2:mem:Test_" + id,
+        KEY_TYPE,
+        StringCacheSerializer.INSTANCE,
+        StringCacheSerializer.INSTANCE,
+        version,
+        1 << 20,
+        null,
+        null);
+  }
+
+  private static WriteBehindQueue<String, String> newWriter(
+      SqlStore<String, String> store, int writeBatchSize) {
+    return new WriteBehindQueue<>(
+        "test",
+        MoreExecutors.directExecutor(),
+        store,
+        writeBatchSize,
+        writeBatchSize,
+        newFlushLatencyTimer());
+  }
+
+  private static RemoteTier<String, String> newRemoteTier(RemoteCacheStore remoteStore) {
+    return new RemoteTier<>(
+        "test",
+        DEFAULT_VERSION,
+        StringCacheSerializer.INSTANCE,
+        StringCacheSerializer.INSTANCE,
+        DynamicItem.itemOf(RemoteCacheStore.class, remoteStore),
+        MoreExecutors.directExecutor(),
+        Duration.ofMinutes(1),
+        Duration.ofSeconds(10));
+  }
+
+  private static Timer1<String> newFlushLatencyTimer() {
+    return new DisabledMetricMaker()
+        .newTimer("flush_latency", new Description("test"), Field.ofString("cache_name"));
   }
 
   @Test
@@ -123,6 +188,178 @@ public class H2CacheTest {
     assertThat(oldImpl.getIfPresent("key")).isNull();
   }
 
+  @Test
+  public void putsAreWrittenInBatches() {
+    H2CacheImpl<String, String> impl =
+        newH2CacheImpl(nextDbId(), disableMemCache(), DEFAULT_VERSION, 3);
+
+    impl.put("k1", "v1");
+    impl.put("k2", "v2");
+    impl.put("k1", "v1b");
+    assertThat(impl.writeQueueSize()).isEqualTo(2);
+    assertThat(impl.diskStats().size()).isEqualTo(0);
+
+    impl.put("k3", "v3");
+    assertThat(impl.writeQueueSize()).isEqualTo(0);
+    assertThat(impl.diskStats().size()).isEqualTo(3);
+    assertThat(impl.getIfPresent("k1")).isEqualTo("v1b");
+
+    impl.put("k4", "v4");
+    impl.invalidate("k4");
+    impl.flush();
+    assertThat(impl.getIfPresent("k4")).isNull();
+    assertThat(impl.diskStats().size()).isEqualTo(3);
+  }
+
+  @Test
+  public void pruneStepEvictsUntilWithinDiskLimit() {
+    SqlStore<String, String> store =
+        new SqlStore<>(
+            "jdbc:h2:mem:Test_" + nextDbId(),
+            KEY_TYPE,
+            StringCacheSerializer.INSTANCE,
+            StringCacheSerializer.INSTANCE,
+            DEFAULT_VERSION,
+            30,
+            null,
+            null);
+    for (int i = 0; i < 5; i++) {
+      ValueHolder<String> h = new ValueHolder<>("val" + i);
+      h.created = System.currentTimeMillis();
+      store.put("key" + i, h);
+    }
+    assertThat(store.diskStats().space()).isEqualTo(80);
+
+    Cache<String, ValueHolder<String>> mem = CacheBuilder.newBuilder().build();
+    mem.put("key0", new ValueHolder<>("val0"));
+    store.pruneStep(mem, Duration.ofMinutes(1));
+
+    assertThat(store.diskStats().space()).isEqualTo(16);
+    assertThat(store.diskStats().evictionCount()).isEqualTo(4);
+    assertThat(store.getIfPresent("key0")).isNotNull();
+  }
+
+  @Test
+  public void bloomFilterIsRestoredFromSnapshot() throws Exception {
+    Path dir = temporaryFolder.newFolder().toPath();
+    Path snapshot = dir.resolve("test.bloom");
+    SqlStore<String, String> store = newFileSqlStore(dir, snapshot);
+    store.open();
+    ValueHolder<String> h = new ValueHolder<>("bar");
+    h.created = System.currentTimeMillis();
+    store.put("foo", h);
+    long created = store.diskStats().bloomFilter().created();
+    store.close();
+    assertThat(Files.exists(snapshot)).isTrue();
+
+    SqlStore<String, String> reopened = newFileSqlStore(dir, snapshot);
+    reopened.open();
+    assertThat(reopened.diskStats().bloomFilter().created()).isEqualTo(created);
+    assertThat(reopened.mightContain("foo")).isTrue();
+    reopened.close();
+
+    // A snapshot that no longer matches the table is rebuilt.
+    BloomFilter<String> empty = BloomFilter.create(StringKeyTypeImpl.INSTANCE.funnel(), 100);
+    new BloomFilterSnapshot<>(empty, DEFAULT_VERSION, created, 0).write(snapshot);
+    SqlStore<String, String> rebuilt = newFileSqlStore(dir, snapshot);
+    rebuilt.open();
+    assertThat(rebuilt.mightContain("foo")).isTrue();
+    rebuilt.close();
+  }
+
+  @Test
+  public void valueComputedByOneServerIsReadFromRemoteTierByAnother() throws Exception {
+    InMemoryRemoteCacheStore remoteStore = new InMemoryRemoteCacheStore();
+    H2CacheImpl<String, String> first =
+        newH2CacheImpl(nextDbId(), disableMemCache(), newRemoteTier(remoteStore));
+    H2CacheImpl<String, String> second =
+        newH2CacheImpl(nextDbId(), disableMemCache(), newRemoteTier(remoteStore));
+
+    assertThat(first.get("foo", () -> "bar")).isEqualTo("bar");
+    assertThat(remoteStore.size()).isEqualTo(1);
+
+    AtomicBoolean called = new AtomicBoolean();
+    assertThat(
+            second.get(
+                "foo",
+                () -> {
+                  called.set(true);
+                  return "baz";
+                }))
+        .isEqualTo("bar");
+    assertThat(called.get()).named("Callable was called").isFalse();
+    assertThat(second.diskStats().size()).named("entries copied to disk").isEqualTo(1);
+  }
+
+  @Test
+  public void expiredRemoteEntriesAreRecomputed() throws Exception {
+    AtomicLong nanos = new AtomicLong();
+    InMemoryRemoteCacheStore remoteStore =
+        new InMemoryRemoteCacheStore(
+            new Ticker() {
+              @Override
+              public long read() {
+                return nanos.get();
+              }
+            });
+    H2CacheImpl<String, String> first =
+        newH2CacheImpl(nextDbId(), disableMemCache(), newRemoteTier(remoteStore));
+    H2CacheImpl<String, String> second =
+        newH2CacheImpl(nextDbId(), disableMemCache(), newRemoteTier(remoteStore));
+
+    first.put("foo", "bar");
+    nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+    assertThat(second.get("foo", () -> "baz")).isEqualTo("baz");
+  }
+
+  @Test
+  public void getAllReadsMissingKeysFromRemoteTierInOneRequest() throws Exception {
+    InMemoryRemoteCacheStore remoteStore = new InMemoryRemoteCacheStore();
+    H2CacheImpl<String, String> first =
+        newH2CacheImpl(nextDbId(), disableMemCache(), newRemoteTier(remoteStore));
+    first.put("foo", "FOO");
+    first.put("bar", "BAR");
+
+    SqlStore<String, String> store = newMemSqlStore(nextDbId(), DEFAULT_VERSION);
+    WriteBehindQueue<String, String> writer = newWriter(store, 1);
+    RemoteTier<String, String> remote = newRemoteTier(remoteStore);
+    AtomicInteger loads = new AtomicInteger();
+    LoadingCache<String, ValueHolder<String>> mem =
+        CacheBuilder.newBuilder()
+            .build(
+                new H2CacheImpl.Loader<>(
+                    store,
+                    writer,
+                    remote,
+                    new CacheLoader<String, String>() {
+                      @Override
+                      public String load(String key) {
+                        loads.incrementAndGet();
+                        return key.toUpperCase(Locale.US);
+                      }
+                    }));
+    H2CacheImpl<String, String> second = new H2CacheImpl<>(store, writer, remote, KEY_TYPE, mem);
+
+    int requests = remoteStore.requestCount();
+    assertThat(second.getAll(ImmutableList.of("foo", "bar", "baz")))
+        .containsExactly("foo", "FOO", "bar", "BAR", "baz", "BAZ");
+    assertThat(loads.get()).named("loaded values").isEqualTo(1);
+    // "baz" is not looked up in the remote tier again before it is loaded.
+    assertThat(remoteStore.requestCount() - requests).isEqualTo(1);
+  }
+
+  private static SqlStore<String, String> newFileSqlStore(Path dir, Path snapshot) {
+    return new SqlStore<>(
+        "jdbc:h2:" + dir.resolve("test").toUri(),
+        KEY_TYPE,
+        StringCacheSerializer.INSTANCE,
+        StringCacheSerializer.INSTANCE,
+        DEFAULT_VERSION,
+        1 << 20,
+        null,
+        snapshot);
+  }
+
   private static <K, V> Cache<K, ValueHolder<V>> disableMemCache() {
     return CacheBuilder.newBuilder().maximumSize(0).build();
   }
@@ -0,0 +1,147 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.cache.h2;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.gerrit.server.cache.h2.H2CacheImpl.ValueHolder;
+import com.google.gerrit.server.cache.serialize.StringCacheSerializer;
+import java.nio.file.Path;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SegmentStoreTest {
+  private static final int DEFAULT_VERSION = 1234;
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path dir;
+
+  @Before
+  public void setUp() throws Exception {
+    dir = temporaryFolder.newFolder().toPath();
+  }
+
+  private SegmentStore<String, String> newStore(int version, long maxSize, long segmentSize) {
+    SegmentStore<String, String> store =
+        new SegmentStore<>(
+            dir,
+            StringCacheSerializer.INSTANCE,
+            StringCacheSerializer.INSTANCE,
+            version,
+            maxSize,
+            null,
+            segmentSize);
+    store.open();
+    return store;
+  }
+
+  private static ValueHolder<String> holder(String value) {
+    return holder(value, System.currentTimeMillis());
+  }
+
+  private static ValueHolder<String> holder(String value, long created) {
+    ValueHolder<String> h = new ValueHolder<>(value);
+    h.created = created;
+    return h;
+  }
+
+  @Test
+  public void putAndGet() {
+    SegmentStore<String, String> store = newStore(DEFAULT_VERSION, 1 << 20, 1 << 20);
+    assertThat(store.mightContain("foo")).isFalse();
+    assertThat(store.getIfPresent("foo")).isNull();
+
+    store.put("foo", holder("bar"));
+    assertThat(store.mightContain("foo")).isTrue();
+    ValueHolder<String> h = store.getIfPresent("foo");
+    assertThat(h.value).isEqualTo("bar");
+    assertThat(h.clean).isTrue();
+
+    store.put("foo", holder("baz"));
+    assertThat(store.getIfPresent("foo").value).isEqualTo("baz");
+    assertThat(store.diskStats().size()).isEqualTo(1);
+    assertThat(store.diskStats().hitCount()).isEqualTo(2);
+    assertThat(store.diskStats().requestCount()).isEqualTo(3);
+  }
+
+  @Test
+  public void entriesSurviveReopen() {
+    SegmentStore<String, String> store = newStore(DEFAULT_VERSION, 1 << 20, 64);
+    for (int i = 0; i < 10; i++) {
+      store.put("key" + i, holder("value" + i));
+    }
+    store.invalidate("key3");
+    store.put("key5", holder("new"));
+    store.close();
+
+    SegmentStore<String, String> reopened = newStore(DEFAULT_VERSION, 1 << 20, 64);
+    assertThat(reopened.diskStats().size()).isEqualTo(9);
+    assertThat(reopened.getIfPresent("key0").value).isEqualTo("value0");
+    assertThat(reopened.getIfPresent("key3")).isNull();
+    assertThat(reopened.getIfPresent("key5").value).isEqualTo("new");
+    assertThat(reopened.getIfPresent("key9").value).isEqualTo("value9");
+  }
+
+  @Test
+  public void version() {
+    SegmentStore<String, String> oldStore = newStore(DEFAULT_VERSION, 1 << 20, 1 << 20);
+    oldStore.put("key", holder("val"));
+    oldStore.close();
+
+    SegmentStore<String, String> newStore = newStore(DEFAULT_VERSION + 1, 1 << 20, 1 << 20);
+    assertThat(newStore.mightContain("key")).isFalse();
+    assertThat(newStore.getIfPresent("key")).isNull();
+  }
+
+  @Test
+  public void invalidateAll() {
+    SegmentStore<String, String> store = newStore(DEFAULT_VERSION, 1 << 20, 1 << 20);
+    store.put("foo", holder("bar"));
+    store.invalidateAll();
+    assertThat(store.getIfPresent("foo")).isNull();
+    assertThat(store.diskStats().space()).isEqualTo(0);
+
+    store.put("foo", holder("baz"));
+    assertThat(store.getIfPresent("foo").value).isEqualTo("baz");
+  }
+
+  @Test
+  public void pruneEvictsLeastRecentlyAccessedAndCompacts() {
+    SegmentStore<String, String> store = newStore(DEFAULT_VERSION, 200, 128);
+    long created = System.currentTimeMillis() - 1000;
+    for (int i = 0; i < 20; i++) {
+      store.put("key" + i, holder("value" + i, created + i));
+    }
+    assertThat(store.getIfPresent("key0")).isNotNull();
+
+    Cache<String, ?> mem = CacheBuilder.newBuilder().build();
+    store.prune(mem);
+    assertThat(store.diskStats().space()).isAtMost(200L);
+    assertThat(store.diskStats().size()).isLessThan(20L);
+    assertThat(store.getIfPresent("key0")).isNotNull();
+    assertThat(store.getIfPresent("key1")).isNull();
+    store.close();
+
+    SegmentStore<String, String> reopened = newStore(DEFAULT_VERSION, 200, 128);
+    assertThat(reopened.diskStats().space()).isAtMost(200L);
+    assertThat(reopened.getIfPresent("key0").value).isEqualTo("value0");
+    assertThat(reopened.getIfPresent("key19").value).isEqualTo("value19");
+  }
+}
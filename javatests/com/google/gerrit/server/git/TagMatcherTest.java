@@ -0,0 +1,124 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.git;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.reviewdb.client.Project;
+import com.google.gerrit.testing.GerritBaseTests;
+import java.io.IOException;
+import org.eclipse.jgit.internal.storage.file.FileRepository;
+import org.eclipse.jgit.internal.storage.file.GC;
+import org.eclipse.jgit.junit.TestRepository;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TagMatcherTest extends GerritBaseTests {
+  private static final Project.NameKey PROJECT = new Project.NameKey("project");
+
+  @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private FileRepository repo;
+  private TestRepository<FileRepository> tr;
+  private TagCache tagCache;
+  private RevCommit base;
+  private RevCommit master;
+  private RevCommit side;
+
+  @Before
+  public void setUp() throws Exception {
+    repo = new FileRepository(temporaryFolder.newFolder("project.git"));
+    repo.create(true);
+    tr = new TestRepository<>(repo);
+    tagCache = new TagCache(CacheBuilder.newBuilder().build());
+
+    base = tr.commit().message("base").create();
+    master = tr.branch("refs/heads/master").commit().parent(base).message("master").create();
+    side = tr.commit().parent(base).message("side").create();
+    tr.update("refs/tags/base", base);
+    tr.update("refs/tags/side", side);
+
+    new GC(repo).gc();
+    assertThat(hasBitmapIndex(repo)).isTrue();
+  }
+
+  @After
+  public void tearDown() {
+    tr.close();
+    repo.close();
+  }
+
+  @Test
+  public void tagsReachableFromBranch() throws Exception {
+    assertThat(isReachable("base", "refs/heads/master")).isTrue();
+    assertThat(isReachable("side", "refs/heads/master")).isFalse();
+  }
+
+  @Test
+  public void rewoundBranchReachesTagsOfItsNewHistory() throws Exception {
+    assertThat(isReachable("side", "refs/heads/master")).isFalse();
+
+    tr.update("refs/heads/master", side);
+
+    assertThat(isReachable("side", "refs/heads/master")).isTrue();
+    assertThat(isReachable("base", "refs/heads/master")).isTrue();
+  }
+
+  @Test
+  public void newBranchNotAtExistingTip() throws Exception {
+    assertThat(isReachable("side", "refs/heads/master")).isFalse();
+
+    tr.update("refs/heads/stable", side);
+
+    assertThat(isReachable("side", "refs/heads/master", "refs/heads/stable")).isTrue();
+    assertThat(isReachable("side", "refs/heads/master")).isFalse();
+  }
+
+  @Test
+  public void newTag() throws Exception {
+    assertThat(isReachable("base", "refs/heads/master")).isTrue();
+
+    tr.update("refs/tags/master", master);
+    RevCommit unreachable = tr.commit().message("unreachable").create();
+    tr.update("refs/tags/unreachable", unreachable);
+
+    assertThat(isReachable("master", "refs/heads/master")).isTrue();
+    assertThat(isReachable("unreachable", "refs/heads/master")).isFalse();
+  }
+
+  private boolean isReachable(String tag, String... branches) throws IOException {
+    ImmutableList.Builder<Ref> include = ImmutableList.builder();
+    for (String branch : branches) {
+      include.add(repo.exactRef(branch));
+    }
+    TagMatcher m = tagCache.get(PROJECT).matcher(tagCache, repo, include.build());
+    return m.isReachable(repo.exactRef("refs/tags/" + tag));
+  }
+
+  private static boolean hasBitmapIndex(Repository repo) throws IOException {
+    try (RevWalk rw = new RevWalk(repo)) {
+      return rw.getObjectReader().getBitmapIndex() != null;
+    }
+  }
+}
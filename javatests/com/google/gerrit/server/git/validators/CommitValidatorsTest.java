@@ -0,0 +1,69 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.git.validators;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.gerrit.server.git.validators.CommitValidators.validatorName;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.extensions.registration.PluginName;
+import com.google.gerrit.server.events.CommitReceivedEvent;
+import java.util.List;
+import org.junit.Test;
+
+public class CommitValidatorsTest {
+  private static class NamedValidator implements CommitValidationListener {
+    @Override
+    public List<CommitValidationMessage> onCommitReceived(CommitReceivedEvent receiveEvent) {
+      return ImmutableList.of();
+    }
+  }
+
+  @Test
+  public void validatorNameOfCoreValidatorIsClassName() {
+    assertThat(validatorName(PluginName.GERRIT, new NamedValidator()))
+        .isEqualTo(NamedValidator.class.getName());
+  }
+
+  @Test
+  public void validatorNameOfPluginValidatorIsPrefixedByPluginName() {
+    assertThat(validatorName("foo", new NamedValidator()))
+        .isEqualTo("plugin/foo/" + NamedValidator.class.getName());
+    assertThat(validatorName("bar", new NamedValidator()))
+        .isEqualTo("plugin/bar/" + NamedValidator.class.getName());
+  }
+
+  @Test
+  public void validatorNameOfAnonymousValidator() {
+    CommitValidationListener validator =
+        new CommitValidationListener() {
+          @Override
+          public List<CommitValidationMessage> onCommitReceived(CommitReceivedEvent receiveEvent) {
+            return ImmutableList.of();
+          }
+        };
+    assertThat(validatorName("foo", validator))
+        .isEqualTo("plugin/foo/" + validator.getClass().getName());
+    assertThat(validatorName("foo", validator))
+        .startsWith("plugin/foo/" + CommitValidatorsTest.class.getName() + "$");
+  }
+
+  @Test
+  public void validatorNameOfLambdaValidatorIsStable() {
+    CommitValidationListener validator = e -> ImmutableList.of();
+    assertThat(validatorName("foo", validator))
+        .isEqualTo("plugin/foo/" + CommitValidatorsTest.class.getName() + "$$Lambda");
+  }
+}
@@ -29,11 +29,14 @@ import static org.junit.Assert.fail;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.ImmutableTable;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.gerrit.common.data.SubmitRecord;
 import com.google.gerrit.mail.Address;
 import com.google.gerrit.reviewdb.client.Account;
@@ -45,6 +48,7 @@ import com.google.gerrit.reviewdb.client.CommentRange;
 import com.google.gerrit.reviewdb.client.PatchLineComment.Status;
 import com.google.gerrit.reviewdb.client.PatchSet;
 import com.google.gerrit.reviewdb.client.PatchSetApproval;
+import com.google.gerrit.reviewdb.client.Project;
 import com.google.gerrit.reviewdb.client.RevId;
 import com.google.gerrit.server.CurrentUser;
 import com.google.gerrit.server.IdentifiedUser;
@@ -3074,4 +3078,38 @@ public class ChangeNotesTest extends AbstractChangeNotesTest {
   private RequestId submissionId(Change c) {
     return new RequestId(c.getId().toString());
   }
+
+  @Test
+  public void createAllLoadsChangesOfSeveralProjects() throws Exception {
+    Change c1 = newChange();
+    Change c2 = newChange();
+    Project.NameKey otherProject = new Project.NameKey("other-project");
+    repoManager.createRepository(otherProject);
+    Change c3 = TestChanges.newChange(otherProject, changeOwner.getAccountId());
+    ChangeUpdate update = newUpdateForNewChange(c3, changeOwner);
+    update.setChangeId(c3.getKey().get());
+    update.setBranch(c3.getDest().get());
+    update.commit();
+    Change.Id missing = new Change.Id(c3.getId().get() + 1000);
+
+    ChangeNotes.Factory factory =
+        new ChangeNotes.Factory(args, null, null, MoreExecutors.newDirectExecutorService());
+    ImmutableMap<Change.Id, ChangeNotes> notes =
+        factory.createAll(
+            ImmutableSetMultimap.of(
+                project, c1.getId(),
+                project, c2.getId(),
+                project, missing,
+                otherProject, c3.getId()));
+
+    assertThat(notes.keySet()).containsExactly(c1.getId(), c2.getId(), c3.getId());
+    for (Change c : ImmutableList.of(c1, c2, c3)) {
+      ChangeNotes expected = newNotes(c);
+      ChangeNotes actual = notes.get(c.getId());
+      assertThat(actual.getProjectName()).isEqualTo(c.getProject());
+      assertThat(actual.getRevision()).isEqualTo(expected.getRevision());
+      assertThat(actual.getChange().getKey()).isEqualTo(c.getKey());
+      assertThat(actual.getPatchSets().keySet()).isEqualTo(expected.getPatchSets().keySet());
+    }
+  }
 }
@@ -0,0 +1,67 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.patch;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.gerrit.extensions.client.DiffPreferencesInfo.Whitespace;
+import com.google.gerrit.testing.GerritBaseTests;
+import org.eclipse.jgit.diff.Edit;
+import org.eclipse.jgit.diff.ReplaceEdit;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Test;
+
+public class IntraLineDiffTest extends GerritBaseTests {
+  @Test
+  public void serializer() {
+    Edit inner = new Edit(0, 3, 0, 4);
+    ReplaceEdit replace = new ReplaceEdit(1, 2, 1, 2, ImmutableList.of(inner));
+    Edit insert = new Edit(5, 5, 5, 7);
+    IntraLineDiff diff = new IntraLineDiff(ImmutableList.of(replace, insert));
+
+    IntraLineDiff copy =
+        IntraLineDiff.Serializer.INSTANCE.deserialize(
+            IntraLineDiff.Serializer.INSTANCE.serialize(diff));
+    assertThat(copy.getStatus()).isEqualTo(IntraLineDiff.Status.EDIT_LIST);
+    assertThat(copy.getEdits()).containsExactly(replace, insert).inOrder();
+    assertThat(copy.getEdits().get(0)).isInstanceOf(ReplaceEdit.class);
+    assertThat(((ReplaceEdit) copy.getEdits().get(0)).getInternalEdits()).containsExactly(inner);
+    assertThat(copy.getEdits().get(1)).isNotInstanceOf(ReplaceEdit.class);
+  }
+
+  @Test
+  public void serializerOfStatus() {
+    IntraLineDiff copy =
+        IntraLineDiff.Serializer.INSTANCE.deserialize(
+            IntraLineDiff.Serializer.INSTANCE.serialize(
+                new IntraLineDiff(IntraLineDiff.Status.TIMEOUT)));
+    assertThat(copy.getStatus()).isEqualTo(IntraLineDiff.Status.TIMEOUT);
+    assertThat(copy.getEdits()).isEmpty();
+  }
+
+  @Test
+  public void keySerializer() {
+    IntraLineDiffKey key =
+        IntraLineDiffKey.create(
+            ObjectId.fromString("badc0feebadc0feebadc0feebadc0feebadc0fee"),
+            ObjectId.fromString("deadbeefdeadbeefdeadbeefdeadbeefdeadbeef"),
+            Whitespace.IGNORE_LEADING_AND_TRAILING);
+    assertThat(
+            IntraLineDiffKey.Serializer.INSTANCE.deserialize(
+                IntraLineDiffKey.Serializer.INSTANCE.serialize(key)))
+        .isEqualTo(key);
+  }
+}
@@ -14,13 +14,17 @@
 
 package com.google.gerrit.server.patch;
 
+import static com.google.common.truth.extensions.proto.ProtoTruth.assertThat;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import com.google.gerrit.reviewdb.client.Patch;
+import com.google.gerrit.server.cache.proto.Cache.EditProto;
+import com.google.gerrit.server.cache.proto.Cache.PatchListProto.PatchListEntryProto;
 import com.google.gerrit.testing.GerritBaseTests;
+import com.google.protobuf.ByteString;
 import org.junit.Test;
 
 public class PatchListEntryTest extends GerritBaseTests {
@@ -34,4 +38,42 @@ public class PatchListEntryTest extends GerritBaseTests {
     assertSame(Patch.ChangeType.MODIFIED, e.getChangeType());
     assertTrue(e.getEdits().isEmpty());
   }
+
+  @Test
+  public void protoRoundTrip() {
+    PatchListEntryProto proto =
+        PatchListEntryProto.newBuilder()
+            .setChangeType("RENAMED")
+            .setPatchType("UNIFIED")
+            .setOldName("old.txt")
+            .setNewName("new.txt")
+            .setHeader(ByteString.copyFromUtf8("diff --git a/old.txt b/new.txt\n"))
+            .addEdit(edit(1, 2, 1, 3))
+            .addEdit(edit(5, 5, 6, 7))
+            .addEditDueToRebase(edit(5, 5, 6, 7))
+            .setInsertions(2)
+            .setDeletions(1)
+            .setSize(123)
+            .setSizeDelta(-4)
+            .build();
+    PatchListEntry e = PatchListEntry.fromProto(proto);
+    assertEquals("old.txt", e.getOldName());
+    assertEquals(2, e.getEdits().size());
+    assertThat(e.toProto()).isEqualTo(proto);
+  }
+
+  @Test
+  public void protoRoundTripOfNullName() {
+    PatchListEntry e = PatchListEntry.empty("file");
+    assertNull(PatchListEntry.fromProto(e.toProto()).getOldName());
+  }
+
+  private static EditProto edit(int beginA, int endA, int beginB, int endB) {
+    return EditProto.newBuilder()
+        .setBeginA(beginA)
+        .setEndA(endA)
+        .setBeginB(beginB)
+        .setEndB(endB)
+        .build();
+  }
 }
@@ -15,7 +15,9 @@
 package com.google.gerrit.server.patch;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.util.stream.Collectors.toList;
 
+import com.google.gerrit.extensions.client.DiffPreferencesInfo.Whitespace;
 import com.google.gerrit.reviewdb.client.Patch;
 import com.google.gerrit.testing.GerritBaseTests;
 import java.io.ByteArrayInputStream;
@@ -24,6 +26,7 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.util.Arrays;
+import org.eclipse.jgit.lib.ObjectId;
 import org.junit.Test;
 
 public class PatchListTest extends GerritBaseTests {
@@ -69,4 +72,87 @@ public class PatchListTest extends GerritBaseTests {
       assertThat(ois.readObject()).isInstanceOf(PatchListCacheImpl.LargeObjectTombstone.class);
     }
   }
+
+  @Test
+  public void serializer() {
+    ObjectId oldId = ObjectId.fromString("badc0feebadc0feebadc0feebadc0feebadc0fee");
+    ObjectId newId = ObjectId.fromString("deadbeefdeadbeefdeadbeefdeadbeefdeadbeef");
+    PatchList list =
+        new PatchList(
+            oldId,
+            newId,
+            true,
+            ComparisonType.againstParent(2),
+            new PatchListEntry[] {
+              PatchListEntry.empty("b.txt"), PatchListEntry.empty(Patch.COMMIT_MSG)
+            });
+
+    PatchList copy =
+        PatchList.Serializer.INSTANCE.deserialize(PatchList.Serializer.INSTANCE.serialize(list));
+    assertThat(copy).isNotInstanceOf(PatchListCacheImpl.LargeObjectTombstone.class);
+    assertThat(copy.getOldId()).isEqualTo(oldId);
+    assertThat(copy.getNewId()).isEqualTo(newId);
+    assertThat(copy.getComparisonType().getParentNum()).isEqualTo(2);
+    assertThat(copy.getComparisonType().isAgainstAutoMerge()).isFalse();
+    assertThat(copy.getPatches().stream().map(PatchListEntry::getNewName).collect(toList()))
+        .containsExactly(Patch.COMMIT_MSG, "b.txt")
+        .inOrder();
+  }
+
+  @Test
+  public void serializerOfCombinedDiff() {
+    PatchList list =
+        new PatchList(
+            null,
+            ObjectId.fromString("deadbeefdeadbeefdeadbeefdeadbeefdeadbeef"),
+            true,
+            ComparisonType.againstAutoMerge(),
+            new PatchListEntry[0]);
+    PatchList copy =
+        PatchList.Serializer.INSTANCE.deserialize(PatchList.Serializer.INSTANCE.serialize(list));
+    assertThat(copy.getOldId()).isNull();
+    assertThat(copy.getComparisonType().isAgainstAutoMerge()).isTrue();
+    assertThat(copy.getComparisonType().isAgainstParent()).isFalse();
+  }
+
+  @Test
+  public void serializerOfLargeObjectTombstone() {
+    byte[] serialized =
+        PatchList.Serializer.INSTANCE.serialize(new PatchListCacheImpl.LargeObjectTombstone());
+    assertThat(PatchList.Serializer.INSTANCE.deserialize(serialized))
+        .isInstanceOf(PatchListCacheImpl.LargeObjectTombstone.class);
+  }
+
+  @Test
+  public void keySerializer() {
+    ObjectId oldId = ObjectId.fromString("badc0feebadc0feebadc0feebadc0feebadc0fee");
+    ObjectId newId = ObjectId.fromString("deadbeefdeadbeefdeadbeefdeadbeefdeadbeef");
+    for (PatchListKey key :
+        Arrays.asList(
+            PatchListKey.againstDefaultBase(newId, Whitespace.IGNORE_NONE),
+            PatchListKey.againstParentNum(1, newId, Whitespace.IGNORE_ALL),
+            PatchListKey.againstCommit(oldId, newId, Whitespace.IGNORE_TRAILING))) {
+      assertThat(
+              PatchListKey.Serializer.INSTANCE.deserialize(
+                  PatchListKey.Serializer.INSTANCE.serialize(key)))
+          .isEqualTo(key);
+
+      DiffSummaryKey summaryKey = DiffSummaryKey.fromPatchListKey(key);
+      assertThat(
+              DiffSummaryKey.Serializer.INSTANCE.deserialize(
+                  DiffSummaryKey.Serializer.INSTANCE.serialize(summaryKey)))
+          .isEqualTo(summaryKey);
+    }
+  }
+
+  @Test
+  public void diffSummarySerializer() {
+    DiffSummary summary = new DiffSummary(new String[] {"a.txt", "b/c.txt"}, 10, 3);
+    DiffSummary copy =
+        DiffSummary.Serializer.INSTANCE.deserialize(
+            DiffSummary.Serializer.INSTANCE.serialize(summary));
+    assertThat(copy.getPaths()).containsExactly("a.txt", "b/c.txt").inOrder();
+    assertThat(copy.getChangedLines().insertions).isEqualTo(10);
+    assertThat(copy.getChangedLines().deletions).isEqualTo(3);
+  }
 }
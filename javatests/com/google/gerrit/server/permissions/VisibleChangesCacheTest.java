@@ -0,0 +1,193 @@
+// Copyright (C) 2026 The Android Open Source Project
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+// http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.gerrit.server.permissions;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gerrit.extensions.api.changes.NotifyHandling;
+import com.google.gerrit.extensions.common.AccountInfo;
+import com.google.gerrit.extensions.events.GitReferenceUpdatedListener;
+import com.google.gerrit.metrics.DisabledMetricMaker;
+import com.google.gerrit.reviewdb.client.Account;
+import com.google.gerrit.reviewdb.client.AccountGroup;
+import com.google.gerrit.reviewdb.client.Branch;
+import com.google.gerrit.reviewdb.client.Change;
+import com.google.gerrit.reviewdb.client.Project;
+import com.google.gerrit.reviewdb.client.RefNames;
+import com.google.gerrit.server.permissions.VisibleChangesCache.VisibleChanges;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.eclipse.jgit.lib.ObjectId;
+import org.junit.Before;
+import org.junit.Test;
+
+public class VisibleChangesCacheTest {
+  private static final Project.NameKey PROJECT = new Project.NameKey("project");
+  private static final Branch.NameKey MASTER = new Branch.NameKey(PROJECT, "refs/heads/master");
+  private static final Branch.NameKey STABLE = new Branch.NameKey(PROJECT, "refs/heads/stable");
+
+  private VisibleChangesCache cache;
+  private VisibleChangesCache.Key key;
+  private FakeLoader loader;
+
+  @Before
+  public void setUp() {
+    cache = new VisibleChangesCache(CacheBuilder.newBuilder().build(), new DisabledMetricMaker());
+    key =
+        new AutoValue_VisibleChangesCache_Key(
+            PROJECT,
+            ImmutableList.of(ObjectId.zeroId()),
+            new Account.Id(1),
+            ImmutableSet.of(new AccountGroup.UUID("users")));
+    loader = new FakeLoader();
+  }
+
+  @Test
+  public void visibleChangesKeepTheirBranch() {
+    VisibleChanges visible =
+        VisibleChanges.create(0, ImmutableMap.of(id(30), STABLE, id(10), MASTER, id(20), MASTER));
+
+    assertThat(visible.size()).isEqualTo(3);
+    assertThat(visible.contains(id(10))).isTrue();
+    assertThat(visible.contains(id(15))).isFalse();
+    assertThat(visible.branch(id(20))).isEqualTo(MASTER);
+    assertThat(visible.branch(id(30))).isEqualTo(STABLE);
+    assertThat(visible.branch(id(40))).isNull();
+  }
+
+  @Test
+  public void unchangedProjectIsServedFromCache() throws Exception {
+    loader.visible.put(id(1), MASTER);
+
+    assertThat(cache.get(key, loader).contains(id(1))).isTrue();
+    assertThat(cache.get(key, loader).contains(id(1))).isTrue();
+
+    assertThat(loader.loadAllCount).isEqualTo(1);
+    assertThat(loader.loaded).isEmpty();
+  }
+
+  @Test
+  public void onlyUpdatedChangesAreCheckedAgain() throws Exception {
+    loader.visible.put(id(1), MASTER);
+    loader.visible.put(id(2), MASTER);
+    cache.get(key, loader);
+
+    loader.visible.remove(id(1));
+    loader.visible.put(id(3), STABLE);
+    cache.onGitReferenceUpdated(new MetaRefUpdate(id(1)));
+    cache.onGitReferenceUpdated(new MetaRefUpdate(id(3)));
+    VisibleChanges visible = cache.get(key, loader);
+
+    assertThat(loader.loadAllCount).isEqualTo(1);
+    assertThat(loader.loaded).containsExactly(id(1), id(3));
+    assertThat(visible.contains(id(1))).isFalse();
+    assertThat(visible.contains(id(2))).isTrue();
+    assertThat(visible.branch(id(3))).isEqualTo(STABLE);
+  }
+
+  @Test
+  public void tooManyUpdatesLoadAllChangesAgain() throws Exception {
+    cache.get(key, loader);
+
+    for (int i = 0; i <= VisibleChangesCache.MAX_LOGGED_UPDATES; i++) {
+      cache.onGitReferenceUpdated(new MetaRefUpdate(id(i + 1)));
+    }
+    cache.get(key, loader);
+
+    assertThat(loader.loadAllCount).isEqualTo(2);
+    assertThat(loader.loaded).isEmpty();
+  }
+
+  private static Change.Id id(int id) {
+    return new Change.Id(id);
+  }
+
+  private static class FakeLoader implements VisibleChangesCache.Loader {
+    final Map<Change.Id, Branch.NameKey> visible = new HashMap<>();
+    final List<Change.Id> loaded = new ArrayList<>();
+    int loadAllCount;
+
+    @Override
+    public Map<Change.Id, Branch.NameKey> loadAll() {
+      loadAllCount++;
+      return new HashMap<>(visible);
+    }
+
+    @Override
+    public Branch.NameKey load(Change.Id changeId) {
+      loaded.add(changeId);
+      return visible.get(changeId);
+    }
+  }
+
+  private static class MetaRefUpdate implements GitReferenceUpdatedListener.Event {
+    private final Change.Id changeId;
+
+    MetaRefUpdate(Change.Id changeId) {
+      this.changeId = changeId;
+    }
+
+    @Override
+    public String getProjectName() {
+      return PROJECT.get();
+    }
+
+    @Override
+    public String getRefName() {
+      return RefNames.changeMetaRef(changeId);
+    }
+
+    @Override
+    public String getOldObjectId() {
+      return ObjectId.zeroId().name();
+    }
+
+    @Override
+    public String getNewObjectId() {
+      return ObjectId.zeroId().name();
+    }
+
+    @Override
+    public boolean isCreate() {
+      return false;
+    }
+
+    @Override
+    public boolean isDelete() {
+      return false;
+    }
+
+    @Override
+    public boolean isNonFastForward() {
+      return false;
+    }
+
+    @Override
+    public AccountInfo getUpdater() {
+      return null;
+    }
+
+    @Override
+    public NotifyHandling getNotify() {
+      return NotifyHandling.ALL;
+    }
+  }
+}
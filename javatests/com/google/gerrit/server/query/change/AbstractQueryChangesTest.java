@@ -1231,6 +1231,59 @@ public abstract class AbstractQueryChangesTest extends GerritServerTests {
     assertQuery(newQuery("status:new limit:2").withStart(3));
   }
 
+  @Test
+  public void cursor() throws Exception {
+    TestRepository<Repo> repo = createProject("repo");
+    List<Change> changes = new ArrayList<>();
+    for (int i = 0; i < 5; i++) {
+      changes.add(insert(repo, newChange(repo)));
+    }
+
+    List<ChangeInfo> page = assertQuery("status:new limit:2", changes.get(4), changes.get(3));
+    String cursor = Iterables.getLast(page)._cursor;
+    assertThat(cursor).isNotNull();
+
+    page =
+        assertQuery(
+            newQuery("status:new limit:2").withCursor(cursor), changes.get(2), changes.get(1));
+    cursor = Iterables.getLast(page)._cursor;
+    assertThat(cursor).isNotNull();
+
+    page = assertQuery(newQuery("status:new limit:2").withCursor(cursor), changes.get(0));
+    assertThat(Iterables.getLast(page)._cursor).isNull();
+
+    assertThatQueryException(newQuery("status:new").withCursor("not-a-cursor"))
+        .hasMessageThat()
+        .isEqualTo("invalid cursor: not-a-cursor");
+  }
+
+  @Test
+  public void cursorBehindVisibilityFilter() throws Exception {
+    TestRepository<Repo> repo = createProject("repo");
+    List<Change> changes = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      // Every other change is private, and so not visible to the second user.
+      changes.add(insert(repo, newChange(repo).setPrivate(i % 2 == 1)));
+    }
+    // Abandoning a change moves it to the sub-index of closed changes, and makes it the most
+    // recently updated change.
+    gApi.changes().id(changes.get(2).getId().get()).abandon();
+
+    Account.Id user2 =
+        accountManager.authenticate(AuthRequest.forUser("anotheruser")).getAccountId();
+    requestContext.setContext(newRequestContext(user2));
+
+    // Each page skips private changes, so the index is read again after the last change read.
+    List<ChangeInfo> page = assertQuery("project:repo limit:2", changes.get(2), changes.get(6));
+    String cursor = Iterables.getLast(page)._cursor;
+    assertThat(cursor).isNotNull();
+
+    page =
+        assertQuery(
+            newQuery("project:repo limit:2").withCursor(cursor), changes.get(4), changes.get(0));
+    assertThat(Iterables.getLast(page)._cursor).isNull();
+  }
+
   @Test
   public void maxPages() throws Exception {
     TestRepository<Repo> repo = createProject("repo");
@@ -2088,6 +2141,31 @@ public abstract class AbstractQueryChangesTest extends GerritServerTests {
     assertQuery("conflicts:" + change4.getId().get());
   }
 
+  @Test
+  public void conflictsWithMoreCandidatesThanOneBatch() throws Exception {
+    TestRepository<Repo> repo = createProject("repo");
+    Change change = insert(repo, newChangeForCommit(repo, repo.commit().add("file", "1").create()));
+
+    // Query results are checked for conflicts in batches of 50 changes.
+    List<Change> conflicting = new ArrayList<>();
+    for (int i = 0; i < 60; i++) {
+      // Every other change adds the same file with the same content, which doesn't conflict.
+      String content = i % 2 == 0 ? "1" : "2";
+      RevCommit commit = repo.parseBody(repo.commit().add("file", content).create());
+      Change c = insert(repo, newChangeForCommit(repo, commit));
+      if (i % 2 != 0) {
+        conflicting.add(c);
+      }
+    }
+    insert(repo, newChangeForCommit(repo, repo.commit().add("other", "2").create()));
+
+    Change[] expected = Lists.reverse(conflicting).toArray(new Change[0]);
+    assertQuery("conflicts:" + change.getId().get(), expected);
+    // The second query finds the results in the conflicts cache.
+    assertQuery("conflicts:" + change.getId().get(), expected);
+    assertQuery("conflicts:" + change.getId().get() + " status:merged");
+  }
+
   @Test
   public void mergeable() throws Exception {
     TestRepository<Repo> repo = createProject("repo");
@@ -21,8 +21,10 @@ import com.google.gerrit.reviewdb.client.Account;
 import com.google.gerrit.reviewdb.client.Change;
 import com.google.gerrit.reviewdb.client.PatchSet;
 import com.google.gerrit.reviewdb.client.Project;
+import com.google.gerrit.server.index.change.ChangeField;
 import com.google.gerrit.testing.GerritBaseTests;
 import com.google.gerrit.testing.TestChanges;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.junit.Test;
 
 public class ChangeDataTest extends GerritBaseTests {
@@ -39,4 +41,35 @@ public class ChangeDataTest extends GerritBaseTests {
     PatchSet curr2 = cd.currentPatchSet();
     assertThat(curr2).isNotSameAs(curr1);
   }
+
+  @Test
+  public void undecodedFieldIsDecodedOnceOnFirstAccess() throws Exception {
+    Project.NameKey project = new Project.NameKey("project");
+    ChangeData cd = ChangeData.createForTest(project, new Change.Id(1), 1);
+    PatchSet ps = new PatchSet(new PatchSet.Id(cd.getId(), 1));
+    AtomicInteger decoded = new AtomicInteger();
+    cd.setUndecodedField(
+        ChangeField.PATCH_SET,
+        () -> {
+          decoded.incrementAndGet();
+          cd.setPatchSets(ImmutableList.of(ps));
+        });
+    assertThat(decoded.get()).isEqualTo(0);
+
+    assertThat(cd.patchSets()).containsExactly(ps);
+    assertThat(cd.patchSets()).containsExactly(ps);
+    assertThat(decoded.get()).isEqualTo(1);
+  }
+
+  @Test
+  public void settingValueDiscardsUndecodedField() throws Exception {
+    Project.NameKey project = new Project.NameKey("project");
+    ChangeData cd = ChangeData.createForTest(project, new Change.Id(1), 1);
+    PatchSet stored = new PatchSet(new PatchSet.Id(cd.getId(), 1));
+    PatchSet set = new PatchSet(new PatchSet.Id(cd.getId(), 2));
+    cd.setUndecodedField(ChangeField.PATCH_SET, () -> cd.setPatchSets(ImmutableList.of(stored)));
+
+    cd.setPatchSets(ImmutableList.of(set));
+    assertThat(cd.patchSets()).containsExactly(set);
+  }
 }